@@ -0,0 +1,26 @@
+package com.pg85.otg.benchmark;
+
+import com.pg85.otg.interfaces.IBiome;
+import com.pg85.otg.interfaces.IBiomeConfig;
+
+public class BenchmarkBiome implements IBiome
+{
+	private final IBiomeConfig biomeConfig;
+
+	public BenchmarkBiome(IBiomeConfig biomeConfig)
+	{
+		this.biomeConfig = biomeConfig;
+	}
+
+	@Override
+	public IBiomeConfig getBiomeConfig()
+	{
+		return this.biomeConfig;
+	}
+
+	@Override
+	public float getTemperatureAt(int x, int y, int z)
+	{
+		return this.biomeConfig.getBiomeTemperature();
+	}
+}
@@ -0,0 +1,78 @@
+package com.pg85.otg.benchmark;
+
+import java.util.Arrays;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.gen.ChunkBuffer;
+import com.pg85.otg.util.materials.LocalMaterialData;
+import com.pg85.otg.util.materials.LocalMaterials;
+
+/**
+ * A chunk backed by a flat array, indexed by local x/z and y - minY.
+ */
+public class BenchmarkChunkBuffer extends ChunkBuffer
+{
+	private ChunkCoordinate chunkCoord;
+	private final int minY;
+	private final int height;
+	private final LocalMaterialData[] blocks;
+
+	public BenchmarkChunkBuffer(ChunkCoordinate chunkCoord, int minY, int maxY)
+	{
+		this.chunkCoord = chunkCoord;
+		this.minY = minY;
+		this.height = maxY - minY + 1;
+		this.blocks = new LocalMaterialData[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE * this.height];
+		clear();
+	}
+
+	public void clear()
+	{
+		Arrays.fill(this.blocks, LocalMaterials.AIR);
+	}
+
+	public void copyFrom(BenchmarkChunkBuffer other)
+	{
+		System.arraycopy(other.blocks, 0, this.blocks, 0, this.blocks.length);
+	}
+
+	@Override
+	public ChunkCoordinate getChunkCoordinate()
+	{
+		return this.chunkCoord;
+	}
+
+	// Lets benchmarks reuse one buffer for different chunks.
+	public void setChunkCoordinate(ChunkCoordinate chunkCoord)
+	{
+		this.chunkCoord = chunkCoord;
+	}
+
+	@Override
+	public void setBlock(int blockX, int blockY, int blockZ, LocalMaterialData material)
+	{
+		int index = index(blockX, blockY, blockZ);
+		if(index != -1)
+		{
+			this.blocks[index] = material;
+		}
+	}
+
+	@Override
+	public LocalMaterialData getBlock(int blockX, int blockY, int blockZ)
+	{
+		int index = index(blockX, blockY, blockZ);
+		return index == -1 ? LocalMaterials.AIR : this.blocks[index];
+	}
+
+	private int index(int blockX, int blockY, int blockZ)
+	{
+		int y = blockY - this.minY;
+		if(y < 0 || y >= this.height)
+		{
+			return -1;
+		}
+		return ((blockX & 15) * Constants.CHUNK_SIZE + (blockZ & 15)) * this.height + y;
+	}
+}
@@ -0,0 +1,37 @@
+package com.pg85.otg.benchmark;
+
+import java.io.File;
+import java.nio.file.Path;
+
+import com.pg85.otg.core.OTGEngine;
+
+/**
+ * A headless OTGEngine, using a temporary OTG folder
+ * and benchmark materials instead of a platform.
+ */
+public class BenchmarkEngine extends OTGEngine
+{
+	public BenchmarkEngine(Path otgRootFolder, BenchmarkPresetLoader presetLoader)
+	{
+		super(
+			new BenchmarkLogger(),
+			otgRootFolder,
+			mod -> false,
+			presetLoader
+		);
+	}
+
+	@Override
+	public void onStart()
+	{
+		BenchmarkMaterials.init();
+		super.onStart();
+	}
+
+	@Override
+	public File getJarFile()
+	{
+		// Synthetic preset is written by SyntheticWorld, nothing to unpack.
+		return null;
+	}
+}
@@ -0,0 +1,27 @@
+package com.pg85.otg.benchmark;
+
+import com.pg85.otg.gen.biome.layers.BiomeLayerData;
+import com.pg85.otg.gen.biome.layers.BiomeLayers;
+import com.pg85.otg.gen.biome.layers.util.CachingLayerSampler;
+import com.pg85.otg.interfaces.ILayerSampler;
+import com.pg85.otg.interfaces.ILayerSource;
+import com.pg85.otg.interfaces.ILogger;
+
+/**
+ * Provides a biome layer stack per thread, like the platform biome providers.
+ */
+public class BenchmarkLayerSource implements ILayerSource
+{
+	private final ThreadLocal<CachingLayerSampler> layer;
+
+	public BenchmarkLayerSource(long seed, BiomeLayerData data, ILogger logger)
+	{
+		this.layer = ThreadLocal.withInitial(() -> BiomeLayers.create(seed, new BiomeLayerData(data), logger));
+	}
+
+	@Override
+	public ILayerSampler getSampler()
+	{
+		return this.layer.get();
+	}
+}
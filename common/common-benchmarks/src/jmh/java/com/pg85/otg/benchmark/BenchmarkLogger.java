@@ -0,0 +1,22 @@
+package com.pg85.otg.benchmark;
+
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+import com.pg85.otg.util.logging.Logger;
+
+/**
+ * Logs to stderr, so log output doesn't end up in JMH's results.
+ */
+public class BenchmarkLogger extends Logger
+{
+	@Override
+	public void log(LogLevel level, LogCategory category, String message)
+	{
+		if (this.minimumLevel.compareTo(level) < 0)
+		{
+			// Only log messages that we want to see...
+			return;
+		}
+		System.err.println("[OTG] [" + level + "] " + category.getLogTag() + " " + message);
+	}
+}
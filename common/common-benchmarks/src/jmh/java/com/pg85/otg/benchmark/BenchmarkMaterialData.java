@@ -0,0 +1,160 @@
+package com.pg85.otg.benchmark;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.pg85.otg.util.materials.LocalMaterialData;
+import com.pg85.otg.util.materials.LocalMaterialTag;
+import com.pg85.otg.util.materials.MaterialPalette;
+import com.pg85.otg.util.materials.MaterialProperty;
+
+/**
+ * A minimal material, identified only by its block name. Block
+ * states are ignored. Materials are interned, so each block name
+ * maps to one instance.
+ */
+public class BenchmarkMaterialData extends LocalMaterialData
+{
+	private static final ConcurrentHashMap<String, BenchmarkMaterialData> materials = new ConcurrentHashMap<>();
+	private static final AtomicInteger nextBlockId = new AtomicInteger();
+
+	private final String name;
+	private final boolean isAir;
+	private final boolean isLiquid;
+	private final boolean canFall;
+	private final int paletteId;
+
+	private BenchmarkMaterialData(String name)
+	{
+		this.name = name;
+		this.rawEntry = name;
+		this.isAir = name.equals("air") || name.equals("cave_air") || name.equals("void_air");
+		this.isLiquid = name.equals("water") || name.equals("lava");
+		this.canFall = name.equals("sand") || name.equals("red_sand") || name.equals("gravel");
+		// Block states are ignored, so each material is its own block.
+		this.paletteId = MaterialPalette.register(this, nextBlockId.getAndIncrement());
+	}
+
+	public static BenchmarkMaterialData of(String name)
+	{
+		String blockName = name.trim().toLowerCase();
+		int stateIndex = blockName.indexOf('[');
+		if(stateIndex != -1)
+		{
+			blockName = blockName.substring(0, stateIndex);
+		}
+		if(blockName.startsWith("minecraft:"))
+		{
+			blockName = blockName.substring("minecraft:".length());
+		}
+		return materials.computeIfAbsent(blockName, BenchmarkMaterialData::new);
+	}
+
+	@Override
+	public int getPaletteId()
+	{
+		return this.paletteId;
+	}
+
+	@Override
+	public <T extends Comparable<T>> LocalMaterialData withProperty(MaterialProperty<T> state, T value)
+	{
+		return this;
+	}
+
+	@Override
+	public String getName()
+	{
+		return "minecraft:" + this.name;
+	}
+
+	@Override
+	public String getRegistryName()
+	{
+		return "minecraft:" + this.name;
+	}
+
+	@Override
+	public boolean canSnowFallOn()
+	{
+		return !this.isAir && !this.isLiquid && !this.name.equals("ice") && !this.name.equals("packed_ice");
+	}
+
+	@Override
+	public boolean canFall()
+	{
+		return this.canFall;
+	}
+
+	@Override
+	public boolean isMaterial(LocalMaterialData material)
+	{
+		return this == material;
+	}
+
+	@Override
+	public boolean isBlockTag(LocalMaterialTag tag)
+	{
+		return false;
+	}
+
+	@Override
+	public boolean isLiquid()
+	{
+		return this.isLiquid;
+	}
+
+	@Override
+	public boolean isSolid()
+	{
+		return !this.isAir && !this.isLiquid;
+	}
+
+	@Override
+	public boolean isEmptyOrAir()
+	{
+		return this.isAir;
+	}
+
+	@Override
+	public boolean isNonCaveAir()
+	{
+		return this.name.equals("air");
+	}
+
+	@Override
+	public boolean isAir()
+	{
+		return this.isAir;
+	}
+
+	@Override
+	public boolean isEmpty()
+	{
+		return false;
+	}
+
+	@Override
+	public LocalMaterialData rotate(int rotateTimes)
+	{
+		return this;
+	}
+
+	@Override
+	public LocalMaterialData legalOrPersistentLeaves(boolean leaveIllegalLeaves)
+	{
+		return this;
+	}
+
+	@Override
+	public boolean equals(Object other)
+	{
+		return this == other;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return this.name.hashCode();
+	}
+}
@@ -0,0 +1,80 @@
+package com.pg85.otg.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.pg85.otg.exceptions.InvalidConfigException;
+import com.pg85.otg.interfaces.IMaterialReader;
+import com.pg85.otg.util.materials.LocalMaterialData;
+import com.pg85.otg.util.materials.LocalMaterialTag;
+import com.pg85.otg.util.materials.LocalMaterials;
+
+/**
+ * Fills LocalMaterials with benchmark materials, the way
+ * the platform layer would on a server, and reads materials
+ * from configs.
+ */
+public class BenchmarkMaterials implements IMaterialReader
+{
+	// LocalMaterials fields that don't match their block name
+	private static final Map<String, String> blockNames = new HashMap<>();
+	static
+	{
+		blockNames.put("GRASS", "grass_block");
+		blockNames.put("MAGMA", "magma_block");
+		blockNames.put("SILVER_TERRACOTTA", "light_gray_terracotta");
+		blockNames.put("LONG_GRASS", "grass");
+		blockNames.put("YELLOW_FLOWER", "dandelion");
+		blockNames.put("MELON_BLOCK", "melon");
+		blockNames.put("WATER_LILY", "lily_pad");
+		blockNames.put("SUGAR_CANE_BLOCK", "sugar_cane");
+	}
+
+	public static void init()
+	{
+		for(Field field : LocalMaterials.class.getFields())
+		{
+			if(!Modifier.isStatic(field.getModifiers()) || Modifier.isFinal(field.getModifiers()))
+			{
+				continue;
+			}
+			try
+			{
+				if(field.getType() == LocalMaterialData.class)
+				{
+					field.set(null, BenchmarkMaterialData.of(blockNames.getOrDefault(field.getName(), field.getName())));
+				}
+				else if(field.getType() == List.class)
+				{
+					field.set(null, new ArrayList<LocalMaterialData>());
+				}
+			}
+			catch (IllegalAccessException e)
+			{
+				throw new IllegalStateException("Could not initialise LocalMaterials." + field.getName(), e);
+			}
+		}
+	}
+
+	@Override
+	public LocalMaterialData readMaterial(String material) throws InvalidConfigException
+	{
+		if(material == null)
+		{
+			return null;
+		}
+		return BenchmarkMaterialData.of(material);
+	}
+
+	@Override
+	public LocalMaterialTag readTag(String tag) throws InvalidConfigException
+	{
+		// The synthetic preset doesn't use tags, null
+		// makes callers fall back to reading a material.
+		return null;
+	}
+}
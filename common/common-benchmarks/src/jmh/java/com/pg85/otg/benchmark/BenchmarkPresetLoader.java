@@ -0,0 +1,159 @@
+package com.pg85.otg.benchmark;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.pg85.otg.config.biome.BiomeConfigFinder.BiomeConfigStub;
+import com.pg85.otg.config.biome.BiomeGroup;
+import com.pg85.otg.core.config.world.WorldConfig;
+import com.pg85.otg.core.presets.LocalPresetLoader;
+import com.pg85.otg.core.presets.Preset;
+import com.pg85.otg.gen.biome.BiomeData;
+import com.pg85.otg.gen.biome.layers.BiomeLayerData;
+import com.pg85.otg.gen.biome.layers.NewBiomeGroup;
+import com.pg85.otg.interfaces.IBiome;
+import com.pg85.otg.interfaces.IBiomeConfig;
+import com.pg85.otg.interfaces.IMaterialReader;
+import com.pg85.otg.interfaces.IWorldConfig;
+
+/**
+ * Loads presets like the platform preset loaders, but registers
+ * biomes only with OTG. Isle/border biomes and TemplateForBiome
+ * aren't supported, the synthetic preset doesn't use them.
+ */
+public class BenchmarkPresetLoader extends LocalPresetLoader
+{
+	private final Map<String, IBiome[]> globalIdMapping = new HashMap<>();
+	private final Map<String, BiomeLayerData> presetGenerationData = new HashMap<>();
+
+	public BenchmarkPresetLoader(Path otgRootFolder)
+	{
+		super(otgRootFolder);
+	}
+
+	@Override
+	protected IMaterialReader createMaterialReader()
+	{
+		return new BenchmarkMaterials();
+	}
+
+	@Override
+	protected void mergeVanillaBiomeMobSpawnSettings(BiomeConfigStub biomeConfigStub, String inheritMobsBiomeName) { }
+
+	@Override
+	public void registerBiomes()
+	{
+		for(Preset preset : this.presets.values())
+		{
+			registerBiomesForPreset(preset);
+		}
+	}
+
+	private void registerBiomesForPreset(Preset preset)
+	{
+		HashMap<Integer, Integer> biomeColorMap = new HashMap<>();
+		Map<String, List<Integer>> worldBiomes = new HashMap<>();
+		Map<String, IBiomeConfig> biomeConfigsByName = new LinkedHashMap<>();
+		IWorldConfig worldConfig = preset.getWorldConfig();
+		IBiomeConfig oceanBiomeConfig = null;
+		int[] oceanTemperatures = new int[]{0, 0, 0, 0};
+
+		for(IBiomeConfig biomeConfig : preset.getAllBiomeConfigs())
+		{
+			biomeConfigsByName.put(biomeConfig.getName(), biomeConfig);
+		}
+
+		// Biome id 0 is reserved for ocean, see PaperPresetLoader.
+		int currentId = 1;
+		IBiome[] presetIdMapping = new IBiome[biomeConfigsByName.size()];
+		for(IBiomeConfig biomeConfig : biomeConfigsByName.values())
+		{
+			boolean isOceanBiome = biomeConfig.getName().equals(worldConfig.getDefaultOceanBiome());
+			int otgBiomeId = isOceanBiome ? 0 : currentId;
+			if(isOceanBiome)
+			{
+				oceanBiomeConfig = biomeConfig;
+			}
+			biomeConfig.setOTGBiomeId(otgBiomeId);
+			presetIdMapping[otgBiomeId] = new BenchmarkBiome(biomeConfig);
+			worldBiomes.computeIfAbsent(biomeConfig.getName(), k -> new ArrayList<>()).add(otgBiomeId);
+			biomeColorMap.put(biomeConfig.getBiomeColor(), otgBiomeId);
+			currentId += isOceanBiome ? 0 : 1;
+		}
+		if (oceanBiomeConfig == null)
+		{
+			System.arraycopy(presetIdMapping, 1, presetIdMapping, 0, presetIdMapping.length - 1);
+		}
+		this.globalIdMapping.put(preset.getFolderName(), presetIdMapping);
+
+		BiomeLayerData data = new BiomeLayerData(preset.getPresetFolder(), worldConfig, oceanBiomeConfig, oceanTemperatures);
+		Set<Integer> biomeDepths = new HashSet<>();
+		Map<Integer, List<NewBiomeGroup>> groupDepths = new HashMap<>();
+		int genDepth = worldConfig.getGenerationDepth();
+		for (BiomeGroup group : ((WorldConfig)worldConfig).getBiomeGroupManager().getGroups())
+		{
+			NewBiomeGroup bg = new NewBiomeGroup();
+			bg.id = group.getGroupId();
+			bg.rarity = group.getGroupRarity();
+			bg.totalDepthRarity = new int[genDepth + 1];
+			bg.maxRarityPerDepth = new int[genDepth + 1];
+
+			float totalTemp = 0;
+			for (String biomeName : group.getBiomes())
+			{
+				IBiomeConfig config = biomeConfigsByName.get(biomeName);
+				if(config == null)
+				{
+					continue;
+				}
+				bg.biomes.add(
+					new BiomeData(
+						config.getOTGBiomeId(),
+						config.getBiomeRarity(),
+						config.getBiomeSize(),
+						config.getBiomeTemperature(),
+						config.getIsleInBiomes(),
+						config.getBorderInBiomes(),
+						config.getOnlyBorderNearBiomes(),
+						config.getNotBorderNearBiomes()
+					)
+				);
+				biomeDepths.add(config.getBiomeSize());
+				totalTemp += config.getBiomeTemperature();
+				bg.totalGroupRarity += config.getBiomeRarity();
+				bg.totalDepthRarity[config.getBiomeSize()] += config.getBiomeRarity();
+			}
+
+			for (int depth = 0; depth < bg.totalDepthRarity.length; depth++)
+			{
+				for (int j = depth; j < bg.totalDepthRarity.length; j++)
+				{
+					bg.maxRarityPerDepth[depth] += bg.totalDepthRarity[j];
+				}
+			}
+			bg.avgTemp = totalTemp / group.getBiomes().size();
+
+			groupDepths.computeIfAbsent(group.getGenerationDepth(), k -> new ArrayList<>()).add(bg);
+			data.groupRegistry.put(bg.id, bg);
+		}
+
+		data.init(biomeDepths, groupDepths, new HashMap<>(), new HashMap<>(), worldBiomes, biomeColorMap, presetIdMapping);
+		this.presetGenerationData.put(preset.getFolderName(), data);
+	}
+
+	public IBiome[] getGlobalIdMapping(String presetFolderName)
+	{
+		return this.globalIdMapping.get(presetFolderName);
+	}
+
+	public BiomeLayerData getPresetGenerationData(String presetFolderName)
+	{
+		return this.presetGenerationData.get(presetFolderName);
+	}
+}
@@ -0,0 +1,62 @@
+package com.pg85.otg.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.pg85.otg.interfaces.ILayerSampler;
+
+/**
+ * The BiomeLayers stack, per column and per area.
+ * Coordinates move far enough between calls that
+ * the top layers' caches don't hit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BiomeLayersBenchmark
+{
+	@Param({"4", "8", "16"})
+	public int areaSize;
+
+	private ILayerSampler sampler;
+	private int[] area;
+	private int x;
+
+	@Setup
+	public void setup()
+	{
+		this.sampler = SyntheticWorld.get().createLayerSource().getSampler();
+		this.area = new int[this.areaSize * this.areaSize];
+	}
+
+	@Benchmark
+	public int sampleColumns()
+	{
+		this.x += this.areaSize;
+		int hash = 0;
+		for (int internalX = 0; internalX < this.areaSize; internalX++)
+		{
+			for (int internalZ = 0; internalZ < this.areaSize; internalZ++)
+			{
+				hash += this.sampler.sample(this.x + internalX, internalZ);
+			}
+		}
+		return hash;
+	}
+
+	@Benchmark
+	public int[] sampleArea()
+	{
+		this.x += this.areaSize;
+		this.sampler.sampleArea(this.x, 0, this.areaSize, this.areaSize, this.area);
+		return this.area;
+	}
+}
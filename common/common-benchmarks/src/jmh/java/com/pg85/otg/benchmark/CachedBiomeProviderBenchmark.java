@@ -0,0 +1,88 @@
+package com.pg85.otg.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.pg85.otg.core.OTG;
+import com.pg85.otg.gen.biome.CachedBiomeProvider;
+import com.pg85.otg.interfaces.IBiome;
+import com.pg85.otg.interfaces.IBiomeConfig;
+import com.pg85.otg.util.ChunkCoordinate;
+
+/**
+ * CachedBiomeProvider hit and miss paths. Misses walk along
+ * the x axis, so every chunk / noise region is new. Shared
+ * between threads, run with -t to measure contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CachedBiomeProviderBenchmark
+{
+	private CachedBiomeProvider provider;
+	private final ChunkCoordinate cachedChunk = ChunkCoordinate.fromChunkCoords(0, 0);
+
+	@State(Scope.Thread)
+	public static class Position
+	{
+		private int chunkX;
+		private int noiseX;
+
+		@Setup
+		public void setup()
+		{
+			// Spread threads out, so they don't request the same chunks.
+			this.chunkX = (int)(Thread.currentThread().getId() * 1000000);
+			this.noiseX = this.chunkX * 4;
+		}
+	}
+
+	@Setup
+	public void setup()
+	{
+		SyntheticWorld world = SyntheticWorld.get();
+		this.provider = new CachedBiomeProvider(
+			SyntheticWorld.SEED,
+			world.createLayerSource(),
+			world.getBiomesById(),
+			OTG.getEngine().getLogger(),
+			OTG.getEngine().getPluginConfig().getBiomeCacheSize(),
+			OTG.getEngine().getPluginConfig().getNoiseBiomeCacheSize()
+		);
+		this.provider.getBiomesForChunk(this.cachedChunk);
+		this.provider.getNoiseBiomeConfig(0, 0, true);
+	}
+
+	@Benchmark
+	public IBiome[] chunkBiomesHit()
+	{
+		return this.provider.getBiomesForChunk(this.cachedChunk);
+	}
+
+	@Benchmark
+	public IBiome[] chunkBiomesMiss(Position position)
+	{
+		return this.provider.getBiomesForChunk(ChunkCoordinate.fromChunkCoords(position.chunkX++, 0));
+	}
+
+	@Benchmark
+	public IBiomeConfig noiseBiomeHit()
+	{
+		return this.provider.getNoiseBiomeConfig(0, 0, true);
+	}
+
+	@Benchmark
+	public IBiomeConfig noiseBiomeMiss(Position position)
+	{
+		// Noise regions are 8x8
+		position.noiseX += 8;
+		return this.provider.getNoiseBiomeConfig(position.noiseX, 0, true);
+	}
+}
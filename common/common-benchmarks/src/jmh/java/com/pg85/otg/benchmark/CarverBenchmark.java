@@ -0,0 +1,77 @@
+package com.pg85.otg.benchmark;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.pg85.otg.core.gen.OTGChunkGenerator;
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.gen.JigsawStructureData;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+/**
+ * CaveCarver and RavineCarver, run through OTGChunkGenerator.carve
+ * for a set of pre-generated chunks. Each chunk is restored from its
+ * template before every call, so carvers always cut into solid terrain.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CarverBenchmark
+{
+	// Carvers only start in a fraction of chunks, so cycle through
+	// enough chunks to include both empty and busy ones.
+	private static final int CHUNKS = 16;
+
+	@Param({"caves", "ravines"})
+	public String carver;
+
+	private OTGChunkGenerator generator;
+	private BenchmarkChunkBuffer[] templates;
+	private BenchmarkChunkBuffer buffer;
+	private final BitSet carvingMask = new BitSet();
+	private int chunk;
+
+	@Setup
+	public void setup()
+	{
+		SyntheticWorld world = SyntheticWorld.get();
+		this.generator = world.createChunkGenerator();
+		this.templates = new BenchmarkChunkBuffer[CHUNKS];
+		int worldHeightCap = world.getPreset().getWorldConfig().getWorldHeightCap();
+		for (int i = 0; i < CHUNKS; i++)
+		{
+			this.templates[i] = world.createChunkBuffer(i, 0);
+			this.generator.populateNoise(worldHeightCap, new Random(SyntheticWorld.SEED + i), this.templates[i], ChunkCoordinate.fromChunkCoords(i, 0), new ObjectArrayList<JigsawStructureData>(), new ObjectArrayList<JigsawStructureData>());
+		}
+		this.buffer = world.createChunkBuffer(0, 0);
+	}
+
+	@Setup(Level.Invocation)
+	public void resetChunk()
+	{
+		this.chunk = (this.chunk + 1) % CHUNKS;
+		this.buffer.copyFrom(this.templates[this.chunk]);
+		this.buffer.setChunkCoordinate(this.templates[this.chunk].getChunkCoordinate());
+		this.carvingMask.clear();
+	}
+
+	@Benchmark
+	public BenchmarkChunkBuffer carve()
+	{
+		boolean caves = this.carver.equals("caves");
+		this.generator.carve(this.buffer, SyntheticWorld.SEED, this.chunk, 0, this.carvingMask, caves, !caves);
+		return this.buffer;
+	}
+}
@@ -0,0 +1,96 @@
+package com.pg85.otg.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.pg85.otg.core.gen.OTGChunkGenerator;
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.gen.JigsawStructureData;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectList;
+
+/**
+ * Base terrain generation. New chunks are generated along the x axis,
+ * so biome and noise caches only hit for the shared edge columns, as
+ * when a player walks in a straight line. Run with -prof gc to check
+ * allocation rates.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkGeneratorBenchmark
+{
+	// Noise columns per chunk, see OTGChunkGenerator.noiseSizeX/Z.
+	private static final int NOISE_COLUMNS = 4 * 4;
+
+	private final ObjectList<JigsawStructureData> structures = new ObjectArrayList<>();
+	private final ObjectList<JigsawStructureData> junctions = new ObjectArrayList<>();
+	private final Random random = new Random();
+	private OTGChunkGenerator generator;
+	private BenchmarkChunkBuffer buffer;
+	private double[] noiseColumn;
+	private int worldHeightCap;
+	private int chunkX;
+	private int noiseX;
+
+	@Setup
+	public void setup()
+	{
+		SyntheticWorld world = SyntheticWorld.get();
+		this.generator = world.createChunkGenerator();
+		this.buffer = world.createChunkBuffer(0, 0);
+		this.noiseColumn = new double[this.generator.getNoiseSizeY() + 1];
+		this.worldHeightCap = world.getPreset().getWorldConfig().getWorldHeightCap();
+		// Keep threads apart, so they don't share cached biomes.
+		this.chunkX = (int)(Thread.currentThread().getId() * 100000);
+		this.noiseX = this.chunkX * 4;
+	}
+
+	@Benchmark
+	public BenchmarkChunkBuffer populateNoise()
+	{
+		return populate(this.chunkX++, 0);
+	}
+
+	@Benchmark
+	public BenchmarkChunkBuffer populateNoiseCached()
+	{
+		// Same chunk every time, biome and noise caches always hit.
+		return populate(0, 0);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NOISE_COLUMNS)
+	public double[] generateNoiseColumn()
+	{
+		// A new noise column each call, so it's never cached.
+		for (int noiseZ = 0; noiseZ < NOISE_COLUMNS; noiseZ++)
+		{
+			this.generator.getNoiseColumn(this.noiseColumn, this.noiseX, noiseZ);
+		}
+		this.noiseX++;
+		return this.noiseColumn;
+	}
+
+	private BenchmarkChunkBuffer populate(int chunkX, int chunkZ)
+	{
+		// Start from an empty chunk, like a new proto chunk. Clearing
+		// is cheap compared to generation, so it's left in the timing.
+		ChunkCoordinate chunkCoord = ChunkCoordinate.fromChunkCoords(chunkX, chunkZ);
+		this.buffer.clear();
+		this.buffer.setChunkCoordinate(chunkCoord);
+		this.random.setSeed(SyntheticWorld.SEED ^ ((long)chunkX << 32 | chunkZ & 0xFFFFFFFFL));
+		this.generator.populateNoise(this.worldHeightCap, this.random, this.buffer, chunkCoord, this.structures, this.junctions);
+		return this.buffer;
+	}
+}
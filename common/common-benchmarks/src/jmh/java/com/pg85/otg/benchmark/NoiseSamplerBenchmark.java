@@ -0,0 +1,83 @@
+package com.pg85.otg.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.pg85.otg.gen.noise.OctavePerlinNoiseSampler;
+import com.pg85.otg.gen.noise.PerlinNoiseSampler;
+
+/**
+ * Raw noise sampling, as used by OTGChunkGenerator.generateNoiseColumn.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NoiseSamplerBenchmark
+{
+	// Matches the default 256 world height, 8 blocks per noise cell.
+	private static final int NOISE_SIZE_Y = 32;
+
+	private PerlinNoiseSampler perlin;
+	private OctavePerlinNoiseSampler octaves;
+	private double x;
+	private final double[] columnYs = new double[NOISE_SIZE_Y + 1];
+	private final double[] column = new double[NOISE_SIZE_Y + 1];
+
+	@Setup
+	public void setup()
+	{
+		for (int y = 0; y <= NOISE_SIZE_Y; y++)
+		{
+			this.columnYs[y] = y * 684.412D;
+		}
+		Random random = new Random(SyntheticWorld.SEED);
+		this.perlin = new PerlinNoiseSampler(random);
+		this.octaves = new OctavePerlinNoiseSampler(random, IntStream.rangeClosed(-15, 0));
+	}
+
+	@Benchmark
+	public double perlinSample()
+	{
+		this.x += 0.731D;
+		return this.perlin.sample(this.x, 12.5D, this.x * 0.5D, 0.0D, 0.0D);
+	}
+
+	@Benchmark
+	public double octavePerlinSample()
+	{
+		this.x += 0.731D;
+		return this.octaves.sample(this.x, 12.5D, this.x * 0.5D);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(NOISE_SIZE_Y + 1)
+	public void perlinColumn(Blackhole blackhole)
+	{
+		this.x += 4.0D;
+		for (int y = 0; y <= NOISE_SIZE_Y; y++)
+		{
+			blackhole.consume(this.perlin.sample(this.x * 684.412D, this.columnYs[y], this.x * 0.5D * 684.412D, 0.0D, 0.0D));
+		}
+	}
+
+	// The per-octave column path generateNoiseColumn uses.
+	@Benchmark
+	@OperationsPerInvocation(NOISE_SIZE_Y + 1)
+	public double[] perlinColumnBatch()
+	{
+		this.x += 4.0D;
+		this.perlin.sampleColumn(this.x * 684.412D, this.x * 0.5D * 684.412D, this.columnYs, 0.0D, null, NOISE_SIZE_Y + 1, this.column);
+		return this.column;
+	}
+}
@@ -0,0 +1,102 @@
+package com.pg85.otg.benchmark;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.gen.noise.legacy.NoiseGeneratorPerlinMesaBlocks;
+import com.pg85.otg.interfaces.IBiome;
+import com.pg85.otg.interfaces.IBiomeConfig;
+import com.pg85.otg.util.gen.GeneratingChunk;
+import com.pg85.otg.util.materials.LocalMaterials;
+
+/**
+ * Surface and ground generation for one chunk of a single biome,
+ * one per surface generator (simple, multiple layers, mesa).
+ * Terrain is a flat layer of stone, restored before every call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SurfaceGeneratorBenchmark
+{
+	private static final int SURFACE_Y = 70;
+
+	@Param({"Plains", "Forest", "Badlands", "Tundra"})
+	public String biomeName;
+
+	private IBiome biome;
+	private BenchmarkChunkBuffer template;
+	private BenchmarkChunkBuffer buffer;
+	private GeneratingChunk generatingChunk;
+
+	@Setup
+	public void setup()
+	{
+		SyntheticWorld world = SyntheticWorld.get();
+		for (IBiome biome : world.getBiomesById())
+		{
+			if (biome.getBiomeConfig().getName().equals(this.biomeName))
+			{
+				this.biome = biome;
+			}
+		}
+		if (this.biome == null)
+		{
+			throw new IllegalStateException("Synthetic preset has no biome " + this.biomeName);
+		}
+		IBiomeConfig biomeConfig = this.biome.getBiomeConfig();
+		int minY = world.getPreset().getWorldConfig().getWorldMinY();
+
+		this.template = world.createChunkBuffer(0, 0);
+		this.buffer = world.createChunkBuffer(0, 0);
+		for (int x = 0; x < Constants.CHUNK_SIZE; x++)
+		{
+			for (int z = 0; z < Constants.CHUNK_SIZE; z++)
+			{
+				for (int y = minY; y <= SURFACE_Y; y++)
+				{
+					this.template.setBlock(x, y, z, LocalMaterials.STONE);
+				}
+				this.template.setHighestBlockForColumn(x, z, SURFACE_Y);
+				this.buffer.setHighestBlockForColumn(x, z, SURFACE_Y);
+			}
+		}
+
+		int[] waterLevel = new int[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		Arrays.fill(waterLevel, biomeConfig.getWaterLevelMax());
+		Random random = new Random(SyntheticWorld.SEED);
+		double[] surfaceNoise = new NoiseGeneratorPerlinMesaBlocks(random, 4).getRegion(new double[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE], 0, 0, Constants.CHUNK_SIZE, Constants.CHUNK_SIZE, 0.0625D, 0.0625D, 1.0D);
+		this.generatingChunk = new GeneratingChunk(random, waterLevel, surfaceNoise, world.getPreset().getWorldConfig().getWorldHeightCap());
+	}
+
+	@Setup(Level.Invocation)
+	public void resetChunk()
+	{
+		this.buffer.copyFrom(this.template);
+	}
+
+	@Benchmark
+	public BenchmarkChunkBuffer surfaceAndGround()
+	{
+		for (int x = 0; x < Constants.CHUNK_SIZE; x++)
+		{
+			for (int z = 0; z < Constants.CHUNK_SIZE; z++)
+			{
+				this.biome.getBiomeConfig().doSurfaceAndGroundControl(SyntheticWorld.SEED, this.generatingChunk, this.buffer, x, z, this.biome);
+			}
+		}
+		return this.buffer;
+	}
+}
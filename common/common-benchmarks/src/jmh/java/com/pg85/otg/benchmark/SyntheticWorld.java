@@ -0,0 +1,145 @@
+package com.pg85.otg.benchmark;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.core.OTG;
+import com.pg85.otg.core.gen.OTGChunkGenerator;
+import com.pg85.otg.core.presets.Preset;
+import com.pg85.otg.gen.biome.layers.BiomeLayerData;
+import com.pg85.otg.interfaces.IBiome;
+import com.pg85.otg.interfaces.ILayerSource;
+import com.pg85.otg.util.ChunkCoordinate;
+
+/**
+ * A small synthetic preset, written to a temporary OTG folder and
+ * loaded through the regular preset loader, so benchmarks run
+ * against real WorldConfig/BiomeConfig objects without a server.
+ * The world uses the default height range (WorldMinY/WorldMaxY).
+ *
+ * OTG only supports one engine per JVM, so all benchmarks in a
+ * fork share the same world.
+ */
+public final class SyntheticWorld
+{
+	public static final String PRESET_NAME = "Benchmark";
+	public static final long SEED = 3169282764129345L;
+
+	private static SyntheticWorld instance;
+
+	private final Preset preset;
+	private final BiomeLayerData layerData;
+	private final IBiome[] biomesById;
+
+	public static synchronized SyntheticWorld get()
+	{
+		if(instance == null)
+		{
+			instance = new SyntheticWorld();
+		}
+		return instance;
+	}
+
+	private SyntheticWorld()
+	{
+		Path otgRootFolder;
+		try
+		{
+			otgRootFolder = Files.createTempDirectory("otg-benchmark");
+			writePreset(otgRootFolder.resolve(Constants.PRESETS_FOLDER).resolve(PRESET_NAME));
+		}
+		catch (IOException e)
+		{
+			throw new UncheckedIOException(e);
+		}
+
+		BenchmarkPresetLoader presetLoader = new BenchmarkPresetLoader(otgRootFolder);
+		OTG.startEngine(new BenchmarkEngine(otgRootFolder, presetLoader));
+		presetLoader.registerBiomes();
+
+		this.preset = presetLoader.getPresetByFolderName(PRESET_NAME);
+		this.layerData = presetLoader.getPresetGenerationData(PRESET_NAME);
+		this.biomesById = presetLoader.getGlobalIdMapping(PRESET_NAME);
+		if(this.preset == null || this.layerData == null)
+		{
+			throw new IllegalStateException("Could not load synthetic preset from " + otgRootFolder);
+		}
+	}
+
+	public Preset getPreset()
+	{
+		return this.preset;
+	}
+
+	public IBiome[] getBiomesById()
+	{
+		return this.biomesById;
+	}
+
+	public ILayerSource createLayerSource()
+	{
+		return new BenchmarkLayerSource(SEED, this.layerData, OTG.getEngine().getLogger());
+	}
+
+	public OTGChunkGenerator createChunkGenerator()
+	{
+		return new OTGChunkGenerator(this.preset, SEED, createLayerSource(), this.biomesById, OTG.getEngine().getLogger());
+	}
+
+	public BenchmarkChunkBuffer createChunkBuffer(int chunkX, int chunkZ)
+	{
+		return new BenchmarkChunkBuffer(
+			ChunkCoordinate.fromChunkCoords(chunkX, chunkZ),
+			this.preset.getWorldConfig().getWorldMinY(),
+			this.preset.getWorldConfig().getWorldMaxY()
+		);
+	}
+
+	// Preset files
+
+	private static void writePreset(Path presetFolder) throws IOException
+	{
+		Path biomesFolder = presetFolder.resolve(Constants.WORLD_BIOMES_FOLDER);
+		Files.createDirectories(biomesFolder);
+
+		write(presetFolder.resolve(Constants.WORLD_CONFIG_FILE),
+			"ShortPresetName: " + PRESET_NAME,
+			"BiomeMode: Normal",
+			"GenerationDepth: 10",
+			"LandRarity: 99",
+			"LandSize: 0",
+			"RiversEnabled: true",
+			"LargeOreVeins: true",
+			"DefaultOceanBiome: Ocean",
+			"DefaultFrozenOceanBiome: Ocean",
+			"DefaultWarmOceanBiome: Ocean",
+			"DefaultLukewarmOceanBiome: Ocean",
+			"DefaultColdOceanBiome: Ocean",
+			"BiomeGroup(NormalBiomes, 2, 98, Plains, Forest, Hills, Badlands)",
+			"BiomeGroup(IceBiomes, 3, 40, Tundra)"
+		);
+
+		// One biome per surface generator, plus a range of height/volatility settings.
+		writeBiome(biomesFolder, "Ocean", "BiomeHeight: -1.0", "BiomeVolatility: 0.1", "SurfaceBlock: sand", "GroundBlock: sand");
+		writeBiome(biomesFolder, "Plains", "BiomeSize: 6", "BiomeHeight: 0.1", "BiomeVolatility: 0.05");
+		writeBiome(biomesFolder, "Forest", "BiomeSize: 6", "BiomeHeight: 0.2", "BiomeVolatility: 0.3", "SurfaceAndGroundControl: STONE,STONE,-0.8,GRAVEL,STONE,0.0,DIRT,DIRT,10.0");
+		writeBiome(biomesFolder, "Hills", "BiomeSize: 7", "BiomeHeight: 1.2", "BiomeVolatility: 0.6");
+		writeBiome(biomesFolder, "Badlands", "BiomeSize: 6", "BiomeTemperature: 2.0", "BiomeHeight: 0.4", "BiomeVolatility: 0.4", "SurfaceBlock: red_sand", "GroundBlock: red_sand", "SurfaceAndGroundControl: " + Constants.MESA_NAME_BRYCE);
+		writeBiome(biomesFolder, "Tundra", "BiomeSize: 5", "BiomeTemperature: 0.0", "BiomeHeight: 0.2", "BiomeVolatility: 0.1", "SurfaceBlock: snow_block");
+	}
+
+	private static void writeBiome(Path biomesFolder, String name, String... settings) throws IOException
+	{
+		write(biomesFolder.resolve(name + Constants.BiomeConfigFileExtension), settings);
+	}
+
+	private static void write(Path file, String... lines) throws IOException
+	{
+		Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+	}
+}
@@ -15,6 +15,8 @@ import java.io.File;
 import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 
 /**
  * This class searches for the appropriate file for each biome.
@@ -35,12 +37,16 @@ public final class BiomeConfigFinder
 	 * 
 	 * @param worldBiomes The biomes to load.
 	 * @param directories The directories to search in.
+	 * @param pool The pool used to parse the biome files in parallel.
 	 *
 	 * @return A map of biome name --> location on disk.
 	 */
-	public Map<String, BiomeConfigStub> findBiomes(List<String> worldBiomes, int worldHeightScale, Collection<Path> directories, ILogger logger, IMaterialReader materialReader)
+	public Map<String, BiomeConfigStub> findBiomes(List<String> worldBiomes, int worldHeightScale, Collection<Path> directories, ILogger logger, IMaterialReader materialReader, ForkJoinPool pool)
 	{
-		Map<String, BiomeConfigStub> biomeConfigsStore = new HashMap<String, BiomeConfigStub>();
+		// Find all biome files first, then parse them in parallel.
+		List<File> biomeFiles = new ArrayList<File>();
+		List<File> renamedBiomeFiles = new ArrayList<File>();
+		List<String> biomeNames = new ArrayList<String>();
 
 		// Search all directories
 		for (Path directoryPath  : directories)
@@ -49,29 +55,51 @@ public final class BiomeConfigFinder
 			// Account for the possibility that folder creation failed
 			if (directory.exists())
 			{
-				loadBiomesFromDirectory(worldBiomes, worldHeightScale, biomeConfigsStore, directory, logger, materialReader);
+				findBiomesInDirectory(biomeFiles, renamedBiomeFiles, biomeNames, directory, logger);
 			}
 		}
-		
+
+		List<ForkJoinTask<BiomeConfigStub>> tasks = new ArrayList<ForkJoinTask<BiomeConfigStub>>(biomeFiles.size());
+		for (int i = 0; i < biomeFiles.size(); i++)
+		{
+			File file = biomeFiles.get(i);
+			File renamedFile = renamedBiomeFiles.get(i);
+			String biomeName = biomeNames.get(i);
+			tasks.add(pool.submit(() -> 
+			{
+				SettingsMap settings = FileSettingsReader.read(biomeName, renamedFile, logger);
+				return new BiomeConfigStub(settings, file.toPath(), biomeName, logger, materialReader);
+			}));
+		}
+
+		// Iteration order of the store is HashMap order (by biome name),
+		// not file or task order, same as when loading serially. Don't
+		// rely on it for anything order sensitive, like biome id assignment.
+		Map<String, BiomeConfigStub> biomeConfigsStore = new HashMap<String, BiomeConfigStub>();
+		for (int i = 0; i < tasks.size(); i++)
+		{
+			biomeConfigsStore.put(biomeNames.get(i), tasks.get(i).join());
+		}
 		return biomeConfigsStore;
 	}
 
 	/**
-	 * Loads the biomes from the given directory.
+	 * Finds the biome files in the given directory, renaming
+	 * them if they don't have the correct extension.
 	 * 
-	 * @param biomeConfigsStore Map to store all the found biome configs in.
-	 * @param directory		 The directory to load from.
-	 * @param worldBiomes	The biomes that should still be loaded. When a
-	 *						  biome is found, it is removed from this map.
+	 * @param biomeFiles        List to store all the found biome files in.
+	 * @param renamedBiomeFiles List to store the renamed biome files in.
+	 * @param biomeNames        List to store the found biome names in.
+	 * @param directory         The directory to search in.
 	 */
-	private void loadBiomesFromDirectory(List<String> worldBiomes, int worldHeightScale, Map<String, BiomeConfigStub> biomeConfigsStore, File directory, ILogger logger, IMaterialReader materialReader)
+	private void findBiomesInDirectory(List<File> biomeFiles, List<File> renamedBiomeFiles, List<String> biomeNames, File directory, ILogger logger)
 	{
 		for (File file : directory.listFiles())
 		{
 			// Search recursively
 			if (file.isDirectory())
 			{
-				loadBiomesFromDirectory(worldBiomes, worldHeightScale, biomeConfigsStore, file, logger, materialReader);
+				findBiomesInDirectory(biomeFiles, renamedBiomeFiles, biomeNames, file, logger);
 				continue;
 			}
 
@@ -82,12 +110,10 @@ public final class BiomeConfigFinder
 				// Not a valid biome file
 				continue;
 			}
-			
-			// Load biomeconfig
-			File renamedFile = renameBiomeFile(file, biomeName, logger);
-			SettingsMap settings = FileSettingsReader.read(biomeName, renamedFile, logger);
-			BiomeConfigStub biomeConfigStub = new BiomeConfigStub(settings, file.toPath(), biomeName, logger, materialReader);
-			biomeConfigsStore.put(biomeName, biomeConfigStub);
+
+			biomeFiles.add(file);
+			renamedBiomeFiles.add(renameBiomeFile(file, biomeName, logger));
+			biomeNames.add(biomeName);
 		}
 	}
 
@@ -20,4 +20,11 @@ public class PluginConfigStandardValues extends Settings
 	public static final Setting<Boolean> LOG_PERFORMANCE = booleanSetting("LogPerformance", false);
 	public static final Setting<Boolean> DEVELOPER_MODE = booleanSetting("DeveloperMode", false);
 	public static final Setting<Integer> WORKER_THREADS = intSetting("WorkerThreads", 0, 0, 10);
+	public static final Setting<Integer> BIOME_CACHE_SIZE = intSetting("BiomeCacheSize", 1024, 16, 65536);
+	public static final Setting<Integer> NOISE_BIOME_CACHE_SIZE = intSetting("NoiseBiomeCacheSize", 4096, 16, 65536);
+	public static final Setting<Boolean> ASYNC_BASE_TERRAIN = booleanSetting("AsyncBaseTerrain", true);
+	public static final Setting<Boolean> SECTION_PARALLEL_BASE_TERRAIN = booleanSetting("SectionParallelBaseTerrain", false);
+	public static final Setting<Boolean> WORLD_GEN_TIMINGS = booleanSetting("WorldGenTimings", true);
+	public static final Setting<Integer> NOISE_COLUMN_CACHE_SIZE = intSetting("NoiseColumnCacheSize", 4096, 128, 262144);
+	public static final Setting<Boolean> PRELOAD_CUSTOM_OBJECTS = booleanSetting("PreloadCustomObjects", true);
 }
@@ -90,6 +90,7 @@ public class WorldStandardValues extends Settings
 		RAVINE_MIN_LENGTH = intSetting("RavineMinLength", 84, 1, 500),
 		RAVINE_MAX_LENGTH = intSetting("RavineMaxLength", 112, 1, 500),
 		MAXIMUM_CUSTOM_STRUCTURE_RADIUS = intSetting("MaximumCustomStructureRadius", 5, 1, 100),
+		SHADOW_CHUNK_CACHE_SIZE_MB = intSetting("ShadowChunkCacheSizeMB", 32, 0, 65536),
 		CARVER_LAVA_BLOCK_HEIGHT = intSetting("CarverLavaBlockHeight", 10, 0, 255),
 		RANDOM_TICK_SPEED = intSetting("RandomTickSpeed", 3, 0, Integer.MAX_VALUE),
 		SPAWN_RADIUS = intSetting("SpawnRadius", 10, 0, Integer.MAX_VALUE),
@@ -157,6 +158,7 @@ public class WorldStandardValues extends Settings
 		REMOVE_SURFACE_STONE = booleanSetting("RemoveSurfaceStone", false),
 		USE_OLD_BO3_STRUCTURE_RARITY = booleanSetting("UseOldBO3StructureRarity", true),				
 		DECORATION_BOUNDS_CHECK = booleanSetting("DecorationBoundsCheck", true),
+		COMPACT_SHADOW_CHUNKS = booleanSetting("CompactShadowChunks", false),
 		DISABLE_OREGEN = booleanSetting("DisableOreGen", false),
 
 		OLD_GROUP_RARITY = booleanSetting("OldGroupRarity", false),
@@ -10,20 +10,27 @@ import com.pg85.otg.core.config.PluginConfig;
 import com.pg85.otg.core.config.biome.BiomeConfig;
 import com.pg85.otg.core.config.world.WorldConfig;
 import com.pg85.otg.core.presets.LocalPresetLoader;
+import com.pg85.otg.core.presets.Preset;
 import com.pg85.otg.customobject.CustomObjectManager;
 import com.pg85.otg.customobject.config.CustomObjectResourcesManager;
+import com.pg85.otg.customobject.resource.CustomStructureResource;
+import com.pg85.otg.customobject.resource.ICustomObjectResource;
 import com.pg85.otg.customobject.structures.CustomStructureCache;
+import com.pg85.otg.interfaces.IBiomeConfig;
 import com.pg85.otg.interfaces.ILogger;
 import com.pg85.otg.interfaces.IModLoadedChecker;
 import com.pg85.otg.interfaces.IPluginConfig;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
+import com.pg85.otg.util.metrics.WorldGenMetrics;
 
 import java.io.*;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Set;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 
@@ -91,6 +98,7 @@ public abstract class OTGEngine
 			this.pluginConfig.logPresets()
 		);
 		FileSettingsWriter.writeToFile(this.pluginConfig.getSettingsAsMap(), pluginConfigFile, this.pluginConfig.getSettingsMode(), this.logger);
+		WorldGenMetrics.setTimingsEnabled(this.pluginConfig.getWorldGenTimings());
 
 		// Create OTG folders
 
@@ -135,6 +143,43 @@ public abstract class OTGEngine
 		// Load presets
 
 		this.presetLoader.loadPresetsFromDisk(this.biomeResourcesManager, this.logger);
+
+		// Load custom objects used by presets
+
+		if(this.pluginConfig.getPreloadCustomObjects() && !this.pluginConfig.getDeveloperModeEnabled())
+		{
+			preloadCustomObjects();
+		}
+	}
+
+	private void preloadCustomObjects()
+	{
+		HashMap<String, Set<String>> objectNamesPerPreset = new HashMap<>();
+		for(Preset preset : this.presetLoader.getAllPresets())
+		{
+			Set<String> objectNames = new LinkedHashSet<>();
+			for(IBiomeConfig biomeConfig : preset.getAllBiomeConfigs())
+			{
+				for (ConfigFunction<IBiomeConfig> res : ((BiomeConfig)biomeConfig).getResourceQueue())
+				{
+					if (res instanceof ICustomObjectResource)
+					{
+						objectNames.addAll(((ICustomObjectResource)res).getObjectNames());
+					}
+					else if (res instanceof CustomStructureResource)
+					{
+						objectNames.addAll(((CustomStructureResource)res).objectNames);
+					}
+				}
+			}
+			String bo3AtSpawn = preset.getWorldConfig().getBO3AtSpawn();
+			if(bo3AtSpawn != null && bo3AtSpawn.trim().length() > 0)
+			{
+				objectNames.add(bo3AtSpawn);
+			}
+			objectNamesPerPreset.put(preset.getFolderName(), objectNames);
+		}
+		this.customObjectManager.preloadObjects(objectNamesPerPreset, this.presetLoader::getMaterialReader, this.otgRootFolder, this.logger, this.customObjectResourcesManager, this.modLoadedChecker);
 	}
 
 	private void unpackDefaultPresetAndExamples(File presetsDir)
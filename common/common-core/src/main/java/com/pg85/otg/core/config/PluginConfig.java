@@ -49,6 +49,13 @@ public final class PluginConfig extends PluginConfigBase
 		this.decorationEnabled = reader.getSetting(PluginConfigStandardValues.DECORATION_ENABLED, logger);
 		this.developerMode = reader.getSetting(PluginConfigStandardValues.DEVELOPER_MODE, logger);
 		this.workerThreads = reader.getSetting(PluginConfigStandardValues.WORKER_THREADS, logger);
+		this.biomeCacheSize = reader.getSetting(PluginConfigStandardValues.BIOME_CACHE_SIZE, logger);
+		this.noiseBiomeCacheSize = reader.getSetting(PluginConfigStandardValues.NOISE_BIOME_CACHE_SIZE, logger);
+		this.noiseColumnCacheSize = reader.getSetting(PluginConfigStandardValues.NOISE_COLUMN_CACHE_SIZE, logger);
+		this.asyncBaseTerrain = reader.getSetting(PluginConfigStandardValues.ASYNC_BASE_TERRAIN, logger);
+		this.sectionParallelBaseTerrain = reader.getSetting(PluginConfigStandardValues.SECTION_PARALLEL_BASE_TERRAIN, logger);
+		this.worldGenTimings = reader.getSetting(PluginConfigStandardValues.WORLD_GEN_TIMINGS, logger);
+		this.preloadCustomObjects = reader.getSetting(PluginConfigStandardValues.PRELOAD_CUSTOM_OBJECTS, logger);
 	}
 
 	@Override
@@ -71,6 +78,60 @@ public final class PluginConfig extends PluginConfigBase
 			"performance, experiment to see what works best for your cpu."
 		);
 		
+		writer.header2("Performance");
+
+		writer.putSetting(PluginConfigStandardValues.BIOME_CACHE_SIZE, this.biomeCacheSize,
+			"The amount of chunks per world for which biomes are cached during world generation.",
+			"The cache is shared by all world generation threads, raise this for servers",
+			"generating many chunks in parallel. Each chunk uses ~4kb of memory.",
+			"Defaults to: 1024"
+		);
+
+		writer.putSetting(PluginConfigStandardValues.NOISE_BIOME_CACHE_SIZE, this.noiseBiomeCacheSize,
+			"The amount of 8x8 noise biome regions (32x32 blocks) per world cached for",
+			"base terrain generation. Each region uses ~0.5kb of memory.",
+			"Defaults to: 4096"
+		);
+
+		writer.putSetting(PluginConfigStandardValues.NOISE_COLUMN_CACHE_SIZE, this.noiseColumnCacheSize,
+			"The amount of base terrain noise columns (4x4 blocks) per world cached for",
+			"base terrain generation. The cache is shared by all world generation threads,",
+			"so neighbouring chunks don't sample the same edge columns twice. Rounded up",
+			"to a power of two, each column uses ~0.3kb of memory for a 256 high world.",
+			"Defaults to: 4096"
+		);
+
+		writer.putSetting(PluginConfigStandardValues.ASYNC_BASE_TERRAIN, this.asyncBaseTerrain,
+			"Generates base terrain on a background thread, like vanilla, so the server",
+			"can work on other chunk generation stages at the same time. Only affects",
+			"platforms that support asynchronous base terrain generation (Paper).",
+			"Defaults to: true"
+		);
+
+		writer.putSetting(PluginConfigStandardValues.SECTION_PARALLEL_BASE_TERRAIN, this.sectionParallelBaseTerrain,
+			"Splits the base terrain of each chunk into 16 block high sections that are",
+			"generated in parallel, using all cpu cores. Speeds up loading a few chunks at a",
+			"time, like single player or the spawn area, but adds overhead when the server",
+			"is already generating many chunks at once. Output is deterministic, but large",
+			"ore veins are placed differently than with this setting disabled.",
+			"Defaults to: false"
+		);
+
+		writer.putSetting(PluginConfigStandardValues.WORLD_GEN_TIMINGS, this.worldGenTimings,
+			"Times each world generation phase (base terrain, carvers, decoration etc),",
+			"use /otg stats to show the results. Timing adds a small amount of overhead,",
+			"counters like cache hits are always kept.",
+			"Defaults to: true"
+		);
+
+		writer.putSetting(PluginConfigStandardValues.PRELOAD_CUSTOM_OBJECTS, this.preloadCustomObjects,
+			"Loads all BO2/BO3/BO4 files used by preset biomes in parallel when presets are",
+			"loaded, before any worlds are generated. Without preloading, objects are loaded",
+			"the first time they're spawned, which can stall world generation for large objects.",
+			"Increases startup time, ignored when DeveloperMode is enabled.",
+			"Defaults to: true"
+		);
+
 		writer.header2("Logging");
 
 		writer.putSetting(PluginConfigStandardValues.LOG_LEVEL, this.logLevel,
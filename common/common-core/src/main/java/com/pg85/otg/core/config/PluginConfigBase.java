@@ -30,6 +30,13 @@ public abstract class PluginConfigBase extends ConfigFile implements IPluginConf
 	protected boolean decorationEnabled;
 	protected boolean logMobs;
 	protected String logPresets;
+	protected int biomeCacheSize;
+	protected int noiseBiomeCacheSize;
+	protected int noiseColumnCacheSize;
+	protected boolean asyncBaseTerrain;
+	protected boolean sectionParallelBaseTerrain;
+	protected boolean worldGenTimings;
+	protected boolean preloadCustomObjects;
 	
 	public PluginConfigBase(String configName)
 	{
@@ -113,4 +120,46 @@ public abstract class PluginConfigBase extends ConfigFile implements IPluginConf
 	{
 		return this.settingsMode;
 	}
+
+	@Override
+	public int getBiomeCacheSize()
+	{
+		return this.biomeCacheSize;
+	}
+
+	@Override
+	public int getNoiseBiomeCacheSize()
+	{
+		return this.noiseBiomeCacheSize;
+	}
+
+	@Override
+	public int getNoiseColumnCacheSize()
+	{
+		return this.noiseColumnCacheSize;
+	}
+
+	@Override
+	public boolean getAsyncBaseTerrain()
+	{
+		return this.asyncBaseTerrain;
+	}
+
+	@Override
+	public boolean getSectionParallelBaseTerrain()
+	{
+		return this.sectionParallelBaseTerrain;
+	}
+
+	@Override
+	public boolean getWorldGenTimings()
+	{
+		return this.worldGenTimings;
+	}
+
+	@Override
+	public boolean getPreloadCustomObjects()
+	{
+		return this.preloadCustomObjects;
+	}
 }
@@ -463,6 +463,7 @@ public class BiomeConfig extends BiomeConfigBase
 				}
 			}
 		}
+		this.settings.resourcePlan = BiomeResourcePlan.compile(this.getName(), this.settings.resourceQueue, logger);
 	}
 
 	@Override
@@ -201,6 +201,7 @@ abstract class BiomeConfigBase extends ConfigFile implements IBiomeConfig
 		// Resources
 		
 		protected List<ConfigFunction<IBiomeConfig>> resourceQueue = new ArrayList<ConfigFunction<IBiomeConfig>>();
+		protected BiomeResourcePlan resourcePlan = BiomeResourcePlan.EMPTY; // Compiled from resourceQueue, used for decoration
 		
 		// Saplings
 		
@@ -219,6 +220,11 @@ abstract class BiomeConfigBase extends ConfigFile implements IBiomeConfig
 		return this.settings.resourceQueue;
 	}
 
+	public BiomeResourcePlan getResourcePlan()
+	{
+		return this.settings.resourcePlan;
+	}
+
 	@Override
 	public void setRegistryKey(IBiomeResourceLocation registryKey)
 	{
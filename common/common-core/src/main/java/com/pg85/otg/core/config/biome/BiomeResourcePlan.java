@@ -0,0 +1,175 @@
+package com.pg85.otg.core.config.biome;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+import com.pg85.otg.config.ConfigFunction;
+import com.pg85.otg.config.ErroredFunction;
+import com.pg85.otg.customobject.CustomObjectManager;
+import com.pg85.otg.customobject.config.CustomObjectResourcesManager;
+import com.pg85.otg.customobject.resource.ICustomObjectResource;
+import com.pg85.otg.customobject.resource.ICustomStructureResource;
+import com.pg85.otg.customobject.structures.CustomStructureCache;
+import com.pg85.otg.gen.resource.IBasicResource;
+import com.pg85.otg.interfaces.IBiomeConfig;
+import com.pg85.otg.interfaces.ILogger;
+import com.pg85.otg.interfaces.IMaterialReader;
+import com.pg85.otg.interfaces.IModLoadedChecker;
+import com.pg85.otg.interfaces.IWorldGenRegion;
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+import com.pg85.otg.util.metrics.WorldGenMetrics;
+import com.pg85.otg.util.metrics.WorldGenPhase;
+
+/**
+ * A biome's resource queue, compiled once when the biome config is loaded.
+ *
+ * Each step stores its resource in an array for its kind, so decorating
+ * a chunk switches on a byte instead of doing instanceof checks for every
+ * resource. Errored functions are logged and left out when compiling.
+ *
+ * With the PERFORMANCE log category enabled, one in PROFILER_SAMPLE_INTERVAL
+ * decorations is timed and slow resources are logged. Other decorations
+ * aren't timed.
+ */
+public final class BiomeResourcePlan
+{
+	static final BiomeResourcePlan EMPTY = new BiomeResourcePlan("", new byte[0], new ICustomObjectResource[0], new ICustomStructureResource[0], new IBasicResource[0], new String[0]);
+
+	private static final int PROFILER_SAMPLE_INTERVAL = 16;
+	private static final long SLOW_RESOURCE_NANOS = 50_000_000L;
+
+	private static final byte CUSTOM_OBJECT = 0;
+	private static final byte CUSTOM_STRUCTURE = 1;
+	private static final byte BASIC = 2;
+
+	private final String biomeName;
+	private final byte[] kinds;
+	// Indexed by step, only the array for the step's kind has an entry.
+	private final ICustomObjectResource[] customObjects;
+	private final ICustomStructureResource[] customStructures;
+	private final IBasicResource[] basicResources;
+	// Only used for logging
+	private final String[] names;
+
+	private BiomeResourcePlan(String biomeName, byte[] kinds, ICustomObjectResource[] customObjects, ICustomStructureResource[] customStructures, IBasicResource[] basicResources, String[] names)
+	{
+		this.biomeName = biomeName;
+		this.kinds = kinds;
+		this.customObjects = customObjects;
+		this.customStructures = customStructures;
+		this.basicResources = basicResources;
+		this.names = names;
+	}
+
+	static BiomeResourcePlan compile(String biomeName, List<ConfigFunction<IBiomeConfig>> resourceQueue, ILogger logger)
+	{
+		int size = resourceQueue.size();
+		byte[] kinds = new byte[size];
+		ICustomObjectResource[] customObjects = new ICustomObjectResource[size];
+		ICustomStructureResource[] customStructures = new ICustomStructureResource[size];
+		IBasicResource[] basicResources = new IBasicResource[size];
+		String[] names = new String[size];
+
+		int steps = 0;
+		for (ConfigFunction<IBiomeConfig> res : resourceQueue)
+		{
+			if (res instanceof ICustomObjectResource)
+			{
+				kinds[steps] = CUSTOM_OBJECT;
+				customObjects[steps] = (ICustomObjectResource)res;
+			}
+			else if (res instanceof ICustomStructureResource)
+			{
+				kinds[steps] = CUSTOM_STRUCTURE;
+				customStructures[steps] = (ICustomStructureResource)res;
+			}
+			else if (res instanceof IBasicResource)
+			{
+				kinds[steps] = BASIC;
+				basicResources[steps] = (IBasicResource)res;
+			} else {
+				if (res instanceof ErroredFunction && !((ErroredFunction<IBiomeConfig>)res).isLogged)
+				{
+					((ErroredFunction<IBiomeConfig>)res).isLogged = true;
+					if (logger.getLogCategoryEnabled(LogCategory.DECORATION))
+					{
+						logger.log(LogLevel.ERROR, LogCategory.DECORATION, "Errored setting ignored for biome " + biomeName + " : " + res.toString());
+					}
+				}
+				continue;
+			}
+			names[steps] = res.toString();
+			steps++;
+		}
+
+		if (steps < size)
+		{
+			kinds = Arrays.copyOf(kinds, steps);
+			customObjects = Arrays.copyOf(customObjects, steps);
+			customStructures = Arrays.copyOf(customStructures, steps);
+			basicResources = Arrays.copyOf(basicResources, steps);
+			names = Arrays.copyOf(names, steps);
+		}
+		return new BiomeResourcePlan(biomeName, kinds, customObjects, customStructures, basicResources, names);
+	}
+
+	public void decorate(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		if (logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && ThreadLocalRandom.current().nextInt(PROFILER_SAMPLE_INTERVAL) == 0)
+		{
+			decorateProfiled(structureCache, worldGenRegion, rand, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			return;
+		}
+		for (int i = 0; i < this.kinds.length; i++)
+		{
+			decorateStep(i, structureCache, worldGenRegion, rand, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		}
+	}
+
+	private void decorateProfiled(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		long startTimeAll = System.nanoTime();
+		long startTime;
+		long time;
+		for (int i = 0; i < this.kinds.length; i++)
+		{
+			startTime = System.nanoTime();
+			decorateStep(i, structureCache, worldGenRegion, rand, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			time = System.nanoTime() - startTime;
+			if (time > SLOW_RESOURCE_NANOS)
+			{
+				logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Processing resource " + this.names[i] + " in biome " + this.biomeName + " took " + (time / 1_000_000L) + " Ms.");
+			}
+		}
+		time = System.nanoTime() - startTimeAll;
+		if (time > SLOW_RESOURCE_NANOS)
+		{
+			logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Processing resources in biome " + this.biomeName + " took " + (time / 1_000_000L) + " Ms.");
+		}
+	}
+
+	private void decorateStep(int step, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		long metricsStart;
+		switch (this.kinds[step])
+		{
+			case CUSTOM_OBJECT:
+				metricsStart = WorldGenMetrics.startTimer();
+				this.customObjects[step].processForChunkDecoration(structureCache, worldGenRegion, rand, otgRootFolder, customObjectManager, materialReader, manager, modLoadedChecker);
+				WorldGenMetrics.record(WorldGenPhase.CUSTOM_OBJECTS, metricsStart);
+				break;
+			case CUSTOM_STRUCTURE:
+				metricsStart = WorldGenMetrics.startTimer();
+				this.customStructures[step].processForChunkDecoration(structureCache, worldGenRegion, rand, otgRootFolder, customObjectManager, materialReader, manager, modLoadedChecker);
+				WorldGenMetrics.record(WorldGenPhase.CUSTOM_OBJECTS, metricsStart);
+				break;
+			case BASIC:
+				this.basicResources[step].processForChunkDecoration(worldGenRegion, rand, logger, materialReader);
+				break;
+		}
+	}
+}
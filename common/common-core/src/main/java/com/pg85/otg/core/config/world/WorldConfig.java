@@ -337,6 +337,8 @@ public class WorldConfig extends WorldConfigBase
 		this.useOldBO3StructureRarity = reader.getSetting(WorldStandardValues.USE_OLD_BO3_STRUCTURE_RARITY, logger);
 		this.decorationBoundsCheck = reader.getSetting(WorldStandardValues.DECORATION_BOUNDS_CHECK, logger);
 		this.maximumCustomStructureRadius = reader.getSetting(WorldStandardValues.MAXIMUM_CUSTOM_STRUCTURE_RADIUS, logger);		
+		this.shadowChunkCacheSizeMB = reader.getSetting(WorldStandardValues.SHADOW_CHUNK_CACHE_SIZE_MB, logger);
+		this.compactShadowChunks = reader.getSetting(WorldStandardValues.COMPACT_SHADOW_CHUNKS, logger);
 		this.bo3AtSpawn = reader.getSetting(WorldStandardValues.BO3_AT_SPAWN, logger);
 		
 		// Caves & Ravines
@@ -922,6 +924,20 @@ public class WorldConfig extends WorldConfigBase
 			"While this allows you to spawn objects larger than 32x32, it also makes terrain generation dependent on the direction you explored the world in."
 		);
 
+		writer.header2("Shadow chunks");
+
+		writer.putSetting(WorldStandardValues.SHADOW_CHUNK_CACHE_SIZE_MB, this.shadowChunkCacheSizeMB,
+			"BO4's and smoothing areas check terrain in chunks that haven't been generated yet. OTG generates",
+			"base terrain for these chunks in the background (shadowgen) and caches it, so it can be reused",
+			"when the chunks are generated. This is the maximum (estimated) memory used by the cache in MB, per world.",
+			"Set to 0 to disable the cache."
+		);
+
+		writer.putSetting(WorldStandardValues.COMPACT_SHADOW_CHUNKS, this.compactShadowChunks,
+			"Set this to true to store shadowgenned chunks in a compact format, so more chunks fit in the cache.",
+			"Copying compact chunks into the world takes a little longer than copying full chunks."
+		);
+
 		writer.header1("Carvers: Caves and Ravines");
 
 		writer.putSetting(WorldStandardValues.CARVER_LAVA_BLOCK, this.carverLavaBlock,
@@ -176,6 +176,8 @@ abstract class WorldConfigBase extends ConfigFile implements IWorldConfig
 	protected boolean useOldBO3StructureRarity;
 	protected boolean decorationBoundsCheck;
 	protected int maximumCustomStructureRadius;
+	protected int shadowChunkCacheSizeMB;
+	protected boolean compactShadowChunks;
 	
 	// Caves & Ravines	
 	
@@ -491,6 +493,18 @@ abstract class WorldConfigBase extends ConfigFile implements IWorldConfig
 	{
 		return this.maximumCustomStructureRadius;
 	}
+
+	@Override
+	public int getShadowChunkCacheSizeMB()
+	{
+		return this.shadowChunkCacheSizeMB;
+	}
+
+	@Override
+	public boolean getCompactShadowChunks()
+	{
+		return this.compactShadowChunks;
+	}
 	
 	@Override
 	public void setBiomeConfigsHaveReplacement(boolean biomeConfigsHaveReplacement)
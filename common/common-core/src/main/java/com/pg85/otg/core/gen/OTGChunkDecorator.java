@@ -1,7 +1,5 @@
 package com.pg85.otg.core.gen;
 
-import com.pg85.otg.config.ConfigFunction;
-import com.pg85.otg.config.ErroredFunction;
 import com.pg85.otg.constants.SettingsEnums.CustomStructureType;
 import com.pg85.otg.core.OTG;
 import com.pg85.otg.core.config.biome.BiomeConfig;
@@ -9,11 +7,8 @@ import com.pg85.otg.customobject.CustomObject;
 import com.pg85.otg.customobject.CustomObjectManager;
 import com.pg85.otg.customobject.bo3.BO3;
 import com.pg85.otg.customobject.config.CustomObjectResourcesManager;
-import com.pg85.otg.customobject.resource.ICustomObjectResource;
-import com.pg85.otg.customobject.resource.ICustomStructureResource;
 import com.pg85.otg.customobject.structures.CustomStructureCache;
 import com.pg85.otg.customobject.util.BO3Enums.SpawnHeightEnum;
-import com.pg85.otg.gen.resource.IBasicResource;
 import com.pg85.otg.gen.surface.FrozenSurfaceHelper;
 import com.pg85.otg.interfaces.IBiomeConfig;
 import com.pg85.otg.interfaces.IChunkDecorator;
@@ -25,10 +20,15 @@ import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.bo3.Rotation;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
+import com.pg85.otg.util.metrics.WorldGenCounter;
+import com.pg85.otg.util.metrics.WorldGenMetrics;
+import com.pg85.otg.util.metrics.WorldGenPhase;
 
 import java.nio.file.Path;
 import java.text.MessageFormat;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
  * Takes care of resource decoration. Spawns all OTG resources. Some of the decoration steps (like vanilla 
@@ -37,22 +37,13 @@ import java.util.Random;
  */
 public class OTGChunkDecorator implements IChunkDecorator
 {
-	private final Random rand;
+	// Decoration holds the read lock, so chunks can be decorated in parallel,
+	// SaveToDisk holds the write lock and waits for running decorations to finish.
+	// The lock isn't fair, but waiting writers still block new readers, so saving
+	// can't be starved by a steady stream of decorate calls.
+	private final ReentrantReadWriteLock saveLock = new ReentrantReadWriteLock();
+	private volatile boolean saveRequired;
 
-	// Locking objects / checks to prevent decorate running on multiple threads,
-	// or when the world is waiting for an opportunity to save.
-	// TODO: Is this still required for 1.16?
-	private final Object lockingObject = new Object();
-	private int decorating = 0;
-	private boolean saving;
-	private boolean saveRequired;
-	private Object asynChunkDecorationLock = new Object();
-
-	public OTGChunkDecorator()
-	{
-		this.rand = new Random();
-	}
-	
 	@Override
 	public boolean getIsSaveRequired()
 	{
@@ -62,65 +53,44 @@ public class OTGChunkDecorator implements IChunkDecorator
 	@Override
 	public boolean isDecorating()
 	{
-		return this.decorating != 0;
+		return this.saveLock.getReadLockCount() != 0;
 	}
 
 	@Override
-	public void beginSave()
+	public boolean beginSave(long timeout, TimeUnit unit) throws InterruptedException
 	{
-		this.saving = true;
+		return this.saveLock.writeLock().tryLock(timeout, unit);
 	}
 
 	@Override
 	public void endSave()
 	{
 		this.saveRequired = false;
-		this.saving = false;
-	}
-
-	@Override
-	public Object getLockingObject()
-	{
-		return this.lockingObject;
+		this.saveLock.writeLock().unlock();
 	}
 
 	public void decorate(String presetFolderName, ChunkCoordinate chunkCoord, IWorldGenRegion worldGenRegion, IBiomeConfig biomeConfig, CustomStructureCache structureCache)
 	{
 		ILogger logger = OTG.getEngine().getLogger();
-		
-		// Wait for another thread running SaveToDisk, then place a lock.
-		boolean firstLog = false;
-		while(true)
-		{
-			synchronized(this.lockingObject)
-			{
-				if(!this.saving)
-				{
-					this.decorating++;
-					this.saveRequired = true;
-					break;
-				} else {
-					if(firstLog)
-					{
-						logger.log(LogLevel.WARN, LogCategory.MAIN, "Decorate waiting on SaveToDisk. Although other mods could be causing this and there may not be any problem, this can potentially cause an endless loop!");
-						firstLog = false;
-					}
-				}
-			}
-		}
-
-		Path otgRootFolder = OTG.getEngine().getOTGRootFolder();
-		CustomObjectManager customObjectManager = OTG.getEngine().getCustomObjectManager();
-		IMaterialReader materialReader = OTG.getEngine().getPresetLoader().getMaterialReader(presetFolderName);
-		CustomObjectResourcesManager customObjectResourcesManager = OTG.getEngine().getCustomObjectResourcesManager();
-		IModLoadedChecker modLoadedChecker = OTG.getEngine().getModLoadedChecker();
 
-		doDecorate(chunkCoord, worldGenRegion, biomeConfig, logger, materialReader, otgRootFolder, structureCache, customObjectManager, customObjectResourcesManager, modLoadedChecker);			
-		
-		// Release the lock
-		synchronized(this.lockingObject)
+		// Wait for another thread running SaveToDisk, blocks without spinning.
+		this.saveLock.readLock().lock();
+		try
 		{
-			this.decorating--;
+			this.saveRequired = true;
+
+			Path otgRootFolder = OTG.getEngine().getOTGRootFolder();
+			CustomObjectManager customObjectManager = OTG.getEngine().getCustomObjectManager();
+			IMaterialReader materialReader = OTG.getEngine().getPresetLoader().getMaterialReader(presetFolderName);
+			CustomObjectResourcesManager customObjectResourcesManager = OTG.getEngine().getCustomObjectResourcesManager();
+			IModLoadedChecker modLoadedChecker = OTG.getEngine().getModLoadedChecker();
+	
+			long metricsStart = WorldGenMetrics.startTimer();
+			doDecorate(chunkCoord, worldGenRegion, biomeConfig, logger, materialReader, otgRootFolder, structureCache, customObjectManager, customObjectResourcesManager, modLoadedChecker);
+			WorldGenMetrics.record(WorldGenPhase.DECORATION, metricsStart);
+			WorldGenMetrics.increment(WorldGenCounter.CHUNKS_DECORATED);
+		} finally {
+			this.saveLock.readLock().unlock();
 		}
 	}
 
@@ -145,23 +115,26 @@ public class OTGChunkDecorator implements IChunkDecorator
 			return;
 		}
 
-		// Get the random generator
-		long resourcesSeed = worldGenRegion.getSeed();
-		this.rand.setSeed(resourcesSeed);
-		long l1 = this.rand.nextLong() / 2L * 2L + 1L;
-		long l2 = this.rand.nextLong() / 2L * 2L + 1L;
-		this.rand.setSeed(chunkCoord.getChunkX() * l1 + chunkCoord.getChunkZ() * l2 ^ resourcesSeed);
+		// Get the random generator. Each call gets its own, so chunks
+		// decorated in parallel don't share (and reseed) one instance.
+		Random rand = createDecorationRandom(worldGenRegion.getSeed(), chunkCoord);
 
 		// Use BO4 logic for BO4 worlds
 		if(worldGenRegion.getWorldConfig().getCustomStructureType() == CustomStructureType.BO4)
 		{
-			// BO4 Plotting cannot currently be done in a thread-safe/non-blocking way,
-			// Paper may try to do async chunkgen, so lock here. This will ofcourse 
-			// slow down any multithreaded chunk decoration implementation.
-			synchronized(asynChunkDecorationLock)
+			// BO4 plotting locks the 3x3 plotter regions around this chunk and its 
+			// +x/+z neighbours, so Paper's async chunkgen can only decorate BO4 chunks 
+			// in parallel if they're three or more regions (300 chunks, ~4800 blocks) 
+			// apart. In practice BO4 decoration is serialized.
+			long metricsStart = WorldGenMetrics.startTimer();
+			structureCache.lockBo4Regions(worldGenRegion, rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
+			try
 			{
-				plotAndSpawnBO4s(structureCache, worldGenRegion, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX(), chunkCoord.getChunkZ()), chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
+				plotAndSpawnBO4s(structureCache, worldGenRegion, rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX(), chunkCoord.getChunkZ()), chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
+			} finally {
+				structureCache.unlockBo4Regions(chunkCoord);
 			}
+			WorldGenMetrics.record(WorldGenPhase.BO4_STRUCTURES, metricsStart);
 		}
 
 		if(
@@ -170,57 +143,21 @@ public class OTGChunkDecorator implements IChunkDecorator
 			worldGenRegion.getWorldConfig().getBO3AtSpawn().trim().length() > 0
 		)
 		{
-			handleBO3AtSpawn(worldGenRegion, chunkCoord, worldGenRegion.getWorldConfig().getBO3AtSpawn(), worldGenRegion.getPresetFolderName(), otgRootFolder, structureCache, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
+			handleBO3AtSpawn(worldGenRegion, rand, chunkCoord, worldGenRegion.getWorldConfig().getBO3AtSpawn(), worldGenRegion.getPresetFolderName(), otgRootFolder, structureCache, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
 		}
 		
-		long startTimeAll = System.currentTimeMillis();
-		// Resource sequence
-		for (ConfigFunction<IBiomeConfig> res : ((BiomeConfig)biomeConfig).getResourceQueue())
-		{
-			long startTime = System.currentTimeMillis();
-			if (res instanceof ICustomObjectResource)
-			{
-				((ICustomObjectResource)res).processForChunkDecoration(structureCache, worldGenRegion, this.rand, otgRootFolder, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
-				if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
-				{
-					logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Processing resource " + res.toString() + " in biome " + biomeConfig.getName() + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
-				}
-			}
-			else if (res instanceof ICustomStructureResource)
-			{
-				((ICustomStructureResource)res).processForChunkDecoration(structureCache, worldGenRegion, this.rand, otgRootFolder, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
-				if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
-				{
-					logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Processing resource " + res.toString() + " in biome " + biomeConfig.getName() + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
-				}
-			}
-			else if (res instanceof IBasicResource)
-			{
-				((IBasicResource)res).processForChunkDecoration(worldGenRegion, this.rand, logger, materialReader);
-				if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
-				{
-					logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Processing resource " + res.toString() + " in biome " + biomeConfig.getName() + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
-				}				
-			}
-			else if(res instanceof ErroredFunction)
-			{
-				if(logger.getLogCategoryEnabled(LogCategory.DECORATION))
-				{
-					if(!((ErroredFunction<IBiomeConfig>)res).isLogged)
-					{
-						((ErroredFunction<IBiomeConfig>)res).isLogged = true;
-						if(logger.getLogCategoryEnabled(LogCategory.DECORATION))
-						{
-							logger.log(LogLevel.ERROR, LogCategory.DECORATION, "Errored setting ignored for biome " + biomeConfig.getName() + " : " + toString());
-						}
-					}					
-				}
-			}
-		}
-		if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTimeAll) > 50)
-		{
-			logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Processing resources in biome " + biomeConfig.getName() + " took " + (System.currentTimeMillis() - startTimeAll) + " Ms.");
-		}
+		// Resource sequence, compiled when the biome config was loaded.
+		((BiomeConfig)biomeConfig).getResourcePlan().decorate(structureCache, worldGenRegion, rand, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
+	}
+
+	// Same seeding as vanilla population, so decoration output doesn't change.
+	static Random createDecorationRandom(long resourcesSeed, ChunkCoordinate chunkCoord)
+	{
+		Random rand = new Random(resourcesSeed);
+		long l1 = rand.nextLong() / 2L * 2L + 1L;
+		long l2 = rand.nextLong() / 2L * 2L + 1L;
+		rand.setSeed(chunkCoord.getChunkX() * l1 + chunkCoord.getChunkZ() * l2 ^ resourcesSeed);
+		return rand;
 	}
 
 	public void doSnowAndIce(IWorldGenRegion worldGenRegion, ChunkCoordinate chunkCoord)
@@ -232,15 +169,15 @@ public class OTGChunkDecorator implements IChunkDecorator
 		FrozenSurfaceHelper.freezeChunk(worldGenRegion, chunkCoord);
 	}
 
-	private void plotAndSpawnBO4s(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, ChunkCoordinate chunkCoord, ChunkCoordinate chunkBeingDecorated, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager customObjectResourcesManager, IModLoadedChecker modLoadedChecker)
+	private void plotAndSpawnBO4s(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, ChunkCoordinate chunkBeingDecorated, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager customObjectResourcesManager, IModLoadedChecker modLoadedChecker)
 	{
 		// Plot and spawn BO4's for all chunks that may have blocks spawned on them while decorating this chunk, 
 		// so we can be sure those chunks have had a chance to plot+spawn bo4's before other resources.
 
-		structureCache.plotBo4Structures(worldGenRegion, this.rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);		
-		structureCache.plotBo4Structures(worldGenRegion, this.rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ()), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);		
-		structureCache.plotBo4Structures(worldGenRegion, this.rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() , chunkCoord.getChunkZ() + 1), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);			
-		structureCache.plotBo4Structures(worldGenRegion, this.rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ() + 1), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);	
+		structureCache.plotBo4Structures(worldGenRegion, rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);		
+		structureCache.plotBo4Structures(worldGenRegion, rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ()), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);		
+		structureCache.plotBo4Structures(worldGenRegion, rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() , chunkCoord.getChunkZ() + 1), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);			
+		structureCache.plotBo4Structures(worldGenRegion, rand, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ() + 1), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);	
 
 		spawnBO4(structureCache, worldGenRegion, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);
 		spawnBO4(structureCache, worldGenRegion, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ()), otgRootFolder, logger, customObjectManager, materialReader, customObjectResourcesManager, modLoadedChecker);	
@@ -253,7 +190,7 @@ public class OTGChunkDecorator implements IChunkDecorator
 		structureCache.spawnBo4Chunk(worldGenRegion, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 	}
 	
-	private void handleBO3AtSpawn(IWorldGenRegion worldGenRegion, ChunkCoordinate targetChunk, String bo3AtSpawn, String presetFolderName, Path otgRootFolder, CustomStructureCache structureCache, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager customObjectResourcesManager, IModLoadedChecker modLoadedChecker)
+	private void handleBO3AtSpawn(IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate targetChunk, String bo3AtSpawn, String presetFolderName, Path otgRootFolder, CustomStructureCache structureCache, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager customObjectResourcesManager, IModLoadedChecker modLoadedChecker)
 	{	
 		// If a BO3AtSpawn has been defined, spawn it.
 		CustomObject customObject = customObjectManager.getGlobalObjects().getObjectByName(
@@ -289,7 +226,7 @@ public class OTGChunkDecorator implements IChunkDecorator
 				((BO3)customObject).spawnForced(
 					structureCache,
 					worldGenRegion,
-					this.rand,
+					rand,
 					Rotation.NORTH,
 					targetChunk.getBlockX() + 16 + ((BO3)customObject).getXOffset(Rotation.NORTH),
 					y,
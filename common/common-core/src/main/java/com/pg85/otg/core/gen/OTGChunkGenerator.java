@@ -1,8 +1,13 @@
 package com.pg85.otg.core.gen;
 
+import java.lang.invoke.VarHandle;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
@@ -33,9 +38,11 @@ import com.pg85.otg.util.helpers.MathHelper;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
 import com.pg85.otg.util.materials.LocalMaterialData;
+import com.pg85.otg.util.metrics.WorldGenCounter;
+import com.pg85.otg.util.metrics.WorldGenMetrics;
+import com.pg85.otg.util.metrics.WorldGenPhase;
 import it.unimi.dsi.fastutil.HashCommon;
 import it.unimi.dsi.fastutil.objects.ObjectList;
-import it.unimi.dsi.fastutil.objects.ObjectListIterator;
 
 /**
  * Generates the base terrain, sets stone/ground/surface blocks and does SurfaceAndGroundControl, generates caves and canyons.
@@ -45,6 +52,8 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 {
 	// "It's a number that made the worldgen look good!" - Dinnerbone 2020
 	private static final double WORLD_GEN_CONSTANT = 684.412;
+	// Noise cells are 8 blocks high, 2 per 16 block chunk section.
+	private static final int NOISE_CELLS_PER_SECTION = 2;
 
 	private static final float[] BIOME_WEIGHT_TABLE = make(new float[65 * 65], (array) ->
 	{
@@ -90,19 +99,18 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 	private final int noiseSizeY;
 	private final int noiseSizeZ = 4;
 
-	private final ThreadLocal<NoiseCache> noiseCache;
+	// Shared by all threads generating for this world.
+	private final NoiseCache noiseCache;
 	private final NoiseGeneratorPerlinMesaBlocks biomeBlocksNoiseGen;
 	// Carvers
 	private final Carver caves;
 	private final Carver ravines;
 	private final int minY;
 	private final int maxY;
-	// Biome blocks noise
-	// TODO: Use new noise?
-	private ThreadLocal<double[]> biomeBlocksNoise = ThreadLocal.withInitial(() -> new double[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE]);
-	private ThreadLocal<Integer> lastX = ThreadLocal.withInitial(() -> Integer.MAX_VALUE);
-	private ThreadLocal<Integer> lastZ = ThreadLocal.withInitial(() -> Integer.MAX_VALUE);
-	private ThreadLocal<Double> lastNoise = ThreadLocal.withInitial(() -> 0d);
+	// Per-thread buffers, reused for every chunk.
+	private final ThreadLocal<GeneratorScratch> scratch;
+	// Fill each chunk section's noise cells as a separate task, see populateNoiseSections.
+	private final boolean sectionParallel;
 	private final OreVeinGenerator oreVeinGenerator;
 
 	public OTGChunkGenerator(Preset preset, long seed, ILayerSource biomeProvider, IBiome[] biomesById, ILogger logger)
@@ -111,7 +119,7 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		this.minY = preset.getWorldConfig().getWorldMinY();
 		this.maxY = preset.getWorldConfig().getWorldMaxY();
 		this.seed = seed;
-		this.cachedBiomeProvider = new CachedBiomeProvider(this.seed, biomeProvider, biomesById, logger);
+		this.cachedBiomeProvider = new CachedBiomeProvider(this.seed, biomeProvider, biomesById, logger, OTG.getEngine().getPluginConfig().getBiomeCacheSize(), OTG.getEngine().getPluginConfig().getNoiseBiomeCacheSize());
 
 		// Setup noises
 		Random random = new Random(seed);
@@ -123,7 +131,9 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		this.upperInterpolatedNoise = new OctavePerlinNoiseSampler(random, IntStream.rangeClosed(-15, 0));
 		this.depthNoise = new OctavePerlinNoiseSampler(random, IntStream.rangeClosed(-15, 0));
 
-		this.noiseCache = ThreadLocal.withInitial(() -> new NoiseCache(128, this.noiseSizeY + 1));
+		this.noiseCache = new NoiseCache(OTG.getEngine().getPluginConfig().getNoiseColumnCacheSize(), this.noiseSizeY + 1);
+		this.scratch = ThreadLocal.withInitial(() -> new GeneratorScratch(this.noiseSizeX + 1, this.noiseSizeZ + 1, this.noiseSizeY + 1));
+		this.sectionParallel = OTG.getEngine().getPluginConfig().getSectionParallelBaseTerrain();
 
 		this.biomeBlocksNoiseGen = new NoiseGeneratorPerlinMesaBlocks(random, 4);
 
@@ -183,74 +193,124 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		return yOffset * density;
 	}
 
-	private double sampleNoise(int x, int y, int z, double horizontalScale, double verticalScale, double horizontalStretch, double verticalStretch, double volatility1, double volatility2, double volatilityWeight1, double volatilityWeight2)
+	private void sampleNoiseColumn(GeneratorScratch scratch, int x, int z, int count, double horizontalScale, double verticalScale, double horizontalStretch, double verticalStretch, double volatility1, double volatility2, double volatilityWeight1, double volatilityWeight2)
 	{
 		// The algorithm for noise generation varies slightly here as it calculates the interpolation first and then the interpolated noise to avoid sampling noise that will never be used.
 		// The end result is ~2x faster terrain generation.
+		// The whole column is sampled at once, so each octave only does its x/z work once per column.
 
-		double delta = getInterpolationNoise(x, y, z, horizontalStretch, verticalStretch);
+		double[] delta = scratch.columnDelta;
+		getInterpolationNoiseColumn(scratch, x, z, count, horizontalStretch, verticalStretch);
 
-		if (delta < volatilityWeight1)
+		int lowerCount = 0;
+		int upperCount = 0;
+		for (int y = 0; y < count; y++)
 		{
-			return getInterpolatedNoise(this.lowerInterpolatedNoise, x, y, z, horizontalScale, verticalScale) / 512.0D * volatility1;
+			if (delta[y] < volatilityWeight1)
+			{
+				scratch.lowerYs[lowerCount++] = y;
+			}
+			else if (delta[y] > volatilityWeight2)
+			{
+				scratch.upperYs[upperCount++] = y;
+			} else {
+				scratch.lowerYs[lowerCount++] = y;
+				scratch.upperYs[upperCount++] = y;
+			}
 		}
-		else if (delta > volatilityWeight2)
+		getInterpolatedNoiseColumn(scratch, this.lowerInterpolatedNoise, x, z, scratch.lowerYs, lowerCount, horizontalScale, verticalScale, scratch.columnLower);
+		getInterpolatedNoiseColumn(scratch, this.upperInterpolatedNoise, x, z, scratch.upperYs, upperCount, horizontalScale, verticalScale, scratch.columnUpper);
+
+		for (int y = 0; y < count; y++)
 		{
-			return getInterpolatedNoise(this.upperInterpolatedNoise, x, y, z, horizontalScale, verticalScale) / 512.0D * volatility2;
-		} else {
-			// TODO: should probably use clamping here to prevent weird artifacts
-			return MathHelper.lerp(
-				delta,
-				getInterpolatedNoise(this.lowerInterpolatedNoise, x, y, z, horizontalScale, verticalScale) / 512.0D * volatility1,
-				getInterpolatedNoise(this.upperInterpolatedNoise, x, y, z, horizontalScale, verticalScale) / 512.0D * volatility2);
+			if (delta[y] < volatilityWeight1)
+			{
+				scratch.columnNoise[y] = scratch.columnLower[y] / 512.0D * volatility1;
+			}
+			else if (delta[y] > volatilityWeight2)
+			{
+				scratch.columnNoise[y] = scratch.columnUpper[y] / 512.0D * volatility2;
+			} else {
+				// TODO: should probably use clamping here to prevent weird artifacts
+				scratch.columnNoise[y] = MathHelper.lerp(
+					delta[y],
+					scratch.columnLower[y] / 512.0D * volatility1,
+					scratch.columnUpper[y] / 512.0D * volatility2);
+			}
 		}
 	}
 
-	private double getInterpolationNoise(int x, int y, int z, double horizontalStretch, double verticalStretch)
+	private void getInterpolationNoiseColumn(GeneratorScratch scratch, int x, int z, int count, double horizontalStretch, double verticalStretch)
 	{
-		double interpolation = 0.0D;
-		double amplitude = 1.0D;		
+		double[] interpolation = scratch.columnDelta;
+		double[] samples = scratch.columnSamples;
+		double amplitude = 1.0D;
 		PerlinNoiseSampler interpolationSampler;
+		Arrays.fill(interpolation, 0, count, 0.0D);
 		for (int i = 0; i < 8; i++)
 		{
 			interpolationSampler = this.interpolationNoise.getOctave(i);
 			if (interpolationSampler != null)
 			{
-				interpolation += interpolationSampler.sample(OctavePerlinNoiseSampler.maintainPrecision((double) x * horizontalStretch * amplitude), OctavePerlinNoiseSampler.maintainPrecision((double) y * verticalStretch * amplitude), OctavePerlinNoiseSampler.maintainPrecision((double) z * horizontalStretch * amplitude), verticalStretch * amplitude, (double) y * verticalStretch * amplitude) / amplitude;
+				for (int y = 0; y < count; y++)
+				{
+					scratch.columnYOffsets[y] = (double) y * verticalStretch * amplitude;
+					scratch.columnYs[y] = OctavePerlinNoiseSampler.maintainPrecision(scratch.columnYOffsets[y]);
+				}
+				interpolationSampler.sampleColumn(OctavePerlinNoiseSampler.maintainPrecision((double) x * horizontalStretch * amplitude), OctavePerlinNoiseSampler.maintainPrecision((double) z * horizontalStretch * amplitude), scratch.columnYs, verticalStretch * amplitude, scratch.columnYOffsets, count, samples);
+				for (int y = 0; y < count; y++)
+				{
+					interpolation[y] += samples[y] / amplitude;
+				}
 			}
 
 			amplitude /= 2.0D;
 		}
 
-		return (interpolation / 10.0D + 1.0D) / 2.0D;
+		for (int y = 0; y < count; y++)
+		{
+			interpolation[y] = (interpolation[y] / 10.0D + 1.0D) / 2.0D;
+		}
 	}
 
-	private double getInterpolatedNoise(OctavePerlinNoiseSampler sampler, int x, int y, int z, double horizontalScale, double verticalScale)
+	// Samples noise for the heights in yIndices only, results are stored in out by height.
+	private void getInterpolatedNoiseColumn(GeneratorScratch scratch, OctavePerlinNoiseSampler sampler, int x, int z, int[] yIndices, int count, double horizontalScale, double verticalScale, double[] out)
 	{
-		double noise = 0.0D;
+		if (count == 0)
+		{
+			return;
+		}
+
+		double[] samples = scratch.columnSamples;
 		double amplitude = 1.0D;
-		double scaledX;
-		double scaledY;
-		double scaledZ;
 		double scaledVerticalScale;
+		int y;
 		PerlinNoiseSampler perlinNoiseSampler;
+		for (int n = 0; n < count; n++)
+		{
+			out[yIndices[n]] = 0.0D;
+		}
 		for (int i = 0; i < Constants.CHUNK_SIZE; ++i)
 		{
-			scaledX = OctavePerlinNoiseSampler.maintainPrecision((double) x * horizontalScale * amplitude);
-			scaledY = OctavePerlinNoiseSampler.maintainPrecision((double) y * verticalScale * amplitude);
-			scaledZ = OctavePerlinNoiseSampler.maintainPrecision((double) z * horizontalScale * amplitude);
-			scaledVerticalScale = verticalScale * amplitude;
-			
 			perlinNoiseSampler = sampler.getOctave(i);
 			if (perlinNoiseSampler != null)
 			{
-				noise += perlinNoiseSampler.sample(scaledX, scaledY, scaledZ, scaledVerticalScale, (double) y * scaledVerticalScale) / amplitude;
+				scaledVerticalScale = verticalScale * amplitude;
+				for (int n = 0; n < count; n++)
+				{
+					y = yIndices[n];
+					scratch.columnYs[n] = OctavePerlinNoiseSampler.maintainPrecision((double) y * verticalScale * amplitude);
+					scratch.columnYOffsets[n] = (double) y * scaledVerticalScale;
+				}
+				perlinNoiseSampler.sampleColumn(OctavePerlinNoiseSampler.maintainPrecision((double) x * horizontalScale * amplitude), OctavePerlinNoiseSampler.maintainPrecision((double) z * horizontalScale * amplitude), scratch.columnYs, scaledVerticalScale, scratch.columnYOffsets, count, samples);
+				for (int n = 0; n < count; n++)
+				{
+					out[yIndices[n]] += samples[n] / amplitude;
+				}
 			}
 
 			amplitude /= 2.0D;
 		}
-
-		return noise;
 	}
 
 	private double getExtraHeightAt(int x, int z, double maxAverageDepth, double maxAverageHeight)
@@ -288,11 +348,12 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 	public void getNoiseColumn(double[] buffer, int x, int z)
 	{
 		// TODO: check only for edges
-		this.noiseCache.get().get(buffer, x, z);
+		this.noiseCache.get(buffer, 0, x, z);
 	}
 
-	private void generateNoiseColumn(double[] noiseColumn, int noiseX, int noiseZ)
+	private void generateNoiseColumn(double[] noiseColumn, int offset, int noiseX, int noiseZ)
 	{
+		long metricsStart = WorldGenMetrics.startTimer();
 		IBiomeConfig center = this.cachedBiomeProvider.getNoiseBiomeConfig(noiseX, noiseZ, true);
 
 		final int usedYSections = this.preset.getWorldConfig().getWorldHeightScale() / 8 + 1;
@@ -306,7 +367,9 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		double volatilityWeight2 = 0;
 		double maxAverageDepth = 0;
 		double maxAverageHeight = 0;
-		double[] chc = new double[this.noiseSizeY + 1];
+		GeneratorScratch scratch = this.scratch.get();
+		double[] chc = scratch.chc;
+		Arrays.fill(chc, 0);
 		float weight = 0;
 		
 		int radius = Math.max(center.getSmoothRadius(), center.getCHCSmoothRadius());
@@ -395,9 +458,11 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		// Factor in y sections
 		height = usedYSections * (2.0f + height + extraHeight) / 4.0f;
 		
+		double horizontalScale = WORLD_GEN_CONSTANT * horizontalFracture;
+		double verticalScale = WORLD_GEN_CONSTANT * verticalFracture;
+		sampleNoiseColumn(scratch, noiseX, noiseZ, this.noiseSizeY + 1, horizontalScale, verticalScale, horizontalScale / 80, verticalScale / 160, volatility1, volatility2, volatilityWeight1, volatilityWeight2);
+
 		double falloff;
-		double horizontalScale;
-		double verticalScale;
 		double noise;
 		for (int y = 0; y <= this.noiseSizeY; ++y)
 		{
@@ -408,9 +473,7 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 				falloff *= 4.0;
 			}
 
-			horizontalScale = WORLD_GEN_CONSTANT * horizontalFracture;
-			verticalScale = WORLD_GEN_CONSTANT * verticalFracture;
-			noise = sampleNoise(noiseX, y, noiseZ, horizontalScale, verticalScale, horizontalScale / 80, verticalScale / 160, volatility1, volatility2, volatilityWeight1, volatilityWeight2);
+			noise = scratch.columnNoise[y];
 
 			if (!center.disableBiomeHeight())
 			{
@@ -428,8 +491,9 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 			noise += chc[y];
 
 			// Store value
-			noiseColumn[y] = noise;
+			noiseColumn[offset + y] = noise;
 		}
+		WorldGenMetrics.record(WorldGenPhase.NOISE_COLUMN, metricsStart);
 	}
 
 	// Surface / ground / stone blocks / SAGC
@@ -438,18 +502,17 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 	{
 		ILogger logger = OTG.getEngine().getLogger();
 
-		ObjectListIterator<JigsawStructureData> structureIterator = structures.iterator();
-		ObjectListIterator<JigsawStructureData> junctionsIterator = junctions.iterator();
-
 		long startTime = System.currentTimeMillis();
+		long metricsStart = WorldGenMetrics.startTimer();
+
+		GeneratorScratch scratch = this.scratch.get();
+		NoiseCache noiseCache = this.noiseCache;
 
-		OreVeinData data = this.oreVeinGenerator == null ? null : this.oreVeinGenerator.getForChunk(chunkCoord.getChunkX(), chunkCoord.getChunkZ());
+		// Null when ore veins are disabled or no block of this chunk's terrain can become a vein.
+		OreVeinData data = this.oreVeinGenerator == null ? null : this.oreVeinGenerator.getForChunk(chunkCoord.getChunkX(), chunkCoord.getChunkZ(), 0, this.noiseSizeY * 8 - 1, scratch.oreVeinData);
 		
 		// Fill waterLevel array, used when placing stone/ground/surface blocks.
-		int[] waterLevel = new int[383];
-
-		int blockX = chunkCoord.getBlockX();
-		int blockZ = chunkCoord.getBlockZ();
+		int[] waterLevel = scratch.waterLevel;
 
 		IBiome[] biomes = this.cachedBiomeProvider.getBiomesForChunk(chunkCoord);
 		for (int x = 0; x < Constants.CHUNK_SIZE; x++)
@@ -461,23 +524,71 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 			}
 		}
 
-		// TODO: this double[][][] is probably really bad for performance
-		double[][][] noiseData = new double[2][this.noiseSizeZ + 1][this.noiseSizeY + 1];
-//		double[][][][] oreVeinData
+		// Noise columns for the corners of all noise cells in this chunk, flattened as [x][z][y].
+		double[] noiseData = scratch.noiseData;
+		int columnSize = this.noiseSizeY + 1;
 		// Max smoothing radius is 32, so area covered is 32+5+32=69 (noise/biome coords, so *4)
-	
-		// Initialize noise data on the x0 column.
-		for (int noiseZ = 0; noiseZ < this.noiseSizeZ + 1; ++noiseZ)
+		for (int noiseX = 0; noiseX < this.noiseSizeX + 1; ++noiseX)
+		{
+			for (int noiseZ = 0; noiseZ < this.noiseSizeZ + 1; ++noiseZ)
+			{
+				noiseCache.get(
+					noiseData,
+					(noiseX * (this.noiseSizeZ + 1) + noiseZ) * columnSize,
+					chunkCoord.getChunkX() * this.noiseSizeX + noiseX,
+					chunkCoord.getChunkZ() * this.noiseSizeZ + noiseZ
+				);
+			}
+		}
+
+		if (this.sectionParallel)
 		{
-			noiseData[0][noiseZ] = new double[this.noiseSizeY + 1];
-			this.getNoiseColumn(
-				noiseData[0][noiseZ], 
-				chunkCoord.getChunkX() * this.noiseSizeX, 
-				chunkCoord.getChunkZ() * this.noiseSizeZ + noiseZ 
-			);
-			noiseData[1][noiseZ] = new double[this.noiseSizeY + 1];
+			populateNoiseSections(scratch, chunkCoord, buffer, noiseData, biomes, waterLevel, structures, junctions, data);
+		} else {
+			int sectionCount = (this.noiseSizeY + NOISE_CELLS_PER_SECTION - 1) / NOISE_CELLS_PER_SECTION;
+			for (int section = 0; section < sectionCount; section++)
+			{
+				populateNoiseSectionCells(section, buffer, chunkCoord, noiseData, biomes, waterLevel, structures, junctions, data);
+			}
 		}
 
+		// Deepslate - Frank
+		// TODO: Change this from stone and deepslate noise
+		IBiomeConfig biomeConfig;
+		for (int x = 0; x < 16; x++) {
+			for (int z = 0; z < 16; z++) {
+				biomeConfig = biomes[x*16+z].getBiomeConfig();
+				for (int y = 8; y > -65; y--) {
+					// I think bedrock-like generation will do for this - Frank
+					if (y > random.nextInt(8)) continue;
+					buffer.setBlock(x, y, z, biomeConfig.getDefaultDeepslateBlock());
+				}
+			}
+		}
+
+		long surfaceStart = WorldGenMetrics.startTimer();
+		doSurfaceAndGroundControl(biomes, random, worldHeightCap, this.seed, buffer, scratch);
+		WorldGenMetrics.record(WorldGenPhase.SURFACE, surfaceStart);
+
+		WorldGenMetrics.record(WorldGenPhase.BASE_TERRAIN, metricsStart);
+		WorldGenMetrics.increment(WorldGenCounter.CHUNKS_GENERATED);
+		if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
+		{
+			logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Terrain generation for chunk at " + (chunkCoord.getBlockX() + DecorationArea.DECORATION_OFFSET) + " ~ " + (chunkCoord.getBlockZ() + DecorationArea.DECORATION_OFFSET) + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
+		}
+	}
+	/**
+	 * Fills the noise cells between minNoiseY and maxNoiseY with stone, ores and water.
+	 * data and oreRandom are null when there are no ore veins in these cells.
+	 */
+	private void populateNoiseCells(int minNoiseY, int maxNoiseY, Random oreRandom, ChunkCoordinate chunkCoord, ChunkBuffer buffer, double[] noiseData, IBiome[] biomes, int[] waterLevel, ObjectList<JigsawStructureData> structures, ObjectList<JigsawStructureData> junctions, OreVeinData data)
+	{
+		int blockX = chunkCoord.getBlockX();
+		int blockZ = chunkCoord.getBlockZ();
+		int columnSize = this.noiseSizeY + 1;
+		int structureCount = structures.size();
+		int junctionCount = junctions.size();
+
 		IBiomeConfig biomeConfig;
 		// [0, 4] -> x noise chunks
 		int noiseZ;
@@ -513,35 +624,33 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		int sourceX;
 		int sourceY;
 		int sourceZ;
-		double[][] xColumn;
+		int x0z0Column;
+		int x0z1Column;
+		int x1z0Column;
+		int x1z1Column;
 		for (int noiseX = 0; noiseX < this.noiseSizeX; ++noiseX)
 		{
-			// Initialize noise data on the x1 column
-			for (noiseZ = 0; noiseZ < this.noiseSizeZ + 1; ++noiseZ)
-			{
-				this.getNoiseColumn(
-					noiseData[1][noiseZ], 
-					chunkCoord.getChunkX() * this.noiseSizeX + noiseX + 1, 
-					chunkCoord.getChunkZ() * this.noiseSizeZ + noiseZ 
-				);
-			}
-
 			// [0, 4] -> z noise chunks
 			for (noiseZ = 0; noiseZ < this.noiseSizeZ; ++noiseZ)
 			{
+				x0z0Column = (noiseX * (this.noiseSizeZ + 1) + noiseZ) * columnSize;
+				x0z1Column = x0z0Column + columnSize;
+				x1z0Column = x0z0Column + (this.noiseSizeZ + 1) * columnSize;
+				x1z1Column = x1z0Column + columnSize;
+
 				// [0, 32] -> y noise chunks
-				for (int noiseY = this.noiseSizeY - 1; noiseY >= 0; --noiseY)
+				for (int noiseY = maxNoiseY - 1; noiseY >= minNoiseY; --noiseY)
 				{
 					// Lower samples
-					x0z0y0 = noiseData[0][noiseZ][noiseY];
-					x0z1y0 = noiseData[0][noiseZ + 1][noiseY];
-					x1z0y0 = noiseData[1][noiseZ][noiseY];
-					x1z1y0 = noiseData[1][noiseZ + 1][noiseY];
+					x0z0y0 = noiseData[x0z0Column + noiseY];
+					x0z1y0 = noiseData[x0z1Column + noiseY];
+					x1z0y0 = noiseData[x1z0Column + noiseY];
+					x1z1y0 = noiseData[x1z1Column + noiseY];
 					// Upper samples
-					x0z0y1 = noiseData[0][noiseZ][noiseY + 1];
-					x0z1y1 = noiseData[0][noiseZ + 1][noiseY + 1];
-					x1z0y1 = noiseData[1][noiseZ][noiseY + 1];
-					x1z1y1 = noiseData[1][noiseZ + 1][noiseY + 1];
+					x0z0y1 = noiseData[x0z0Column + noiseY + 1];
+					x0z1y1 = noiseData[x0z1Column + noiseY + 1];
+					x1z0y1 = noiseData[x1z0Column + noiseY + 1];
+					x1z1y1 = noiseData[x1z1Column + noiseY + 1];
 
 					// [0, 8] -> y noise pieces
 					for (int pieceY = 8 - 1; pieceY >= 0; --pieceY)
@@ -582,34 +691,31 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 
 								// TODO: make this bigger and look better
 								// Iterate through structures to add density
-								structureX = 0;
-								structureY = 0;
-								structureZ = 0;
-								for(density = density / 2.0D - density * density * density / 24.0D; structureIterator.hasNext(); density += getNoiseWeight(structureX, structureY, structureZ) * 0.8D)
+								density = density / 2.0D - density * density * density / 24.0D;
+								for(int i = 0; i < structureCount; i++)
 								{
-									structure = structureIterator.next();
+									structure = structures.get(i);
 									structureX = Math.max(0, Math.max(structure.minX - realX, realX - structure.maxX));
 									structureY = realY - (structure.minY + (structure.useDelta ? structure.delta : 0));
 									structureZ = Math.max(0, Math.max(structure.minZ - realZ, realZ - structure.maxZ));
+									density += getNoiseWeight(structureX, structureY, structureZ) * 0.8D;
 								}
-								structureIterator.back(structures.size());
 
 								// Iterate through jigsawws to add density
-								while(junctionsIterator.hasNext())
+								for(int i = 0; i < junctionCount; i++)
 								{
-									junction = junctionsIterator.next();
+									junction = junctions.get(i);
 									sourceX = realX - junction.sourceX;
 									sourceY = realY - junction.groundY;
 									sourceZ = realZ - junction.sourceZ;
 									density += getNoiseWeight(sourceX, sourceY, sourceZ) * 0.4D;
 								}
-								junctionsIterator.back(junctions.size());
 
 								if (density > 0.0)
 								{
 									LocalMaterialData material = biomeConfig.getStoneBlockReplaced(realY);
-									if (this.oreVeinGenerator != null) {
-										LocalMaterialData ore = this.oreVeinGenerator.getMaterial(realX, realY, realZ, noiseX, noiseY, noiseZ, xLerp, yLerp, zLerp, data);
+									if (data != null) {
+										LocalMaterialData ore = this.oreVeinGenerator.getMaterial(oreRandom, realX, realY, realZ, noiseX, noiseY, noiseZ, xLerp, yLerp, zLerp, data);
 
 										if (ore != null) {
 											material = ore;
@@ -629,32 +735,63 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 					}
 				}
 			}
+		}
+	}
 
-			// Reuse noise data from the previous column for speed
-			xColumn = noiseData[0];
-			noiseData[0] = noiseData[1];
-			noiseData[1] = xColumn;
+	/**
+	 * Fills the noise cells of each 16 block high section of the chunk as a separate
+	 * task on the terrain pool, each into its own section buffer. Platform chunks
+	 * can't be written to from multiple threads, so blocks are copied into the chunk
+	 * on this thread once all sections are done. Ore veins use a random seeded per
+	 * section, so the output doesn't depend on how sections are scheduled.
+	 */
+	private void populateNoiseSections(GeneratorScratch scratch, ChunkCoordinate chunkCoord, ChunkBuffer buffer, double[] noiseData, IBiome[] biomes, int[] waterLevel, ObjectList<JigsawStructureData> structures, ObjectList<JigsawStructureData> junctions, OreVeinData data)
+	{
+		int sectionCount = (this.noiseSizeY + NOISE_CELLS_PER_SECTION - 1) / NOISE_CELLS_PER_SECTION;
+		SectionBuffer[] sections = scratch.getSectionBuffers(sectionCount);
+		ForkJoinTask<?>[] tasks = new ForkJoinTask<?>[sectionCount];
+		for (int i = 1; i < sectionCount; i++)
+		{
+			int section = i;
+			tasks[i] = TerrainPool.INSTANCE.submit(() -> populateNoiseSection(section, sections[section], chunkCoord, noiseData, biomes, waterLevel, structures, junctions, data));
 		}
-		// Deepslate - Frank
-		// TODO: Change this from stone and deepslate noise
-		for (int x = 0; x < 16; x++) {
-			for (int z = 0; z < 16; z++) {
-				biomeConfig = biomes[x*16+z].getBiomeConfig();
-				for (int y = 8; y > -65; y--) {
-					// I think bedrock-like generation will do for this - Frank
-					if (y > random.nextInt(8)) continue;
-					buffer.setBlock(x, y, z, biomeConfig.getDefaultDeepslateBlock());
-				}
+		try
+		{
+			populateNoiseSection(0, sections[0], chunkCoord, noiseData, biomes, waterLevel, structures, junctions, data);
+		} finally {
+			// Always wait for all sections, their buffers are reused for the next chunk.
+			for (int i = 1; i < sectionCount; i++)
+			{
+				tasks[i].join();
 			}
 		}
 
-		doSurfaceAndGroundControl(biomes, random, worldHeightCap, this.seed, buffer, waterLevel);
-		
-		if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
+		for (int i = sectionCount - 1; i >= 0; i--)
 		{
-			logger.log(LogLevel.WARN, LogCategory.PERFORMANCE, "Warning: Terrain generation for chunk at " + (chunkCoord.getBlockX() + DecorationArea.DECORATION_OFFSET) + " ~ " + (chunkCoord.getBlockZ() + DecorationArea.DECORATION_OFFSET) + " took " + (System.currentTimeMillis() - startTime) + " Ms.");
+			sections[i].copyTo(buffer);
 		}
 	}
+
+	private void populateNoiseSection(int section, SectionBuffer sectionBuffer, ChunkCoordinate chunkCoord, double[] noiseData, IBiome[] biomes, int[] waterLevel, ObjectList<JigsawStructureData> structures, ObjectList<JigsawStructureData> junctions, OreVeinData data)
+	{
+		sectionBuffer.init(chunkCoord, section * NOISE_CELLS_PER_SECTION * 8);
+		populateNoiseSectionCells(section, sectionBuffer, chunkCoord, noiseData, biomes, waterLevel, structures, junctions, data);
+	}
+
+	/**
+	 * Fills the noise cells of one 16 block high section. Ore veins use a random
+	 * seeded per section whether or not sections are generated in parallel, so
+	 * SectionParallelBaseTerrain doesn't change ore placement.
+	 */
+	private void populateNoiseSectionCells(int section, ChunkBuffer buffer, ChunkCoordinate chunkCoord, double[] noiseData, IBiome[] biomes, int[] waterLevel, ObjectList<JigsawStructureData> structures, ObjectList<JigsawStructureData> junctions, OreVeinData data)
+	{
+		int minNoiseY = section * NOISE_CELLS_PER_SECTION;
+		int maxNoiseY = Math.min(minNoiseY + NOISE_CELLS_PER_SECTION, this.noiseSizeY);
+		OreVeinData sectionData = data != null && data.overlaps(minNoiseY * 8, maxNoiseY * 8 - 1) ? data : null;
+		Random oreRandom = sectionData == null ? null : this.oreVeinGenerator.createSectionRandom(chunkCoord.getChunkX(), section, chunkCoord.getChunkZ());
+		populateNoiseCells(minNoiseY, maxNoiseY, oreRandom, chunkCoord, buffer, noiseData, biomes, waterLevel, structures, junctions, sectionData);
+	}
+
 	public int getMinY() {
 		return minY;
 	}
@@ -668,6 +805,7 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		// TODO: it should be possible to cache these carver graphs to make larger carvers more efficient and easier to use
 		if(cavesEnabled || ravinesEnabled)
 		{
+			long metricsStart = WorldGenMetrics.startTimer();
 			Random random = new Random();
 			for (int localChunkX = chunkX - 8; localChunkX <= chunkX + 8; ++localChunkX)
 			{
@@ -688,6 +826,7 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 					}
 				}
 			}
+			WorldGenMetrics.record(WorldGenPhase.CARVING, metricsStart);
 		}
 	}
 
@@ -706,13 +845,13 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 		return noiseSizeY;
 	}
 
-	private void doSurfaceAndGroundControl(IBiome[] biomes, Random random, int heightCap, long worldSeed, ChunkBuffer chunkBuffer, int[] waterLevel)
+	private void doSurfaceAndGroundControl(IBiome[] biomes, Random random, int heightCap, long worldSeed, ChunkBuffer chunkBuffer, GeneratorScratch scratch)
 	{
 		// Process surface and ground blocks for each column in the chunk
 		ChunkCoordinate chunkCoord = chunkBuffer.getChunkCoordinate();		
 		double d1 = 0.03125D;
-		this.biomeBlocksNoise.set(this.biomeBlocksNoiseGen.getRegion(this.biomeBlocksNoise.get(), chunkCoord.getBlockX(), chunkCoord.getBlockZ(), Constants.CHUNK_SIZE, Constants.CHUNK_SIZE, d1 * 2.0D, d1 * 2.0D, 1.0D));
-		GeneratingChunk generatingChunk = new GeneratingChunk(random, waterLevel, this.biomeBlocksNoise.get(), heightCap);
+		this.biomeBlocksNoiseGen.getRegion(scratch.biomeBlocksNoise, chunkCoord.getBlockX(), chunkCoord.getBlockZ(), Constants.CHUNK_SIZE, Constants.CHUNK_SIZE, d1 * 2.0D, d1 * 2.0D, 1.0D);
+		GeneratingChunk generatingChunk = scratch.generatingChunk.init(random, scratch.waterLevel, scratch.biomeBlocksNoise, heightCap);
 		IBiome biome;
 		for (int x = 0; x < Constants.CHUNK_SIZE; x++)
 		{
@@ -728,56 +867,76 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 	// Used by sagc for generating surface/ground block patterns
 	public double getBiomeBlocksNoiseValue(int blockX, int blockZ)
 	{
-		double noise = this.lastNoise.get();
-		if (this.lastX.get() != blockX || this.lastZ.get() != blockZ)
+		GeneratorScratch scratch = this.scratch.get();
+		if (scratch.lastX != blockX || scratch.lastZ != blockZ)
 		{
 			double d1 = 0.03125D;
-			noise = this.biomeBlocksNoiseGen.getRegion(new double[1], blockX, blockZ, 1, 1, d1 * 2.0D, d1 * 2.0D, 1.0D)[0];
-			this.lastX.set(blockX);
-			this.lastZ.set(blockZ);
-			this.lastNoise.set(noise);
+			scratch.lastNoise = this.biomeBlocksNoiseGen.getRegion(scratch.singleBiomeBlocksNoise, blockX, blockZ, 1, 1, d1 * 2.0D, d1 * 2.0D, 1.0D)[0];
+			scratch.lastX = blockX;
+			scratch.lastZ = blockZ;
 		}
-		return noise;
+		return scratch.lastNoise;
 	}
 
+	/**
+	 * A fixed size, direct-mapped cache of noise columns shared by all
+	 * world generation threads. Columns are stored in one preallocated
+	 * array and slots are overwritten in place, so neither hits nor misses
+	 * allocate. Each slot has a version that is odd while a column is being
+	 * written: readers copy the column optimistically and retry as a miss
+	 * if the version changed, writers that find a slot being written skip
+	 * caching their column. Two threads missing the same column at the
+	 * same time may both generate it, which is harmless since the output
+	 * is deterministic.
+	 */
 	private class NoiseCache
 	{
-		private final long[] keys;
 		private final double[] values;
+		private final long[] keys;
+		private final AtomicLongArray versions;
 		private final int mask;
+		private final int noiseSize;
 
 		private NoiseCache(int size, int noiseSize)
 		{
+			this.noiseSize = noiseSize;
 			size = MathHelper.smallestEncompassingPowerOfTwo(size);
 			this.mask = size - 1;
-
-			this.keys = new long[size];
-			Arrays.fill(this.keys, Long.MIN_VALUE);
 			this.values = new double[size * noiseSize];
+			this.keys = new long[size];
+			this.versions = new AtomicLongArray(size);
+			// Version 0 means the slot was never written, so the zeroed key isn't a match.
 		}
 
-		public double[] get(double[] buffer, int noiseX, int noiseZ)
+		public double[] get(double[] buffer, int offset, int noiseX, int noiseZ)
 		{
 			long key = key(noiseX, noiseZ);
 			int idx = hash(key) & this.mask;
+			int slot = idx * this.noiseSize;
 
-			// if the entry here has a key that matches ours, we have a cache hit
-			if (this.keys[idx] == key)
+			long version = this.versions.get(idx);
+			if (version != 0 && (version & 1) == 0 && this.keys[idx] == key)
 			{
-				// Copy values into buffer
-				System.arraycopy(this.values, idx * buffer.length, buffer, 0, buffer.length);
-			} else {
-				// cache miss: sample and put the result into our cache entry
-
-				// Sample the noise column to store the new values
-				generateNoiseColumn(buffer, noiseX, noiseZ);
-
-				// Create copy of the array
-				System.arraycopy(buffer, 0, this.values, idx * buffer.length, buffer.length);
+				System.arraycopy(this.values, slot, buffer, offset, this.noiseSize);
+				// Make sure the copy is done before re-checking the version.
+				VarHandle.acquireFence();
+				if (this.versions.get(idx) == version)
+				{
+					WorldGenMetrics.increment(WorldGenCounter.NOISE_CACHE_HITS);
+					return buffer;
+				}
+			}
 
+			// cache miss: sample the noise column straight into the buffer, then copy it into
+			// this slot, replacing whatever was there, unless another thread is writing it.
+			WorldGenMetrics.increment(WorldGenCounter.NOISE_CACHE_MISSES);
+			generateNoiseColumn(buffer, offset, noiseX, noiseZ);
+			if ((version & 1) == 0 && this.versions.compareAndSet(idx, version, version + 1))
+			{
 				this.keys[idx] = key;
+				System.arraycopy(buffer, offset, this.values, slot, this.noiseSize);
+				this.versions.set(idx, version + 2);
 			}
-
 			return buffer;
 		}
 
@@ -791,4 +950,140 @@ public class OTGChunkGenerator implements ISurfaceGeneratorNoiseProvider
 			return MathHelper.toLong(x, z);
 		}
 	}
+
+	/**
+	 * Per-thread buffers reused for every chunk, so base terrain
+	 * generation doesn't allocate anything per chunk.
+	 */
+	private static final class GeneratorScratch
+	{
+		private final int[] waterLevel = new int[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		private final double[] noiseData;
+		private final double[] chc;
+		private final double[] biomeBlocksNoise = new double[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		private final double[] singleBiomeBlocksNoise = new double[1];
+		private final GeneratingChunk generatingChunk = new GeneratingChunk(null, null, null, 0);
+		private final OreVeinData oreVeinData = new OreVeinData();
+		// Biome blocks noise for the last column requested via getBiomeBlocksNoiseValue
+		// TODO: Use new noise?
+		private int lastX = Integer.MAX_VALUE;
+		private int lastZ = Integer.MAX_VALUE;
+		private double lastNoise = 0;
+
+		// Noise column sampling, indexed by noise y
+		private final double[] columnNoise;
+		private final double[] columnDelta;
+		private final double[] columnLower;
+		private final double[] columnUpper;
+		private final double[] columnSamples;
+		private final double[] columnYs;
+		private final double[] columnYOffsets;
+		private final int[] lowerYs;
+		private final int[] upperYs;
+
+		private SectionBuffer[] sectionBuffers = new SectionBuffer[0];
+
+		private GeneratorScratch(int noiseSizeX, int noiseSizeZ, int noiseSizeY)
+		{
+			this.noiseData = new double[noiseSizeX * noiseSizeZ * noiseSizeY];
+			this.chc = new double[noiseSizeY];
+			this.columnNoise = new double[noiseSizeY];
+			this.columnDelta = new double[noiseSizeY];
+			this.columnLower = new double[noiseSizeY];
+			this.columnUpper = new double[noiseSizeY];
+			this.columnSamples = new double[noiseSizeY];
+			this.columnYs = new double[noiseSizeY];
+			this.columnYOffsets = new double[noiseSizeY];
+			this.lowerYs = new int[noiseSizeY];
+			this.upperYs = new int[noiseSizeY];
+		}
+
+		private SectionBuffer[] getSectionBuffers(int count)
+		{
+			if (this.sectionBuffers.length < count)
+			{
+				this.sectionBuffers = new SectionBuffer[count];
+				for (int i = 0; i < count; i++)
+				{
+					this.sectionBuffers[i] = new SectionBuffer();
+				}
+			}
+			return this.sectionBuffers;
+		}
+	}
+
+	/**
+	 * Holds the blocks of one 16 block high chunk section while the
+	 * chunk's sections are filled in parallel.
+	 */
+	private static final class SectionBuffer extends ChunkBuffer
+	{
+		private final LocalMaterialData[] blocks = new LocalMaterialData[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		private ChunkCoordinate chunkCoord;
+		private int minY;
+
+		private void init(ChunkCoordinate chunkCoord, int minY)
+		{
+			this.chunkCoord = chunkCoord;
+			this.minY = minY;
+		}
+
+		@Override
+		public ChunkCoordinate getChunkCoordinate()
+		{
+			return this.chunkCoord;
+		}
+
+		@Override
+		public void setBlock(int blockX, int blockY, int blockZ, LocalMaterialData material)
+		{
+			this.blocks[(blockX * Constants.CHUNK_SIZE + blockZ) * Constants.CHUNK_SIZE + blockY - this.minY] = material;
+		}
+
+		@Override
+		public LocalMaterialData getBlock(int blockX, int blockY, int blockZ)
+		{
+			return this.blocks[(blockX * Constants.CHUNK_SIZE + blockZ) * Constants.CHUNK_SIZE + blockY - this.minY];
+		}
+
+		// Copies all blocks set in this section into the chunk and clears this section for reuse.
+		private void copyTo(ChunkBuffer buffer)
+		{
+			int index;
+			LocalMaterialData material;
+			for (int x = 0; x < Constants.CHUNK_SIZE; x++)
+			{
+				for (int z = 0; z < Constants.CHUNK_SIZE; z++)
+				{
+					for (int y = Constants.CHUNK_SIZE - 1; y >= 0; y--)
+					{
+						index = (x * Constants.CHUNK_SIZE + z) * Constants.CHUNK_SIZE + y;
+						material = this.blocks[index];
+						if (material != null)
+						{
+							buffer.setBlock(x, this.minY + y, z, material);
+							buffer.setHighestBlockForColumn(x, z, this.minY + y);
+							this.blocks[index] = null;
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// Created on first use, only when section-parallel base terrain is enabled.
+	private static final class TerrainPool
+	{
+		private static final ForkJoinPool INSTANCE = new ForkJoinPool(
+			Runtime.getRuntime().availableProcessors(),
+			pool ->
+			{
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+				thread.setName("OTG-Terrain-" + thread.getPoolIndex());
+				return thread;
+			},
+			null,
+			false
+		);
+	}
 }
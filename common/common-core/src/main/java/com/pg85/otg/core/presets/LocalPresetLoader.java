@@ -5,6 +5,9 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.text.MessageFormat;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.stream.Collectors;
 
 import com.pg85.otg.config.biome.BiomeConfigFinder;
@@ -99,28 +102,77 @@ public abstract class LocalPresetLoader
 		
 	public void loadPresetsFromDisk(IConfigFunctionProvider biomeResourcesManager, ILogger logger)
 	{
+		long startTime = System.currentTimeMillis();
 		if(this.presetsDir.exists() && this.presetsDir.isDirectory())
 		{
-			for(File presetDir : this.presetsDir.listFiles())
+			ForkJoinPool pool = createLoaderPool();
+			try
 			{
-				if(presetDir.isDirectory())
+				List<ForkJoinTask<Preset>> tasks = new ArrayList<ForkJoinTask<Preset>>();
+				for(File presetDir : this.presetsDir.listFiles())
 				{
-					for(File file : presetDir.listFiles())
+					if(presetDir.isDirectory())
 					{
-						if(file.getName().equals(Constants.WORLD_CONFIG_FILE))
+						for(File file : presetDir.listFiles())
 						{
-							Preset preset = loadPreset(presetDir.toPath(), biomeResourcesManager, logger);
-							this.presets.put(preset.getFolderName(), preset);
-							this.aliasMap.put(preset.getShortPresetName(), preset.getFolderName());
-							break;
+							if(file.getName().equals(Constants.WORLD_CONFIG_FILE))
+							{
+								tasks.add(pool.submit(() -> loadPreset(presetDir.toPath(), biomeResourcesManager, logger, pool)));
+								break;
+							}
 						}
 					}
 				}
+				// Presets are loaded in parallel, but added in directory order, 
+				// so biome registration/id assignment is the same as when loading serially.
+				for(ForkJoinTask<Preset> task : tasks)
+				{
+					Preset preset = task.join();
+					this.presets.put(preset.getFolderName(), preset);
+					this.aliasMap.put(preset.getShortPresetName(), preset.getFolderName());
+				}
+			} finally {
+				pool.shutdown();
 			}
 		}
+
+		int biomes = 0;
+		for(Preset preset : this.presets.values())
+		{
+			biomes += preset.getAllBiomeConfigs().size();
+		}
+		logger.log(LogLevel.INFO, LogCategory.MAIN, "Loaded " + this.presets.size() + " presets with " + biomes + " biomes in " + (System.currentTimeMillis() - startTime) + " Ms.");
 	}
-	
+
+	private static ForkJoinPool createLoaderPool()
+	{
+		return new ForkJoinPool(
+			Runtime.getRuntime().availableProcessors(),
+			forkJoinPool ->
+			{
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+				thread.setName("OTG-PresetLoader-" + thread.getPoolIndex());
+				return thread;
+			},
+			null,
+			false
+		);
+	}
+
 	protected Preset loadPreset(Path presetDir, IConfigFunctionProvider biomeResourcesManager, ILogger logger)
+	{
+		ForkJoinPool pool = createLoaderPool();
+		try
+		{
+			return loadPreset(presetDir, biomeResourcesManager, logger, pool);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	// Biome configs are parsed in parallel in the given pool, presets loaded 
+	// in parallel share one pool, waiting tasks help run the others' tasks.
+	private Preset loadPreset(Path presetDir, IConfigFunctionProvider biomeResourcesManager, ILogger logger, ForkJoinPool pool)
 	{
 		File worldConfigFile = new File(presetDir.toString(), Constants.WORLD_CONFIG_FILE);
 		File biomesDirectory = new File(presetDir.toString(), Constants.WORLD_BIOMES_FOLDER);
@@ -135,7 +187,7 @@ public abstract class LocalPresetLoader
 		FileSettingsWriter.writeToFile(worldConfig.getSettingsAsMap(), worldConfigFile, worldConfig.getSettingsMode(), logger);
 
 		// use shortPresetName to register the biomes, instead of presetName
-		ArrayList<BiomeConfig> biomeConfigs = loadBiomeConfigs(worldConfig.getShortPresetName(), worldConfig.getMajorVersion(), presetDir, biomesDirectory.toPath(), worldConfig, biomeResourcesManager, logger, getMaterialReader(presetFolderName), worldConfig);
+		ArrayList<BiomeConfig> biomeConfigs = loadBiomeConfigs(worldConfig.getShortPresetName(), worldConfig.getMajorVersion(), presetDir, biomesDirectory.toPath(), worldConfig, biomeResourcesManager, logger, getMaterialReader(presetFolderName), worldConfig, pool);
 
 		return new Preset(presetDir, worldConfig.getShortPresetName(), worldConfig, biomeConfigs);
 	}
@@ -160,7 +212,7 @@ public abstract class LocalPresetLoader
 		return biomes;
 	}
 
-	private ArrayList<BiomeConfig> loadBiomeConfigs(String presetShortName, int presetMajorVersion, Path presetDir, Path presetBiomesDir, IWorldConfig worldConfig, IConfigFunctionProvider biomeResourcesManager, ILogger logger, IMaterialReader materialReader, WorldConfig config)
+	private ArrayList<BiomeConfig> loadBiomeConfigs(String presetShortName, int presetMajorVersion, Path presetDir, Path presetBiomesDir, IWorldConfig worldConfig, IConfigFunctionProvider biomeResourcesManager, ILogger logger, IMaterialReader materialReader, WorldConfig config, ForkJoinPool pool)
 	{
 		// Establish folders
 		List<Path> biomeDirs = new ArrayList<Path>(2);
@@ -168,10 +220,10 @@ public abstract class LocalPresetLoader
 		
 		// Load all files
 		BiomeConfigFinder biomeConfigFinder = new BiomeConfigFinder();
-		Map<String, BiomeConfigStub> biomeConfigStubs = biomeConfigFinder.findBiomes(worldConfig.getWorldBiomes(), worldConfig.getWorldHeightScale(), biomeDirs, logger, materialReader);
+		Map<String, BiomeConfigStub> biomeConfigStubs = biomeConfigFinder.findBiomes(worldConfig.getWorldBiomes(), worldConfig.getWorldHeightScale(), biomeDirs, logger, materialReader, pool);
 
 		// Read all settings
-		ArrayList<BiomeConfig> biomeConfigs = readAndWriteSettings(worldConfig, biomeConfigStubs, presetDir, presetShortName, presetMajorVersion, true, biomeResourcesManager, logger, materialReader, worldConfig);
+		ArrayList<BiomeConfig> biomeConfigs = readAndWriteSettings(worldConfig, biomeConfigStubs, presetDir, presetShortName, presetMajorVersion, true, biomeResourcesManager, logger, materialReader, worldConfig, pool);
 
 		// Update settings dynamically, these changes don't get written back to the file
 		processSettings(worldConfig, biomeConfigs);
@@ -199,27 +251,39 @@ public abstract class LocalPresetLoader
 		return biomeConfigs;
 	}
 
-	private ArrayList<BiomeConfig> readAndWriteSettings(IWorldConfig worldConfig, Map<String, BiomeConfigStub> biomeConfigStubs, Path presetDir, String presetShortName, int presetMajorVersion, boolean write, IConfigFunctionProvider biomeResourcesManager, ILogger logger, IMaterialReader materialReader, IWorldConfig config)
+	private ArrayList<BiomeConfig> readAndWriteSettings(IWorldConfig worldConfig, Map<String, BiomeConfigStub> biomeConfigStubs, Path presetDir, String presetShortName, int presetMajorVersion, boolean write, IConfigFunctionProvider biomeResourcesManager, ILogger logger, IMaterialReader materialReader, IWorldConfig config, ForkJoinPool pool)
 	{
-		ArrayList<BiomeConfig> biomeConfigs = new ArrayList<BiomeConfig>();
-
+		// Inheritance, done for all stubs before reading any settings, 
+		// since reading settings copies the stubs' merged mob lists.
 		for (BiomeConfigStub biomeConfigStub : biomeConfigStubs.values())
 		{
-			// Inheritance
 			processMobInheritance(biomeConfigStubs, biomeConfigStub, 0, logger);
+		}
 
-			// Settings reading
-			BiomeConfig biomeConfig = new BiomeConfig(biomeConfigStub.getBiomeName(), biomeConfigStub, presetDir, biomeConfigStub.getSettings(), worldConfig, presetShortName, presetMajorVersion, biomeResourcesManager, logger, materialReader, worldConfig);
-			biomeConfigs.add(biomeConfig);
-
-			// Settings writing
-			if(write)
+		List<ForkJoinTask<BiomeConfig>> tasks = new ArrayList<ForkJoinTask<BiomeConfig>>(biomeConfigStubs.size());
+		for (BiomeConfigStub biomeConfigStub : biomeConfigStubs.values())
+		{
+			tasks.add(pool.submit(() ->
 			{
-				Path writeFile = biomeConfigStub.getPath();
-				FileSettingsWriter.writeToFile(biomeConfig.getSettingsAsMap(), writeFile.toFile(), worldConfig.getSettingsMode(), logger);
-			}
+				// Settings reading
+				BiomeConfig biomeConfig = new BiomeConfig(biomeConfigStub.getBiomeName(), biomeConfigStub, presetDir, biomeConfigStub.getSettings(), worldConfig, presetShortName, presetMajorVersion, biomeResourcesManager, logger, materialReader, worldConfig);
+
+				// Settings writing
+				if(write)
+				{
+					Path writeFile = biomeConfigStub.getPath();
+					FileSettingsWriter.writeToFile(biomeConfig.getSettingsAsMap(), writeFile.toFile(), worldConfig.getSettingsMode(), logger);
+				}
+				return biomeConfig;
+			}));
 		}
 
+		// Keep the stubs' order, biome ids are assigned in this order.
+		ArrayList<BiomeConfig> biomeConfigs = new ArrayList<BiomeConfig>(tasks.size());
+		for (ForkJoinTask<BiomeConfig> task : tasks)
+		{
+			biomeConfigs.add(task.join());
+		}
 		return biomeConfigs;
 	}
 
@@ -12,131 +12,78 @@ import com.pg85.otg.util.minecraft.TreeType;
 import java.io.File;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 /**
  * Represents a collection of custom objects. Those objects can be loaded from a
  * directory, or can be loaded manually and then added to this collection.
- *
+ * 
+ * Lookups don't lock, loaded objects are kept in concurrent maps and file
+ * indexes are immutable once published, changes replace the whole map.
+ * Objects are parsed outside of any lock, so worldgen threads can load
+ * different objects at the same time. If two threads load the same object,
+ * the first one to finish wins and the other copy is discarded.
  */
 public class CustomObjectCollection
 {
-	private Object indexingFilesLock = new Object();
+	// Only used when indexing folders or changing an index
+	private final Object indexingFilesLock = new Object();
 	
-	private ArrayList<CustomObject> objectsGlobalObjects = new ArrayList<CustomObject>();
-	private HashMap<String, CustomObject> objectsByNameGlobalObjects = new HashMap<String, CustomObject>();
-	private ArrayList<String> objectsNotFoundGlobalObjects = new ArrayList<String>();
+	private final Map<String, CustomObject> objectsByNameGlobalObjects = new ConcurrentHashMap<String, CustomObject>();
+	private final Set<String> objectsNotFoundGlobalObjects = ConcurrentHashMap.newKeySet();
 
-	private HashMap<String, ArrayList<CustomObject>> objectsPerPreset = new HashMap<String, ArrayList<CustomObject>>();
-	private HashMap<String, HashMap<String, CustomObject>> objectsByNamePerPreset = new HashMap<String, HashMap<String, CustomObject>>();
-	private HashMap<String, ArrayList<String>> objectsNotFoundPerPreset = new HashMap<String, ArrayList<String>>();
+	private final Map<String, Map<String, CustomObject>> objectsByNamePerPreset = new ConcurrentHashMap<String, Map<String, CustomObject>>();
+	private final Map<String, Set<String>> objectsNotFoundPerPreset = new ConcurrentHashMap<String, Set<String>>();
 
-	private HashMap<String, File> customObjectFilesGlobalObjects = null;
-	private HashMap<String, File> globalTemplates = null;
-	private HashMap<String, HashMap<String, File>> customObjectFilesPerPreset = new HashMap<String, HashMap<String, File>>();
-	private HashMap<String, HashMap<String, File>> boTemplateFilesPerPreset = new HashMap<>();
+	private volatile Map<String, File> customObjectFilesGlobalObjects = null;
+	private volatile Map<String, File> globalTemplates = null;
+	private final Map<String, Map<String, File>> customObjectFilesPerPreset = new ConcurrentHashMap<String, Map<String, File>>();
+	private final Map<String, Map<String, File>> boTemplateFilesPerPreset = new ConcurrentHashMap<String, Map<String, File>>();
 
 	public CustomObject loadObject(File file, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		synchronized(this.indexingFilesLock)
+		CustomObject object = null;
+		// Try to load single file
+		if (file.isFile())
 		{
-			CustomObject object = null;
-			// Try to load single file
-			if (file.isFile())
+			// Get name and extension
+			String fileName = file.getName();
+			int index = fileName.lastIndexOf('.');
+			// If we come across a directory descend into it without enabling
+			// the objects
+			if (index != -1)
 			{
-				// Get name and extension
-				String fileName = file.getName();
-				int index = fileName.lastIndexOf('.');
-				// If we come across a directory descend into it without enabling
-				// the objects
-				if (index != -1)
+				String objectType = fileName.substring(index + 1, fileName.length());
+				String objectName = fileName.substring(0, index);
+
+				// Get the object
+				CustomObjectLoader loader = customObjectManager.getObjectLoaders().get(objectType.toLowerCase());
+				if (loader != null)
 				{
-					String objectType = fileName.substring(index + 1, fileName.length());
-					String objectName = fileName.substring(0, index);
-	
-					// Get the object
-					CustomObjectLoader loader = customObjectManager.getObjectLoaders().get(objectType.toLowerCase());
-					if (loader != null)
+					object = loader.loadFromFile(objectName, file, logger);
+					if (!object.onEnable(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker) || !object.loadChecks(modLoadedChecker))
 					{
-						object = loader.loadFromFile(objectName, file, logger);
-	
-						if (presetFolderName != null)
-						{
-							ArrayList<CustomObject> presetObjects = this.objectsPerPreset.get(presetFolderName);
-							if (presetObjects == null)
-							{
-								presetObjects = new ArrayList<CustomObject>();
-								this.objectsPerPreset.put(presetFolderName, presetObjects);
-							}
-							presetObjects.add(object);
-						} else {
-							this.objectsGlobalObjects.add(object);
-						}
-	
-						if (!object.onEnable(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker) || !object.loadChecks(modLoadedChecker))
+						// Try bo4
+						loader = customObjectManager.getObjectLoaders().get("bo4");
+						if (loader != null)
 						{
-							// Remove the object
-							removeLoadedObject(presetFolderName, object);
-							
-							// Try bo4
-							loader = customObjectManager.getObjectLoaders().get("bo4");
-							if (loader != null)
+							object = loader.loadFromFile(objectName, file, logger);
+							if (!object.onEnable(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker) || !object.loadChecks(modLoadedChecker))
 							{
-								object = loader.loadFromFile(objectName, file, logger);
-								if (presetFolderName != null)
-								{
-									ArrayList<CustomObject> presetObjects = this.objectsPerPreset.get(presetFolderName);
-									if (presetObjects == null)
-									{
-										presetObjects = new ArrayList<CustomObject>();
-										this.objectsPerPreset.put(presetFolderName, presetObjects);
-									}
-									presetObjects.add(object);
-								} else {
-									this.objectsGlobalObjects.add(object);
-								}
-
-								if (!object.onEnable(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker) || !object.loadChecks(modLoadedChecker))
-								{
-									// Remove the object
-									removeLoadedObject(presetFolderName, object);
-									return null;
-								}
+								return null;
 							}
 						}
 					}
 				}
-			} else {
-				logger.log(LogLevel.FATAL, LogCategory.CUSTOM_OBJECTS, "Given path does not exist: " + file.getAbsolutePath());
-				throw new RuntimeException("Given path does not exist: " + file.getAbsolutePath());
-			}
-			return object;
-		}
-	}
-
-	private void removeLoadedObject(String presetFolderName, CustomObject object)
-	{
-		if (presetFolderName != null)
-		{
-			HashMap<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
-			if(presetObjectsByName != null)
-			{
-				presetObjectsByName.remove(object.getName());
-				if (presetObjectsByName.size() == 0)
-				{
-					this.objectsByNamePerPreset.remove(presetFolderName, presetObjectsByName);
-				}
-			}
-			
-			ArrayList<CustomObject> worldObjects = this.objectsPerPreset.get(presetFolderName);
-			worldObjects.remove(object);
-			if (worldObjects.size() == 0)
-			{
-				this.objectsPerPreset.remove(presetFolderName, worldObjects);
 			}
 		} else {
-			this.objectsGlobalObjects.remove(object);
+			logger.log(LogLevel.FATAL, LogCategory.CUSTOM_OBJECTS, "Given path does not exist: " + file.getAbsolutePath());
+			throw new RuntimeException("Given path does not exist: " + file.getAbsolutePath());
 		}
+		return object;
 	}
 
 	/**
@@ -147,24 +94,17 @@ public class CustomObjectCollection
 	 */
 	void addLoadedGlobalObject(CustomObject object)
 	{
-		synchronized(this.indexingFilesLock)
-		{
-			String name = object.getName();
-			if (!this.objectsByNameGlobalObjects.containsKey(name.toLowerCase()))
-			{
-				this.objectsByNameGlobalObjects.put(name.toLowerCase(), object);
-				this.objectsGlobalObjects.add(object);
-			}
-		}
+		this.objectsByNameGlobalObjects.putIfAbsent(object.getName().toLowerCase(), object);
 	}
 
 	void addGlobalObjectFile(String name, File file)
 	{
 		synchronized(this.indexingFilesLock)
 		{
-			if (this.customObjectFilesGlobalObjects != null && !this.customObjectFilesGlobalObjects.containsKey(name.toLowerCase()))
+			Map<String, File> customObjectFiles = this.customObjectFilesGlobalObjects;
+			if (customObjectFiles != null && !customObjectFiles.containsKey(name.toLowerCase()))
 			{
-				this.customObjectFilesGlobalObjects.put(name.toLowerCase(), file);
+				this.customObjectFilesGlobalObjects = withFile(customObjectFiles, name, file);
 			}
 		}
 	}
@@ -173,11 +113,9 @@ public class CustomObjectCollection
 	{
 		synchronized(this.indexingFilesLock)
 		{
-			this.objectsGlobalObjects.clear();
 			this.objectsByNameGlobalObjects.clear();
 			this.objectsNotFoundGlobalObjects.clear();
 			
-			this.objectsPerPreset.clear();
 			this.objectsByNamePerPreset.clear();
 			this.objectsNotFoundPerPreset.clear();	
 		}
@@ -187,11 +125,9 @@ public class CustomObjectCollection
 	{
 		synchronized(indexingFilesLock)
 		{
-			this.objectsGlobalObjects.clear();
 			this.objectsByNameGlobalObjects.clear();
 			this.objectsNotFoundGlobalObjects.clear();
 	
-			this.objectsPerPreset.clear();
 			this.objectsByNamePerPreset.clear();
 			this.objectsNotFoundPerPreset.clear();
 	
@@ -204,46 +140,36 @@ public class CustomObjectCollection
 
 	public ArrayList<String> getAllBONamesForPreset(String presetFolderName, ILogger logger, Path otgRootPath)
 	{
-		HashMap<String, File> files = this.customObjectFilesPerPreset.get(presetFolderName);
-		if (files == null)
-		{
-			indexPresetObjectsFolder(presetFolderName, logger, otgRootPath);
-			files = this.customObjectFilesPerPreset.get(presetFolderName);
-		}
+		Map<String, File> files = indexPresetObjectsFolder(presetFolderName, logger, otgRootPath);
 		return files == null ? null : new ArrayList<>(files.values().stream().map(a -> a.getName().substring(0, a.getName().lastIndexOf("."))).collect(Collectors.toList()));
 	}
 
 	public ArrayList<String> getTemplatesForPreset(String presetFolderName, ILogger logger, Path otgRootPath)
 	{
-		HashMap<String, File> files = this.boTemplateFilesPerPreset.get(presetFolderName);
+		Map<String, File> files = this.boTemplateFilesPerPreset.get(presetFolderName);
 		if (files == null)
 		{
-			indexPresetObjectsFolder(presetFolderName, logger, otgRootPath);
-			files = this.customObjectFilesPerPreset.get(presetFolderName);
+			files = indexPresetObjectsFolder(presetFolderName, logger, otgRootPath);
 		}
 		return files == null ? null : new ArrayList<>(files.values().stream().map(a -> a.getName().substring(0, a.getName().lastIndexOf("."))).collect(Collectors.toList()));
 	}
 
 	public File getTemplateFileForPreset(String presetFolderName, String templateName, ILogger logger, Path otgRootPath)
 	{
-		HashMap<String, File> files = this.boTemplateFilesPerPreset.get(presetFolderName);
+		Map<String, File> files = this.boTemplateFilesPerPreset.get(presetFolderName);
 		if (files == null)
 		{
-			indexPresetObjectsFolder(presetFolderName, logger, otgRootPath);
-			files = this.customObjectFilesPerPreset.get(presetFolderName);
+			files = indexPresetObjectsFolder(presetFolderName, logger, otgRootPath);
 		}
 		return files == null ? null : files.get(templateName.toLowerCase());
 	}
 
 	public ArrayList<String> getGlobalObjectNames(ILogger logger, Path otgRootPath)
 	{
-		if (this.customObjectFilesGlobalObjects == null)
-		{
-			indexGlobalObjectsFolder(logger, otgRootPath);
-		}
-		return this.customObjectFilesGlobalObjects == null
+		Map<String, File> files = indexGlobalObjectsFolder(logger, otgRootPath);
+		return files == null
 				? null
-				: new ArrayList<>(this.customObjectFilesGlobalObjects.keySet());
+				: new ArrayList<>(files.keySet());
 	}
 
 	public ArrayList<String> getGlobalTemplates(ILogger logger, Path otgRootPath)
@@ -252,31 +178,58 @@ public class CustomObjectCollection
 		{
 			indexGlobalObjectsFolder(logger, otgRootPath);
 		}
-		return this.globalTemplates == null
+		Map<String, File> templates = this.globalTemplates;
+		return templates == null
 				? null
-				: new ArrayList<>(this.globalTemplates.keySet());
+				: new ArrayList<>(templates.keySet());
 	}
 
 	// Adds an object to a preset, if it has been loaded
 	// Does not add the object if the preset's BO's have not yet been indexed
 	public void addObjectToPreset(String presetFolderName, String objectName, File boFile, CustomObject object)
 	{
-		HashMap<String, CustomObject> objectsByName = this.objectsByNamePerPreset.get(presetFolderName);
+		Map<String, CustomObject> objectsByName = this.objectsByNamePerPreset.get(presetFolderName);
 		if (objectsByName != null) objectsByName.put(objectName.toLowerCase(), object);
-		HashMap<String, File> customObjectFiles = this.customObjectFilesPerPreset.get(presetFolderName);
-		if (customObjectFiles != null) customObjectFiles.put(objectName.toLowerCase(), boFile);
+		synchronized(this.indexingFilesLock)
+		{
+			Map<String, File> customObjectFiles = this.customObjectFilesPerPreset.get(presetFolderName);
+			if (customObjectFiles != null) this.customObjectFilesPerPreset.put(presetFolderName, withFile(customObjectFiles, objectName, boFile));
+		}
 	}
-	
+
 	public CustomObject getObjectByName(String name, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		synchronized(this.indexingFilesLock)
+		return getObjectByName(name, presetFolderName, true, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+	}
+
+	/**
+	 * Indexes the GlobalObjects folder and the preset's Objects folder and loads
+	 * the given objects on the given pool, so decoration doesn't have to parse
+	 * them the first time they're used. Objects that can't be found or loaded
+	 * are logged, same as when they're loaded during decoration.
+	 * 
+	 * @return A task per object, returning the object or null.
+	 */
+	List<ForkJoinTask<CustomObject>> preloadObjects(ForkJoinPool pool, String presetFolderName, Collection<String> objectNames, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		indexGlobalObjectsFolder(logger, otgRootFolder);
+		indexPresetObjectsFolder(presetFolderName, logger, otgRootFolder);
+
+		List<ForkJoinTask<CustomObject>> tasks = new ArrayList<ForkJoinTask<CustomObject>>(objectNames.size());
+		for (String objectName : objectNames)
 		{
-			return getObjectByName(name, presetFolderName, true, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			tasks.add(pool.submit(() -> getObjectByName(objectName, presetFolderName, true, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker)));
 		}
+		return tasks;
 	}
-	
-	void indexGlobalObjectsFolder(ILogger logger, Path otgRootFolder)
+
+	Map<String, File> indexGlobalObjectsFolder(ILogger logger, Path otgRootFolder)
 	{
+		Map<String, File> customObjectFiles = this.customObjectFilesGlobalObjects;
+		if (customObjectFiles != null)
+		{
+			return customObjectFiles;
+		}
 		synchronized(this.indexingFilesLock)
 		{
 			if (this.customObjectFilesGlobalObjects == null)
@@ -285,11 +238,11 @@ public class CustomObjectCollection
 				{
 					logger.log(LogLevel.INFO, LogCategory.CUSTOM_OBJECTS, "Indexing GlobalObjects folder.");
 				}
-				this.customObjectFilesGlobalObjects = new HashMap<String, File>();
-				this.globalTemplates = new HashMap<>();
+				HashMap<String, File> globalCustomObjectFiles = new HashMap<String, File>();
+				HashMap<String, File> templateFiles = new HashMap<String, File>();
 				if (new File(otgRootFolder + File.separator + Constants.GLOBAL_OBJECTS_FOLDER).exists())
 				{
-					indexAllCustomObjectFilesInDir(new File(otgRootFolder + File.separator + Constants.GLOBAL_OBJECTS_FOLDER), this.customObjectFilesGlobalObjects, this.globalTemplates, logger);
+					indexAllCustomObjectFilesInDir(new File(otgRootFolder + File.separator + Constants.GLOBAL_OBJECTS_FOLDER), globalCustomObjectFiles, templateFiles, logger);
 				}
 	
 				// Add vanilla custom objects
@@ -297,49 +250,77 @@ public class CustomObjectCollection
 				{
 					addLoadedGlobalObject(new TreeObject(type));
 				}
+
+				this.globalTemplates = Collections.unmodifiableMap(templateFiles);
+				this.customObjectFilesGlobalObjects = Collections.unmodifiableMap(globalCustomObjectFiles);
 				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
 				{
 					logger.log(LogLevel.INFO, LogCategory.CUSTOM_OBJECTS, "GlobalObjects folder indexed.");
 				}
 			}
+			return this.customObjectFilesGlobalObjects;
 		}
 	}
 	
-	void indexPresetObjectsFolder(String presetFolderName, ILogger logger, Path otgRootFolder)
+	Map<String, File> indexPresetObjectsFolder(String presetFolderName, ILogger logger, Path otgRootFolder)
 	{
+		if (presetFolderName == null)
+		{
+			return null;
+		}
+		Map<String, File> customObjectFiles = this.customObjectFilesPerPreset.get(presetFolderName);
+		if (customObjectFiles != null)
+		{
+			return customObjectFiles;
+		}
 		synchronized(this.indexingFilesLock)
 		{
-			if (presetFolderName != null && !this.customObjectFilesPerPreset.containsKey(presetFolderName))
+			if (!this.customObjectFilesPerPreset.containsKey(presetFolderName))
 			{
 				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
 				{
 					logger.log(LogLevel.INFO, LogCategory.CUSTOM_OBJECTS, "Indexing Objects folder for preset " + presetFolderName);
 				}
 				HashMap<String, File> presetCustomObjectFiles = new HashMap<String, File>();
-				this.customObjectFilesPerPreset.put(presetFolderName, presetCustomObjectFiles);
 				HashMap<String, File> templateFiles = new HashMap<String, File>();
-				this.boTemplateFilesPerPreset.put(presetFolderName, templateFiles);
-				if (presetFolderName != null)
+
+				// TODO: Rename folders
+				String objectsFolderName = 
+					new File(otgRootFolder + File.separator + Constants.PRESETS_FOLDER + File.separator + presetFolderName + File.separator + Constants.WORLD_OBJECTS_FOLDER).exists() ? Constants.WORLD_OBJECTS_FOLDER :
+					new File(otgRootFolder + File.separator + Constants.PRESETS_FOLDER + File.separator + presetFolderName + File.separator + Constants.LEGACY_WORLD_OBJECTS_FOLDER).exists() ? Constants.LEGACY_WORLD_OBJECTS_FOLDER : null
+				;					
+				if(objectsFolderName != null)
 				{
-					// TODO: Rename folders
-					String objectsFolderName = 
-						new File(otgRootFolder + File.separator + Constants.PRESETS_FOLDER + File.separator + presetFolderName + File.separator + Constants.WORLD_OBJECTS_FOLDER).exists() ? Constants.WORLD_OBJECTS_FOLDER :
-						new File(otgRootFolder + File.separator + Constants.PRESETS_FOLDER + File.separator + presetFolderName + File.separator + Constants.LEGACY_WORLD_OBJECTS_FOLDER).exists() ? Constants.LEGACY_WORLD_OBJECTS_FOLDER : null
-					;					
-					if(objectsFolderName != null)
-					{
-						indexAllCustomObjectFilesInDir(
-						new File(otgRootFolder + File.separator + Constants.PRESETS_FOLDER + File.separator + presetFolderName + File.separator + objectsFolderName),
-						presetCustomObjectFiles, templateFiles, logger);
-					}
+					indexAllCustomObjectFilesInDir(
+					new File(otgRootFolder + File.separator + Constants.PRESETS_FOLDER + File.separator + presetFolderName + File.separator + objectsFolderName),
+					presetCustomObjectFiles, templateFiles, logger);
 				}
+
+				// Templates first, lookups only check the objects index.
+				this.boTemplateFilesPerPreset.put(presetFolderName, Collections.unmodifiableMap(templateFiles));
+				this.customObjectFilesPerPreset.put(presetFolderName, Collections.unmodifiableMap(presetCustomObjectFiles));
 				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
 				{
 					logger.log(LogLevel.INFO, LogCategory.CUSTOM_OBJECTS, "Objects folder for preset " + presetFolderName + " indexed.");
 				}
 			}
+			return this.customObjectFilesPerPreset.get(presetFolderName);
 		}
 	}
+
+	private static Map<String, File> withFile(Map<String, File> files, String name, File file)
+	{
+		HashMap<String, File> copy = new HashMap<String, File>(files);
+		copy.put(name.toLowerCase(), file);
+		return Collections.unmodifiableMap(copy);
+	}
+
+	// Returns the object that ended up in the map, another thread may have loaded it first.
+	private static CustomObject putLoadedObject(Map<String, CustomObject> objectsByName, String name, CustomObject object)
+	{
+		CustomObject existing = objectsByName.putIfAbsent(name, object);
+		return existing != null ? existing : object;
+	}
 	
 	/**
 	 * Gets the object with the given name.
@@ -349,148 +330,131 @@ public class CustomObjectCollection
 	 */
 	private CustomObject getObjectByName(String name, String presetFolderName, boolean searchGlobalObjects, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		synchronized(this.indexingFilesLock)
+		// OTG.log(LogMarker.INFO, "getObjectByName " + presetFolderName != null ? presetFolderName : "");
+
+		CustomObject object = null;
+		String lowerCaseName = name.toLowerCase();
+
+		// Check if the object has been cached
+
+		if (presetFolderName != null)
 		{
-			// OTG.log(LogMarker.INFO, "getObjectByName " + presetFolderName != null ? presetFolderName : "");
-	
-			CustomObject object = null;
-	
-			// Check if the object has been cached
-	
-			if (presetFolderName != null)
-			{
-				HashMap<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
-				if (presetObjectsByName != null)
-				{
-					object = presetObjectsByName.get(name.toLowerCase());
-				}
-			}
-	
-			boolean bSearchedPresetObjects = false;
-	
-			if (object == null && presetFolderName != null)
-			{
-				ArrayList<String> presetObjectsNotFoundByName = this.objectsNotFoundPerPreset.get(presetFolderName);
-				if (presetObjectsNotFoundByName != null && presetObjectsNotFoundByName.contains(name))
-				{
-					// TODO: If a user adds a new object while the game is running, it won't be picked up, even when developermode:true.
-					bSearchedPresetObjects = true;
-				}
-			}
-	
-			// Only check the GlobalObjects if the preset's Objects directory has already been searched
-			if (object == null && searchGlobalObjects && (presetFolderName == null || bSearchedPresetObjects))
+			Map<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
+			if (presetObjectsByName != null)
 			{
-				object = this.objectsByNameGlobalObjects.get(name.toLowerCase());
+				object = presetObjectsByName.get(lowerCaseName);
 			}
-	
-			if (object != null)
-			{
-				return object;
-			}
-	
-			// Check if the object has been queried before but could not be found
-	
-			boolean bSearchedGlobalObjects = false;
-	
-			if (this.objectsNotFoundGlobalObjects != null && this.objectsNotFoundGlobalObjects.contains(name))
+		}
+
+		boolean bSearchedPresetObjects = false;
+
+		if (object == null && presetFolderName != null)
+		{
+			Set<String> presetObjectsNotFoundByName = this.objectsNotFoundPerPreset.get(presetFolderName);
+			if (presetObjectsNotFoundByName != null && presetObjectsNotFoundByName.contains(name))
 			{
 				// TODO: If a user adds a new object while the game is running, it won't be picked up, even when developermode:true.
-				bSearchedGlobalObjects = true;
-			}
-	
-			if ((!searchGlobalObjects || bSearchedGlobalObjects) && (presetFolderName == null || bSearchedPresetObjects))
-			{
-				return null;
-			}
-	
-			// Index GlobalObjects and preset's Objects directories
-	
-			indexGlobalObjectsFolder(logger, otgRootFolder);
-			indexPresetObjectsFolder(presetFolderName, logger, otgRootFolder);
-	
-			// Search preset Objects
-	
-			if (presetFolderName != null && !bSearchedPresetObjects)
-			{
-				HashMap<String, File> presetCustomObjectFiles = this.customObjectFilesPerPreset.get(presetFolderName);
-				if (presetCustomObjectFiles != null)
-				{
-					File searchForFile = presetCustomObjectFiles.get(name.toLowerCase());
-					if (searchForFile != null)
-					{
-						object = loadObject(searchForFile, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-						if (object != null)
-						{
-							HashMap<String, CustomObject> presetObjectsByName = this.objectsByNamePerPreset.get(presetFolderName);
-							if (presetObjectsByName == null)
-							{
-								presetObjectsByName = new HashMap<String, CustomObject>();
-								this.objectsByNamePerPreset.put(presetFolderName, presetObjectsByName);
-							}
-							presetObjectsByName.put(name.toLowerCase(), object);
-							return object;
-						} else {
-							if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
-							{
-								logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not load BO2/BO3, it likely contains errors: " + searchForFile);
-							}
-							return null;
-						}
-					}
-				}
-	
-				// Not found
-				ArrayList<String> presetObjectsNotFound = this.objectsNotFoundPerPreset.get(presetFolderName);
-				if (presetObjectsNotFound == null)
-				{
-					presetObjectsNotFound = new ArrayList<String>();
-					this.objectsNotFoundPerPreset.put(presetFolderName, presetObjectsNotFound);
-				}
-				presetObjectsNotFound.add(name);
+				bSearchedPresetObjects = true;
 			}
-	
-			// Search GlobalObjects
-	
-			if (searchGlobalObjects && !bSearchedGlobalObjects)
+		}
+
+		// Only check the GlobalObjects if the preset's Objects directory has already been searched
+		if (object == null && searchGlobalObjects && (presetFolderName == null || bSearchedPresetObjects))
+		{
+			object = this.objectsByNameGlobalObjects.get(lowerCaseName);
+		}
+
+		if (object != null)
+		{
+			return object;
+		}
+
+		// Check if the object has been queried before but could not be found
+
+		boolean bSearchedGlobalObjects = false;
+
+		if (this.objectsNotFoundGlobalObjects.contains(name))
+		{
+			// TODO: If a user adds a new object while the game is running, it won't be picked up, even when developermode:true.
+			bSearchedGlobalObjects = true;
+		}
+
+		if ((!searchGlobalObjects || bSearchedGlobalObjects) && (presetFolderName == null || bSearchedPresetObjects))
+		{
+			return null;
+		}
+
+		// Index GlobalObjects and preset's Objects directories
+
+		Map<String, File> globalCustomObjectFiles = indexGlobalObjectsFolder(logger, otgRootFolder);
+		Map<String, File> presetCustomObjectFiles = indexPresetObjectsFolder(presetFolderName, logger, otgRootFolder);
+
+		// Search preset Objects
+
+		if (presetFolderName != null && !bSearchedPresetObjects)
+		{
+			if (presetCustomObjectFiles != null)
 			{
-				object = this.objectsByNameGlobalObjects.get(name.toLowerCase());
-	
-				if (object != null)
-				{
-					return object;
-				}
-	
-				File searchForFile = this.customObjectFilesGlobalObjects.get(name.toLowerCase());
-	
+				File searchForFile = presetCustomObjectFiles.get(lowerCaseName);
 				if (searchForFile != null)
 				{
 					object = loadObject(searchForFile, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-	
 					if (object != null)
 					{
-						this.objectsByNameGlobalObjects.put(name.toLowerCase(), object);
-						return object;
+						return putLoadedObject(this.objectsByNamePerPreset.computeIfAbsent(presetFolderName, key -> new ConcurrentHashMap<String, CustomObject>()), lowerCaseName, object);
 					} else {
 						if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
 						{
-							logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not load BO2/BO3, it probably contains errors: " + searchForFile);
+							logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not load BO2/BO3, it likely contains errors: " + searchForFile);
 						}
 						return null;
 					}
 				}
-	
-				// Not Found
-				this.objectsNotFoundGlobalObjects.add(name);
 			}
-	
-			if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+
+			// Not found
+			this.objectsNotFoundPerPreset.computeIfAbsent(presetFolderName, key -> ConcurrentHashMap.newKeySet()).add(name);
+		}
+
+		// Search GlobalObjects
+
+		if (searchGlobalObjects && !bSearchedGlobalObjects)
+		{
+			object = this.objectsByNameGlobalObjects.get(lowerCaseName);
+
+			if (object != null)
 			{
-				logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not find BO2/BO3 " + name + " in GlobalObjects " + (presetFolderName != null ? "and Objects" : "") + " directory " + (presetFolderName != null ? "for preset " + presetFolderName : "") + ".");
+				return object;
 			}
-	
-			return null;
+
+			File searchForFile = globalCustomObjectFiles.get(lowerCaseName);
+
+			if (searchForFile != null)
+			{
+				object = loadObject(searchForFile, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+
+				if (object != null)
+				{
+					return putLoadedObject(this.objectsByNameGlobalObjects, lowerCaseName, object);
+				} else {
+					if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+					{
+						logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not load BO2/BO3, it probably contains errors: " + searchForFile);
+					}
+					return null;
+				}
+			}
+
+			// Not Found
+			this.objectsNotFoundGlobalObjects.add(name);
 		}
+
+		if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+		{
+			logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not find BO2/BO3 " + name + " in GlobalObjects " + (presetFolderName != null ? "and Objects" : "") + " directory " + (presetFolderName != null ? "for preset " + presetFolderName : "") + ".");
+		}
+
+		return null;
 	}
 
 	private void indexAllCustomObjectFilesInDir(File searchDir, HashMap<String, File> customObjectFiles, HashMap<String, File> templateFiles, ILogger logger)
@@ -6,14 +6,23 @@ import com.pg85.otg.customobject.bo4.BO4Loader;
 import com.pg85.otg.customobject.config.CustomObjectResourcesManager;
 import com.pg85.otg.interfaces.ICustomObjectManager;
 import com.pg85.otg.interfaces.ILogger;
+import com.pg85.otg.interfaces.IMaterialReader;
+import com.pg85.otg.interfaces.IModLoadedChecker;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
 
 import java.io.File;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Function;
 
 /**
  * This class is the registry for the custom object types. It also stores
@@ -93,6 +102,63 @@ public class CustomObjectManager implements ICustomObjectManager
 		this.globalCustomObjects.reloadCustomObjectFiles();
 	}
 
+	/**
+	 * Loads the given objects for each preset in parallel and blocks until
+	 * they're done, so worldgen threads don't have to parse objects the
+	 * first time they're used. Should be called after presets are loaded
+	 * and before any worlds are generated.
+	 *
+	 * @param objectNamesPerPreset Object names per preset folder name.
+	 * @param materialReaders Returns the material reader for a preset folder name.
+	 */
+	public void preloadObjects(Map<String, ? extends Collection<String>> objectNamesPerPreset, Function<String, IMaterialReader> materialReaders, Path otgRootFolder, ILogger logger, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		long startTime = System.currentTimeMillis();
+		ForkJoinPool pool = new ForkJoinPool(
+			Runtime.getRuntime().availableProcessors(),
+			forkJoinPool ->
+			{
+				ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+				thread.setName("OTG-ObjectLoader-" + thread.getPoolIndex());
+				return thread;
+			},
+			null,
+			false
+		);
+		int loaded = 0;
+		int total = 0;
+		try
+		{
+			List<ForkJoinTask<CustomObject>> tasks = new ArrayList<ForkJoinTask<CustomObject>>();
+			for (Map.Entry<String, ? extends Collection<String>> entry : objectNamesPerPreset.entrySet())
+			{
+				tasks.addAll(this.globalCustomObjects.preloadObjects(pool, entry.getKey(), entry.getValue(), otgRootFolder, logger, this, materialReaders.apply(entry.getKey()), manager, modLoadedChecker));
+			}
+			total = tasks.size();
+			for (ForkJoinTask<CustomObject> task : tasks)
+			{
+				try
+				{
+					if (task.join() != null)
+					{
+						loaded++;
+					}
+				}
+				catch (RuntimeException ex)
+				{
+					// Broken objects are logged and skipped, same as during decoration.
+					logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not preload custom object: " + ex.getMessage());
+				}
+			}
+		} finally {
+			pool.shutdown();
+		}
+		if (logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+		{
+			logger.log(LogLevel.INFO, LogCategory.CUSTOM_OBJECTS, "Preloaded " + loaded + " of " + total + " custom objects in " + (System.currentTimeMillis() - startTime) + " Ms.");
+		}
+	}
+
 	/**
 	 * Registers a custom object loader. Register before the config files are
 	 * getting loaded, please!
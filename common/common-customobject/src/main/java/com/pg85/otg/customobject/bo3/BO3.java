@@ -34,6 +34,7 @@ import com.pg85.otg.interfaces.IWorldGenRegion;
 import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.biome.ReplaceBlockMatrix;
 import com.pg85.otg.util.bo3.Rotation;
+import com.pg85.otg.util.gen.BlockBatch;
 import com.pg85.otg.util.gen.DecorationArea;
 import com.pg85.otg.util.helpers.MathHelper;
 import com.pg85.otg.util.helpers.RandomHelper;
@@ -41,6 +42,9 @@ import com.pg85.otg.util.materials.LocalMaterialData;
 
 public class BO3 implements StructuredCustomObject
 {
+	// Blocks are queued while spawning and written per chunk section once all are queued.
+	private static final ThreadLocal<BlockBatch> blockBatches = ThreadLocal.withInitial(BlockBatch::new);
+
 	private BO3Config settings;
 	private final String name;
 	private final File file;
@@ -169,6 +173,8 @@ public class BO3 implements StructuredCustomObject
 			oeh.addBlock((BO3BlockFunction) block);
 		}
 		
+		BlockBatch blockBatch = blockBatches.get();
+		blockBatch.clear();
 		ReplaceBlockMatrix replaceBlocks = null;
 		int lastX = Integer.MIN_VALUE;
 		int lastZ = Integer.MIN_VALUE;		
@@ -183,11 +189,13 @@ public class BO3 implements StructuredCustomObject
 					lastX = x + block.x;
 					lastZ = z + z + block.z;
 				}
-				block.spawn(worldGenRegion, random, x + block.x, y + block.y, z + block.z, replaceBlocks);
+				block.spawn(blockBatch, random, x + block.x, y + block.y, z + block.z, replaceBlocks);
 			} else {
-				block.spawn(worldGenRegion, random, x + block.x, y + block.y, z + block.z);
+				block.spawn(blockBatch, random, x + block.x, y + block.y, z + block.z);
 			}
 		}
+		worldGenRegion.setBlocks(blockBatch);
+		blockBatch.clear();
 		oeh.extrude(worldGenRegion, random, x, y, z, doReplaceBlocks(), true);
 		handleBO3Functions(null, null, worldGenRegion, random, rotation, x, y, z, chunks);
 
@@ -214,6 +222,8 @@ public class BO3 implements StructuredCustomObject
 		ObjectExtrusionHelper oeh = new ObjectExtrusionHelper(this.settings.extrudeMode, this.settings.extrudeThroughBlocks);
 		HashSet<ChunkCoordinate> chunks = new HashSet<ChunkCoordinate>();
 
+		BlockBatch blockBatch = blockBatches.get();
+		blockBatch.clear();
 		ReplaceBlockMatrix replaceBlocks = null;
 		int lastX = Integer.MIN_VALUE;
 		int lastZ = Integer.MIN_VALUE;
@@ -228,13 +238,15 @@ public class BO3 implements StructuredCustomObject
 					lastX = x + block.x;
 					lastZ = z + block.z;
 				}
-				block.spawn(worldGenRegion, random, x + block.x, y + block.y, z + block.z, replaceBlocks);
+				block.spawn(blockBatch, random, x + block.x, y + block.y, z + block.z, replaceBlocks);
 			} else {
-				block.spawn(worldGenRegion, random, x + block.x, y + block.y, z + block.z);
+				block.spawn(blockBatch, random, x + block.x, y + block.y, z + block.z);
 			}
 			oeh.addBlock(block);
 			chunks.add(ChunkCoordinate.fromBlockCoords(x + block.x, z + block.z));
 		}
+		worldGenRegion.setBlocks(blockBatch);
+		blockBatch.clear();
 		oeh.extrude(worldGenRegion, random, x, y, z, doReplaceBlocks(), true);
 		handleBO3Functions(null, structureCache, worldGenRegion, random, rotation, x, y, z, chunks);
 
@@ -413,6 +425,8 @@ public class BO3 implements StructuredCustomObject
 			//return false;
 		}
 
+		BlockBatch blockBatch = blockBatches.get();
+		blockBatch.clear();
 		ReplaceBlockMatrix replaceBlocks = null;
 		int lastX = Integer.MIN_VALUE;
 		int lastZ = Integer.MIN_VALUE;		
@@ -426,11 +440,13 @@ public class BO3 implements StructuredCustomObject
 					lastX = x + block.x;
 					lastZ = z + z + block.z;					
 				}				
-				block.spawn(worldGenRegion, random, x + block.x, y + block.y, z + block.z, replaceBlocks);
+				block.spawn(blockBatch, random, x + block.x, y + block.y, z + block.z, replaceBlocks);
 			} else {
-				block.spawn(worldGenRegion, random, x + block.x, y + block.y, z + block.z);
+				block.spawn(blockBatch, random, x + block.x, y + block.y, z + block.z);
 			}
 		}
+		worldGenRegion.setBlocks(blockBatch);
+		blockBatch.clear();
 		oeh.extrude(worldGenRegion, random, x, y, z, doReplaceBlocks(), false);
 		handleBO3Functions(structure, structureCache, worldGenRegion, random, rotation, x, y, z, chunks);
 
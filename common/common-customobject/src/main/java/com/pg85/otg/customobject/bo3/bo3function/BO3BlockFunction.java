@@ -6,6 +6,7 @@ import com.pg85.otg.customobject.bo3.BO3Config;
 import com.pg85.otg.customobject.bofunctions.BlockFunction;
 import com.pg85.otg.interfaces.IWorldGenRegion;
 import com.pg85.otg.util.biome.ReplaceBlockMatrix;
+import com.pg85.otg.util.gen.BlockBatch;
 
 /**
  * Represents a block in a BO3.
@@ -44,6 +45,16 @@ public class BO3BlockFunction extends BlockFunction<BO3Config>
 		worldGenRegion.setBlock(x, y, z, this.material, this.nbt, replaceBlocks);
 	}
 
+	public void spawn(BlockBatch blocks, Random random, int x, int y, int z)
+	{
+		blocks.add(x, y, z, this.material, this.nbt);
+	}
+
+	public void spawn(BlockBatch blocks, Random random, int x, int y, int z, ReplaceBlockMatrix replaceBlocks)
+	{
+		blocks.add(x, y, z, this.material, this.nbt, replaceBlocks);
+	}
+
 	@Override
 	public Class<BO3Config> getHolderType()
 	{
@@ -10,6 +10,7 @@ import com.pg85.otg.interfaces.ILogger;
 import com.pg85.otg.interfaces.IMaterialReader;
 import com.pg85.otg.interfaces.IWorldGenRegion;
 import com.pg85.otg.util.biome.ReplaceBlockMatrix;
+import com.pg85.otg.util.gen.BlockBatch;
 import com.pg85.otg.util.nbt.NamedBinaryTag;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.minecraft.BlockNames;
@@ -228,6 +229,32 @@ public class BO3RandomBlockFunction extends BO3BlockFunction
 		}
 	}
 	
+	@Override
+	public void spawn(BlockBatch batch, Random random, int x, int y, int z)
+	{
+		for (int i = 0; i < blockCount; i++)
+		{
+			if (random.nextInt(100) < blockChances[i])
+			{
+				batch.add(x, y, z, blocks[i], metaDataTags[i]);
+				break;
+			}
+		}
+	}
+
+	@Override
+	public void spawn(BlockBatch batch, Random random, int x, int y, int z, ReplaceBlockMatrix replaceBlocks)
+	{
+		for (int i = 0; i < blockCount; i++)
+		{
+			if (random.nextInt(100) < blockChances[i])
+			{
+				batch.add(x, y, z, blocks[i], metaDataTags[i], replaceBlocks);
+				break;
+			}
+		}
+	}
+	
 	@Override
 	public Class<BO3Config> getHolderType()
 	{
@@ -297,7 +297,7 @@ public class BO4 implements StructuredCustomObject
 		BO4BlockFunction[] blocks = config.getBlocks(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 		if(blocks != null)
 		{
-			for (BO4BlockFunction block : config.getBlocks(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker))
+			for (BO4BlockFunction block : blocks)
 			{
 				if(block instanceof BO4RandomBlockFunction)
 				{
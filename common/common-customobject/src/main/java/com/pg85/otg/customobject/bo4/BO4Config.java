@@ -179,6 +179,8 @@ public class BO4Config extends CustomObjectConfigFile
 		
 	private boolean isCollidable = false;
 	boolean isBO4Data = false;
+	// Where the blocks start in a version 4+ BO4Data file, -1 for older files
+	private int bo4DataBlocksOffset = -1;
 		
 	/**
 	 * Creates a BO4Config from a file.
@@ -414,6 +416,21 @@ public class BO4Config extends CustomObjectConfigFile
 	
 	private BO4BlockFunction[] getBlocks(boolean fromFile, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
+		if(fromFile && this.isBO4Data && this.bo4DataBlocksOffset != -1)
+		{
+			try
+			{
+				return BO4Data.readBlocks(this, this.bo4DataBlocksOffset, logger, materialReader);
+			}
+			catch (IOException e)
+			{
+				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+				{
+					logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, " Error fetching blocks for BO4Data " + this.getName() + ": " + e.getMessage());
+				}
+				return null;
+			}
+		}
 		if(fromFile && this.isBO4Data)
 		{
 			BO4Config bo4Config = null;
@@ -1360,10 +1377,16 @@ public class BO4Config extends CustomObjectConfigFile
 		}
 	}
 
-	private int bo4DataVersion = 3;
+	// Version 4 moved blocks out of the settings stream, see BO4Data
+	static final int BO4DATA_VERSION = 4;
+
+	/**
+	 * Writes the settings, branches and entities of this BO4 to a BO4Data
+	 * settings stream. Blocks are written separately by BO4Data.
+	 */
 	void writeToStream(DataOutput stream, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker) throws IOException
 	{		
-		stream.writeInt(this.bo4DataVersion);
+		stream.writeInt(BO4DATA_VERSION);
 		// Version 3 added fixedRotation		
 		StreamHelper.writeStringToStream(stream, this.fixedRotation == null ? null : this.fixedRotation.toString());
 		stream.writeInt(this.minimumSizeTop);
@@ -1444,135 +1467,6 @@ public class BO4Config extends CustomObjectConfigFile
 		stream.writeInt(0); // Used to be particledata length
 		stream.writeInt(0); // Used to be spawnerdata length
 		stream.writeInt(0); // Used to be moddata length
-		
-		ArrayList<LocalMaterialData> materials = new ArrayList<LocalMaterialData>();
-		ArrayList<String> metaDataNames = new ArrayList<String>();
-		int randomBlockCount = 0;
-		int nonRandomBlockCount = 0;
-		BO4BlockFunction[] blocks = getBlocks(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-		for(BO4BlockFunction block : blocks)
-		{		
-			if(block instanceof BO4RandomBlockFunction)
-			{
-				randomBlockCount++;
-				for(LocalMaterialData material : ((BO4RandomBlockFunction)block).blocks)
-				{
-					if(!materials.contains(material))
-					{
-						materials.add(material);
-					} 
-				}
-			} else {
-				nonRandomBlockCount++;
-			}
-						
-			if(block.material != null && !materials.contains(block.material))
-			{
-				materials.add(block.material);
-			}			
-			if(block.nbtName != null && !metaDataNames.contains(block.nbtName))
-			{
-				metaDataNames.add(block.nbtName);
-			}
-		}
-		
-		String[] metaDataNamesArr = metaDataNames.toArray(new String[metaDataNames.size()]);
-		LocalMaterialData[] blocksArr = materials.toArray(new LocalMaterialData[materials.size()]);
-		
-		stream.writeShort(metaDataNamesArr.length);
-		for(int i = 0; i < metaDataNamesArr.length; i++)
-		{
-			StreamHelper.writeStringToStream(stream, metaDataNamesArr[i]);
-		}
-		
-		stream.writeShort(blocksArr.length);
-		for(int i = 0; i < blocksArr.length; i++)
-		{
-			StreamHelper.writeStringToStream(stream, blocksArr[i].getName());
-		}
-		
-		// TODO: This assumes that loading blocks in a different order won't matter, which may not be true?
-		// Anything that spawns on top, entities/spawners etc, should be spawned last tho, so shouldn't be a problem?
-		stream.writeInt(nonRandomBlockCount);
-		int nonRandomBlockIndex = 0;
-		ArrayList<BO4BlockFunction> blocksInColumn;
-		if(nonRandomBlockCount > 0)
-		{
-			for(int x = this.getminX(); x < xSize; x++)
-			{
-				for(int z = this.getminZ(); z < zSize; z++)
-				{
-					blocksInColumn = new ArrayList<BO4BlockFunction>();
-					for(BO4BlockFunction blockFunction : blocks)
-					{
-						if(!(blockFunction instanceof BO4RandomBlockFunction))
-						{
-							if(blockFunction.x == x && blockFunction.z == z)
-							{
-								blocksInColumn.add(blockFunction);
-							}
-						}
-					}
-					stream.writeShort(blocksInColumn.size());
-					if(blocksInColumn.size() > 0)
-					{
-						for(BO4BlockFunction blockFunction : blocksInColumn)
-						{
-							blockFunction.writeToStream(metaDataNamesArr, blocksArr, stream);
-							nonRandomBlockIndex++;
-						}
-					}
-					if(nonRandomBlockIndex == nonRandomBlockCount)
-					{
-						break;
-					}
-				}
-				if(nonRandomBlockIndex == nonRandomBlockCount)
-				{
-					break;
-				}			
-			}
-		}
-
-		stream.writeInt(randomBlockCount);
-		int randomBlockIndex = 0;
-		if(randomBlockCount > 0)
-		{
-			for(int x = this.getminX(); x < xSize; x++)
-			{
-				for(int z = this.getminZ(); z < zSize; z++)
-				{
-					blocksInColumn = new ArrayList<BO4BlockFunction>();
-					for(BO4BlockFunction blockFunction : blocks)
-					{
-						if(blockFunction instanceof BO4RandomBlockFunction)
-						{
-							if(blockFunction.x == x && blockFunction.z == z)
-							{
-								blocksInColumn.add(blockFunction);
-							}
-						}
-					}
-					stream.writeShort(blocksInColumn.size());
-					if(blocksInColumn.size() > 0)
-					{
-						for(BO4BlockFunction blockFunction : blocksInColumn)
-						{
-							blockFunction.writeToStream(metaDataNamesArr, blocksArr, stream);
-							randomBlockIndex++;
-						}
-					}
-					if(randomBlockIndex == randomBlockCount)
-					{
-						break;
-					}
-				}
-				if(randomBlockIndex == randomBlockCount)
-				{
-					break;
-				}			
-			}
-		}
 	}
 
 	private BO4Config readFromBO4DataFile(boolean getBlocks, ILogger logger, IMaterialReader materialReader) throws InvalidConfigException
@@ -1586,13 +1480,21 @@ public class BO4Config extends CustomObjectConfigFile
 			try
 			{
 				bufferCompressed = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());
-				byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-				bufferCompressed.get(compressedBytes);
-				try {
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					bufferDecompressed = ByteBuffer.wrap(decompressedBytes);
-				} catch (DataFormatException e1) {
-					e1.printStackTrace();
+				int blocksOffset = -1;
+				if(BO4Data.hasColumnIndex(bufferCompressed))
+				{
+					// Only inflate the settings, blocks are read per column when needed.
+					bufferDecompressed = BO4Data.readSettings(bufferCompressed);
+					blocksOffset = bufferCompressed.position();
+				} else {
+					byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
+					bufferCompressed.get(compressedBytes);
+					try {
+						byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
+						bufferDecompressed = ByteBuffer.wrap(decompressedBytes);
+					} catch (DataFormatException e1) {
+						e1.printStackTrace();
+					}
 				}
 
 				//buffer.get(data, 0, remaining);
@@ -1822,7 +1724,16 @@ public class BO4Config extends CustomObjectConfigFile
 				this.maxZ = maxZ;
 				
 				// Reconstruct blocks
-				if(getBlocks)
+				if(getBlocks && blocksOffset != -1)
+				{
+					columnSizes = new short[this.xSize][this.zSize];
+					for(BO4BlockFunction block : BO4Data.readBlocks(this, bufferCompressed, blocksOffset, logger, materialReader))
+					{
+						columnSizes[block.x][block.z]++;
+						newBlocks.add(block);
+					}
+				}
+				else if(getBlocks)
 				{
 					short metaDataNamesArrLength = bufferDecompressed.getShort();
 					String[] metaDataNames = new String[metaDataNamesArrLength];
@@ -1921,6 +1832,7 @@ public class BO4Config extends CustomObjectConfigFile
 				}
 
 				this.isBO4Data = isBO4Data;
+				this.bo4DataBlocksOffset = blocksOffset;
 				this.inheritedBO3Loaded = inheritedBO3Loaded;
 				this.minimumSizeTop = minimumSizeTop;
 				this.minimumSizeBottom = minimumSizeBottom;
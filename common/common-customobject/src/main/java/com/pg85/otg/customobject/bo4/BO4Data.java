@@ -1,57 +1,200 @@
 package com.pg85.otg.customobject.bo4;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 import com.pg85.otg.customobject.CustomObjectManager;
+import com.pg85.otg.customobject.bo4.bo4function.BO4BlockFunction;
+import com.pg85.otg.customobject.bo4.bo4function.BO4RandomBlockFunction;
 import com.pg85.otg.customobject.config.CustomObjectResourcesManager;
+import com.pg85.otg.exceptions.InvalidConfigException;
 import com.pg85.otg.interfaces.ILogger;
 import com.pg85.otg.interfaces.IMaterialReader;
 import com.pg85.otg.interfaces.IModLoadedChecker;
+import com.pg85.otg.util.CompressionUtils;
+import com.pg85.otg.util.helpers.StreamHelper;
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+import com.pg85.otg.util.materials.LocalMaterialData;
 
+/**
+ * Reads and writes .BO4Data files.
+ *
+ * Before version 4, a BO4Data file was a single deflated stream, so
+ * spawning a BO4 meant inflating the whole file. Version 4 files are
+ * laid out so they can be read from a memory mapped file:
+ *
+ * - Magic number and version (ints)
+ * - Settings: compressed/uncompressed length (ints) and the deflated
+ *   settings stream, see BO4Config.writeToStream.
+ * - Palette: compressed/uncompressed length and deflated material and
+ *   metadata names.
+ * - Column index: 16x16 entries of offset, compressed/uncompressed length
+ *   and block count (ints), x-major.
+ * - Column data: deflated blocks per column, each prefixed with a byte
+ *   that's 1 for random blocks. Blocks keep the order of getBlocks, so
+ *   spawning uses random the same way as for the BO4 file.
+ *
+ * Settings are read when the BO4 is loaded, blocks are only read from
+ * the index when the BO4 is spawned and aren't kept in memory.
+ */
 public class BO4Data
 {
+	// "BO4D", older files start with a zlib header.
+	private static final int BO4DATA_MAGIC = 0x424F3444;
+	private static final int COLUMNS = 16 * 16;
+	private static final int COLUMN_INDEX_ENTRY_SIZE = 16;
+
 	public static boolean bo4DataExists(BO4Config config)
 	{
-		String filePath = 
+		return getBO4DataFile(config).exists();
+	}
+
+	private static File getBO4DataFile(BO4Config config)
+	{
+		String filePath =
 			config.getFile().getAbsolutePath().endsWith(".BO4") ? config.getFile().getAbsolutePath().replace(".BO4", ".BO4Data") :
 			config.getFile().getAbsolutePath().endsWith(".bo4") ? config.getFile().getAbsolutePath().replace(".bo4", ".BO4Data") :
 			config.getFile().getAbsolutePath().endsWith(".BO3") ? config.getFile().getAbsolutePath().replace(".BO3", ".BO4Data") :
 			config.getFile().getAbsolutePath().endsWith(".bo3") ? config.getFile().getAbsolutePath().replace(".bo3", ".BO4Data") :
 			config.getFile().getAbsolutePath();
-
-		File file = new File(filePath);
-		return file.exists();
+		return new File(filePath);
 	}
-	
+
 	public static void generateBO4Data(BO4Config config, String presetFolderName, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
 		//write to disk
-		String filePath = 
-			config.getFile().getAbsolutePath().endsWith(".BO4") ? config.getFile().getAbsolutePath().replace(".BO4", ".BO4Data") :
-			config.getFile().getAbsolutePath().endsWith(".bo4") ? config.getFile().getAbsolutePath().replace(".bo4", ".BO4Data") :
-			config.getFile().getAbsolutePath().endsWith(".BO3") ? config.getFile().getAbsolutePath().replace(".BO3", ".BO4Data") :
-			config.getFile().getAbsolutePath().endsWith(".bo3") ? config.getFile().getAbsolutePath().replace(".bo3", ".BO4Data") :
-			config.getFile().getAbsolutePath();
-
-		File file = new File(filePath);
+		File file = getBO4DataFile(config);
 		if(!file.exists())
 		{
 			try {
-				ByteArrayOutputStream bos = new ByteArrayOutputStream();
-				DataOutputStream dos = new DataOutputStream(bos);
-				config.writeToStream(dos, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
-				byte[] compressedBytes = com.pg85.otg.util.CompressionUtils.compress(bos.toByteArray(), logger);
-				dos.close();
-				FileOutputStream fos = new FileOutputStream(file);
-				DataOutputStream dos2 = new DataOutputStream(fos);
-				dos2.write(compressedBytes, 0, compressedBytes.length);
-				dos2.close();
+				ByteArrayOutputStream settingsBytes = new ByteArrayOutputStream();
+				DataOutputStream settingsStream = new DataOutputStream(settingsBytes);
+				config.writeToStream(settingsStream, presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+				settingsStream.close();
+
+				BO4BlockFunction[] blocks = config.getBlocks(presetFolderName, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+
+				ArrayList<LocalMaterialData> materials = new ArrayList<LocalMaterialData>();
+				ArrayList<String> metaDataNames = new ArrayList<String>();
+				@SuppressWarnings("unchecked")
+				ArrayList<BO4BlockFunction>[] blocksPerColumn = new ArrayList[COLUMNS];
+				for(BO4BlockFunction block : blocks)
+				{
+					if(block instanceof BO4RandomBlockFunction)
+					{
+						for(LocalMaterialData material : ((BO4RandomBlockFunction)block).blocks)
+						{
+							if(!materials.contains(material))
+							{
+								materials.add(material);
+							}
+						}
+					}
+					if(block.material != null && !materials.contains(block.material))
+					{
+						materials.add(block.material);
+					}
+					if(block.nbtName != null && !metaDataNames.contains(block.nbtName))
+					{
+						metaDataNames.add(block.nbtName);
+					}
+					int column = block.x * 16 + block.z;
+					if(blocksPerColumn[column] == null)
+					{
+						blocksPerColumn[column] = new ArrayList<BO4BlockFunction>();
+					}
+					blocksPerColumn[column].add(block);
+				}
+
+				String[] metaDataNamesArr = metaDataNames.toArray(new String[metaDataNames.size()]);
+				LocalMaterialData[] blocksArr = materials.toArray(new LocalMaterialData[materials.size()]);
+
+				ByteArrayOutputStream paletteBytes = new ByteArrayOutputStream();
+				DataOutputStream paletteStream = new DataOutputStream(paletteBytes);
+				paletteStream.writeShort(metaDataNamesArr.length);
+				for(int i = 0; i < metaDataNamesArr.length; i++)
+				{
+					StreamHelper.writeStringToStream(paletteStream, metaDataNamesArr[i]);
+				}
+				paletteStream.writeShort(blocksArr.length);
+				for(int i = 0; i < blocksArr.length; i++)
+				{
+					StreamHelper.writeStringToStream(paletteStream, blocksArr[i].getName());
+				}
+				paletteStream.close();
+
+				byte[][] columnBytes = new byte[COLUMNS][];
+				int[] columnLengths = new int[COLUMNS];
+				int[] blockCounts = new int[COLUMNS];
+				for(int column = 0; column < COLUMNS; column++)
+				{
+					if(blocksPerColumn[column] == null)
+					{
+						columnBytes[column] = new byte[0];
+						continue;
+					}
+					ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+					DataOutputStream columnStream = new DataOutputStream(bytes);
+					for(BO4BlockFunction block : blocksPerColumn[column])
+					{
+						columnStream.writeBoolean(block instanceof BO4RandomBlockFunction);
+						block.writeToStream(metaDataNamesArr, blocksArr, columnStream);
+					}
+					blockCounts[column] = blocksPerColumn[column].size();
+					columnStream.close();
+					columnLengths[column] = bytes.size();
+					columnBytes[column] = CompressionUtils.compress(bytes.toByteArray(), logger);
+				}
+
+				byte[] settingsCompressed = CompressionUtils.compress(settingsBytes.toByteArray(), logger);
+				byte[] paletteCompressed = CompressionUtils.compress(paletteBytes.toByteArray(), logger);
+				int offset =
+					4 + 4 +
+					8 + settingsCompressed.length +
+					8 + paletteCompressed.length +
+					COLUMNS * COLUMN_INDEX_ENTRY_SIZE
+				;
+
+				DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+				try
+				{
+					dos.writeInt(BO4DATA_MAGIC);
+					dos.writeInt(BO4Config.BO4DATA_VERSION);
+					dos.writeInt(settingsCompressed.length);
+					dos.writeInt(settingsBytes.size());
+					dos.write(settingsCompressed);
+					dos.writeInt(paletteCompressed.length);
+					dos.writeInt(paletteBytes.size());
+					dos.write(paletteCompressed);
+					for(int column = 0; column < COLUMNS; column++)
+					{
+						dos.writeInt(offset);
+						dos.writeInt(columnBytes[column].length);
+						dos.writeInt(columnLengths[column]);
+						dos.writeInt(blockCounts[column]);
+						offset += columnBytes[column].length;
+					}
+					for(int column = 0; column < COLUMNS; column++)
+					{
+						dos.write(columnBytes[column]);
+					}
+				} finally {
+					dos.close();
+				}
 			}
 			catch (FileNotFoundException e)
 			{
@@ -63,4 +206,135 @@ public class BO4Data
 			}
 		}
 	}
+
+	static boolean hasColumnIndex(ByteBuffer file)
+	{
+		return file.remaining() >= 8 && file.getInt(file.position()) == BO4DATA_MAGIC;
+	}
+
+	/**
+	 * Inflates the settings stream of a version 4+ file, leaving the file
+	 * buffer positioned at the palette.
+	 */
+	static ByteBuffer readSettings(ByteBuffer file) throws IOException
+	{
+		file.getInt(); // Magic
+		file.getInt(); // Version, the settings stream has its own.
+		return inflate(file);
+	}
+
+	/**
+	 * Reads the blocks of a version 4+ BO4Data file, mapping only the
+	 * file for the duration of the call.
+	 */
+	static BO4BlockFunction[] readBlocks(BO4Config config, int blocksOffset, ILogger logger, IMaterialReader materialReader) throws IOException
+	{
+		try(FileChannel channel = FileChannel.open(config.getFile().toPath(), StandardOpenOption.READ))
+		{
+			MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return readBlocks(config, file, blocksOffset, logger, materialReader);
+		}
+	}
+
+	static BO4BlockFunction[] readBlocks(BO4Config config, ByteBuffer file, int blocksOffset, ILogger logger, IMaterialReader materialReader) throws IOException
+	{
+		ByteBuffer buffer = file.duplicate();
+		buffer.position(blocksOffset);
+
+		ByteBuffer palette = inflate(buffer);
+		short metaDataNamesArrLength = palette.getShort();
+		String[] metaDataNames = new String[metaDataNamesArrLength];
+		for(int i = 0; i < metaDataNamesArrLength; i++)
+		{
+			metaDataNames[i] = StreamHelper.readStringFromBuffer(palette);
+		}
+		short blocksArrLength = palette.getShort();
+		LocalMaterialData[] blocksArr = new LocalMaterialData[blocksArrLength];
+		for(int i = 0; i < blocksArrLength; i++)
+		{
+			String materialName = StreamHelper.readStringFromBuffer(palette);
+			try {
+				blocksArr[i] = materialReader.readMaterial(materialName);
+			} catch (InvalidConfigException e) {
+				if(logger.getLogCategoryEnabled(LogCategory.CUSTOM_OBJECTS))
+				{
+					logger.log(LogLevel.ERROR, LogCategory.CUSTOM_OBJECTS, "Could not read material \"" + materialName + "\" for BO4 \"" + config.getName() + "\"");
+				}
+			}
+		}
+
+		int indexOffset = buffer.position();
+		int blockCount = 0;
+		for(int column = 0; column < COLUMNS; column++)
+		{
+			int entry = indexOffset + column * COLUMN_INDEX_ENTRY_SIZE;
+			blockCount += buffer.getInt(entry + 12);
+		}
+
+		BO4BlockFunction[] blocks = new BO4BlockFunction[blockCount];
+		int blockIndex = 0;
+		for(int column = 0; column < COLUMNS; column++)
+		{
+			int entry = indexOffset + column * COLUMN_INDEX_ENTRY_SIZE;
+			int columnBlockCount = buffer.getInt(entry + 12);
+			if(columnBlockCount == 0)
+			{
+				continue;
+			}
+			ByteBuffer columnData = inflate(buffer, buffer.getInt(entry), buffer.getInt(entry + 4), buffer.getInt(entry + 8));
+			int x = column / 16;
+			int z = column % 16;
+			for(int i = 0; i < columnBlockCount; i++)
+			{
+				blocks[blockIndex++] = columnData.get() != 0 ?
+					BO4RandomBlockFunction.fromStream(x, z, metaDataNames, blocksArr, config, columnData, logger) :
+					BO4BlockFunction.fromStream(x, z, metaDataNames, blocksArr, config, columnData, logger);
+			}
+		}
+		return blocks;
+	}
+
+	// Reads a compressed/uncompressed length pair and inflates the section that follows.
+	private static ByteBuffer inflate(ByteBuffer buffer) throws IOException
+	{
+		int compressedLength = buffer.getInt();
+		int length = buffer.getInt();
+		ByteBuffer section = inflate(buffer, buffer.position(), compressedLength, length);
+		buffer.position(buffer.position() + compressedLength);
+		return section;
+	}
+
+	private static ByteBuffer inflate(ByteBuffer buffer, int offset, int compressedLength, int length) throws IOException
+	{
+		ByteBuffer compressed = buffer.duplicate();
+		compressed.position(offset);
+		compressed.limit(offset + compressedLength);
+		byte[] decompressed = new byte[length];
+		Inflater inflater = new Inflater();
+		try
+		{
+			inflater.setInput(compressed);
+			int read = 0;
+			while(read < length && !inflater.finished())
+			{
+				int count = inflater.inflate(decompressed, read, length - read);
+				if(count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+				{
+					break;
+				}
+				read += count;
+			}
+			if(read != length)
+			{
+				throw new IOException("BO4Data section is truncated.");
+			}
+		}
+		catch (DataFormatException e)
+		{
+			throw new IOException("BO4Data section is corrupted.", e);
+		} finally {
+			inflater.end();
+		}
+		return ByteBuffer.wrap(decompressed);
+	}
 }
@@ -66,6 +66,12 @@ public class CustomObjectResource extends BiomeResourceBase implements ICustomOb
 		return this.objects;
 	}
 	
+	@Override
+	public List<String> getObjectNames()
+	{
+		return this.objectNames;
+	}
+
 	@Override
 	public String toString()
 	{
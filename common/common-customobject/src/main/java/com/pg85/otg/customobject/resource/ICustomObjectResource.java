@@ -1,6 +1,7 @@
 package com.pg85.otg.customobject.resource;
 
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Random;
 
 import com.pg85.otg.customobject.CustomObjectManager;
@@ -19,4 +20,9 @@ public interface ICustomObjectResource
 	}
 
 	void spawnForChunkDecoration(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random random, Path otgRootFolder, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker);
+
+	/**
+	 * The names of the objects this resource can spawn, used to preload objects.
+	 */
+	List<String> getObjectNames();
 }
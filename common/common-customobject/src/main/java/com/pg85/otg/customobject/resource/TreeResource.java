@@ -170,6 +170,18 @@ public class TreeResource extends BiomeResourceBase implements ICustomObjectReso
 		}
 	}
 
+	@Override
+	public List<String> getObjectNames()
+	{
+		List<String> objectNames = new ArrayList<String>(this.treeNames.size());
+		for (String treeName : this.treeNames)
+		{
+			// Strip (minHeight=..;maxHeight=..) parameters
+			objectNames.add(treeName.contains("(") ? treeName.substring(0, treeName.indexOf('(')) : treeName);
+		}
+		return objectNames;
+	}
+
 	@Override
 	public String toString()
 	{
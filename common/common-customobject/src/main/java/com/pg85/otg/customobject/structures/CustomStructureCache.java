@@ -1,5 +1,6 @@
 package com.pg85.otg.customobject.structures;
 
+import com.pg85.otg.constants.Constants;
 import com.pg85.otg.customobject.CustomObjectManager;
 import com.pg85.otg.customobject.bo3.BO3;
 import com.pg85.otg.customobject.bo4.BO4;
@@ -19,17 +20,21 @@ import com.pg85.otg.interfaces.IModLoadedChecker;
 import com.pg85.otg.interfaces.IStructuredCustomObject;
 import com.pg85.otg.interfaces.IWorldGenRegion;
 import com.pg85.otg.util.ChunkCoordinate;
-import com.pg85.otg.util.FifoMap;
+import com.pg85.otg.util.LongFifoMap;
+import com.pg85.otg.util.helpers.MathHelper;
 import com.pg85.otg.util.helpers.RandomHelper;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
+import com.pg85.otg.util.metrics.WorldGenMetrics;
+import com.pg85.otg.util.metrics.WorldGenPhase;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 // TODO: spawners/particles/moddata for customobjects also use this, so not just structures. refactor?
 /**
@@ -41,9 +46,17 @@ public class CustomStructureCache
 	private final boolean isBO4Enabled;
 	private final String presetFolderName;
 	private final long worldSeed;
+
+	// Used to reload evicted structure data regions.
+	private final Path otgRootFolder;
+	private final ILogger logger;
+	private final CustomObjectManager customObjectManager;
+	private final IMaterialReader materialReader;
+	private final CustomObjectResourcesManager manager;
+	private final IModLoadedChecker modLoadedChecker;
 	
 	// BO3
-	private FifoMap<ChunkCoordinate, BO3CustomStructure> bo3StructureCache;
+	private LongFifoMap<BO3CustomStructure> bo3StructureCache;
 	
 	// BO4
 	
@@ -58,17 +71,28 @@ public class CustomStructureCache
 	// WorldInfoChunks is persisted to disk, the bo4 plotter's structurecache (of plotted but
 	// not yet decorated branches) is assembled from WorldInfoChunks when loaded from disk.
 	// WorldInfoChunks is used as little as possible, due to its size and slowness.
-	private Map<ChunkCoordinate, StructureDataRegion> worldInfoChunks;
+	// The number of loaded regions is bounded, saved regions are evicted after saving 
+	// and reloaded from disk when needed again (see evictRegions).
+	private final RegionStore<StructureDataRegion> worldInfoChunks;
+
+	// Structure data regions kept in memory before saved regions are evicted.
+	private static final int MAX_LOADED_STRUCTURE_DATA_REGIONS = 256;
 	
 	public CustomStructureCache(String presetFolderName, Path worldSaveDir, long worldSeed, boolean isBO4Enabled, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		this.worldInfoChunks = new HashMap<ChunkCoordinate, StructureDataRegion>();
-		this.plotter = new CustomStructurePlotter();
-		this.bo3StructureCache = new FifoMap<ChunkCoordinate, BO3CustomStructure>(400);
+		this.worldInfoChunks = new RegionStore<StructureDataRegion>(MAX_LOADED_STRUCTURE_DATA_REGIONS, this::loadStructureDataRegion);
+		this.plotter = new CustomStructurePlotter(worldSaveDir, presetFolderName, logger);
+		this.bo3StructureCache = new LongFifoMap<BO3CustomStructure>(400);
 		this.worldSaveDir = worldSaveDir;
 		this.isBO4Enabled = isBO4Enabled;
 		this.presetFolderName = presetFolderName;
 		this.worldSeed = worldSeed;
+		this.otgRootFolder = otgRootFolder;
+		this.logger = logger;
+		this.customObjectManager = customObjectManager;
+		this.materialReader = materialReader;
+		this.manager = manager;
+		this.modLoadedChecker = modLoadedChecker;
 		loadStructureCache(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 	}
 	
@@ -77,7 +101,7 @@ public class CustomStructureCache
 	private boolean worldInfoChunksContainsKey(ChunkCoordinate chunkCoordinate)
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();		
-		StructureDataRegion chunkRegion = worldInfoChunks.get(regionCoord);
+		StructureDataRegion chunkRegion = this.worldInfoChunks.get(regionCoord);
 		return chunkRegion != null && chunkRegion.getStructure(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ()) != null;
 	}
 	
@@ -95,18 +119,32 @@ public class CustomStructureCache
 	private void addToWorldInfoChunks(CustomStructure structure, ChunkCoordinate chunkCoordinate, boolean requiresSave)
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();
-		StructureDataRegion chunkRegion = this.worldInfoChunks.get(regionCoord);
-		if(chunkRegion == null)
+		StructureDataRegion chunkRegion = this.worldInfoChunks.getOrCreate(regionCoord, k -> new StructureDataRegion());
+		chunkRegion.setStructure(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ(), structure, requiresSave);
+	}
+
+	private StructureDataRegion loadStructureDataRegion(ChunkCoordinate regionCoord)
+	{
+		StructureDataRegion region = new StructureDataRegion();
+		Map<CustomStructure, ArrayList<ChunkCoordinate>> loadedStructures = CustomStructureFileManager.loadStructureDataRegion(this.presetFolderName, this.worldSaveDir, regionCoord, this.worldSeed, this.isBO4Enabled, this.otgRootFolder, this.logger, this.customObjectManager, this.materialReader, this.manager, this.modLoadedChecker);
+		for(Entry<CustomStructure, ArrayList<ChunkCoordinate>> loadedStructure : loadedStructures.entrySet())
 		{
-			chunkRegion = new StructureDataRegion();
-			this.worldInfoChunks.put(regionCoord, chunkRegion);
+			for(ChunkCoordinate chunkCoord : loadedStructure.getValue())
+			{
+				if(chunkCoord.toRegionCoord().equals(regionCoord))
+				{
+					region.setStructure(chunkCoord.getRegionInternalX(), chunkCoord.getRegionInternalZ(), loadedStructure.getKey(), false);
+				}
+			}
 		}
-		chunkRegion.setStructure(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ(), structure, requiresSave);
+		return region;
 	}
 
 	public void markRegionForSaving(ChunkCoordinate regionCoordinate)
 	{
-		StructureDataRegion region = this.worldInfoChunks.get(regionCoordinate);
+		// Evicted regions haven't changed since they were saved. Start regions of structures
+		// with chunks left to spawn aren't evicted (see evictRegions), so they're always loaded.
+		StructureDataRegion region = this.worldInfoChunks.getIfLoaded(regionCoordinate);
 		if(region != null)
 		{
 			region.markSaveRequired();
@@ -150,8 +188,8 @@ public class CustomStructureCache
 
 	public BO3CustomStructure getBo3StructureStart(IWorldGenRegion worldGenRegion, Random worldRandom, int chunkX, int chunkZ, Path otgRootFolder, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		ChunkCoordinate chunkCoord = ChunkCoordinate.fromChunkCoords(chunkX, chunkZ);
-		BO3CustomStructure structureStart = bo3StructureCache.get(chunkCoord);
+		long chunkKey = MathHelper.toLong(chunkX, chunkZ);
+		BO3CustomStructure structureStart = bo3StructureCache.get(chunkKey);
 
 		if (structureStart != null)
 		{
@@ -173,11 +211,11 @@ public class CustomStructureCache
 			if (customObject != null)
 			{
 				structureStart = new BO3CustomStructure(worldGenRegion, customObject, otgRootFolder, customObjectManager, materialReader, manager, modLoadedChecker);
-				bo3StructureCache.put(chunkCoord, structureStart);
+				bo3StructureCache.put(chunkKey, structureStart);
 				return structureStart;
 			}
 		}
-		bo3StructureCache.put(chunkCoord, new BO3CustomStructure(null));
+		bo3StructureCache.put(chunkKey, new BO3CustomStructure(null));
 		return null;
 	}
 	
@@ -221,12 +259,31 @@ public class CustomStructureCache
 		return this.plotter.isBo4ChunkPlotted(chunkCoordinate);
 	}
 
-	// Called for each structure start plotted, and each ObjectToSpawn / 
-	// SmoothingArea chunk after branches have been calculated
+	// Called with all ObjectToSpawn / SmoothingArea chunks of a structure after branches 
+	// have been calculated. Returns false if another structure was plotted in one of the 
+	// chunks since, the structure isn't added to any chunk.
+	public boolean addBo4ToStructureCache(Collection<ChunkCoordinate> chunkCoords, BO4CustomStructure structure)
+	{
+		if(!this.plotter.claimChunks(chunkCoords, structure))
+		{
+			return false;
+		}
+		for(ChunkCoordinate chunkCoord : chunkCoords)
+		{
+			addBo4ToStructureCache(chunkCoord, structure);
+		}
+		return true;
+	}
+
+	// Called for each claimed chunk, and by the plotter when applying handed off chunks.
 	public void addBo4ToStructureCache(ChunkCoordinate chunkCoord, BO4CustomStructure structure)
 	{
-		this.plotter.addBo4ToStructureCache(chunkCoord, structure);		
-		addToWorldInfoChunks(chunkCoord, structure, true);
+		// If the chunk was handed off to a region held by another thread, 
+		// it's added to worldInfoChunks once the handoff has been applied.
+		if(this.plotter.addBo4ToStructureCache(chunkCoord, structure))
+		{
+			addToWorldInfoChunks(chunkCoord, structure, true);
+		}
 	}
 
 	// Only used by other resources like lakes 
@@ -234,11 +291,24 @@ public class CustomStructureCache
 	{
 		if(this.isBO4Enabled)
 		{
-			return this.worldInfoChunks.containsKey(chunkCoord);
+			return this.worldInfoChunks.getIfLoaded(chunkCoord) != null;
 		}
 		return false;
 	}
 	
+	// Only used by ChunkDecorator, before plotting/spawning bo4's for a chunk and its neighbours.
+	// Locks the plotter regions around the chunk, blocks if another thread is plotting nearby.
+	public void lockBo4Regions(IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		this.plotter.lockRegions(this, worldGenRegion, rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+	}
+
+	// Only used by ChunkDecorator, after plotting/spawning bo4's for a chunk and its neighbours.
+	public void unlockBo4Regions(ChunkCoordinate chunkCoord)
+	{
+		this.plotter.unlockRegions(chunkCoord);
+	}
+
 	// Only used by ChunkDecorator during decoration
 	public void plotBo4Structures(IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
@@ -262,56 +332,140 @@ public class CustomStructureCache
 	public void saveToDisk(ILogger logger, IChunkDecorator chunkPopulator)
 	{
 		logger.log(LogLevel.INFO, LogCategory.MAIN, "Saving structure and pregenerator data.");
-		boolean firstLog = false;
-		long starTime = System.currentTimeMillis();
-		while(true)
+		int interval = 300;
+		boolean locked;
+		try
+		{
+			locked = chunkPopulator.beginSave(interval, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			logger.log(LogLevel.ERROR, LogCategory.MAIN, "SaveToDisk was interrupted while waiting on decorate, structure data was not saved.");
+			return;
+		}
+		if(!locked)
+		{
+			logger.log(LogLevel.FATAL, LogCategory.MAIN, "SaveToDisk waited on decorate longer than " + interval + " seconds, something went wrong!");
+			throw new RuntimeException("SaveToDisk waited on decorate longer than " + interval + " seconds, something went wrong!");
+		}
+
+		try
+		{
+			long metricsStart = WorldGenMetrics.startTimer();
+			saveStructureCache(logger);
+			evictRegions(logger);
+			WorldGenMetrics.record(WorldGenPhase.STRUCTURE_SAVE, metricsStart);
+		} finally {
+			chunkPopulator.endSave();
+		}
+		logger.log(LogLevel.INFO, LogCategory.MAIN, "Structure and pregenerator data saved.");
+	}
+
+	private void saveStructureCache(ILogger logger)
+	{
+		CustomStructureFileManager.saveStructureData(this.worldInfoChunks.getLoadedRegions(), this.presetFolderName, this.worldSaveDir, logger);
+		
+		if(this.isBO4Enabled)
 		{
-			// TODO: Make this prettier
-			synchronized(chunkPopulator.getLockingObject())
+			plotter.saveStructureCache(this.worldSaveDir, this.presetFolderName, this.isBO4Enabled, logger);
+		}
+	}
+
+	// Called while saving, after all regions have been saved. Evicts saved regions, least
+	// recently used first, until the number of loaded regions is back under the limit.
+	// For BO4 worlds, regions with plotted structures waiting to be spawned are kept, and
+	// the plotter region is locked while evicting so nothing can be plotted in it (/otg spawn
+	// doesn't wait for saving). Regions that structures with chunks left to spawn start in 
+	// are kept too (see hasStructureStartsLeftToSpawn).
+	private void evictRegions(ILogger logger)
+	{
+		int evicted = 0;
+		for(ChunkCoordinate regionCoord : this.worldInfoChunks.getEvictionCandidates())
+		{
+			if(!this.worldInfoChunks.isOverCapacity())
 			{
-				if(!chunkPopulator.isDecorating())
-				{
-					chunkPopulator.beginSave();
-					break;
-				}
+				break;
 			}
-			if(firstLog)
+			StructureDataRegion region = this.worldInfoChunks.getIfLoaded(regionCoord);
+			if(region == null || region.requiresSave())
 			{
-				logger.log(LogLevel.WARN, LogCategory.MAIN, "SaveToDisk waiting on Populate. Although other mods could be causing this and there may not be any problem, this can potentially cause an endless loop!");
-				firstLog = false;
+				continue;
 			}
-			int interval = 300;
-			if(System.currentTimeMillis() - starTime > (interval * 1000))
+			if(this.isBO4Enabled)
 			{
-				logger.log(LogLevel.FATAL, LogCategory.MAIN, "SaveToDisk waited on decorate longer than " + interval + " seconds, something went wrong!");
-				throw new RuntimeException("SaveToDisk waited on decorate longer than " + interval + " seconds, something went wrong!");
+				if(!this.plotter.tryLockIdleRegion(regionCoord))
+				{
+					continue;
+				}
+				try
+				{
+					if(!region.requiresSave() && !hasStructureStartsLeftToSpawn(regionCoord, region))
+					{
+						this.worldInfoChunks.evict(regionCoord);
+						evicted++;
+					}
+				} finally {
+					this.plotter.unlockRegion(regionCoord);
+				}
+			} else {
+				this.worldInfoChunks.evict(regionCoord);
+				evicted++;
 			}
 		}
 
-		saveStructureCache(logger);
+		int plottedChunksEvicted = 0;
+		if(this.isBO4Enabled)
+		{
+			plottedChunksEvicted = this.plotter.evictPlottedChunks();
+		}
 
-		synchronized(chunkPopulator.getLockingObject())
+		if(logger.getLogCategoryEnabled(LogCategory.STRUCTURE_PLOTTING))
 		{
-			chunkPopulator.endSave();
+			logger.log(LogLevel.INFO, LogCategory.STRUCTURE_PLOTTING, 
+				evicted + " structure data regions evicted, " + this.worldInfoChunks.getLoadedRegionCount() + " loaded. " +
+				(this.isBO4Enabled ? plottedChunksEvicted + " plotted chunk regions evicted, " + this.plotter.getLoadedPlottedChunksRegionCount() + " loaded." : "")
+			);
 		}
-		logger.log(LogLevel.INFO, LogCategory.MAIN, "Structure and pregenerator data saved.");
 	}
 
-	private void saveStructureCache(ILogger logger)
+	// A structure is saved with its start region, and spawning any of its chunks marks that
+	// region for saving. If the start region was evicted while chunks in other regions were
+	// left to spawn, those changes would be lost, and reloading the region would create a
+	// second copy of the structure next to the one the plotter holds.
+	private boolean hasStructureStartsLeftToSpawn(ChunkCoordinate regionCoord, StructureDataRegion region)
 	{
-		CustomStructureFileManager.saveStructureData(this.worldInfoChunks, this.presetFolderName, this.worldSaveDir, logger);
-		
-		if(this.isBO4Enabled)
+		CustomStructure lastStructure = null;
+		for(int internalX = 0; internalX < Constants.REGION_SIZE; internalX++)
 		{
-			plotter.saveStructureCache(this.worldSaveDir, this.presetFolderName, this.isBO4Enabled, logger);
+			for(int internalZ = 0; internalZ < Constants.REGION_SIZE; internalZ++)
+			{
+				CustomStructure structure = region.getStructure(internalX, internalZ);
+				// Structures usually cover several chunks next to each other.
+				if(structure == null || structure == lastStructure)
+				{
+					continue;
+				}
+				lastStructure = structure;
+				if(
+					structure instanceof BO4CustomStructure && 
+					structure.start != null &&
+					ChunkCoordinate.fromChunkCoords(structure.start.getChunkX(), structure.start.getChunkZ()).toRegionCoord().equals(regionCoord) &&
+					((BO4CustomStructure)structure).hasChunksLeftToSpawn()
+				)
+				{
+					return true;
+				}
+			}
 		}
+		return false;
 	}
 
 	private void loadStructureCache(Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{		
 		logger.log(LogLevel.INFO, LogCategory.MAIN, "Loading structure data");
 
-		this.worldInfoChunks = new HashMap<ChunkCoordinate, StructureDataRegion>();
+		this.worldInfoChunks.clear();
 		
 		Map<CustomStructure, ArrayList<ChunkCoordinate>> loadedStructures = CustomStructureFileManager.loadStructureData(this.presetFolderName, this.worldSaveDir, this.worldSeed, this.isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 		if(loadedStructures != null)
@@ -1,16 +1,11 @@
 package com.pg85.otg.customobject.structures;
 
-import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
-import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -74,8 +69,8 @@ public class CustomStructureFileManager
 					Constants.StructureDataBackupFileExtension
 				);
 				
-				ByteArrayOutputStream bos = new ByteArrayOutputStream();
-				DataOutputStream dos = new DataOutputStream(bos);
+				RegionFileStore.Payload payload = new RegionFileStore.Payload();
+				DataOutputStream dos = new DataOutputStream(payload);
 				
 				boolean[][] entriesByStructureName = chunkPerRegionEntry.getValue().getArray();
 				try
@@ -97,45 +92,7 @@ public class CustomStructureFileManager
 					return;
 				}
 
-				DataOutputStream dos2 = null;
-				FileOutputStream fos = null;
-				try {
-					if(!occupiedChunksFile.exists())
-					{
-						occupiedChunksFile.getParentFile().mkdirs();
-					} else {
-						Files.move(occupiedChunksFile.toPath(), occupiedChunksBackupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-					}
-					byte[] compressedBytes = com.pg85.otg.util.CompressionUtils.compress(bos.toByteArray(), logger);
-					dos.close();
-					fos = new FileOutputStream(occupiedChunksFile);
-					dos2 = new DataOutputStream(fos);
-					dos2.write(compressedBytes, 0, compressedBytes.length);
-				}
-				catch (IOException e)
-				{
-					e.printStackTrace();
-					logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error writing " + occupiedChunksFile.getAbsolutePath() + ", skipping.");
-				} finally {
-					try {
-						if(dos != null)
-						{
-							dos.close();
-						}
-					} catch (Exception e) { }
-					try {
-						if(dos2 != null)
-						{
-							dos2.close();
-						}
-					} catch (Exception e) { }
-					try {
-						if(fos != null)
-						{
-							fos.close();
-						}
-					} catch (Exception e) { }
-				}
+				RegionFileStore.write(occupiedChunksFile, occupiedChunksBackupFile, payload, logger);
 			}
 		}
 		
@@ -147,6 +104,8 @@ public class CustomStructureFileManager
 	
 	public static Map<ChunkCoordinate, PlottedChunksRegion> loadPlottedChunksData(Path worldSaveDir, String presetFolderName, ILogger logger)
 	{
+		RegionFileStore.awaitPendingWrites(logger);
+
 		HashMap<ChunkCoordinate, PlottedChunksRegion> output = new HashMap<ChunkCoordinate, PlottedChunksRegion>();
 		
 		File occupiedChunksFolder = new File(
@@ -219,7 +178,6 @@ public class CustomStructureFileManager
 			
 			if(occupiedChunksFile != null && occupiedChunksFile.exists())
 			{			
-				FileInputStream fis = null;
 				PlottedChunksRegion result = null;
 				try {
 					String[] chunkCoords = occupiedChunksFile.getName().replace(Constants.StructureDataFileExtension, "").split("_");
@@ -227,33 +185,13 @@ public class CustomStructureFileManager
 					int regionZ = Integer.parseInt(chunkCoords[1]);
 					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);
 					
-					fis = new FileInputStream(occupiedChunksFile);			
-					ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-					
-					byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-					buffer.get(compressedBytes);
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					buffer = ByteBuffer.wrap(decompressedBytes);
+					ByteBuffer buffer = RegionFileStore.read(occupiedChunksFile);
 					result = parsePlottedChunksFileFromStream(buffer, logger);
 				}
 				catch (Exception ex)
 				{
 					ex.printStackTrace();
 					logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + occupiedChunksFile.getAbsolutePath() + ", trying to load backup.");
-				} finally {
-					if(fis != null)
-					{
-						try {
-							fis.getChannel().close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-						try {
-							fis.close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-					}
 				}
 				if(result != null)
 				{
@@ -264,7 +202,6 @@ public class CustomStructureFileManager
 			
 			if(!bSuccess && occupiedChunksBackupFile != null && occupiedChunksBackupFile.exists())
 			{			
-				FileInputStream fis = null;
 				PlottedChunksRegion result = null;
 				try {
 					String[] chunkCoords = occupiedChunksFile.getName().replace(Constants.StructureDataBackupFileExtension, "").split("_");
@@ -272,32 +209,12 @@ public class CustomStructureFileManager
 					int regionZ = Integer.parseInt(chunkCoords[1]);
 					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);
 					
-					fis = new FileInputStream(occupiedChunksBackupFile);			
-					ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-					
-					byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-					buffer.get(compressedBytes);
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					buffer = ByteBuffer.wrap(decompressedBytes);
+					ByteBuffer buffer = RegionFileStore.read(occupiedChunksBackupFile);
 					result = parsePlottedChunksFileFromStream(buffer, logger);
 				}
 				catch (Exception ex)
 				{
 					ex.printStackTrace();
-				} finally {
-					if(fis != null)
-					{
-						try {
-							fis.getChannel().close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-						try {
-							fis.close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-					}
 				}
 				if(result != null)
 				{
@@ -335,6 +252,46 @@ public class CustomStructureFileManager
 		return output.size() > 0 ? output : null;
 	}
 	
+	/**
+	 * Loads a single plotted chunks region, used to reload regions that 
+	 * were evicted from memory. If the region can't be loaded, a filled 
+	 * region is returned, same as when loading all regions.
+	 */
+	public static PlottedChunksRegion loadPlottedChunksRegion(Path worldSaveDir, String presetFolderName, ChunkCoordinate regionCoord, ILogger logger)
+	{
+		RegionFileStore.awaitPendingWrites(logger);
+
+		String regionFileName = 
+			worldSaveDir + File.separator + 
+			Constants.MOD_ID + File.separator + 
+			presetFolderName + File.separator +
+			Constants.PlottedChunksDataFolderName + File.separator +
+			regionCoord.getChunkX() + "_" +
+			regionCoord.getChunkZ()
+		;
+		File occupiedChunksFile = new File(regionFileName + Constants.StructureDataFileExtension);
+		File occupiedChunksBackupFile = new File(regionFileName + Constants.StructureDataBackupFileExtension);
+		for(File file : new File[] { occupiedChunksFile, occupiedChunksBackupFile })
+		{
+			if(file.exists())
+			{
+				try
+				{
+					return parsePlottedChunksFileFromStream(RegionFileStore.read(file), logger);
+				}
+				catch (Exception ex)
+				{
+					logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + file.getAbsolutePath() + ": " + ex);
+				}
+			}
+		}
+		logger.log(LogLevel.ERROR, LogCategory.MAIN,
+			"OTG encountered an error reloading " + occupiedChunksFile.getAbsolutePath() + ", substituting a default filled region. "
+			+ "This may result in areas with missing BO4's."
+		);
+		return PlottedChunksRegion.getFilledRegion();
+	}
+
 	private static PlottedChunksRegion parsePlottedChunksFileFromStream(ByteBuffer buffer, ILogger logger) throws IOException
 	{
 		buffer.getInt(); // Version, not used atm.		
@@ -447,8 +404,8 @@ public class CustomStructureFileManager
 			Constants.StructureDataBackupFileExtension
 		);
 		
-		ByteArrayOutputStream bos = new ByteArrayOutputStream();
-		DataOutputStream dos = new DataOutputStream(bos);
+		RegionFileStore.Payload payload = new RegionFileStore.Payload();
+		DataOutputStream dos = new DataOutputStream(payload);
 		
 		try
 		{
@@ -584,51 +541,15 @@ public class CustomStructureFileManager
 			return;
 		}
 			
-		DataOutputStream dos2 = null;
-		FileOutputStream fos = null;
-		try {
-			if(!structuresRegionFile.exists())
-			{
-				structuresRegionFile.getParentFile().mkdirs();
-			} else {
-				Files.move(structuresRegionFile.toPath(), structuresRegionBackupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-			}
-			byte[] compressedBytes = com.pg85.otg.util.CompressionUtils.compress(bos.toByteArray(), logger);
-			dos.close();
-			fos = new FileOutputStream(structuresRegionFile);
-			dos2 = new DataOutputStream(fos);
-			dos2.write(compressedBytes, 0, compressedBytes.length);
-		}
-		catch (IOException e)
-		{
-			logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error writing " + structuresRegionFile.getAbsolutePath() + ", skipping. Exception:");
-			e.printStackTrace();			
-		} finally {
-			try {
-				if(dos != null)
-				{
-					dos.close();
-				}
-			} catch (Exception e) { }
-			try {
-				if(dos2 != null)
-				{
-					dos2.close();
-				}
-			} catch (Exception e) { }
-			try {
-				if(fos != null)
-				{
-					fos.close();
-				}
-			} catch (Exception e) { }
-		}
+		RegionFileStore.write(structuresRegionFile, structuresRegionBackupFile, payload, logger);
 	}
 	
 	// TODO: Load one region file at a time, on-demand, rather than loading all region files at once.
 	// Almost everything should be set up for it, auto-replacing CustomStructurePlaceHolders take care of most things?
 	static HashMap<CustomStructure, ArrayList<ChunkCoordinate>> loadStructureData(String presetFolderName, Path worldSaveDir, long worldSeed, boolean isBO4Enabled, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
+		RegionFileStore.awaitPendingWrites(logger);
+
 		HashMap<CustomStructure, ArrayList<ChunkCoordinate>> output = new HashMap<CustomStructure, ArrayList<ChunkCoordinate>>();
 		
 		File structureDataFolder = new File(
@@ -699,7 +620,6 @@ public class CustomStructureFileManager
 
 			if(structureDataFile != null && structureDataFile.exists())
 			{			
-				FileInputStream fis = null;
 				HashMap<CustomStructure, ArrayList<ChunkCoordinate>> result = null;
 				try {
 					
@@ -707,13 +627,7 @@ public class CustomStructureFileManager
 					int regionZ = Integer.parseInt(structureDataFile.getName().replace(Constants.StructureDataFileExtension, "").split("_")[1]);
 					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);
 					
-					fis = new FileInputStream(structureDataFile);			
-					ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-					
-					byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-					buffer.get(compressedBytes);
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					buffer = ByteBuffer.wrap(decompressedBytes);
+					ByteBuffer buffer = RegionFileStore.read(structureDataFile);
 										
 					result = parseStructuresFileFromStream(buffer, regionCoord, presetFolderName, worldSeed, isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 				}
@@ -721,20 +635,6 @@ public class CustomStructureFileManager
 				{
 					ex.printStackTrace();
 					logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + structureDataFile.getAbsolutePath() + ", trying to load backup.");
-				} finally {
-					if(fis != null)
-					{
-						try {
-							fis.getChannel().close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-						try {
-							fis.close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-					}
 				}
 				if(result != null)
 				{
@@ -745,40 +645,19 @@ public class CustomStructureFileManager
 			
 			if(!bSuccess && structureDataBackupFile != null && structureDataBackupFile.exists())
 			{
-				FileInputStream fis = null;
 				HashMap<CustomStructure, ArrayList<ChunkCoordinate>> result = null;
 				try {
 					int regionX = Integer.parseInt(structureDataBackupFile.getName().replace(Constants.BackupFileSuffix, "").split("_")[0]);
 					int regionZ = Integer.parseInt(structureDataBackupFile.getName().replace(Constants.BackupFileSuffix, "").split("_")[1]);				
 					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);					
 					
-					fis = new FileInputStream(structureDataBackupFile);			
-					ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-					
-					byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-					buffer.get(compressedBytes);
-					byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-					buffer = ByteBuffer.wrap(decompressedBytes);
+					ByteBuffer buffer = RegionFileStore.read(structureDataBackupFile);
 										
 					result = parseStructuresFileFromStream(buffer, regionCoord, presetFolderName, worldSeed, isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 				}
 				catch (Exception ex)
 				{
 					ex.printStackTrace();
-				} finally {
-					if(fis != null)
-					{
-						try {
-							fis.getChannel().close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-						try {
-							fis.close();
-						} catch (IOException e) {
-							e.printStackTrace();
-						}
-					}
 				}
 				if(result != null)
 				{
@@ -798,6 +677,48 @@ public class CustomStructureFileManager
 		return output.size() > 0 ? output : null;
 	}
 	
+	/**
+	 * Loads a single structure data region, used to reload regions that 
+	 * were evicted from memory. Structures that start in a different region
+	 * are loaded as CustomStructurePlaceHolders, same as when loading all 
+	 * regions, but aren't merged with their structure starts. Returns an
+	 * empty map if the region can't be loaded.
+	 */
+	static HashMap<CustomStructure, ArrayList<ChunkCoordinate>> loadStructureDataRegion(String presetFolderName, Path worldSaveDir, ChunkCoordinate regionCoord, long worldSeed, boolean isBO4Enabled, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		RegionFileStore.awaitPendingWrites(logger);
+
+		String regionFileName = 
+			worldSaveDir + File.separator + 
+			Constants.MOD_ID + File.separator + 
+			presetFolderName + File.separator +
+			Constants.StructureDataFolderName + File.separator +
+			regionCoord.getChunkX() + "_" +
+			regionCoord.getChunkZ()
+		;
+		File structureDataFile = new File(regionFileName + Constants.StructureDataFileExtension);
+		File structureDataBackupFile = new File(regionFileName + Constants.StructureDataBackupFileExtension);
+		for(File file : new File[] { structureDataFile, structureDataBackupFile })
+		{
+			if(file.exists())
+			{
+				try
+				{
+					return parseStructuresFileFromStream(RegionFileStore.read(file), regionCoord, presetFolderName, worldSeed, isBO4Enabled, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+				}
+				catch (Exception ex)
+				{
+					logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + file.getAbsolutePath() + ": " + ex);
+				}
+			}
+		}
+		logger.log(LogLevel.ERROR, LogCategory.MAIN,
+			"OTG encountered an error reloading " + structureDataFile.getAbsolutePath() + ", ignoring. "
+			+ "This may result in areas with missing /otg structure info and spawners/particles/moddata."
+		);
+		return new HashMap<CustomStructure, ArrayList<ChunkCoordinate>>();
+	}
+
 	private static void mergeRegionData(HashMap<CustomStructure, ArrayList<ChunkCoordinate>> result, HashMap<CustomStructure, ArrayList<ChunkCoordinate>> output)
 	{
 		// When parsing structures per region, merge all placeholder structures 
@@ -964,91 +885,86 @@ public class CustomStructureFileManager
 		return structuresFile;
 	}
 
-	public static void saveChunksMapFile(Path worldSaveDir, String presetFolderName, HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName, HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup, ILogger logger)
+	/**
+	 * Queues a compaction of the spawned structures file on the I/O thread:
+	 * the spawned structures file and its journal are read, merged and 
+	 * written back as a new spawned structures file, then the journal is 
+	 * deleted. Works only on the files, so doesn't need to lock the plotter.
+	 */
+	public static void compactSpawnedStructures(Path worldSaveDir, String presetFolderName, ILogger logger)
 	{
 		File occupiedChunksFile = new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresFileName);
 		File occupiedChunksBackupFile = new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresBackupFileName);
+		File journalFile = new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresJournalFileName);
 
-		ByteArrayOutputStream bos = new ByteArrayOutputStream();
-		DataOutputStream dos = new DataOutputStream(bos);
-		
-		if(spawnedStructuresByName.size() > 0)
+		RegionFileStore.submit(occupiedChunksFile, () ->
 		{
-			try {
-				int version = 1;
-				dos.writeInt(version);
+			HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName = new HashMap<String, ArrayList<ChunkCoordinate>>();
+			HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup = new HashMap<String, HashMap<ChunkCoordinate, Integer>>();
 
-				dos.writeInt(spawnedStructuresByName.entrySet().size());
-				for(Map.Entry<String, ArrayList<ChunkCoordinate>> entry : spawnedStructuresByName.entrySet())
-				{
-					StreamHelper.writeStringToStream(dos,  entry.getKey());
-					dos.writeInt(entry.getValue().size());
-					for(ChunkCoordinate chunkCoord : entry.getValue())
-					{
-						dos.writeInt(chunkCoord.getChunkX());
-						dos.writeInt(chunkCoord.getChunkZ());
-					}
-				}
-				
-				dos.writeInt(spawnedStructuresByGroup.entrySet().size());
-				for(Entry<String, HashMap<ChunkCoordinate, Integer>> entry : spawnedStructuresByGroup.entrySet())
-				{
-					StreamHelper.writeStringToStream(dos,  entry.getKey());
-					dos.writeInt(entry.getValue().entrySet().size());
-					for(Entry<ChunkCoordinate, Integer> valueEntry : entry.getValue().entrySet())
-					{					
-						dos.writeInt(valueEntry.getKey().getChunkX());
-						dos.writeInt(valueEntry.getKey().getChunkZ());
-						dos.writeInt(valueEntry.getValue().intValue());
-					}
-				}
-			} catch (IOException e1) {
-				e1.printStackTrace();
-				return;
-			}			
-			
-			DataOutputStream dos2 = null;
-			FileOutputStream fos = null;
-			try
-			{				
-				if(!occupiedChunksFile.exists())
-				{
-					occupiedChunksFile.getParentFile().mkdirs();
-				} else {
-					Files.move(occupiedChunksFile.toPath(), occupiedChunksBackupFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
-				}
-				byte[] compressedBytes = com.pg85.otg.util.CompressionUtils.compress(bos.toByteArray(), logger);
-				fos = new FileOutputStream(occupiedChunksFile);
-				dos2 = new DataOutputStream(fos);
-				dos2.write(compressedBytes, 0, compressedBytes.length);
-			} catch (IOException e) {
-				logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error writing " + occupiedChunksFile.getAbsolutePath() + ", skipping. Exception: ");
-				e.printStackTrace();				
-			} finally {
-				try {
-					if(dos != null)
-					{
-						dos.close();
-					}
-				} catch (Exception e) { }				
-				try {
-					if(dos2 != null)
-					{
-						dos2.close();
-					}
-				} catch (Exception e) { }
-				try {
-					if(fos != null)
-					{
-						fos.close();
-					}
-				} catch (Exception e) { }
+			// If the existing file can't be read, leave everything as is, 
+			// the journal will be replayed on top of the backup when loading.
+			if(occupiedChunksFile.exists())
+			{
+				parseChunksMapFileFromStream(RegionFileStore.read(occupiedChunksFile), spawnedStructuresByName, spawnedStructuresByGroup);
+			}
+			else if(occupiedChunksBackupFile.exists())
+			{
+				parseChunksMapFileFromStream(RegionFileStore.read(occupiedChunksBackupFile), spawnedStructuresByName, spawnedStructuresByGroup);
+			}
+			int entries = SpawnedStructuresJournal.replay(journalFile, spawnedStructuresByName, spawnedStructuresByGroup, logger);
+
+			RegionFileStore.writeFile(occupiedChunksFile.toPath(), writeChunksMap(spawnedStructuresByName, spawnedStructuresByGroup));
+			// If we crash before the journal is deleted, replaying it again on load is harmless.
+			Files.deleteIfExists(journalFile.toPath());
+			Files.deleteIfExists(occupiedChunksBackupFile.toPath());
+
+			if(logger.getLogCategoryEnabled(LogCategory.STRUCTURE_PLOTTING))
+			{
+				logger.log(LogLevel.INFO, LogCategory.STRUCTURE_PLOTTING, "Compacted " + entries + " spawned structure journal entries.");
+			}
+		}, logger);
+	}
+
+	private static RegionFileStore.Payload writeChunksMap(HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName, HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup) throws IOException
+	{
+		RegionFileStore.Payload payload = new RegionFileStore.Payload();
+		DataOutputStream dos = new DataOutputStream(payload);
+
+		int version = 1;
+		dos.writeInt(version);
+
+		dos.writeInt(spawnedStructuresByName.entrySet().size());
+		for(Map.Entry<String, ArrayList<ChunkCoordinate>> entry : spawnedStructuresByName.entrySet())
+		{
+			StreamHelper.writeStringToStream(dos,  entry.getKey());
+			dos.writeInt(entry.getValue().size());
+			for(ChunkCoordinate chunkCoord : entry.getValue())
+			{
+				dos.writeInt(chunkCoord.getChunkX());
+				dos.writeInt(chunkCoord.getChunkZ());
 			}
 		}
+		
+		dos.writeInt(spawnedStructuresByGroup.entrySet().size());
+		for(Entry<String, HashMap<ChunkCoordinate, Integer>> entry : spawnedStructuresByGroup.entrySet())
+		{
+			StreamHelper.writeStringToStream(dos,  entry.getKey());
+			dos.writeInt(entry.getValue().entrySet().size());
+			for(Entry<ChunkCoordinate, Integer> valueEntry : entry.getValue().entrySet())
+			{					
+				dos.writeInt(valueEntry.getKey().getChunkX());
+				dos.writeInt(valueEntry.getKey().getChunkZ());
+				dos.writeInt(valueEntry.getValue().intValue());
+			}
+		}
+		return payload;
 	}
 
 	public static void loadChunksMapFile(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName, HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup, ILogger logger)
 	{
+		RegionFileStore.awaitPendingWrites(logger);
+
 		File occupiedChunksFile = new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresFileName);
 		File occupiedChunksBackupFile = new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresBackupFileName);
 
@@ -1059,15 +975,8 @@ public class CustomStructureFileManager
 				
 		if(occupiedChunksFile.exists())
 		{			
-			FileInputStream fis = null;
 			try {			
-				fis = new FileInputStream(occupiedChunksFile);			
-				ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-				
-				byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-				buffer.get(compressedBytes);
-				byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-				buffer = ByteBuffer.wrap(decompressedBytes);
+				ByteBuffer buffer = RegionFileStore.read(occupiedChunksFile);
 				parseChunksMapFileFromStream(buffer, spawnedStructuresByName, spawnedStructuresByGroup);
 				return;
 			}
@@ -1075,54 +984,19 @@ public class CustomStructureFileManager
 			{
 				ex.printStackTrace();
 				logger.log(LogLevel.WARN, LogCategory.MAIN, "Failed to load " + occupiedChunksFile.getAbsolutePath() + ", trying to load backup.");
-			} finally {
-				if(fis != null)
-				{
-					try {
-						fis.getChannel().close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-					try {
-						fis.close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-				}
 			}
 		}
 		
 		if(occupiedChunksBackupFile.exists())
 		{			
-			FileInputStream fis = null;
 			try {			
-				fis = new FileInputStream(occupiedChunksBackupFile);			
-				ByteBuffer buffer = fis.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, fis.getChannel().size());				
-				
-				byte[] compressedBytes = new byte[(int) fis.getChannel().size()];
-				buffer.get(compressedBytes);
-				byte[] decompressedBytes = com.pg85.otg.util.CompressionUtils.decompress(compressedBytes);
-				buffer = ByteBuffer.wrap(decompressedBytes);
+				ByteBuffer buffer = RegionFileStore.read(occupiedChunksBackupFile);
 				parseChunksMapFileFromStream(buffer, spawnedStructuresByName, spawnedStructuresByGroup);
 				return;
 			}
 			catch (Exception ex)
 			{
 				ex.printStackTrace();
-			} finally {
-				if(fis != null)
-				{
-					try {
-						fis.getChannel().close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-					try {
-						fis.close();
-					} catch (IOException e) {
-						e.printStackTrace();
-					}
-				}
 			}
 		}
 		
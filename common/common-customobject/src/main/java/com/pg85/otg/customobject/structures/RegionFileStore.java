@@ -0,0 +1,271 @@
+package com.pg85.otg.customobject.structures;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import com.pg85.otg.interfaces.ILogger;
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+
+/**
+ * Reads and writes deflated structure data files (plotted chunks, structure
+ * regions and the spawned structures map) through FileChannels.
+ *
+ * Writes are queued on a single background I/O thread, so saving only has
+ * to serialise the data, compressing and writing happens after the save
+ * lock is released. The I/O thread reuses one Deflater and one direct
+ * buffer, compressed output goes straight from that buffer to the file.
+ * Files are written to a temp file that's atomically moved over the old
+ * file, so a crash can't leave a half written file behind. Since files are
+ * written in the order they were queued, a newer save of a file always
+ * replaces an older one.
+ *
+ * Files are written as plain zlib streams, same as CompressionUtils, so
+ * existing saves stay readable.
+ */
+final class RegionFileStore
+{
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final String TEMP_FILE_SUFFIX = ".tmp";
+
+	private static final Object executorLock = new Object();
+	private static ExecutorService ioExecutor;
+	private static Future<?> lastWrite;
+
+	// Only used on the I/O thread.
+	private static final Deflater deflater = new Deflater();
+	private static final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+	private static final ThreadLocal<Inflater> inflaters = ThreadLocal.withInitial(Inflater::new);
+	private static final ThreadLocal<ByteBuffer> readBuffers = ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE));
+
+	private RegionFileStore() { }
+
+	/**
+	 * A ByteArrayOutputStream that hands its buffer to the I/O thread
+	 * without copying it. Shouldn't be written to after being queued.
+	 */
+	static final class Payload extends ByteArrayOutputStream
+	{
+		Payload()
+		{
+			super(BUFFER_SIZE);
+		}
+
+		private ByteBuffer toByteBufferView()
+		{
+			return ByteBuffer.wrap(this.buf, 0, this.count);
+		}
+	}
+
+	/**
+	 * A task that runs on the I/O thread.
+	 */
+	interface IOTask
+	{
+		void run() throws IOException, DataFormatException;
+	}
+
+	/**
+	 * Queues the payload to be compressed and written to the given file.
+	 * The old backup file, if any, is deleted once the file is written,
+	 * it's no longer needed since writes are atomic.
+	 */
+	static void write(File file, File legacyBackupFile, Payload payload, ILogger logger)
+	{
+		submit(file, () ->
+		{
+			writeFile(file.toPath(), payload);
+			if(legacyBackupFile != null)
+			{
+				Files.deleteIfExists(legacyBackupFile.toPath());
+			}
+		}, logger);
+	}
+
+	/**
+	 * Queues the payload to be appended to the given file, uncompressed.
+	 */
+	static void append(File file, Payload payload, ILogger logger)
+	{
+		submit(file, () ->
+		{
+			Files.createDirectories(file.toPath().getParent());
+			try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND))
+			{
+				ByteBuffer buffer = payload.toByteBufferView();
+				while(buffer.hasRemaining())
+				{
+					channel.write(buffer);
+				}
+				channel.force(false);
+			}
+		}, logger);
+	}
+
+	/**
+	 * Queues a task on the I/O thread, it runs after all previously queued
+	 * writes. Errors are logged.
+	 * @param file The file the task writes, only used for logging.
+	 */
+	static void submit(File file, IOTask task, ILogger logger)
+	{
+		synchronized(executorLock)
+		{
+			if(ioExecutor == null)
+			{
+				ioExecutor = Executors.newSingleThreadExecutor(runnable ->
+				{
+					Thread thread = new Thread(runnable, "OTG-StructureIO");
+					thread.setDaemon(true);
+					return thread;
+				});
+				// The I/O thread is a daemon so it can't keep a stopped server
+				// alive if something goes wrong, make sure queued writes finish.
+				Runtime.getRuntime().addShutdownHook(new Thread(() -> awaitPendingWrites(logger), "OTG-StructureIO-Shutdown"));
+			}
+			lastWrite = ioExecutor.submit(() ->
+			{
+				try
+				{
+					task.run();
+				}
+				catch (IOException | DataFormatException e)
+				{
+					logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error writing " + file.getAbsolutePath() + ", skipping. Exception: " + e);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Blocks until all queued writes have been written to disk. Should
+	 * be called before reading files that may have pending writes.
+	 */
+	static void awaitPendingWrites(ILogger logger)
+	{
+		Future<?> pending;
+		synchronized(executorLock)
+		{
+			pending = lastWrite;
+		}
+		if(pending == null)
+		{
+			return;
+		}
+		try
+		{
+			// Writes run in order, once the last one is done all of them are.
+			pending.get(300, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (Exception e)
+		{
+			logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error waiting for structure data to be written: " + e);
+		}
+	}
+
+	/**
+	 * Compresses and writes the payload to the given file. Should only
+	 * be called from tasks running on the I/O thread.
+	 */
+	static void writeFile(Path file, Payload payload) throws IOException
+	{
+		Files.createDirectories(file.getParent());
+		Path tempFile = file.resolveSibling(file.getFileName() + TEMP_FILE_SUFFIX);
+		try(FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			deflater.reset();
+			deflater.setInput(payload.toByteBufferView());
+			deflater.finish();
+			while(!deflater.finished())
+			{
+				writeBuffer.clear();
+				deflater.deflate(writeBuffer);
+				writeBuffer.flip();
+				while(writeBuffer.hasRemaining())
+				{
+					channel.write(writeBuffer);
+				}
+			}
+			channel.force(false);
+		}
+		try
+		{
+			Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	/**
+	 * Reads and inflates the given file.
+	 * @return A buffer containing the uncompressed file contents.
+	 */
+	static ByteBuffer read(File file) throws IOException, DataFormatException
+	{
+		ByteBuffer input;
+		try(FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ))
+		{
+			int size = (int)channel.size();
+			input = readBuffers.get();
+			if(input.capacity() < size)
+			{
+				input = ByteBuffer.allocateDirect(size);
+				readBuffers.set(input);
+			}
+			input.clear();
+			input.limit(size);
+			while(input.hasRemaining())
+			{
+				if(channel.read(input) < 0)
+				{
+					throw new IOException("Unexpected end of file " + file.getAbsolutePath());
+				}
+			}
+			input.flip();
+		}
+
+		Inflater inflater = inflaters.get();
+		inflater.reset();
+		inflater.setInput(input);
+		byte[] output = new byte[Math.max(BUFFER_SIZE, input.limit() * 4)];
+		int length = 0;
+		while(!inflater.finished())
+		{
+			if(length == output.length)
+			{
+				byte[] newOutput = new byte[output.length * 2];
+				System.arraycopy(output, 0, newOutput, 0, length);
+				output = newOutput;
+			}
+			int count = inflater.inflate(output, length, output.length - length);
+			if(count == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+			{
+				throw new DataFormatException("Unexpected end of compressed data in " + file.getAbsolutePath());
+			}
+			length += count;
+		}
+		return ByteBuffer.wrap(output, 0, length);
+	}
+}
@@ -0,0 +1,191 @@
+package com.pg85.otg.customobject.structures;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.metrics.WorldGenCounter;
+import com.pg85.otg.util.metrics.WorldGenMetrics;
+
+/**
+ * Per-region structure data (StructureDataRegion / PlottedChunksRegion),
+ * bounded to a maximum number of loaded regions.
+ *
+ * Regions are only evicted by their owner via {@link #evict}, when they
+ * have been saved and nothing else holds on to them (see
+ * {@link #getEvictionCandidates}). Evicted regions are reloaded from their
+ * region file the next time they're requested, regions that were never
+ * loaded or created aren't looked for on disk.
+ *
+ * Hits, misses (reloads) and evictions are counted in WorldGenMetrics.
+ */
+public final class RegionStore<V>
+{
+	private final Map<ChunkCoordinate, Entry<V>> regions = new ConcurrentHashMap<ChunkCoordinate, Entry<V>>();
+	private final Set<ChunkCoordinate> evictedRegions = ConcurrentHashMap.newKeySet();
+	private final int maxLoadedRegions;
+	// Loads an evicted region from disk, should never return null.
+	private final Function<ChunkCoordinate, V> loader;
+
+	public RegionStore(int maxLoadedRegions, Function<ChunkCoordinate, V> loader)
+	{
+		this.maxLoadedRegions = maxLoadedRegions;
+		this.loader = loader;
+	}
+
+	private static final class Entry<V>
+	{
+		private final V region;
+		private volatile long lastAccess;
+
+		private Entry(V region)
+		{
+			this.region = region;
+			this.lastAccess = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Returns the region, reloading it from disk if it was evicted,
+	 * or null if the region doesn't exist.
+	 */
+	public V get(ChunkCoordinate regionCoord)
+	{
+		Entry<V> entry = this.regions.get(regionCoord);
+		if(entry == null)
+		{
+			if(!this.evictedRegions.contains(regionCoord))
+			{
+				return null;
+			}
+			entry = reload(regionCoord);
+			if(entry == null)
+			{
+				return null;
+			}
+		} else {
+			WorldGenMetrics.increment(WorldGenCounter.STRUCTURE_REGION_HITS);
+			entry.lastAccess = System.nanoTime();
+		}
+		return entry.region;
+	}
+
+	/**
+	 * Returns the region, reloading it from disk if it was evicted,
+	 * or creating it if it doesn't exist.
+	 */
+	public V getOrCreate(ChunkCoordinate regionCoord, Function<ChunkCoordinate, V> factory)
+	{
+		V region = get(regionCoord);
+		if(region == null)
+		{
+			region = this.regions.computeIfAbsent(regionCoord, key -> new Entry<V>(factory.apply(key))).region;
+		}
+		return region;
+	}
+
+	private Entry<V> reload(ChunkCoordinate regionCoord)
+	{
+		// Only one thread loads the region, others wait for it.
+		return this.regions.computeIfAbsent(regionCoord, key ->
+		{
+			if(!this.evictedRegions.remove(key))
+			{
+				return null;
+			}
+			WorldGenMetrics.increment(WorldGenCounter.STRUCTURE_REGION_MISSES);
+			return new Entry<V>(this.loader.apply(key));
+		});
+	}
+
+	public void put(ChunkCoordinate regionCoord, V region)
+	{
+		this.evictedRegions.remove(regionCoord);
+		this.regions.put(regionCoord, new Entry<V>(region));
+	}
+
+	public void clear()
+	{
+		this.regions.clear();
+		this.evictedRegions.clear();
+	}
+
+	/**
+	 * Returns the loaded regions, for saving. Evicted regions have already
+	 * been saved so they're not included.
+	 */
+	public Map<ChunkCoordinate, V> getLoadedRegions()
+	{
+		Map<ChunkCoordinate, V> loadedRegions = new HashMap<ChunkCoordinate, V>(this.regions.size());
+		for(Map.Entry<ChunkCoordinate, Entry<V>> entry : this.regions.entrySet())
+		{
+			loadedRegions.put(entry.getKey(), entry.getValue().region);
+		}
+		return loadedRegions;
+	}
+
+	public int getLoadedRegionCount()
+	{
+		return this.regions.size();
+	}
+
+	public boolean isOverCapacity()
+	{
+		return this.regions.size() > this.maxLoadedRegions;
+	}
+
+	/**
+	 * Returns the loaded regions, least recently used first, or an empty
+	 * list if the store isn't over capacity. The owner should evict regions
+	 * that can be evicted in this order until {@link #isOverCapacity}
+	 * returns false.
+	 */
+	public List<ChunkCoordinate> getEvictionCandidates()
+	{
+		if(!isOverCapacity())
+		{
+			return new ArrayList<ChunkCoordinate>();
+		}
+		// Copy the access times first, they may change while sorting.
+		List<ChunkCoordinate> candidates = new ArrayList<ChunkCoordinate>(this.regions.size());
+		Map<ChunkCoordinate, Long> lastAccess = new HashMap<ChunkCoordinate, Long>(this.regions.size());
+		for(Map.Entry<ChunkCoordinate, Entry<V>> entry : this.regions.entrySet())
+		{
+			candidates.add(entry.getKey());
+			lastAccess.put(entry.getKey(), Long.valueOf(entry.getValue().lastAccess));
+		}
+		candidates.sort((a, b) -> Long.compare(lastAccess.get(a).longValue(), lastAccess.get(b).longValue()));
+		return candidates;
+	}
+
+	/**
+	 * Returns the region if it's loaded, without reloading it or
+	 * counting it as used.
+	 */
+	public V getIfLoaded(ChunkCoordinate regionCoord)
+	{
+		Entry<V> entry = this.regions.get(regionCoord);
+		return entry != null ? entry.region : null;
+	}
+
+	/**
+	 * Unloads the region, it'll be reloaded from disk when it's requested
+	 * again. The caller must make sure the region has been saved and can't
+	 * be modified while it's being evicted.
+	 */
+	public void evict(ChunkCoordinate regionCoord)
+	{
+		// Mark as evicted first, so a concurrent get either still sees the
+		// loaded region or reloads it.
+		this.evictedRegions.add(regionCoord);
+		if(this.regions.remove(regionCoord) != null)
+		{
+			WorldGenMetrics.increment(WorldGenCounter.STRUCTURE_REGION_EVICTIONS);
+		}
+	}
+}
@@ -0,0 +1,197 @@
+package com.pg85.otg.customobject.structures;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.interfaces.ILogger;
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.helpers.StreamHelper;
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+
+/**
+ * Append-only journal for the plotter's spawned structures by name/group
+ * maps. These maps cover the whole world, so instead of rewriting them on
+ * every save, only the entries added since the last save are appended to
+ * the journal. Once the journal gets large, it's merged into the spawned
+ * structures file on the I/O thread (see
+ * {@link CustomStructureFileManager#compactSpawnedStructures}).
+ *
+ * Not thread safe, the plotter guards it with its spawned structures lock.
+ */
+public final class SpawnedStructuresJournal
+{
+	private static final byte BY_NAME = 0;
+	private static final byte BY_GROUP = 1;
+	// Journal entries written before the journal is compacted.
+	private static final int COMPACT_THRESHOLD = 16384;
+
+	private RegionFileStore.Payload pending;
+	private DataOutputStream pendingStream;
+	private int pendingEntries;
+	private int journalEntries;
+
+	public void addByName(String structureName, ChunkCoordinate chunkCoord)
+	{
+		try
+		{
+			DataOutputStream out = getPendingStream();
+			out.writeByte(BY_NAME);
+			StreamHelper.writeStringToStream(out, structureName);
+			out.writeInt(chunkCoord.getChunkX());
+			out.writeInt(chunkCoord.getChunkZ());
+			this.pendingEntries++;
+		} catch (IOException e) {
+			// Can't happen, writes to memory
+			throw new RuntimeException(e);
+		}
+	}
+
+	public void addByGroup(String groupName, ChunkCoordinate chunkCoord, int radius)
+	{
+		try
+		{
+			DataOutputStream out = getPendingStream();
+			out.writeByte(BY_GROUP);
+			StreamHelper.writeStringToStream(out, groupName);
+			out.writeInt(chunkCoord.getChunkX());
+			out.writeInt(chunkCoord.getChunkZ());
+			out.writeInt(radius);
+			this.pendingEntries++;
+		} catch (IOException e) {
+			// Can't happen, writes to memory
+			throw new RuntimeException(e);
+		}
+	}
+
+	private DataOutputStream getPendingStream()
+	{
+		if(this.pendingStream == null)
+		{
+			this.pending = new RegionFileStore.Payload();
+			this.pendingStream = new DataOutputStream(this.pending);
+		}
+		return this.pendingStream;
+	}
+
+	/**
+	 * Queues the entries added since the last save to be appended to the
+	 * journal, and queues a compaction if the journal has grown too large.
+	 * Does nothing if no entries were added.
+	 */
+	public void save(Path worldSaveDir, String presetFolderName, ILogger logger)
+	{
+		if(this.pendingEntries == 0)
+		{
+			return;
+		}
+
+		RegionFileStore.append(getJournalFile(worldSaveDir, presetFolderName), this.pending, logger);
+		this.journalEntries += this.pendingEntries;
+		this.pending = null;
+		this.pendingStream = null;
+		this.pendingEntries = 0;
+
+		if(this.journalEntries >= COMPACT_THRESHOLD)
+		{
+			CustomStructureFileManager.compactSpawnedStructures(worldSaveDir, presetFolderName, logger);
+			this.journalEntries = 0;
+		}
+	}
+
+	/**
+	 * Replays the journal on top of the loaded spawned structures file.
+	 * Should be called after {@link CustomStructureFileManager#loadChunksMapFile}.
+	 */
+	public void load(Path worldSaveDir, String presetFolderName, HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName, HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup, ILogger logger)
+	{
+		this.pending = null;
+		this.pendingStream = null;
+		this.pendingEntries = 0;
+		this.journalEntries = 0;
+		try
+		{
+			this.journalEntries = replay(getJournalFile(worldSaveDir, presetFolderName), spawnedStructuresByName, spawnedStructuresByGroup, logger);
+		} catch (IOException e) {
+			logger.log(LogLevel.ERROR, LogCategory.MAIN, "OTG encountered an error loading " + getJournalFile(worldSaveDir, presetFolderName).getAbsolutePath() + ", skipping. Exception: " + e);
+		}
+	}
+
+	private static File getJournalFile(Path worldSaveDir, String presetFolderName)
+	{
+		return new File(worldSaveDir + File.separator + Constants.MOD_ID + File.separator + presetFolderName + File.separator + Constants.SpawnedStructuresJournalFileName);
+	}
+
+	/**
+	 * Applies all entries in the journal to the given maps. Entries that are
+	 * already in the maps are skipped, so replaying a journal that was
+	 * already merged into the spawned structures file is harmless. If the
+	 * last entry was only partially written, the journal is truncated to
+	 * the last complete entry.
+	 * @return The number of entries in the journal.
+	 */
+	static int replay(File journalFile, HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName, HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup, ILogger logger) throws IOException
+	{
+		if(!journalFile.exists())
+		{
+			return 0;
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(journalFile.toPath()));
+		Map<String, HashSet<ChunkCoordinate>> coordsByName = new HashMap<String, HashSet<ChunkCoordinate>>();
+		int entries = 0;
+		int validLength = 0;
+		try
+		{
+			while(buffer.hasRemaining())
+			{
+				byte type = buffer.get();
+				String name = StreamHelper.readStringFromBuffer(buffer);
+				ChunkCoordinate chunkCoord = ChunkCoordinate.fromChunkCoords(buffer.getInt(), buffer.getInt());
+				if(type == BY_NAME)
+				{
+					ArrayList<ChunkCoordinate> chunkCoords = spawnedStructuresByName.computeIfAbsent(name, k -> new ArrayList<ChunkCoordinate>());
+					if(coordsByName.computeIfAbsent(name, k -> new HashSet<ChunkCoordinate>(chunkCoords)).add(chunkCoord))
+					{
+						chunkCoords.add(chunkCoord);
+					}
+				}
+				else if(type == BY_GROUP)
+				{
+					int radius = buffer.getInt();
+					HashMap<ChunkCoordinate, Integer> spawnedStructures = spawnedStructuresByGroup.computeIfAbsent(name, k -> new HashMap<ChunkCoordinate, Integer>());
+					Integer existingRadius = spawnedStructures.get(chunkCoord);
+					if(existingRadius == null || existingRadius.intValue() < radius)
+					{
+						spawnedStructures.put(chunkCoord, Integer.valueOf(radius));
+					}
+				} else {
+					throw new IOException("Invalid journal entry type " + type);
+				}
+				entries++;
+				validLength = buffer.position();
+			}
+		}
+		catch (BufferUnderflowException | IOException e)
+		{
+			logger.log(LogLevel.WARN, LogCategory.MAIN, "The last entry in " + journalFile.getAbsolutePath() + " was incomplete, it will be discarded.");
+			try(FileChannel channel = FileChannel.open(journalFile.toPath(), StandardOpenOption.WRITE))
+			{
+				channel.truncate(validLength);
+			}
+		}
+		return entries;
+	}
+}
@@ -84,6 +84,12 @@ public class BO4CustomStructure extends CustomStructure
 	{
 		return this.isSpawned;
 	}
+
+	// Chunks are spawned while synchronized on the structure (see CustomStructurePlotter.spawnBO4Chunk).
+	public synchronized boolean hasChunksLeftToSpawn()
+	{
+		return this.objectsToSpawn.size() > 0 || this.smoothingAreaManager.smoothingAreasToSpawn.size() > 0;
+	}
 	
 	// Branches:
 	// BO4 structures are rasterized and split into 16x16 chunks, each BO4 containing the blocks for one chunk. Branch syntax is used to glue all the 
@@ -280,16 +286,23 @@ public class BO4CustomStructure extends CustomStructure
 		// or spawn inside a hole with vertical walls.
 		smoothingAreaManager.calculateSmoothingAreas(this.objectsToSpawn, (BO4CustomStructureCoordinate)this.start, worldGenRegion, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
 		
-		// Add the structure to the structure caches
-		
-		for(ChunkCoordinate chunkCoord : this.objectsToSpawn.keySet())
-		{
-			structureCache.addBo4ToStructureCache(chunkCoord, this);		
-		}
+		// Add the structure to the structure caches. All chunks are claimed at once, if another 
+		// thread plotted a structure in one of them since the branches were calculated, the
+		// structure isn't plotted at all rather than being spawned cut off.
 
-		for(ChunkCoordinate chunkCoord : this.smoothingAreaManager.getSmoothingAreaChunkCoords())
+		if(this.objectsToSpawn.size() > 0)
 		{
-			structureCache.addBo4ToStructureCache(chunkCoord, this);
+			Set<ChunkCoordinate> chunkCoords = new LinkedHashSet<ChunkCoordinate>(this.objectsToSpawn.keySet());
+			chunkCoords.addAll(this.smoothingAreaManager.getSmoothingAreaChunkCoords());
+			chunkCoords.add(ChunkCoordinate.fromChunkCoords(this.start.getChunkX(), this.start.getChunkZ()));
+			if(!structureCache.addBo4ToStructureCache(chunkCoords, this))
+			{
+				if(logger.getLogCategoryEnabled(LogCategory.STRUCTURE_PLOTTING))
+				{
+					logger.log(LogLevel.INFO, LogCategory.STRUCTURE_PLOTTING, this.start.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker).getName() + " was not plotted, another structure was plotted in one of its chunks first.");
+				}
+				this.objectsToSpawn.clear();
+			}
 		}
 
 		if(this.objectsToSpawn.size() > 0)
@@ -2,13 +2,14 @@ package com.pg85.otg.customobject.structures.bo4;
 
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 
-import com.pg85.otg.constants.Constants;
 import com.pg85.otg.customobject.CustomObjectManager;
 import com.pg85.otg.customobject.bo4.BO4;
 import com.pg85.otg.customobject.config.CustomObjectResourcesManager;
@@ -16,6 +17,8 @@ import com.pg85.otg.customobject.structures.CustomStructure;
 import com.pg85.otg.customobject.structures.CustomStructureCache;
 import com.pg85.otg.customobject.structures.CustomStructureFileManager;
 import com.pg85.otg.customobject.structures.PlottedChunksRegion;
+import com.pg85.otg.customobject.structures.RegionStore;
+import com.pg85.otg.customobject.structures.SpawnedStructuresJournal;
 import com.pg85.otg.exceptions.InvalidConfigException;
 import com.pg85.otg.interfaces.IBiomeConfig;
 import com.pg85.otg.interfaces.ICustomStructureGen;
@@ -25,97 +28,228 @@ import com.pg85.otg.interfaces.IModLoadedChecker;
 import com.pg85.otg.interfaces.IStructuredCustomObject;
 import com.pg85.otg.interfaces.IWorldGenRegion;
 import com.pg85.otg.util.ChunkCoordinate;
-import com.pg85.otg.util.FifoMap;
+import com.pg85.otg.util.ConcurrentLongCache;
 import com.pg85.otg.util.bo3.Rotation;
 import com.pg85.otg.util.gen.DecorationArea;
+import com.pg85.otg.util.helpers.MathHelper;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
 
 public class CustomStructurePlotter
 {
-	// Structurecache holds plotted structures/branches/smoothing areas in undecorated chunks.
-	private final Map<ChunkCoordinate, BO4CustomStructure[][]> bo4StructureCache; // Per region
+	// Plotter state is sharded per region, each region holds plotted structures/branches/smoothing
+	// areas in its undecorated chunks. Threads plotting or spawning a chunk hold the locks for the
+	// chunk's region and the 8 regions around it (see lockRegions). Two such areas only stop
+	// overlapping when the chunks are three regions (300 chunks) apart, so on a normal server BO4
+	// decoration is effectively serialized. Structures reaching into regions the plotting thread
+	// doesn't hold are handed off to those regions, and applied in order by the next thread that 
+	// locks them.
+	private final Map<ChunkCoordinate, PlotterRegion> regions; // Per region
 	
 	// plottedChunks holds a chunkcoord for every chunk outside the 
 	// pregenerated region that has had its decorate method called.
 	// We unfortunately need this because MC can't tell use whether a chunk
 	// has been decorated, only whether is has had terraingen done, or if it
 	// is completely done being decorated and lit (its neighbours have all spawned).
-	private final Map<ChunkCoordinate, PlottedChunksRegion> plottedChunks; // Per region
+	// Only written by the thread holding the region's PlotterRegion lock.
+	// Bounded, saved regions are evicted when idle and reloaded from disk (see evictPlottedChunks).
+	private final RegionStore<PlottedChunksRegion> plottedChunks; // Per region
 
 	// Used to find distance between structures and structure groups, only stores 1 chunk per structure in the 
 	// calculated center of the structure. Does not clean itself when used with the pre-generator and will become 
-	// slower as it fills up, use as little as possible! (can't clean itself because max radius for BO4 groups cannot be known)	
+	// slower as it fills up, use as little as possible! (can't clean itself because max radius for BO4 groups cannot be known)
+	// Shared by all regions, guarded by spawnedStructuresLock.
 	private final HashMap<String, ArrayList<ChunkCoordinate>> spawnedStructuresByName;  // structure name -> start chunk coords. Saved to disk.
 	private final HashMap<String, HashMap<ChunkCoordinate, Integer>> spawnedStructuresByGroup; // group name -> Map<ChunkCoord, Radius>. Saved to disk.	
+	// Entries added to the maps above since the last save.
+	private final SpawnedStructuresJournal spawnedStructuresJournal;
+	private final Object spawnedStructuresLock = new Object();
 
-	// Locking objects to ensure plotting code can
-	// never run multiple times asynchronously, or recursively.
-	private final Object processingLock = new Object();
-	private boolean processing = false;
-	//
-	
-	private boolean structurePlottedAtSpawn; // Used to make sure the structureatspawn is plotted first.
+	// Held while claiming chunks, so a structure's chunks are claimed all at once (see claimChunks).
+	private final Object claimLock = new Object();
+
+	// Used to make sure the structureatspawn is plotted first.
+	private final Object structureAtSpawnLock = new Object();
+	private volatile boolean structurePlottedAtSpawn;
 	
 	// Non-persistent caches (optimisations)
-	private final FifoMap<ChunkCoordinate, ArrayList<String>> structureNamesPerChunk;
-	private final FifoMap<ChunkCoordinate, Object> plottedChunksFastCache; // TODO: Technically we don't need a map, we need a FIFO list with unique entries.
+	private final ConcurrentLongCache<ArrayList<String>> structureNamesPerChunk;
+	private final ConcurrentLongCache<Boolean> plottedChunksFastCache;
 	
-	public CustomStructurePlotter()
+	// Plotted chunks regions kept in memory before saved regions are evicted.
+	private static final int MAX_LOADED_PLOTTED_CHUNKS_REGIONS = 1024;
+
+	public CustomStructurePlotter(Path worldSaveDir, String presetFolderName, ILogger logger)
 	{
 		// Non-persistent caches
-		this.structureNamesPerChunk = new FifoMap<ChunkCoordinate, ArrayList<String>>(2048);
-		this.plottedChunksFastCache = new FifoMap<ChunkCoordinate, Object>(2048);
+		this.structureNamesPerChunk = new ConcurrentLongCache<ArrayList<String>>(2048);
+		this.plottedChunksFastCache = new ConcurrentLongCache<Boolean>(2048);
 		
 		// Persistent caches
 		this.spawnedStructuresByName = new HashMap<String, ArrayList<ChunkCoordinate>>();
 		this.spawnedStructuresByGroup = new HashMap<String, HashMap<ChunkCoordinate, Integer>>();
-		this.bo4StructureCache = new HashMap<ChunkCoordinate, BO4CustomStructure[][]>();
-		this.plottedChunks = new HashMap<ChunkCoordinate, PlottedChunksRegion>(); 
+		this.spawnedStructuresJournal = new SpawnedStructuresJournal();
+		this.regions = new ConcurrentHashMap<ChunkCoordinate, PlotterRegion>();
+		this.plottedChunks = new RegionStore<PlottedChunksRegion>(MAX_LOADED_PLOTTED_CHUNKS_REGIONS, regionCoord -> CustomStructureFileManager.loadPlottedChunksRegion(worldSaveDir, presetFolderName, regionCoord, logger));
+	}
+
+	// Region locking
+
+	private PlotterRegion getRegion(ChunkCoordinate regionCoord)
+	{
+		return this.regions.computeIfAbsent(regionCoord, PlotterRegion::new);
+	}
+
+	// The regions around a chunk, needed to plot or spawn structures in it.
+	private PlotterRegion[] getRegionsAround(ChunkCoordinate chunkCoord)
+	{
+		return getRegionsAround(chunkCoord, chunkCoord);
+	}
+
+	// Decorating a chunk also plots and spawns its +x/+z neighbours, so lock the 
+	// regions around all four chunks. That's 3x3 regions, or up to 4x4 at region edges.
+	private PlotterRegion[] getRegionsAroundDecoratedChunk(ChunkCoordinate chunkCoord)
+	{
+		return getRegionsAround(chunkCoord, ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + 1, chunkCoord.getChunkZ() + 1));
+	}
+
+	private PlotterRegion[] getRegionsAround(ChunkCoordinate fromChunkCoord, ChunkCoordinate toChunkCoord)
+	{
+		// Always in the same order (x, then z), so threads locking
+		// overlapping areas can't deadlock.
+		ChunkCoordinate fromRegionCoord = fromChunkCoord.toRegionCoord();
+		ChunkCoordinate toRegionCoord = toChunkCoord.toRegionCoord();
+		PlotterRegion[] regionsAround = new PlotterRegion[(toRegionCoord.getChunkX() - fromRegionCoord.getChunkX() + 3) * (toRegionCoord.getChunkZ() - fromRegionCoord.getChunkZ() + 3)];
+		int i = 0;
+		for(int x = fromRegionCoord.getChunkX() - 1; x <= toRegionCoord.getChunkX() + 1; x++)
+		{
+			for(int z = fromRegionCoord.getChunkZ() - 1; z <= toRegionCoord.getChunkZ() + 1; z++)
+			{
+				regionsAround[i++] = getRegion(ChunkCoordinate.fromChunkCoords(x, z));
+			}
+		}
+		return regionsAround;
+	}
+
+	// Used by ChunkDecorator before plotting/spawning bo4's for a chunk and its neighbours.
+	// Plots the structure at spawn first, if that hasn't been done yet, then locks the regions
+	// around the chunk and its neighbours and applies any structures handed off to them. 
+	// Blocks until all locks are held.
+	public void lockRegions(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		plotStructureAtSpawn(structureCache, worldGenRegion, rand, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+		lockRegions(structureCache, getRegionsAroundDecoratedChunk(chunkCoord));
+	}
+
+	public void unlockRegions(ChunkCoordinate chunkCoord)
+	{
+		unlockRegions(getRegionsAroundDecoratedChunk(chunkCoord));
 	}
 
-	// Structure cache
+	private void lockRegions(CustomStructureCache structureCache, PlotterRegion[] regionsAround)
+	{
+		for(PlotterRegion region : regionsAround)
+		{
+			region.lock();
+		}
+		applyHandOffs(regionsAround, structureCache);
+	}
+
+	// Used by /otg spawn, returns false without locking anything if another thread is plotting nearby.
+	private boolean tryLockRegions(CustomStructureCache structureCache, PlotterRegion[] regionsAround)
+	{
+		for(int i = 0; i < regionsAround.length; i++)
+		{
+			if(!regionsAround[i].tryLock())
+			{
+				for(int j = 0; j < i; j++)
+				{
+					regionsAround[j].unlock();
+				}
+				return false;
+			}
+		}
+		applyHandOffs(regionsAround, structureCache);
+		return true;
+	}
+
+	private void unlockRegions(PlotterRegion[] regionsAround)
+	{
+		for(int i = regionsAround.length - 1; i >= 0; i--)
+		{
+			regionsAround[i].unlock();
+		}
+	}
+
+	private void applyHandOffs(PlotterRegion[] regionsAround, CustomStructureCache structureCache)
+	{
+		for(PlotterRegion region : regionsAround)
+		{
+			applyHandOffs(region, structureCache);
+		}
+	}
+
+	// Handed off chunks were claimed by their structure, so they can't conflict with
+	// anything plotted in the region since.
+	private void applyHandOffs(PlotterRegion region, CustomStructureCache structureCache)
+	{
+		PlotterRegion.HandOff handOff;
+		while((handOff = region.pollHandOff()) != null)
+		{
+			structureCache.addBo4ToStructureCache(handOff.chunkCoord(), handOff.structure());
+		}
+	}
+
+	// Used by CustomStructureCache when evicting regions while saving. Locks the region only if
+	// it has no plotted structures or handoffs, so it can't be plotted in while it's evicted.
+	public boolean tryLockIdleRegion(ChunkCoordinate regionCoord)
+	{
+		PlotterRegion region = getRegion(regionCoord);
+		if(!region.tryLock())
+		{
+			return false;
+		}
+		if(!region.isIdle())
+		{
+			region.unlock();
+			return false;
+		}
+		return true;
+	}
+
+	public void unlockRegion(ChunkCoordinate regionCoord)
+	{
+		getRegion(regionCoord).unlock();
+	}
+
+	// Structure cache, only used by the thread holding the region's lock
 	
 	private boolean structureCacheContainsKey(ChunkCoordinate chunkCoordinate)
 	{
-		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();				
-		BO4CustomStructure[][] chunkRegion = bo4StructureCache.get(regionCoord);
-		return chunkRegion != null && chunkRegion[chunkCoordinate.getRegionInternalX()][chunkCoordinate.getRegionInternalZ()] != null;
+		PlotterRegion region = this.regions.get(chunkCoordinate.toRegionCoord());
+		return region != null && region.getStructure(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ()) != null;
 	}
 	
 	private void addToStructureCache(ChunkCoordinate chunkCoordinate, BO4CustomStructure structure)
 	{
-		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();
-		
-		BO4CustomStructure[][] chunkRegion = this.bo4StructureCache.get(regionCoord);
-		if(chunkRegion == null)
-		{
-			chunkRegion = new BO4CustomStructure[Constants.REGION_SIZE][Constants.REGION_SIZE];
-			this.bo4StructureCache.put(regionCoord, chunkRegion);
-		}
-		chunkRegion[chunkCoordinate.getRegionInternalX()][chunkCoordinate.getRegionInternalZ()] = structure;
+		getRegion(chunkCoordinate.toRegionCoord()).setStructure(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ(), structure);
 	}
 	
 	private void removeFromStructureCache(ChunkCoordinate chunkCoordinate)
 	{
-		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();
-		
-		BO4CustomStructure[][] chunkRegion = this.bo4StructureCache.get(regionCoord);
-		if(chunkRegion != null)
+		PlotterRegion region = this.regions.get(chunkCoordinate.toRegionCoord());
+		if(region != null)
 		{
-			chunkRegion[chunkCoordinate.getRegionInternalX()][chunkCoordinate.getRegionInternalZ()] = null;
+			region.setStructure(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ(), null);
 		}
-		
-		// TODO: Remove region from bo4StructureCache if it's empty? Shouldn't matter too much, region shouldn't be saved if it's empty.
 	}
 	
 	private BO4CustomStructure getFromStructureCache(ChunkCoordinate chunkCoordinate)
 	{
-		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();		
-		BO4CustomStructure[][] chunkRegion = this.bo4StructureCache.get(regionCoord);
-		if(chunkRegion != null)
+		PlotterRegion region = this.regions.get(chunkCoordinate.toRegionCoord());
+		if(region != null)
 		{
-			return chunkRegion[chunkCoordinate.getRegionInternalX()][chunkCoordinate.getRegionInternalZ()];
+			return region.getStructure(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ());
 		}
 		return null;
 	}
@@ -125,42 +259,91 @@ public class CustomStructurePlotter
 	private boolean plottedChunksContainsKey(ChunkCoordinate chunkCoordinate)
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();
-		PlottedChunksRegion chunkRegion = plottedChunks.get(regionCoord);
+		PlottedChunksRegion chunkRegion = this.plottedChunks.get(regionCoord);
 		return chunkRegion != null && chunkRegion.getChunk(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ());
 	}
 	
 	private void addToPlottedChunks(ChunkCoordinate chunkCoordinate)
 	{
 		ChunkCoordinate regionCoord = chunkCoordinate.toRegionCoord();				
-		PlottedChunksRegion chunkRegion = this.plottedChunks.get(regionCoord);
-		if(chunkRegion == null)
+		PlottedChunksRegion chunkRegion = this.plottedChunks.getOrCreate(regionCoord, k -> new PlottedChunksRegion());
+		chunkRegion.setChunk(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ());
+	}
+
+	private boolean isClaimed(ChunkCoordinate chunkCoordinate)
+	{
+		PlotterRegion region = this.regions.get(chunkCoordinate.toRegionCoord());
+		return region != null && region.isClaimed(chunkCoordinate);
+	}
+
+	// Claims the chunks for a structure before it's added to the structure cache. Branches are
+	// calculated without holding the regions of other threads, so one of those threads may have
+	// plotted a structure in one of the chunks since. In that case nothing is claimed and false
+	// is returned, so the structure is rejected as a whole instead of being spawned cut off.
+	// Chunks in regions this thread doesn't hold are handed off to those regions.
+	public boolean claimChunks(Collection<ChunkCoordinate> chunkCoords, BO4CustomStructure structure)
+	{
+		synchronized(this.claimLock)
 		{
-			chunkRegion = new PlottedChunksRegion();
-			this.plottedChunks.put(regionCoord, chunkRegion);
+			for(ChunkCoordinate chunkCoord : chunkCoords)
+			{
+				if(isClaimed(chunkCoord))
+				{
+					return false;
+				}
+			}
+			for(ChunkCoordinate chunkCoord : chunkCoords)
+			{
+				PlotterRegion region = getRegion(chunkCoord.toRegionCoord());
+				region.claim(chunkCoord);
+				if(!region.isHeldByCurrentThread())
+				{
+					region.handOff(chunkCoord, structure);
+				}
+			}
+			return true;
 		}
-		chunkRegion.setChunk(chunkCoordinate.getRegionInternalX(), chunkCoordinate.getRegionInternalZ());
-	}	
+	}
+
+	// Used for chunks that are plotted without a structure.
+	private void claimChunk(ChunkCoordinate chunkCoord)
+	{
+		synchronized(this.claimLock)
+		{
+			getRegion(chunkCoord.toRegionCoord()).claim(chunkCoord);
+		}
+	}
 	
-	// Used while calculating branches
+	// Used while calculating branches. For chunks in regions held by other 
+	// threads this may be outdated, conflicts are resolved when handoffs are applied.
 	public boolean isBo4ChunkPlotted(ChunkCoordinate chunkCoordinate)
 	{
 		// Check if any other structures are in this chunk
 		boolean bFound =
 			// TODO: Optimise this using regions, mark regions when completed so we can skip checks.
-			this.plottedChunksFastCache.containsKey(chunkCoordinate) || // Has been plotted recently, still cached (fast cache).
+			this.plottedChunksFastCache.get(MathHelper.toLong(chunkCoordinate.getChunkX(), chunkCoordinate.getChunkZ())) != null || // Has been plotted recently, still cached (fast cache).
 			plottedChunksContainsKey(chunkCoordinate) // Has been plotted (slow cache).
 		;
 		if(bFound)
 		{
-			this.plottedChunksFastCache.put(chunkCoordinate, null);
+			this.plottedChunksFastCache.put(MathHelper.toLong(chunkCoordinate.getChunkX(), chunkCoordinate.getChunkZ()), Boolean.TRUE);
 		}
-		return bFound;
+		return bFound || isClaimed(chunkCoordinate); // Claimed by a structure plotted by this or another thread, may not be applied yet.
 	}
 
-	// Called for each structure start plotted, and each ObjectToSpawn / 
-	// SmoothingArea chunk after branches have been calculated	
-	public void addBo4ToStructureCache(ChunkCoordinate chunkCoordinate, BO4CustomStructure structure)
+	// Called for each chunk claimed by a structure (see claimChunks), and for
+	// handed off chunks when they're applied.
+	// Returns false if the chunk's region isn't held by this thread, the
+	// chunk was handed off to the region when it was claimed and is added 
+	// when the region is next locked.
+	public boolean addBo4ToStructureCache(ChunkCoordinate chunkCoordinate, BO4CustomStructure structure)
 	{
+		PlotterRegion region = getRegion(chunkCoordinate.toRegionCoord());
+		if(!region.isHeldByCurrentThread())
+		{
+			return false;
+		}
+
 		// Add to structure cache so we can spawn parts later
 		addToStructureCache(chunkCoordinate, structure);
 
@@ -169,15 +352,25 @@ public class CustomStructurePlotter
 		
 		// Let plotter know the chunk is taken (fast cache, optimisation)
 		setChunkOccupied(chunkCoordinate);
+		return true;
 	}
 
 	// Only used by ChunkDecorator
 	public void spawnBO4Chunk(ChunkCoordinate chunkCoordinate, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
+		// Another thread may have claimed this chunk for a structure after the 
+		// regions were locked, apply its handoff so it's spawned with the chunk.
+		applyHandOffs(getRegion(chunkCoordinate.toRegionCoord()), structureCache);
+
 		BO4CustomStructure structureStart = getFromStructureCache(chunkCoordinate);
 		if (structureStart != null && structureStart.start != null)
 		{
-			structureStart.spawnInChunk(chunkCoordinate, structureCache, worldGenRegion, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			// Structures larger than a region can be spawned by threads
+			// holding different regions, so only spawn one chunk at a time.
+			synchronized(structureStart)
+			{
+				structureStart.spawnInChunk(chunkCoordinate, structureCache, worldGenRegion, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+			}
 		} else {
 			// TODO: When can structure.start be null? Should only be possible for bo3 structures?
 			if(structureStart != null && structureStart.start == null)
@@ -196,67 +389,80 @@ public class CustomStructurePlotter
 		setChunkOccupied(chunkCoordinate);
 	}
 
-	// Only used by ChunkDecorator during decoration
+	// Only used by ChunkDecorator during decoration, for the chunk being decorated and its 
+	// neighbours. The caller already holds the regions around them (see lockRegions), so 
+	// this never skips a chunk because another thread is plotting nearby.
 	public ChunkCoordinate plotStructures(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
 	{
-		return plotStructures(null, null, structureCache, worldGenRegion, rand, chunkCoord, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, false);
+		for(PlotterRegion region : getRegionsAround(chunkCoord))
+		{
+			if(!region.isHeldByCurrentThread())
+			{
+				throw new IllegalStateException("Plotting chunk " + chunkCoord + " without holding the plotter regions around it.");
+			}
+		}
+		return plotStructures(null, null, structureCache, worldGenRegion, rand, chunkCoord, false, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, false);
 	}
 	
-	// Used by ChunkDecorator during decoration and /otg spawn. targetStructure and targetBiomes only used for /spawn (make that prettier?)
+	// Used by /otg spawn. targetStructure and targetBiomes only used for /spawn (make that prettier?)
 	public ChunkCoordinate plotStructures(BO4 targetStructure, ArrayList<String> targetBiomes, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker, boolean force)
 	{
-		return plotStructures(targetStructure, targetBiomes, structureCache, worldGenRegion, rand, chunkCoord, false, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, force);
+		plotStructureAtSpawn(structureCache, worldGenRegion, rand, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker);
+
+		// When called by /otg spawn, skip this attempt to spawn 
+		// if chunks are being decorated near the target chunk.
+		PlotterRegion[] regionsAround = getRegionsAround(chunkCoord);
+		if(!tryLockRegions(structureCache, regionsAround))
+		{
+			return null;
+		}
+		try
+		{
+			return plotStructures(targetStructure, targetBiomes, structureCache, worldGenRegion, rand, chunkCoord, false, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, force);
+		} finally {
+			unlockRegions(regionsAround);
+		}
+	}
+
+	// Make sure the BO4 at spawn is plotted before anything else. Called before locking 
+	// any regions, so the spawn area can be locked without breaking the locking order.
+	private void plotStructureAtSpawn(CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker)
+	{
+		if(!this.structurePlottedAtSpawn)
+		{
+			synchronized(this.structureAtSpawnLock)
+			{
+				if(!this.structurePlottedAtSpawn)
+				{
+					ChunkCoordinate spawnChunk = worldGenRegion.getSpawnChunk();
+					PlotterRegion[] regionsAround = getRegionsAround(spawnChunk);
+					lockRegions(structureCache, regionsAround);
+					try
+					{
+						plotStructures(null, null, structureCache, worldGenRegion, rand, spawnChunk, true, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, false);
+					} finally {
+						unlockRegions(regionsAround);
+					}
+					this.structurePlottedAtSpawn = true;
+				}
+			}
+		}
 	}
 
 	private void setChunkOccupied(ChunkCoordinate chunkCoord)
 	{
 		// Add empty list as an optimisation, so null means not handled, emtpy means done
-		this.structureNamesPerChunk.put(chunkCoord, new ArrayList<String>());
+		long chunkKey = MathHelper.toLong(chunkCoord.getChunkX(), chunkCoord.getChunkZ());
+		this.structureNamesPerChunk.put(chunkKey, new ArrayList<String>());
 		// Use separate cache for faster isChunkPopulated lookups, 
-		// no need to do containsKey + get == null, can just do containsKey
-		this.plottedChunksFastCache.put(chunkCoord, null);
+		// no need to do containsKey + get == null, can just do contains
+		this.plottedChunksFastCache.put(chunkKey, Boolean.TRUE);
 	}
 	
 	private ChunkCoordinate plotStructures(BO4 targetStructure, ArrayList<String> targetBiomes, CustomStructureCache structureCache, IWorldGenRegion worldGenRegion, Random rand, ChunkCoordinate chunkCoord, boolean spawningStructureAtSpawn, Path otgRootFolder, ILogger logger, CustomObjectManager customObjectManager, IMaterialReader materialReader, CustomObjectResourcesManager manager, IModLoadedChecker modLoadedChecker, boolean force)
 	{
-		// Make sure the BO4 at spawn is plotted before anything else
-		// This isn't thread-safe so there's a race condition, shouldn't 
-		// cause problems though due to the lock later on.
-		if(!this.structurePlottedAtSpawn) 
-		{
-			this.structurePlottedAtSpawn = true;
-			plotStructures(targetStructure, targetBiomes, structureCache, worldGenRegion, rand, worldGenRegion.getSpawnChunk(), true, otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker, force);
-		}
-		
-		// This method can be called by /otg spawn and during chunkgeneration.
-		// When called during chunkgeneration, the chunk must be filled or invalidated before returning, so never cancel.
-		// When called by /otg spawn, skip this attempt to spawn and let chunk generation complete first.
-		// This method should never be called recursively.
-		// TODO: Make sure this never gets stuck, or abort and log a warning.
-		// TODO: Can this thread be paused without issues, for how long?
-		while(true)
-		{
-			synchronized(this.processingLock)
-			{
-				if(!this.processing)
-				{				
-					this.processing = true;
-					break;
-				}				
-				else if(targetStructure != null)
-				{
-					return null;
-				}
-			}  		
-			try {
-				Thread.sleep(20);
-			}
-			catch (InterruptedException e)
-			{
-				e.printStackTrace();
-				throw new RuntimeException("This shouldn't happen, please ask for help on the OTG Discord or file an issue on the OTG github.");
-			}
-		}
+		// The caller holds the locks for the regions around chunkCoord (see lockRegions), 
+		// so the chunk must be filled or invalidated before returning, never cancel.
 
 		long startTime = System.currentTimeMillis();
 		if (!isBo4ChunkPlotted(chunkCoord))
@@ -505,7 +711,7 @@ public class CustomStructurePlotter
 														}
 													} else {
 														// When we get biomestructures here, size() == 0 means the chunk has been handled, null means it hasnt yet been cached at all
-														biomeStructures = this.structureNamesPerChunk.get(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + scanDistance), (chunkCoord.getChunkZ() + i)));															
+														biomeStructures = this.structureNamesPerChunk.get(MathHelper.toLong(chunkCoord.getChunkX() + scanDistance, chunkCoord.getChunkZ() + i));															
 														if(biomeStructures == null)
 														{
 															if(!isBo4ChunkPlotted(chunkCoord) && !worldGenRegion.chunkHasDefaultStructure(rand, chunkCoord))
@@ -532,7 +738,7 @@ public class CustomStructurePlotter
 															} else {
 																biomeStructures = new ArrayList<String>(); // Don't spawn anything here, there is a default structure.
 															}
-															this.structureNamesPerChunk.put(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + scanDistance), (chunkCoord.getChunkZ() + i)),biomeStructures);
+															this.structureNamesPerChunk.put(MathHelper.toLong(chunkCoord.getChunkX() + scanDistance, chunkCoord.getChunkZ() + i),biomeStructures);
 														}
 														if(biomeStructures != null)
 														{
@@ -596,7 +802,7 @@ public class CustomStructurePlotter
 														}
 													} else {
 														// When we get biomestructures here, size() == 0 means the chunk has been handled, null means it hasnt yet been cached at all
-														biomeStructures = this.structureNamesPerChunk.get(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() - scanDistance), (chunkCoord.getChunkZ() + i)));
+														biomeStructures = this.structureNamesPerChunk.get(MathHelper.toLong(chunkCoord.getChunkX() - scanDistance, chunkCoord.getChunkZ() + i));
 														if(biomeStructures == null)
 														{
 															if(!isBo4ChunkPlotted(chunkCoord) && !worldGenRegion.chunkHasDefaultStructure(rand, chunkCoord))
@@ -622,7 +828,7 @@ public class CustomStructurePlotter
 															} else {
 																biomeStructures = new ArrayList<String>();
 															}
-															this.structureNamesPerChunk.put(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() - scanDistance), (chunkCoord.getChunkZ() + i)),biomeStructures);
+															this.structureNamesPerChunk.put(MathHelper.toLong(chunkCoord.getChunkX() - scanDistance, chunkCoord.getChunkZ() + i),biomeStructures);
 														}
 														if(biomeStructures != null)
 														{
@@ -686,7 +892,7 @@ public class CustomStructurePlotter
 														}
 													} else {
 														// When we get biomestructures here, size() == 0 means the chunk has been handled, null means it hasnt yet been cached at all
-														biomeStructures = this.structureNamesPerChunk.get(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() + scanDistance)));
+														biomeStructures = this.structureNamesPerChunk.get(MathHelper.toLong(chunkCoord.getChunkX() + i, chunkCoord.getChunkZ() + scanDistance));
 														if(biomeStructures == null)
 														{
 															if(!isBo4ChunkPlotted(chunkCoord) && !worldGenRegion.chunkHasDefaultStructure(rand, chunkCoord))
@@ -713,7 +919,7 @@ public class CustomStructurePlotter
 															} else {
 																biomeStructures = new ArrayList<String>();
 															}
-															this.structureNamesPerChunk.put(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() + scanDistance)),biomeStructures);
+															this.structureNamesPerChunk.put(MathHelper.toLong(chunkCoord.getChunkX() + i, chunkCoord.getChunkZ() + scanDistance),biomeStructures);
 														}
 														if(biomeStructures != null)
 														{
@@ -776,7 +982,7 @@ public class CustomStructurePlotter
 														}
 													} else {
 														// When we get biomestructures here, size() == 0 means the chunk has been handled, null means it hasnt yet been cached at all
-														biomeStructures = this.structureNamesPerChunk.get(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() - scanDistance)));
+														biomeStructures = this.structureNamesPerChunk.get(MathHelper.toLong(chunkCoord.getChunkX() + i, chunkCoord.getChunkZ() - scanDistance));
 														if(biomeStructures == null)
 														{
 															if(!isBo4ChunkPlotted(chunkCoord) && !worldGenRegion.chunkHasDefaultStructure(rand, chunkCoord))
@@ -802,7 +1008,7 @@ public class CustomStructurePlotter
 															} else {
 																biomeStructures = new ArrayList<String>();
 															}
-															this.structureNamesPerChunk.put(ChunkCoordinate.fromChunkCoords((chunkCoord.getChunkX() + i), (chunkCoord.getChunkZ() - scanDistance)),biomeStructures);
+															this.structureNamesPerChunk.put(MathHelper.toLong(chunkCoord.getChunkX() + i, chunkCoord.getChunkZ() - scanDistance),biomeStructures);
 														}
 														if(biomeStructures != null)
 														{
@@ -928,8 +1134,6 @@ public class CustomStructurePlotter
 
 											if(structureStart2.isSpawned())
 											{
-												structureCache.addBo4ToStructureCache(spawnChunk, structureStart2);
-
 												BO4 structureCoordConfig = ((BO4)structureCoord.getObject(otgRootFolder, logger, customObjectManager, materialReader, manager, modLoadedChecker));
 												
 												structureCoordConfig.getConfig().timesSpawned += 1;
@@ -940,50 +1144,15 @@ public class CustomStructurePlotter
 
 												if(((BO4)currentStructureSpawning[0]).getConfig().frequency > 0 || ((BO4)currentStructureSpawning[0]).getConfig().bo4Groups.size() > 0)
 												{
-													String bO3Name = ((BO4)currentStructureSpawning[0]).getName();
 													ChunkCoordinate bo4SpawnCoord = ChunkCoordinate.fromChunkCoords(spawnCoordX, spawnCoordZ);
-
-													ArrayList<ChunkCoordinate> chunkCoords = this.spawnedStructuresByName.get(bO3Name);
-													if(chunkCoords == null)
-													{
-														chunkCoords = new ArrayList<ChunkCoordinate>();
-														this.spawnedStructuresByName.put(bO3Name, chunkCoords);
-													}
-													chunkCoords.add(bo4SpawnCoord);
-
+													ChunkCoordinate bo4CenterSpawnCoord = null;
 													if(((BO4)currentStructureSpawning[0]).getConfig().bo4Groups.size() > 0)
 													{
 														int structureCenterX = structureBBInsideAreaX + (int)Math.floor(((rotation == Rotation.NORTH || rotation == Rotation.SOUTH ? structureLeft + structureRight + 1 : structureBottom + structureTop + 1) / 2d));
 														int structureCenterZ = structureBBInsideAreaZ + (int)Math.floor(((rotation == Rotation.NORTH || rotation == Rotation.SOUTH ? structureTop + structureBottom + 1 : structureLeft + structureRight + 1) / 2d));
-														ChunkCoordinate bo4CenterSpawnCoord = ChunkCoordinate.fromChunkCoords(structureCenterX, structureCenterZ);
-														
-														for(Entry<String, Integer> entry : ((BO4)currentStructureSpawning[0]).getConfig().bo4Groups.entrySet())
-														{
-															String bo4GroupName = entry.getKey();
-															int bo4GroupFrequency = entry.getValue().intValue();
-															if(bo4GroupFrequency > 0)
-															{
-																HashMap<ChunkCoordinate, Integer> spawnedStructures = this.spawnedStructuresByGroup.get(bo4GroupName);
-																if(spawnedStructures == null)
-																{
-																	spawnedStructures = new HashMap<ChunkCoordinate, Integer>();
-																	spawnedStructures.put(bo4CenterSpawnCoord, entry.getValue());
-																	this.spawnedStructuresByGroup.put(bo4GroupName, spawnedStructures);
-																} else {
-																	Integer frequency = spawnedStructures.get(bo4CenterSpawnCoord);
-																	if(frequency != null)
-																	{
-																		if(frequency.intValue() < bo4GroupFrequency)
-																		{
-																			spawnedStructures.put(bo4CenterSpawnCoord, entry.getValue().intValue());
-																		}
-																	} else {
-																		spawnedStructures.put(bo4CenterSpawnCoord, entry.getValue().intValue());
-																	}
-																}
-															}
-														}
+														bo4CenterSpawnCoord = ChunkCoordinate.fromChunkCoords(structureCenterX, structureCenterZ);
 													}
+													addToSpawnedStructures((BO4)currentStructureSpawning[0], bo4SpawnCoord, bo4CenterSpawnCoord);
 												}
 
 												// Even though we made sure the structure's bounding box contained the current chunk,
@@ -1001,7 +1170,6 @@ public class CustomStructurePlotter
 												
 												if(structureCacheContainsKey(chunkCoord) || targetStructure != null)
 												{
-													this.processing = false;
 													return spawnChunk;
 												}
 												break;
@@ -1019,13 +1187,13 @@ public class CustomStructurePlotter
 			}
 		}
 		
-		// Set the chunk to plotted so we know not to override it.
+		// Set the chunk to plotted so we know not to override it. If another thread claimed 
+		// it for a structure since, that structure is applied before the chunk is spawned.
+		claimChunk(chunkCoord);
 		this.addToPlottedChunks(chunkCoord);
 		// Let plotter know the chunk is taken (fast cache, optimisation)
 		setChunkOccupied(chunkCoord);
 		
-		this.processing = false;
-		
 		if(logger.getLogCategoryEnabled(LogCategory.PERFORMANCE) && (System.currentTimeMillis() - startTime) > 50)
 		{
 			IBiomeConfig biomeConfig4 = worldGenRegion.getCachedBiomeProvider().getBiomeConfig(chunkCoord.getBlockX() + DecorationArea.BO_CHUNK_CENTER_X, chunkCoord.getBlockZ() + DecorationArea.BO_CHUNK_CENTER_Z);
@@ -1035,7 +1203,65 @@ public class CustomStructurePlotter
 		return null;
 	}
 
+	private void addToSpawnedStructures(BO4 bo4, ChunkCoordinate bo4SpawnCoord, ChunkCoordinate bo4CenterSpawnCoord)
+	{
+		synchronized(this.spawnedStructuresLock)
+		{
+			ArrayList<ChunkCoordinate> chunkCoords = this.spawnedStructuresByName.get(bo4.getName());
+			if(chunkCoords == null)
+			{
+				chunkCoords = new ArrayList<ChunkCoordinate>();
+				this.spawnedStructuresByName.put(bo4.getName(), chunkCoords);
+			}
+			chunkCoords.add(bo4SpawnCoord);
+			this.spawnedStructuresJournal.addByName(bo4.getName(), bo4SpawnCoord);
+
+			if(bo4CenterSpawnCoord != null)
+			{
+				for(Entry<String, Integer> entry : bo4.getConfig().bo4Groups.entrySet())
+				{
+					String bo4GroupName = entry.getKey();
+					int bo4GroupFrequency = entry.getValue().intValue();
+					if(bo4GroupFrequency > 0)
+					{
+						HashMap<ChunkCoordinate, Integer> spawnedStructures = this.spawnedStructuresByGroup.get(bo4GroupName);
+						if(spawnedStructures == null)
+						{
+							spawnedStructures = new HashMap<ChunkCoordinate, Integer>();
+							spawnedStructures.put(bo4CenterSpawnCoord, entry.getValue());
+							this.spawnedStructuresByGroup.put(bo4GroupName, spawnedStructures);
+							this.spawnedStructuresJournal.addByGroup(bo4GroupName, bo4CenterSpawnCoord, bo4GroupFrequency);
+						} else {
+							Integer frequency = spawnedStructures.get(bo4CenterSpawnCoord);
+							if(frequency != null)
+							{
+								if(frequency.intValue() < bo4GroupFrequency)
+								{
+									spawnedStructures.put(bo4CenterSpawnCoord, entry.getValue().intValue());
+									this.spawnedStructuresJournal.addByGroup(bo4GroupName, bo4CenterSpawnCoord, bo4GroupFrequency);
+								}
+							} else {
+								spawnedStructures.put(bo4CenterSpawnCoord, entry.getValue().intValue());
+								this.spawnedStructuresJournal.addByGroup(bo4GroupName, bo4CenterSpawnCoord, bo4GroupFrequency);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	// Structures plotted at the same time by threads holding different regions don't see
+	// each other, so frequencies/group frequencies larger than a region aren't guaranteed.
 	private boolean isBO4AllowedToSpawnAtByFrequency(ChunkCoordinate chunkCoord, BO4 BO3ToSpawn)
+	{
+		synchronized(this.spawnedStructuresLock)
+		{
+			return isBO4AllowedToSpawnAtByFrequencyLocked(chunkCoord, BO3ToSpawn);
+		}
+	}
+
+	private boolean isBO4AllowedToSpawnAtByFrequencyLocked(ChunkCoordinate chunkCoord, BO4 BO3ToSpawn)
 	{
 		// Check if no other structure of the same type (filename) is within the minimum radius (BO3 frequency)
 		int radius = BO3ToSpawn.getConfig().frequency;
@@ -1096,23 +1322,75 @@ public class CustomStructurePlotter
 
 	private void savePlottedChunks(Path worldSaveDir, String presetFolderName, ILogger logger)
 	{
-		CustomStructureFileManager.savePlottedChunksData(worldSaveDir, presetFolderName, this.plottedChunks, logger);
+		CustomStructureFileManager.savePlottedChunksData(worldSaveDir, presetFolderName, this.plottedChunks.getLoadedRegions(), logger);
 	}
 
 	private void loadPlottedChunks(Path worldSaveDir, String presetFolderName, ILogger logger)
 	{
 		this.plottedChunks.clear();
-		this.plottedChunks.putAll(CustomStructureFileManager.loadPlottedChunksData(worldSaveDir, presetFolderName, logger));
+		for(Entry<ChunkCoordinate, PlottedChunksRegion> loadedRegion : CustomStructureFileManager.loadPlottedChunksData(worldSaveDir, presetFolderName, logger).entrySet())
+		{
+			if(loadedRegion.getValue() != null)
+			{
+				this.plottedChunks.put(loadedRegion.getKey(), loadedRegion.getValue());
+			}
+		}
+	}
+
+	// Called after saving, evicts saved plotted chunks regions, least recently 
+	// used first, until the number of loaded regions is back under the limit.
+	// Regions with plotted structures waiting to be spawned are kept.
+	public int evictPlottedChunks()
+	{
+		int evicted = 0;
+		for(ChunkCoordinate regionCoord : this.plottedChunks.getEvictionCandidates())
+		{
+			if(!this.plottedChunks.isOverCapacity())
+			{
+				break;
+			}
+			PlottedChunksRegion region = this.plottedChunks.getIfLoaded(regionCoord);
+			if(region == null || region.requiresSave() || !tryLockIdleRegion(regionCoord))
+			{
+				continue;
+			}
+			try
+			{
+				// Check again, the region may have been plotted in before it was locked.
+				if(!region.requiresSave())
+				{
+					this.plottedChunks.evict(regionCoord);
+					evicted++;
+				}
+			} finally {
+				unlockRegion(regionCoord);
+			}
+		}
+		return evicted;
+	}
+
+	public int getLoadedPlottedChunksRegionCount()
+	{
+		return this.plottedChunks.getLoadedRegionCount();
 	}
 	
 	private void saveSpawnedStructures(Path worldSaveDir, String presetFolderName, ILogger logger)
 	{
-		CustomStructureFileManager.saveChunksMapFile(worldSaveDir, presetFolderName, this.spawnedStructuresByName, this.spawnedStructuresByGroup, logger);
+		// /otg spawn doesn't wait for saving, so lock while writing.
+		// Only entries added since the last save are written.
+		synchronized(this.spawnedStructuresLock)
+		{
+			this.spawnedStructuresJournal.save(worldSaveDir, presetFolderName, logger);
+		}
 	}
 	
 	private void loadSpawnedStructures(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, ILogger logger)
 	{
-		CustomStructureFileManager.loadChunksMapFile(worldSaveDir, presetFolderName, isBO4Enabled, this.spawnedStructuresByName, this.spawnedStructuresByGroup, logger);		
+		synchronized(this.spawnedStructuresLock)
+		{
+			CustomStructureFileManager.loadChunksMapFile(worldSaveDir, presetFolderName, isBO4Enabled, this.spawnedStructuresByName, this.spawnedStructuresByGroup, logger);
+			this.spawnedStructuresJournal.load(worldSaveDir, presetFolderName, this.spawnedStructuresByName, this.spawnedStructuresByGroup, logger);
+		}
 	}
 	
 	public void saveStructureCache(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, ILogger logger)
@@ -1126,7 +1404,7 @@ public class CustomStructurePlotter
 
 	public void loadStructureCache(Path worldSaveDir, String presetFolderName, boolean isBO4Enabled, Map<CustomStructure, ArrayList<ChunkCoordinate>> loadedStructures, ILogger logger)
 	{
-		this.bo4StructureCache.clear();
+		this.regions.clear();
 		
 		if(isBO4Enabled)
 		{
@@ -1159,7 +1437,7 @@ public class CustomStructurePlotter
 			loadPlottedChunks(worldSaveDir, presetFolderName, logger);
 			loadSpawnedStructures(worldSaveDir, presetFolderName, isBO4Enabled, logger);
 
-			for(ChunkCoordinate chunkCoord : this.bo4StructureCache.keySet())
+			for(ChunkCoordinate chunkCoord : this.regions.keySet())
 			{
 				// This is an optimisation so that PlotStructures knows not to plot anything in this chunk
 				// TODO: This could easily exceed the capacity of the StructuresPerChunkCache, mostly defeating the point?
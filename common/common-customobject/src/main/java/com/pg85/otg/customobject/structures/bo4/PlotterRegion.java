@@ -0,0 +1,143 @@
+package com.pg85.otg.customobject.structures.bo4;
+
+import java.util.BitSet;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.util.ChunkCoordinate;
+
+/**
+ * Plotter state for one region: structures plotted in chunks that
+ * haven't been decorated yet, and the lock held by threads plotting
+ * in or next to this region.
+ *
+ * Structures large enough to reach past the regions locked by the
+ * plotting thread are handed off to this region via a queue, and
+ * applied in order by the next thread that locks it.
+ *
+ * Chunks are claimed by the structure plotted in them before they're
+ * added or handed off, claimed chunks can't be plotted by any other
+ * structure (see CustomStructurePlotter.claimChunks).
+ */
+class PlotterRegion
+{
+	private final ChunkCoordinate regionCoord;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Queue<HandOff> handOffs = new ConcurrentLinkedQueue<HandOff>();
+	private BO4CustomStructure[][] structures; // Created on first use
+	private BitSet claimedChunks; // Created on first use, guarded by this
+
+	PlotterRegion(ChunkCoordinate regionCoord)
+	{
+		this.regionCoord = regionCoord;
+	}
+
+	ChunkCoordinate getRegionCoord()
+	{
+		return this.regionCoord;
+	}
+
+	void lock()
+	{
+		this.lock.lock();
+	}
+
+	boolean tryLock()
+	{
+		return this.lock.tryLock();
+	}
+
+	void unlock()
+	{
+		this.lock.unlock();
+	}
+
+	boolean isHeldByCurrentThread()
+	{
+		return this.lock.isHeldByCurrentThread();
+	}
+
+	// Structures are only read/written by the thread holding the lock,
+	// other threads use handOff/isClaimed.
+
+	BO4CustomStructure getStructure(int internalX, int internalZ)
+	{
+		return this.structures == null ? null : this.structures[internalX][internalZ];
+	}
+
+	void setStructure(int internalX, int internalZ, BO4CustomStructure structure)
+	{
+		if(this.structures == null)
+		{
+			if(structure == null)
+			{
+				return;
+			}
+			this.structures = new BO4CustomStructure[Constants.REGION_SIZE][Constants.REGION_SIZE];
+		}
+		this.structures[internalX][internalZ] = structure;
+	}
+
+	/**
+	 * Returns true if this region has no plotted structures or handoffs
+	 * waiting to be spawned. Only called by the thread holding the lock.
+	 */
+	boolean isIdle()
+	{
+		if(!this.handOffs.isEmpty())
+		{
+			return false;
+		}
+		if(this.structures != null)
+		{
+			for(BO4CustomStructure[] column : this.structures)
+			{
+				for(BO4CustomStructure structure : column)
+				{
+					if(structure != null)
+					{
+						return false;
+					}
+				}
+			}
+		}
+		return true;
+	}
+
+	void handOff(ChunkCoordinate chunkCoord, BO4CustomStructure structure)
+	{
+		this.handOffs.add(new HandOff(chunkCoord, structure));
+	}
+
+	synchronized boolean isClaimed(ChunkCoordinate chunkCoord)
+	{
+		return this.claimedChunks != null && this.claimedChunks.get(getClaimIndex(chunkCoord));
+	}
+
+	synchronized void claim(ChunkCoordinate chunkCoord)
+	{
+		if(this.claimedChunks == null)
+		{
+			this.claimedChunks = new BitSet(Constants.REGION_SIZE * Constants.REGION_SIZE);
+		}
+		this.claimedChunks.set(getClaimIndex(chunkCoord));
+	}
+
+	private static int getClaimIndex(ChunkCoordinate chunkCoord)
+	{
+		return chunkCoord.getRegionInternalX() * Constants.REGION_SIZE + chunkCoord.getRegionInternalZ();
+	}
+
+	/**
+	 * Returns the oldest handed off structure, or null if there are none.
+	 * Only called by the thread holding the lock.
+	 */
+	HandOff pollHandOff()
+	{
+		return this.handOffs.poll();
+	}
+
+	record HandOff(ChunkCoordinate chunkCoord, BO4CustomStructure structure) { }
+}
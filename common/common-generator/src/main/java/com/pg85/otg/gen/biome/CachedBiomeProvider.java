@@ -1,10 +1,5 @@
 package com.pg85.otg.gen.biome;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
-
 import com.pg85.otg.constants.Constants;
 import com.pg85.otg.interfaces.IBiomeConfig;
 import com.pg85.otg.interfaces.IBiome;
@@ -12,8 +7,11 @@ import com.pg85.otg.interfaces.ICachedBiomeProvider;
 import com.pg85.otg.interfaces.ILayerSource;
 import com.pg85.otg.interfaces.ILogger;
 import com.pg85.otg.util.ChunkCoordinate;
-import com.pg85.otg.util.FifoMap;
+import com.pg85.otg.util.ConcurrentLongCache;
 import com.pg85.otg.util.helpers.MathHelper;
+import com.pg85.otg.util.metrics.WorldGenCounter;
+import com.pg85.otg.util.metrics.WorldGenMetrics;
+import com.pg85.otg.util.metrics.WorldGenPhase;
 
 /**
  * A cache used throughout an entire session, so that base
@@ -22,30 +20,26 @@ import com.pg85.otg.util.helpers.MathHelper;
  */
 public class CachedBiomeProvider implements ICachedBiomeProvider
 {
-	static int cacheHits = 0;
-	static int smallCacheHits = 0;
 	@SuppressWarnings("unused")
 	private final ILogger logger;
 	
 	private final long seed;
 	private final ILayerSource biomeProvider;
 	private final IBiome[] biomesById;
-	
-	private final Object lock = new Object();
-	private boolean locked = false;
-	private boolean locked2 = false;
-	private final FifoMap<ChunkCoordinate, IBiome[]> biomesCache = new FifoMap<>(256);
-	private final FifoMap<ChunkCoordinate, IBiomeConfig[]> biomeConfigsCache = new FifoMap<>(256);
-	
-	private final Object noiseLock = new Object();
-	private final FifoMap<ChunkCoordinate, IBiomeConfig[]> noiseBiomeConfigsCache = new FifoMap<>(1024);	
 
-	public CachedBiomeProvider(long seed, ILayerSource biomeProvider, IBiome[] biomesById, ILogger logger)
+	// Keyed on packed chunk coords, biomes are sampled outside of any lock and at most once per chunk.
+	private final ConcurrentLongCache<ChunkBiomes> biomesCache;
+	// Keyed on packed 8x8 noise region coords.
+	private final ConcurrentLongCache<IBiomeConfig[]> noiseBiomeConfigsCache;
+
+	public CachedBiomeProvider(long seed, ILayerSource biomeProvider, IBiome[] biomesById, ILogger logger, int chunkCacheSize, int noiseRegionCacheSize)
 	{
 		this.seed = seed;
 		this.biomeProvider = biomeProvider;
 		this.biomesById = biomesById;
 		this.logger = logger;
+		this.biomesCache = new ConcurrentLongCache<ChunkBiomes>(chunkCacheSize);
+		this.noiseBiomeConfigsCache = new ConcurrentLongCache<IBiomeConfig[]>(noiseRegionCacheSize);
 	}
 
 	// Used by any method that can preemptively request a chunk of biomeconfigs,
@@ -54,37 +48,7 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 	@Override
 	public IBiomeConfig[] getBiomeConfigsForChunk(ChunkCoordinate chunkCoord)
 	{
-		IBiomeConfig[] biomeConfigs;
-		synchronized(this.lock)
-		{
-			this.locked = true;
-			biomeConfigs = this.biomeConfigsCache.get(chunkCoord);
-			if(biomeConfigs == null)
-			{
-				IBiome[] biomes = new IBiome[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
-				biomeConfigs = new IBiomeConfig[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
-				int biomeId;
-				IBiome biome;
-				for (int x = 0; x < Constants.CHUNK_SIZE; x++)
-				{
-					for (int z = 0; z < Constants.CHUNK_SIZE; z++)
-					{
-						// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
-						biomeId = BiomeInterpolator.getId(this.seed, x + chunkCoord.getBlockX(), 0, z + chunkCoord.getBlockZ(), this.biomeProvider);
-						biome = this.biomesById[biomeId];
-						biomes[x * Constants.CHUNK_SIZE + z] = biome;
-						biomeConfigs[x * Constants.CHUNK_SIZE + z] = biome.getBiomeConfig();
-					}
-				}
-				this.biomesCache.put(chunkCoord, biomes);
-				this.biomeConfigsCache.put(chunkCoord, biomeConfigs);
-			} else {
-				cacheHits++;
-				//logger.log(LogLevel.INFO, LogCategory.MAIN, "Cache hit " + cacheHits);
-			}
-		}
-		this.locked = false;
-		return biomeConfigs;		
+		return getChunkBiomes(chunkCoord.getChunkX(), chunkCoord.getChunkZ()).biomeConfigs;
 	}
 	
 	// Used by any method that can preemptively request a chunk of biomeconfigs,
@@ -92,37 +56,64 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 	@Override
 	public IBiome[] getBiomesForChunk(ChunkCoordinate chunkCoord)
 	{
-		IBiome[] biomes;
-		synchronized(this.lock)
+		return getChunkBiomes(chunkCoord.getChunkX(), chunkCoord.getChunkZ()).biomes;
+	}
+
+	private ChunkBiomes getChunkBiomes(int chunkX, int chunkZ)
+	{
+		long key = MathHelper.toLong(chunkX, chunkZ);
+		ChunkBiomes chunkBiomes = this.biomesCache.get(key);
+		if(chunkBiomes != null)
+		{
+			WorldGenMetrics.increment(WorldGenCounter.BIOME_CACHE_HITS);
+			return chunkBiomes;
+		}
+		return this.biomesCache.get(key, this::sampleChunkBiomes);
+	}
+
+	private ChunkBiomes sampleChunkBiomes(long key)
+	{
+		WorldGenMetrics.increment(WorldGenCounter.BIOME_CACHE_MISSES);
+		return getChunkBiomes(key, sampleNoiseBiomesForChunks(MathHelper.getXFromLong(key), MathHelper.getZFromLong(key), 1));
+	}
+
+	// Samples all noise biomes the chunks' columns can be interpolated from in one go.
+	private NoiseBiomeArea sampleNoiseBiomesForChunks(int chunkX, int chunkZ, int widthHeightInChunks)
+	{
+		int blockX = chunkX * Constants.CHUNK_SIZE;
+		int blockZ = chunkZ * Constants.CHUNK_SIZE;
+		int widthHeightInBlocks = widthHeightInChunks * Constants.CHUNK_SIZE;
+		int noiseStartX = (blockX - 2) >> 2;
+		int noiseStartZ = (blockZ - 2) >> 2;
+		int noiseSizeX = ((blockX + widthHeightInBlocks - 3) >> 2) + 2 - noiseStartX;
+		int noiseSizeZ = ((blockZ + widthHeightInBlocks - 3) >> 2) + 2 - noiseStartZ;
+		int[] biomeIds = new int[noiseSizeX * noiseSizeZ];
+		long metricsStart = WorldGenMetrics.startTimer();
+		this.biomeProvider.sampleArea(noiseStartX, noiseStartZ, noiseSizeX, noiseSizeZ, biomeIds);
+		WorldGenMetrics.record(WorldGenPhase.BIOME_SAMPLING, metricsStart);
+		return new NoiseBiomeArea(biomeIds, noiseStartX, noiseStartZ, noiseSizeZ);
+	}
+
+	private ChunkBiomes getChunkBiomes(long key, NoiseBiomeArea noiseBiomes)
+	{
+		int blockX = MathHelper.getXFromLong(key) * Constants.CHUNK_SIZE;
+		int blockZ = MathHelper.getZFromLong(key) * Constants.CHUNK_SIZE;
+		IBiome[] biomes = new IBiome[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		IBiomeConfig[] biomeConfigs = new IBiomeConfig[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		long pos;
+		IBiome biome;
+		for (int x = 0; x < Constants.CHUNK_SIZE; x++)
 		{
-			this.locked = true;
-			biomes = this.biomesCache.get(chunkCoord);
-			if(biomes == null)
+			for (int z = 0; z < Constants.CHUNK_SIZE; z++)
 			{
-				biomes = new IBiome[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
-				IBiomeConfig[]  biomeConfigs = new IBiomeConfig[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
-				int biomeId;
-				IBiome biome;
-				for (int x = 0; x < Constants.CHUNK_SIZE; x++)
-				{
-					for (int z = 0; z < Constants.CHUNK_SIZE; z++)
-					{
-						// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
-						biomeId = BiomeInterpolator.getId(this.seed,  x + chunkCoord.getBlockX(), 0, z + chunkCoord.getBlockZ(), this.biomeProvider);
-						biome = this.biomesById[biomeId];
-						biomes[x * Constants.CHUNK_SIZE + z] = biome;
-						biomeConfigs[x * Constants.CHUNK_SIZE + z] = biome.getBiomeConfig();
-					}
-				}
-				this.biomesCache.put(chunkCoord, biomes);
-				this.biomeConfigsCache.put(chunkCoord, biomeConfigs);
-			} else {
-				cacheHits++;
-				//logger.log(LogLevel.INFO, LogCategory.MAIN, "Cache hit " + cacheHits);
+				// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
+				pos = BiomeInterpolator.sample(this.seed, x + blockX, 0, z + blockZ);
+				biome = this.biomesById[noiseBiomes.get(MathHelper.getXFromLong(pos), MathHelper.getZFromLong(pos))];
+				biomes[x * Constants.CHUNK_SIZE + z] = biome;
+				biomeConfigs[x * Constants.CHUNK_SIZE + z] = biome.getBiomeConfig();
 			}
 		}
-		this.locked = false;
-		return biomes;
+		return new ChunkBiomes(biomes, biomeConfigs);
 	}
 	
 	@Override
@@ -130,26 +121,42 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 	{
 		IBiome[] biomes = new IBiome[widthHeightInBlocks * widthHeightInBlocks];
 		IBiome[] chunkBiomes;
+		ChunkBiomes cachedChunkBiomes;
+		NoiseBiomeArea noiseBiomes = null;
+		long key;
 		int widthHeightInChunks = (int)Math.ceil(widthHeightInBlocks / 16f);
-		synchronized(this.lock)
+		for(int chunkX = 0; chunkX < widthHeightInChunks; chunkX++)
 		{
-			this.locked2 = true;
-			for(int chunkX = 0; chunkX < widthHeightInChunks; chunkX++)
+			for(int chunkZ = 0; chunkZ < widthHeightInChunks; chunkZ++)
 			{
-				for(int chunkZ = 0; chunkZ < widthHeightInChunks; chunkZ++)
+				key = MathHelper.toLong(chunkCoord.getChunkX() + chunkX, chunkCoord.getChunkZ() + chunkZ);
+				cachedChunkBiomes = this.biomesCache.get(key);
+				if(cachedChunkBiomes == null)
 				{
-					chunkBiomes = getBiomesForChunk(ChunkCoordinate.fromChunkCoords(chunkCoord.getChunkX() + chunkX, chunkCoord.getChunkZ() + chunkZ));
-					for(int x = 0; x < Constants.CHUNK_SIZE; x++)
+					// Sample the whole area once for all missing chunks.
+					if(noiseBiomes == null)
 					{
-						for(int z = 0; z < Constants.CHUNK_SIZE; z++)
-						{
-							biomes[(chunkX * Constants.CHUNK_SIZE + x) * widthHeightInBlocks + (chunkZ * Constants.CHUNK_SIZE + z)] = chunkBiomes[x * Constants.CHUNK_SIZE + z];
-						}
+						noiseBiomes = sampleNoiseBiomesForChunks(chunkCoord.getChunkX(), chunkCoord.getChunkZ(), widthHeightInChunks);
+					}
+					final NoiseBiomeArea area = noiseBiomes;
+					cachedChunkBiomes = this.biomesCache.get(key, chunkKey ->
+					{
+						WorldGenMetrics.increment(WorldGenCounter.BIOME_CACHE_MISSES);
+						return getChunkBiomes(chunkKey, area);
+					});
+				} else {
+					WorldGenMetrics.increment(WorldGenCounter.BIOME_CACHE_HITS);
+				}
+				chunkBiomes = cachedChunkBiomes.biomes;
+				for(int x = 0; x < Constants.CHUNK_SIZE; x++)
+				{
+					for(int z = 0; z < Constants.CHUNK_SIZE; z++)
+					{
+						biomes[(chunkX * Constants.CHUNK_SIZE + x) * widthHeightInBlocks + (chunkZ * Constants.CHUNK_SIZE + z)] = chunkBiomes[x * Constants.CHUNK_SIZE + z];
 					}
 				}
 			}
 		}
-		this.locked2 = false;
 		return biomes;
 	}
 	
@@ -161,33 +168,26 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 	@Override
 	public IBiomeConfig getBiomeConfig(int x, int z, boolean cacheChunk)
 	{
-		ChunkCoordinate chunkCoord = ChunkCoordinate.fromBlockCoords(x, z);
-		// TODO: Do we want/need a lock here? Overhead of the lock would be big.
-		IBiomeConfig[] biomeConfigs = null;
-		if(!this.locked && !this.locked2)
-		{
-			biomeConfigs = this.biomeConfigsCache.get(chunkCoord);
-		}
-		int internalX = x - chunkCoord.getBlockX();
-		int internalZ = z - chunkCoord.getBlockZ();
-		if(biomeConfigs == null)
+		int chunkX = x >> 4;
+		int chunkZ = z >> 4;
+		int internalX = x & 15;
+		int internalZ = z & 15;
+		ChunkBiomes chunkBiomes = this.biomesCache.get(MathHelper.toLong(chunkX, chunkZ));
+		if(chunkBiomes == null)
 		{
-			if(cacheChunk && !this.locked && !this.locked2)
+			if(cacheChunk)
 			{
-				return getBiomeConfigsForChunk(chunkCoord)[internalX * Constants.CHUNK_SIZE + internalZ];
+				return getChunkBiomes(chunkX, chunkZ).biomeConfigs[internalX * Constants.CHUNK_SIZE + internalZ];
 			}
 			// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
 			int biomeId = BiomeInterpolator.getId(this.seed,  x, 0, z, this.biomeProvider);
 			return this.biomesById[biomeId].getBiomeConfig();
-		} else {
-			smallCacheHits++;
-			//logger.log(LogLevel.INFO, LogCategory.MAIN, "Small cache hit " + cacheHits);
 		}
-		return biomeConfigs[internalX * Constants.CHUNK_SIZE + internalZ];
+		return chunkBiomes.biomeConfigs[internalX * Constants.CHUNK_SIZE + internalZ];
 	}
 
 	// These methods don't use the cache because the overhead
-	// of locking likely wouldn't be worth the cache hits.
+	// of a cache lookup likely wouldn't be worth the cache hits.
 	
 	@Override
 	public IBiomeConfig getBiomeConfig(int x, int z)
@@ -213,88 +213,56 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 		int regionSize = 8;
 		int regionStartX = noiseStartX >> 3;
 		int regionStartZ = noiseStartZ >> 3;
-		int cacheOffsetX = noiseStartX - (regionStartX << 3);
-		int cacheOffsetZ = noiseStartZ - (regionStartZ << 3);
-		int regionWidth = (int)Math.ceil((((regionStartX >> 3) + widthHeight) - (regionStartX >> 3)) / 8f);
-		int regionHeight = (int)Math.ceil((((regionStartZ >> 3) + widthHeight) - (regionStartZ >> 3)) / 8f);
+		int regionEndX = (noiseStartX + widthHeight - 1) >> 3;
+		int regionEndZ = (noiseStartZ + widthHeight - 1) >> 3;
 		IBiomeConfig[] biomeConfigs = new IBiomeConfig[widthHeight * widthHeight];
 
-		IBiome biome;
 		IBiomeConfig[] region;
-		ChunkCoordinate regionCoord;
-		List<ChunkCoordinate> regionsToHandle = new ArrayList<ChunkCoordinate>();
-		int cacheX;
-		int cacheZ;
-		synchronized(this.noiseLock)
-		{
-			for(int regionX = regionStartX; regionX <= regionStartX + regionWidth; regionX++)
-			{
-				for(int regionZ = regionStartZ; regionZ <= regionStartZ + regionHeight; regionZ++)
-				{
-					regionCoord = ChunkCoordinate.fromChunkCoords(regionX, regionZ);
-					region = this.noiseBiomeConfigsCache.get(regionCoord);
-					if(region != null)
-					{
-						for(int x = 0; x < regionSize; x++)
-						{
-							for(int z = 0; z < regionSize; z++)
-							{
-								cacheX = ((regionX - regionStartX) << 3) + x - cacheOffsetX;								
-								cacheZ = ((regionZ - regionStartZ) << 3) + z - cacheOffsetZ;
-								if(
-									cacheX < widthHeight && cacheX >= 0 &&
-									cacheZ < widthHeight && cacheZ >= 0
-								)
-								{
-									biomeConfigs[cacheX * widthHeight + cacheZ] = region[(x << 3) + z];
-									if(
-										cacheX == widthHeight - 1 &&
-										cacheZ == widthHeight - 1 &&
-										regionsToHandle.size() == 0 
-									)
-									{
-										return biomeConfigs;
-									}
-								}
-							}
-						}
-					} else {
-						regionsToHandle.add(regionCoord);
-					}
-				}
-			}
-		}
-		Map<ChunkCoordinate, IBiomeConfig[]> regionsHandled = new HashMap<ChunkCoordinate, IBiomeConfig[]>();
-		for(ChunkCoordinate regionTohandle : regionsToHandle)
+		int regionBlockX;
+		int regionBlockZ;
+		int minX;
+		int maxX;
+		int minZ;
+		int maxZ;
+		for(int regionX = regionStartX; regionX <= regionEndX; regionX++)
 		{
-			region = new IBiomeConfig[regionSize * regionSize];
-			for(int x = 0; x < regionSize; x++)
+			regionBlockX = regionX << 3;
+			minX = Math.max(0, noiseStartX - regionBlockX);
+			maxX = Math.min(regionSize, noiseStartX + widthHeight - regionBlockX);
+			for(int regionZ = regionStartZ; regionZ <= regionEndZ; regionZ++)
 			{
-				for(int z = 0; z < regionSize; z++)
+				regionBlockZ = regionZ << 3;
+				minZ = Math.max(0, noiseStartZ - regionBlockZ);
+				maxZ = Math.min(regionSize, noiseStartZ + widthHeight - regionBlockZ);
+				region = this.noiseBiomeConfigsCache.get(MathHelper.toLong(regionX, regionZ), this::sampleNoiseRegion);
+				for(int x = minX; x < maxX; x++)
 				{
-					// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
-					biome = this.biomesById[this.biomeProvider.getSampler().sample((regionTohandle.getChunkX() << 3) + x, (regionTohandle.getChunkZ() << 3) + z)];
-					region[(x << 3) + z] = biome.getBiomeConfig();
-					
-					// TODO: Abort and don't cache region if requested area is smaller than 8x8?
-					cacheX = ((regionTohandle.getChunkX() - regionStartX) << 3) + x - cacheOffsetX;
-					cacheZ = ((regionTohandle.getChunkZ() - regionStartZ) << 3) + z - cacheOffsetZ;
-					if(
-						cacheX < widthHeight && cacheX >= 0 &&
-						cacheZ < widthHeight && cacheZ >= 0
-					)
-					{
-						biomeConfigs[cacheX * widthHeight + cacheZ] = biome.getBiomeConfig();
-					}
+					System.arraycopy(
+						region, (x << 3) + minZ,
+						biomeConfigs, (regionBlockX + x - noiseStartX) * widthHeight + (regionBlockZ + minZ - noiseStartZ),
+						maxZ - minZ
+					);
 				}
 			}
-			regionsHandled.put(regionTohandle, region);
 		}
-		synchronized(this.noiseLock)
+		return biomeConfigs;
+	}
+
+	private IBiomeConfig[] sampleNoiseRegion(long key)
+	{
+		int regionNoiseX = MathHelper.getXFromLong(key) << 3;
+		int regionNoiseZ = MathHelper.getZFromLong(key) << 3;
+		IBiomeConfig[] region = new IBiomeConfig[8 * 8];
+		int[] noiseBiomeIds = new int[8 * 8];
+		// TODO: Technically, we should be providing the hashed seed here. Perhaps this may work for the time being?
+		long metricsStart = WorldGenMetrics.startTimer();
+		this.biomeProvider.sampleArea(regionNoiseX, regionNoiseZ, 8, 8, noiseBiomeIds);
+		WorldGenMetrics.record(WorldGenPhase.BIOME_SAMPLING, metricsStart);
+		for(int i = 0; i < region.length; i++)
 		{
-			this.noiseBiomeConfigsCache.putAll(regionsHandled);
+			region[i] = this.biomesById[noiseBiomeIds[i]].getBiomeConfig();
 		}
-		return biomeConfigs;
+		return region;
 	}
 
 	@Override
@@ -314,6 +282,39 @@ public class CachedBiomeProvider implements ICachedBiomeProvider
 		return this.biomesById[this.biomeProvider.getSampler().sample(noiseX, noiseZ)];
 	}
 
+	private static class ChunkBiomes
+	{
+		private final IBiome[] biomes;
+		private final IBiomeConfig[] biomeConfigs;
+
+		private ChunkBiomes(IBiome[] biomes, IBiomeConfig[] biomeConfigs)
+		{
+			this.biomes = biomes;
+			this.biomeConfigs = biomeConfigs;
+		}
+	}
+
+	private static class NoiseBiomeArea
+	{
+		private final int[] biomeIds;
+		private final int startX;
+		private final int startZ;
+		private final int sizeZ;
+
+		private NoiseBiomeArea(int[] biomeIds, int startX, int startZ, int sizeZ)
+		{
+			this.biomeIds = biomeIds;
+			this.startX = startX;
+			this.startZ = startZ;
+			this.sizeZ = sizeZ;
+		}
+
+		private int get(int noiseX, int noiseZ)
+		{
+			return this.biomeIds[(noiseX - this.startX) * this.sizeZ + (noiseZ - this.startZ)];
+		}
+	}
+
 	/**
 	 * Interpolates the given biome from biome coords (pos >> 2) to real coords.
 	 * This is required as a vanilla change in 1.15 changed biomes from being stored in real resolution, changing them to be
@@ -72,6 +72,12 @@ public class BiomeBorderLayer implements ParentedLayer
 		}
 	}
 
+	@Override
+	public int getParentMargin()
+	{
+		return 1;
+	}
+
 	@Override
 	public int sample(LayerSampleContext<?> context, ILayerSampler parent, int x, int z)
 	{
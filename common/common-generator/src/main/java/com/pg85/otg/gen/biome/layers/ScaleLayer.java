@@ -8,6 +8,12 @@ class ScaleLayer implements ParentedLayer
 {
 	public ScaleLayer() { }
 
+	@Override
+	public boolean isZoom()
+	{
+	  return true;
+	}
+
 	private int transformX(int x)
 	{
 	  return x >> 1;
@@ -19,4 +19,9 @@ public interface CrossSamplingLayer extends ParentedLayer {
 			  parent.sample(x - 1, z), // West
 			  parent.sample(x, z));	// Center
 	}
+
+	@Override
+	default int getParentMargin() {
+	  return 1;
+	}
 }
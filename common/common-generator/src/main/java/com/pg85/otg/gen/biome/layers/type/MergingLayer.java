@@ -12,9 +12,9 @@ public interface MergingLayer
 	  return () -> {
 		 R layerSampler = layer1.make();
 		 R layerSampler2 = layer2.make();
-		 return context.createSampler((x, z) -> {
+		 return context.createSampler((parentSampler, parentSampler2, x, z) -> {
 			context.initSeed(x, z);
-			return this.sample(context, layerSampler, layerSampler2, x, z);
+			return this.sample(context, parentSampler, parentSampler2, x, z);
 		 }, layerSampler, layerSampler2);
 	  };
 	}
@@ -13,12 +13,30 @@ public interface ParentedLayer
 	{
 	  return () -> {
 		 R layerSampler = parent.make();
-		 return context.createSampler((x, z) -> {
+		 return context.createSampler((parentSampler, unused, x, z) -> {
 			context.initSeed(x, z);
-			return this.sample(context, layerSampler, x, z);
-		 }, layerSampler);
+			return this.sample(context, parentSampler, x, z);
+		 }, layerSampler, this.getParentMargin(), this.isZoom());
 	  };
 	}
 
+	/**
+	 * The amount of columns around x/z this layer reads from its parent,
+	 * used when sampling areas. Reads outside of this margin still work,
+	 * but are slower.
+	 */
+	default int getParentMargin()
+	{
+	  return 0;
+	}
+
+	/**
+	 * Whether this layer reads its parent at x >> 1 / z >> 1 and x + 1 >> 1 / z + 1 >> 1.
+	 */
+	default boolean isZoom()
+	{
+	  return false;
+	}
+
 	int sample(LayerSampleContext<?> context, ILayerSampler parent, int x, int z);
 }
@@ -24,14 +24,14 @@ public class CachingLayerContext implements LayerSampleContext<CachingLayerSampl
 	  return new CachingLayerSampler(this.cacheCapacity, layerOperator);
 	}
 
-	public CachingLayerSampler createSampler(LayerOperator layerOperator, CachingLayerSampler cachingLayerSampler)
+	public CachingLayerSampler createSampler(ParentedLayerOperator layerOperator, CachingLayerSampler cachingLayerSampler, int parentMargin, boolean zoom)
 	{
-	  return new CachingLayerSampler(Math.min(1024, cachingLayerSampler.getCapacity() * 4), layerOperator);
+	  return new CachingLayerSampler(Math.min(1024, cachingLayerSampler.getCapacity() * 4), layerOperator, cachingLayerSampler, null, parentMargin, zoom);
 	}
 
-	public CachingLayerSampler createSampler(LayerOperator layerOperator, CachingLayerSampler cachingLayerSampler, CachingLayerSampler cachingLayerSampler2)
+	public CachingLayerSampler createSampler(ParentedLayerOperator layerOperator, CachingLayerSampler cachingLayerSampler, CachingLayerSampler cachingLayerSampler2)
 	{
-	  return new CachingLayerSampler(Math.min(1024, Math.max(cachingLayerSampler.getCapacity(), cachingLayerSampler2.getCapacity()) * 4), layerOperator);
+	  return new CachingLayerSampler(Math.min(1024, Math.max(cachingLayerSampler.getCapacity(), cachingLayerSampler2.getCapacity()) * 4), layerOperator, cachingLayerSampler, cachingLayerSampler2, 0, false);
 	}
 
 	public void initSeed(long x, long y)
@@ -9,13 +9,38 @@ import it.unimi.dsi.fastutil.HashCommon;
 
 public final class CachingLayerSampler implements ILayerSampler
 {
+	private static final int MIN_AREA_SIZE = 64;
+
 	private final ThreadLocal<SamplerBiomeCache> cache;
 	private final int cacheCapacity;
 
+	// Only used for area sampling, null for init layers.
+	private final ParentedLayerOperator parentedOperator;
+	private final CachingLayerSampler parent;
+	private final CachingLayerSampler parent2;
+	private final int parentMargin;
+	private final boolean zoom;
+
 	CachingLayerSampler(int cacheCapacity, LayerOperator operator)
 	{
 		this.cache = ThreadLocal.withInitial(() -> new SamplerBiomeCache(operator, cacheCapacity));
 		this.cacheCapacity = cacheCapacity;
+		this.parentedOperator = null;
+		this.parent = null;
+		this.parent2 = null;
+		this.parentMargin = 0;
+		this.zoom = false;
+	}
+
+	CachingLayerSampler(int cacheCapacity, ParentedLayerOperator operator, CachingLayerSampler parent, CachingLayerSampler parent2, int parentMargin, boolean zoom)
+	{
+		this.cache = ThreadLocal.withInitial(() -> new SamplerBiomeCache((x, z) -> operator.apply(parent, parent2, x, z), cacheCapacity));
+		this.cacheCapacity = cacheCapacity;
+		this.parentedOperator = operator;
+		this.parent = parent;
+		this.parent2 = parent2;
+		this.parentMargin = parentMargin;
+		this.zoom = zoom;
 	}
 
 	public int sample(int x, int z)
@@ -23,6 +48,57 @@ public final class CachingLayerSampler implements ILayerSampler
 		return this.cache.get().get(x, z);
 	}
 
+	/**
+	 * Samples an area by evaluating each layer of the stack over a rectangle,
+	 * parents first, so each layer reads its parents from an array instead of
+	 * going through the per-column cache. Any parent reads outside of the
+	 * sampled rectangle fall back to the cache, so output is identical to sample().
+	 */
+	@Override
+	public void sampleArea(int x, int z, int xSize, int zSize, int[] out)
+	{
+		SamplerBiomeCache cache = this.cache.get();
+		if(this.parent == null)
+		{
+			for (int internalX = 0; internalX < xSize; internalX++)
+			{
+				for (int internalZ = 0; internalZ < zSize; internalZ++)
+				{
+					out[internalX * zSize + internalZ] = cache.operator.apply(x + internalX, z + internalZ);
+				}
+			}
+			return;
+		}
+
+		int parentX;
+		int parentZ;
+		int parentXSize;
+		int parentZSize;
+		if(this.zoom)
+		{
+			parentX = x >> 1;
+			parentZ = z >> 1;
+			parentXSize = ((x + xSize) >> 1) - parentX + 1;
+			parentZSize = ((z + zSize) >> 1) - parentZ + 1;
+		} else {
+			parentX = x - this.parentMargin;
+			parentZ = z - this.parentMargin;
+			parentXSize = xSize + this.parentMargin * 2;
+			parentZSize = zSize + this.parentMargin * 2;
+		}
+
+		// Scratch areas are per thread and per layer, so they can't be overwritten by recursive calls.
+		ILayerSampler parentArea = cache.parentArea.fill(this.parent, parentX, parentZ, parentXSize, parentZSize);
+		ILayerSampler parent2Area = this.parent2 == null ? null : cache.parent2Area.fill(this.parent2, parentX, parentZ, parentXSize, parentZSize);
+		for (int internalX = 0; internalX < xSize; internalX++)
+		{
+			for (int internalZ = 0; internalZ < zSize; internalZ++)
+			{
+				out[internalX * zSize + internalZ] = this.parentedOperator.apply(parentArea, parent2Area, x + internalX, z + internalZ);
+			}
+		}
+	}
+
 	public int getCapacity()
 	{
 		return this.cacheCapacity;
@@ -33,6 +109,8 @@ public final class CachingLayerSampler implements ILayerSampler
 		private final int[] values;
 		private final int mask;
 		private final LayerOperator operator;
+		private final LayerArea parentArea = new LayerArea();
+		private final LayerArea parent2Area = new LayerArea();
 
 		private SamplerBiomeCache(LayerOperator operator, int size) {
 			this.operator = operator;
@@ -74,4 +152,57 @@ public final class CachingLayerSampler implements ILayerSampler
 			return MathHelper.toLong(x, z);
 		}
 	}
+
+	/**
+	 * A sampled area of a parent layer, reused between calls.
+	 */
+	private static class LayerArea implements ILayerSampler
+	{
+		private int[] values = new int[0];
+		private int x;
+		private int z;
+		private int xSize;
+		private int zSize;
+		private ILayerSampler fallback;
+
+		private LayerArea fill(ILayerSampler parent, int x, int z, int xSize, int zSize)
+		{
+			if(this.values.length < xSize * zSize)
+			{
+				this.values = new int[xSize * zSize];
+			}
+			if(xSize * zSize < MIN_AREA_SIZE)
+			{
+				// Small areas near the top of the stack are cheaper to read
+				// from the parent's cache, which is shared between calls.
+				for (int internalX = 0; internalX < xSize; internalX++)
+				{
+					for (int internalZ = 0; internalZ < zSize; internalZ++)
+					{
+						this.values[internalX * zSize + internalZ] = parent.sample(x + internalX, z + internalZ);
+					}
+				}
+			} else {
+				parent.sampleArea(x, z, xSize, zSize, this.values);
+			}
+			this.x = x;
+			this.z = z;
+			this.xSize = xSize;
+			this.zSize = zSize;
+			this.fallback = parent;
+			return this;
+		}
+
+		@Override
+		public int sample(int x, int z)
+		{
+			int internalX = x - this.x;
+			int internalZ = z - this.z;
+			if(internalX >= 0 && internalX < this.xSize && internalZ >= 0 && internalZ < this.zSize)
+			{
+				return this.values[internalX * this.zSize + internalZ];
+			}
+			return this.fallback.sample(x, z);
+		}
+	}
 }
@@ -8,14 +8,18 @@ public interface LayerSampleContext<R extends ILayerSampler> extends LayerRandom
 
 	R createSampler(LayerOperator operator);
 
-	default R createSampler(LayerOperator operator, R parent)
+	/**
+	 * @param parentMargin The amount of columns around x/z the layer reads from its parent.
+	 * @param zoom Whether the layer reads its parent at x >> 1, z >> 1.
+	 */
+	default R createSampler(ParentedLayerOperator operator, R parent, int parentMargin, boolean zoom)
 	{
-	  return this.createSampler(operator);
+	  return this.createSampler((x, z) -> operator.apply(parent, null, x, z));
 	}
 
-	default R createSampler(LayerOperator operator, R layerSampler, R layerSampler2)
+	default R createSampler(ParentedLayerOperator operator, R layerSampler, R layerSampler2)
 	{
-	  return this.createSampler(operator);
+	  return this.createSampler((x, z) -> operator.apply(layerSampler, layerSampler2, x, z));
 	}
 
 	default int choose(int a, int b)
@@ -0,0 +1,13 @@
+package com.pg85.otg.gen.biome.layers.util;
+
+import com.pg85.otg.interfaces.ILayerSampler;
+
+/**
+ * Operator for layers that read from one or two parent layers. Parents
+ * are passed in rather than captured, so that the layer stack can be
+ * evaluated over an area with array-backed parents, see CachingLayerSampler.
+ */
+public interface ParentedLayerOperator
+{
+	int apply(ILayerSampler parent, ILayerSampler parent2, int x, int z);
+}
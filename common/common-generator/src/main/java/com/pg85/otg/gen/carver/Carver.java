@@ -12,8 +12,8 @@ import com.pg85.otg.util.MutableBoolean;
 import com.pg85.otg.util.gen.ChunkBuffer;
 import com.pg85.otg.util.gen.DecorationArea;
 import com.pg85.otg.util.helpers.MathHelper;
-import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterials;
+import com.pg85.otg.util.materials.MaterialPalette;
 
 public abstract class Carver
 {
@@ -106,23 +106,23 @@ public abstract class Carver
 		} else {
 			carvingMask.set(i);
 
-			LocalMaterialData material = chunkBuffer.getBlock(worldX, y, worldZ);
-			if(material.isNonCaveAir() || material.isMaterial(LocalMaterials.WATER) || material.isMaterial(LocalMaterials.LAVA))
+			int material = chunkBuffer.getBlockId(worldX, y, worldZ);
+			if(MaterialPalette.is(material, MaterialPalette.NON_CAVE_AIR) || MaterialPalette.isMaterial(material, LocalMaterials.WATER) || MaterialPalette.isMaterial(material, LocalMaterials.LAVA))
 			{
 				return false;
 			}
 
-			LocalMaterialData blockAbove = chunkBuffer.getBlock(worldX, y + 1, worldZ);
+			int blockAbove = chunkBuffer.getBlockId(worldX, y + 1, worldZ);
 
 			// Check to see if we've found the surface, if so place surfaceblocks.
 			// TODO: Search a larger height up instead of just the current carving sphere?
 			// Vanilla logic
 			// Normally doesn't see sand as surface?
-			if(material.isMaterial(biomeConfig.getSurfaceBlockAtHeight(noiseProvider, worldX, y - 1, worldZ)))
+			if(MaterialPalette.isMaterial(material, biomeConfig.getSurfaceBlockAtHeight(noiseProvider, worldX, y - 1, worldZ)))
 			{
 				foundSurface.setValue(true);
 			}				
-			if (material.isSolid() && !(blockAbove.isMaterial(LocalMaterials.WATER) || blockAbove.isMaterial(LocalMaterials.LAVA)))
+			if (MaterialPalette.is(material, MaterialPalette.SOLID) && !(MaterialPalette.isMaterial(blockAbove, LocalMaterials.WATER) || MaterialPalette.isMaterial(blockAbove, LocalMaterials.LAVA)))
 			{
 				if (y <= this.worldConfig.getCarverLavaBlockHeight())
 				{
@@ -132,8 +132,8 @@ public abstract class Carver
 					chunkBuffer.setBlock(worldX, y, worldZ, LocalMaterials.CAVE_AIR);
 					if(foundSurface.isValue())
 					{
-						LocalMaterialData blockBelow = chunkBuffer.getBlock(worldX, y - 1, worldZ);
-						if(blockBelow.isMaterial(biomeConfig.getGroundBlockAtHeight(noiseProvider, worldX, y - 1, worldZ)))
+						int blockBelow = chunkBuffer.getBlockId(worldX, y - 1, worldZ);
+						if(MaterialPalette.isMaterial(blockBelow, biomeConfig.getGroundBlockAtHeight(noiseProvider, worldX, y - 1, worldZ)))
 						{
 							chunkBuffer.setBlock(worldX, y - 1, worldZ, biomeConfig.getSurfaceBlockAtHeight(noiseProvider, worldX, y - 1, worldZ));
 						}
@@ -155,7 +155,8 @@ public abstract class Carver
 			{
 				for (int k = minY - 1; k <= maxY + 1; ++k)
 				{
-					if (chunk.getBlock(i + mainChunkX * Constants.CHUNK_SIZE, k, j + mainChunkZ * Constants.CHUNK_SIZE).isMaterial(LocalMaterials.WATER) || chunk.getBlock(i + mainChunkX * Constants.CHUNK_SIZE, k, j + mainChunkZ * Constants.CHUNK_SIZE).isMaterial(LocalMaterials.LAVA))
+					int material = chunk.getBlockId(i + mainChunkX * Constants.CHUNK_SIZE, k, j + mainChunkZ * Constants.CHUNK_SIZE);
+					if (MaterialPalette.isMaterial(material, LocalMaterials.WATER) || MaterialPalette.isMaterial(material, LocalMaterials.LAVA))
 					{
 						return true;
 					}
@@ -57,14 +57,16 @@ public class RavineCarver extends Carver
 		Random random = new Random(seed);
 		float stretchFactor = 1.0F;
 
-		float[] heightToHorizontalStretchFactor = new float[1024];
+		// Indexed by y - getStretchFactorOffset(), so negative heights fit.
+		int offset = getStretchFactorOffset();
+		float[] heightToHorizontalStretchFactor = new float[maxHeight - offset + 1];
 		for (int y1 = minHeight; y1 <= maxHeight; ++y1)
 		{
 			if (y1 == 0 || random.nextInt(3) == 0)
 			{
 				stretchFactor = 1.0F + random.nextFloat() * random.nextFloat();
 			}
-			heightToHorizontalStretchFactor[y1] = stretchFactor * stretchFactor;
+			heightToHorizontalStretchFactor[y1 - offset] = stretchFactor * stretchFactor;
 		}
 
 		float yawChange = 0.0F;
@@ -106,6 +108,12 @@ public class RavineCarver extends Carver
 	@Override
 	protected boolean isPositionExcluded(float[] cache, double scaledRelativeX, double scaledRelativeY, double scaledRelativeZ, int y)
 	{
-		return (scaledRelativeX * scaledRelativeX + scaledRelativeZ * scaledRelativeZ) * (double) cache[Math.max(y,1) - 1] + scaledRelativeY * scaledRelativeY / 6.0D >= 1.0D;
+		return (scaledRelativeX * scaledRelativeX + scaledRelativeZ * scaledRelativeZ) * (double) cache[Math.max(y - getStretchFactorOffset(), 1) - 1] + scaledRelativeY * scaledRelativeY / 6.0D >= 1.0D;
+	}
+
+	// Worlds with a min height >= 0 keep indexing the table by y, as they always have.
+	private int getStretchFactorOffset()
+	{
+		return Math.min(this.minHeight, 0);
 	}
 }
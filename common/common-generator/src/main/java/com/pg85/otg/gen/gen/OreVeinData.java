@@ -1,5 +1,24 @@
 package com.pg85.otg.gen.gen;
 
-public record OreVeinData(double[][][] veininess, double[][][] veinA, double[][][] veinB)
+/**
+ * Large ore vein noise and state for one chunk, filled by
+ * OreVeinGenerator.getForChunk. Holds all per-chunk state so chunks can
+ * be generated on multiple threads, reuse one instance per thread.
+ */
+public final class OreVeinData
 {
+    // Noise at the noise cell corners, flattened as [x][z][y]. Only the corners
+    // needed for minY..maxY are sampled for each chunk.
+    final double[] veininess = new double[OreVeinGenerator.SAMPLE_COUNT];
+    final double[] veinA = new double[OreVeinGenerator.SAMPLE_COUNT];
+    final double[] veinB = new double[OreVeinGenerator.SAMPLE_COUNT];
+    // Noise cells, flattened as [x][z][y], whose veininess is high enough for veins.
+    final boolean[] veinCells = new boolean[OreVeinGenerator.CELL_COUNT];
+    // Block y range of the chunk that can contain veins.
+    int minY;
+    int maxY;
+
+    public boolean overlaps(int minY, int maxY) {
+        return minY <= this.maxY && maxY >= this.minY;
+    }
 }
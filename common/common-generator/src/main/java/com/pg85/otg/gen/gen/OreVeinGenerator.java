@@ -7,9 +7,24 @@ import com.pg85.otg.util.materials.LocalMaterials;
 
 import java.util.Random;
 
+/**
+ * Generates 1.18 style large copper and iron ore veins. The generator only
+ * holds the noises, all per-chunk state is kept in OreVeinData, so it can
+ * be used by multiple threads at once.
+ */
 public final class OreVeinGenerator
 {
-    private final Random random;
+    private static final int NOISE_SIZE_XZ = 5;
+    private static final int VEIN_MIN_Y = 0;
+    private static final int VEIN_MAX_Y = 72;
+    // Noise cell corners are 8 blocks apart vertically, blocks up to VEIN_MAX_Y
+    // need the corners up to VEIN_MAX_Y / 8 + 1.
+    private static final int NOISE_SIZE_Y = VEIN_MAX_Y / 8 + 2;
+    static final int SAMPLE_COUNT = NOISE_SIZE_XZ * NOISE_SIZE_XZ * NOISE_SIZE_Y;
+    static final int CELL_COUNT = (NOISE_SIZE_XZ - 1) * (NOISE_SIZE_XZ - 1) * (NOISE_SIZE_Y - 1);
+    // getVeinType needs |veininess| >= 0.5 at the very least.
+    private static final double MIN_VEININESS = 0.5D;
+
     private final long seed;
     private final DoublePerlinNoiseSampler veininessNoiseSource;
     private final DoublePerlinNoiseSampler veinANoiseSource;
@@ -17,7 +32,7 @@ public final class OreVeinGenerator
     private final DoublePerlinNoiseSampler gapNoise;
 
     public OreVeinGenerator(long seed) {
-        this.random = new Random(seed);
+        Random random = new Random(seed);
         this.seed = seed;
         this.veininessNoiseSource = DoublePerlinNoiseSampler.create(new Random(random.nextLong()), -8, 1.0D);
         this.veinANoiseSource = DoublePerlinNoiseSampler.create(new Random(random.nextLong()), -7, 1.0D);
@@ -25,45 +40,78 @@ public final class OreVeinGenerator
         this.gapNoise = DoublePerlinNoiseSampler.create(new Random(random.nextLong()), -5, 1.0D);
     }
 
-    public OreVeinData getForChunk(int chunkX, int chunkZ) {
-        setBaseStoneSeed(this.random, this.seed, chunkX * 16, 0, chunkZ * 16);
-
-        return new OreVeinData(
-                fill(chunkX, chunkZ, this.veininessNoiseSource, 1.5),
-                fill(chunkX, chunkZ, this.veinANoiseSource, 4.0),
-                fill(chunkX, chunkZ, this.veinBNoiseSource, 4.0)
-        );
+    /**
+     * Samples the ore vein noise for the chunk into the given data.
+     * @param terrainMinY Lowest block y the chunk's terrain is generated for.
+     * @param terrainMaxY Highest block y the chunk's terrain is generated for.
+     * @return The data, or null if no block in the chunk can become part of
+     * a vein, in which case the whole chunk can skip ore veins.
+     */
+    public OreVeinData getForChunk(int chunkX, int chunkZ, int terrainMinY, int terrainMaxY, OreVeinData data) {
+        int minY = Math.max(VEIN_MIN_Y, terrainMinY);
+        int maxY = Math.min(VEIN_MAX_Y, terrainMaxY);
+        if (minY > maxY) {
+            return null;
+        }
+        data.minY = minY;
+        data.maxY = maxY;
+
+        int minNoiseY = minY >> 3;
+        int maxNoiseY = (maxY >> 3) + 1;
+        fill(data.veininess, chunkX, chunkZ, this.veininessNoiseSource, 1.5, minNoiseY, maxNoiseY);
+        // Veininess is interpolated between the cell corners, so it can't get further
+        // from 0 inside a cell than at its corners. Cells where all corners are below
+        // the threshold can't contain veins, and the vein noises aren't needed at all
+        // if no cell in the chunk can.
+        if (!markVeinCells(data, minNoiseY, maxNoiseY)) {
+            return null;
+        }
+        fill(data.veinA, chunkX, chunkZ, this.veinANoiseSource, 4.0, minNoiseY, maxNoiseY);
+        fill(data.veinB, chunkX, chunkZ, this.veinBNoiseSource, 4.0, minNoiseY, maxNoiseY);
+        return data;
     }
 
-    private double[][][] fill(int chunkX, int chunkZ, DoublePerlinNoiseSampler sampler, double scale) {
-        double[][][] buffer = new double[5][5][33];
-
-        for (int x = 0; x < 5; x++)
+    private boolean markVeinCells(OreVeinData data, int minNoiseY, int maxNoiseY) {
+        boolean anyVeinCells = false;
+        for (int x = 0; x < NOISE_SIZE_XZ - 1; x++)
         {
-            for (int z = 0; z < 5; z++)
+            for (int z = 0; z < NOISE_SIZE_XZ - 1; z++)
             {
-                fillNoiseColumn(buffer[x][z], chunkX * 4 + x, chunkZ * 4 + z, sampler, scale, 0, 33);
+                for (int y = minNoiseY; y < maxNoiseY; y++)
+                {
+                    boolean veinCell = maxAbsCorner(x, y, z, data.veininess) >= MIN_VEININESS;
+                    data.veinCells[cellIndex(x, y, z)] = veinCell;
+                    anyVeinCells |= veinCell;
+                }
             }
         }
+        return anyVeinCells;
+    }
 
-        return buffer;
+    private void fill(double[] buffer, int chunkX, int chunkZ, DoublePerlinNoiseSampler sampler, double scale, int minNoiseY, int maxNoiseY) {
+        for (int x = 0; x < NOISE_SIZE_XZ; x++)
+        {
+            for (int z = 0; z < NOISE_SIZE_XZ; z++)
+            {
+                fillNoiseColumn(buffer, (x * NOISE_SIZE_XZ + z) * NOISE_SIZE_Y, chunkX * 4 + x, chunkZ * 4 + z, sampler, scale, minNoiseY, maxNoiseY);
+            }
+        }
     }
 
-    private void fillNoiseColumn(double[] buffer, int x, int z, DoublePerlinNoiseSampler sampler, double scale, int minY, int noiseSizeY) {
-        for(int i = 0; i < noiseSizeY; ++i) {
-            int j = i + minY;
+    private void fillNoiseColumn(double[] buffer, int offset, int x, int z, DoublePerlinNoiseSampler sampler, double scale, int minNoiseY, int maxNoiseY) {
+        for(int j = minNoiseY; j <= maxNoiseY; ++j) {
             int k = x * 4;
             int l = j * 8;
             int m = z * 4;
             double d;
             // TODO: correct y value controls for l
-            if (l >= 0 && l <= 72) {
+            if (l >= VEIN_MIN_Y && l <= VEIN_MAX_Y) {
                 d = sampler.sample((double)k * scale, (double)l * scale, (double)m * scale);
             } else {
                 d = 0.0D;
             }
 
-            buffer[i] = d;
+            buffer[offset + j] = d;
         }
 
     }
@@ -107,12 +155,28 @@ public final class OreVeinGenerator
         }
     }
 
-    public LocalMaterialData getMaterial(int realX, int realY, int realZ, int x, int y, int z, double xLerp, double yLerp, double zLerp, OreVeinData data) {
-        double veininess = lerp(x, y, z, xLerp, yLerp, zLerp, data.veininess());
-        double veinA = lerp(x, y, z, xLerp, yLerp, zLerp, data.veinA());
-        double veinB = lerp(x, y, z, xLerp, yLerp, zLerp, data.veinB());
+    // random comes from createSectionRandom for the block's section.
+    public LocalMaterialData getMaterial(Random random, int realX, int realY, int realZ, int x, int y, int z, double xLerp, double yLerp, double zLerp, OreVeinData data) {
+        // Blocks outside of the vein types' y ranges never become ores and
+        // don't use the random, so they can be skipped without sampling.
+        if (realY < data.minY || realY > data.maxY) {
+            return null;
+        }
+        // Same for cells where veininess stays below the threshold.
+        if (!data.veinCells[cellIndex(x, y, z)]) {
+            return null;
+        }
+        double veininess = lerp(x, y, z, xLerp, yLerp, zLerp, data.veininess);
+        double veinA = lerp(x, y, z, xLerp, yLerp, zLerp, data.veinA);
+        double veinB = lerp(x, y, z, xLerp, yLerp, zLerp, data.veinB);
 
-        return oreVeinify(this.random, realX, realY, realZ, veininess, veinA, veinB);
+        return oreVeinify(random, realX, realY, realZ, veininess, veinA, veinB);
+    }
+
+    public Random createSectionRandom(int chunkX, int sectionY, int chunkZ) {
+        Random random = new Random();
+        setBaseStoneSeed(random, this.seed, chunkX * 16, sectionY * 16, chunkZ * 16);
+        return random;
     }
 
     private long setBaseStoneSeed(Random random, long worldSeed, int x, int y, int z) {
@@ -126,17 +190,41 @@ public final class OreVeinGenerator
         return o;
     }
     
-    private double lerp(int x, int y, int z, double xLerp, double yLerp, double zLerp, double[][][] data) {
+    private static int cellIndex(int x, int y, int z) {
+        return (x * (NOISE_SIZE_XZ - 1) + z) * (NOISE_SIZE_Y - 1) + y;
+    }
+
+    private double maxAbsCorner(int x, int y, int z, double[] data) {
+        int x0z0 = (x * NOISE_SIZE_XZ + z) * NOISE_SIZE_Y + y;
+        int x0z1 = x0z0 + NOISE_SIZE_Y;
+        int x1z0 = x0z0 + NOISE_SIZE_XZ * NOISE_SIZE_Y;
+        int x1z1 = x1z0 + NOISE_SIZE_Y;
+        return Math.max(
+            Math.max(maxAbs(data, x0z0), maxAbs(data, x0z1)),
+            Math.max(maxAbs(data, x1z0), maxAbs(data, x1z1))
+        );
+    }
+
+    // Lower and upper sample of a column.
+    private static double maxAbs(double[] data, int index) {
+        return Math.max(Math.abs(data[index]), Math.abs(data[index + 1]));
+    }
+
+    private double lerp(int x, int y, int z, double xLerp, double yLerp, double zLerp, double[] data) {
+        int x0z0 = (x * NOISE_SIZE_XZ + z) * NOISE_SIZE_Y + y;
+        int x0z1 = x0z0 + NOISE_SIZE_Y;
+        int x1z0 = x0z0 + NOISE_SIZE_XZ * NOISE_SIZE_Y;
+        int x1z1 = x1z0 + NOISE_SIZE_Y;
         // Lower samples
-        double x0z0y0 = data[x][z][y];
-        double x0z1y0 = data[x][z + 1][y];
-        double x1z0y0 = data[x + 1][z][y];
-        double x1z1y0 = data[x + 1][z + 1][y];
+        double x0z0y0 = data[x0z0];
+        double x0z1y0 = data[x0z1];
+        double x1z0y0 = data[x1z0];
+        double x1z1y0 = data[x1z1];
         // Upper samples
-        double x0z0y1 = data[x][z][y + 1];
-        double x0z1y1 = data[x][z + 1][y + 1];
-        double x1z0y1 = data[x + 1][z][y + 1];
-        double x1z1y1 = data[x + 1][z + 1][y + 1];
+        double x0z0y1 = data[x0z0 + 1];
+        double x0z1y1 = data[x0z1 + 1];
+        double x1z0y1 = data[x1z0 + 1];
+        double x1z1y1 = data[x1z1 + 1];
 
         return MathHelper.lerp3(
                 yLerp, xLerp, zLerp,
@@ -1,5 +1,6 @@
 package com.pg85.otg.gen.noise;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.stream.IntStream;
@@ -95,6 +96,30 @@ public class OctaveSimplexNoiseSampler
 		return sum;
 	}
 
+	/**
+	 * Samples count points at once, out[n] gets the same value as
+	 * sample(xs[n], ys[n], useNoiseOffsets). Octaves are the outer
+	 * loop so each octave's permutation table stays hot for the
+	 * whole batch.
+	 */
+	public void sample(double[] xs, double[] ys, int count, boolean useNoiseOffsets, double[] out)
+	{
+		double lacunarity = this.lacunarity;
+		double persistence = this.persistence;
+
+		Arrays.fill(out, 0, count, 0.0D);
+		for (SimplexNoiseSampler sampler : this.octaves)
+		{
+			if (sampler != null)
+			{
+				sampler.sampleAndAdd(xs, ys, lacunarity, useNoiseOffsets ? sampler.xOffset : 0.0D, useNoiseOffsets ? sampler.yOffset : 0.0D, persistence, count, out);
+			}
+
+			lacunarity /= 2.0D;
+			persistence *= 2.0D;
+		}
+	}
+
 	public double sample(double x, double y, double yScale, double yOffset)
 	{
 		return this.sample(x, y, true) * 0.55D;
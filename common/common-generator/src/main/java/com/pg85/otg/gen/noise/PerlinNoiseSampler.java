@@ -64,7 +64,45 @@ public class PerlinNoiseSampler
 			d9 = 0.0D;
 		}
 
-		return this.sample(i, j, k, d3, d4 - d9, d5, d6, d7, d8);
+		return this.sample(this.permute(i), this.permute(i + 1), j, k, d3, d4 - d9, d5, d6, d7, d8);
+	}
+
+	/**
+	 * Samples a column of points that share x and z, out[n] gets the same
+	 * value as sample(x, ys[n], z, yScale, yOffsets[n]). Everything that only
+	 * depends on x and z is done once for the whole column. yOffsets is only
+	 * read when yScale isn't 0.
+	 */
+	public void sampleColumn(double x, double z, double[] ys, double yScale, double[] yOffsets, int count, double[] out)
+	{
+		double d0 = x + this.xOffset;
+		double d2 = z + this.zOffset;
+		int i = MathHelper.floor(d0);
+		int k = MathHelper.floor(d2);
+		double d3 = d0 - (double) i;
+		double d5 = d2 - (double) k;
+		double d6 = MathHelper.smoothstep(d3);
+		double d8 = MathHelper.smoothstep(d5);
+		int permutedX = this.permute(i);
+		int permutedX1 = this.permute(i + 1);
+
+		double d1;
+		int j;
+		double d4;
+		double d9;
+		for (int n = 0; n < count; n++)
+		{
+			d1 = ys[n] + this.yOffset;
+			j = MathHelper.floor(d1);
+			d4 = d1 - (double) j;
+			if (yScale != 0.0D)
+			{
+				d9 = (double) MathHelper.floor(Math.min(yOffsets[n], d4) / yScale) * yScale;
+			} else {
+				d9 = 0.0D;
+			}
+			out[n] = this.sample(permutedX, permutedX1, j, k, d3, d4 - d9, d5, d6, MathHelper.smoothstep(d4), d8);
+		}
 	}
 
 	private int permute(int idx)
@@ -72,12 +110,14 @@ public class PerlinNoiseSampler
 		return this.permutations[idx & 255] & 255;
 	}
 
-	private double sample(int sectionX, int sectionY, int sectionZ, double localX, double localY, double localZ, double smoothedX, double smoothedY, double smoothedZ)
+	// permutedX and permutedX1 are permute(sectionX) and permute(sectionX + 1),
+	// passed in so they can be shared by samples with the same x.
+	private double sample(int permutedX, int permutedX1, int sectionY, int sectionZ, double localX, double localY, double localZ, double smoothedX, double smoothedY, double smoothedZ)
 	{
-		int i = this.permute(sectionX) + sectionY;
+		int i = permutedX + sectionY;
 		int j = this.permute(i) + sectionZ;
 		int k = this.permute(i + 1) + sectionZ;
-		int l = this.permute(sectionX + 1) + sectionY;
+		int l = permutedX1 + sectionY;
 		int i1 = this.permute(l) + sectionZ;
 		int j1 = this.permute(l + 1) + sectionZ;
 		double d0 = grad(this.permute(j), localX, localY, localZ);
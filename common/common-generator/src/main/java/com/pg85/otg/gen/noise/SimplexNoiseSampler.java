@@ -97,6 +97,19 @@ class SimplexNoiseSampler
 		return 70.0D * (d10 + d11 + d12);
 	}
 
+	/**
+	 * Batch version of sample(x, y) for octave samplers, adds
+	 * sample(xs[n] * scale + xOffset, ys[n] * scale + yOffset) * weight
+	 * to out[n] for each of the count points.
+	 */
+	void sampleAndAdd(double[] xs, double[] ys, double scale, double xOffset, double yOffset, double weight, int count, double[] out)
+	{
+		for (int n = 0; n < count; n++)
+		{
+			out[n] += this.sample(xs[n] * scale + xOffset, ys[n] * scale + yOffset) * weight;
+		}
+	}
+
 	public double sample(double x, double y, double z)
 	{
 		double d1 = (x + y + z) * 0.3333333333333333D;
@@ -8,6 +8,7 @@ import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.gen.DecorationArea;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterials;
+import com.pg85.otg.util.materials.MaterialPalette;
 import com.pg85.otg.util.materials.MaterialProperties;
 
 public class FrozenSurfaceHelper
@@ -73,8 +74,8 @@ public class FrozenSurfaceHelper
 	{
 		if (biomeConfig != null)
 		{
-			LocalMaterialData materialToFreeze = worldGenRegion.getMaterial(x, y, z);
-			if (materialToFreeze.isLiquid())
+			int materialToFreeze = worldGenRegion.getMaterialId(x, y, z);
+			if (MaterialPalette.is(materialToFreeze, MaterialPalette.LIQUID))
 			{
 				// Water & Stationary Water => IceBlock
 				LocalMaterialData iceBlock = biomeConfig.getIceBlockReplaced(y);
@@ -102,13 +103,13 @@ public class FrozenSurfaceHelper
 	 * @param x Location X
 	 * @param y Location Y
 	 * @param z Location Z
-	 * @param thawedMaterial The material to be checked and if passed, frozen
+	 * @param thawedMaterial The palette id of the material to be checked and if passed, frozen
 	 * @param frozenMaterial The material to freeze the thawed material to if checks pass
 	 * @param source The first material to check for
 	 */
-	private static boolean shouldFreeze(int x, int y, int z, LocalMaterialData thawedMaterial, LocalMaterialData frozenMaterial, LocalMaterialData source)
+	private static boolean shouldFreeze(int x, int y, int z, int thawedMaterial, LocalMaterialData frozenMaterial, LocalMaterialData source)
 	{
-		return (thawedMaterial.isMaterial(source) && !frozenMaterial.isMaterial(source));
+		return (MaterialPalette.isMaterial(thawedMaterial, source) && !frozenMaterial.isMaterial(source));
 	}
 
 	/**
@@ -124,8 +125,8 @@ public class FrozenSurfaceHelper
 		int decreaseFactor = 0;
 		float tempAtBlockToFreeze;
 		int snowHeight;
-		LocalMaterialData materialToSnowAt = null;
-		LocalMaterialData materialToSnowOn = null;
+		int materialToSnowAt;
+		int materialToSnowOn;
 		if(worldGenRegion.getWorldConfig().isBetterSnowFall())
 		{
 			tempAtBlockToFreeze = biome.getTemperatureAt(x, y, z);
@@ -139,17 +140,16 @@ public class FrozenSurfaceHelper
 			snowHeight - decreaseFactor >= 0
 		)
 		{
-			materialToSnowAt = worldGenRegion.getMaterial(x, y, z);
-			materialToSnowOn = worldGenRegion.getMaterial(x, y - 1, z);			
+			materialToSnowAt = worldGenRegion.getMaterialId(x, y, z);
+			materialToSnowOn = worldGenRegion.getMaterialId(x, y - 1, z);
+			// MaterialPalette.NONE (unloaded) has no properties.
 			if (
-				materialToSnowAt != null &&
-				materialToSnowOn != null &&
-				materialToSnowAt.isAir() &&
-				materialToSnowOn.canSnowFallOn()
+				MaterialPalette.is(materialToSnowAt, MaterialPalette.AIR) &&
+				MaterialPalette.is(materialToSnowOn, MaterialPalette.CAN_SNOW_FALL_ON)
 			)
 			{
 				// If we've spawned all snow layers, exit.
-				if(setSnowFallAtLocation(worldGenRegion, x, y, z, snowHeight - decreaseFactor, materialToSnowOn))
+				if(setSnowFallAtLocation(worldGenRegion, x, y, z, snowHeight - decreaseFactor, MaterialPalette.getMaterial(materialToSnowOn)))
 				{
 					break;
 				}
@@ -157,7 +157,7 @@ public class FrozenSurfaceHelper
 				// We have more snow layers to spawn.
 				decreaseFactor += MAX_LAYERS_ON_LEAVES;
 			}
-			if(materialToSnowOn == null || materialToSnowOn.isSolid())
+			if(materialToSnowOn == MaterialPalette.NONE || MaterialPalette.is(materialToSnowOn, MaterialPalette.SOLID))
 			{
 				break;
 			}
@@ -20,6 +20,8 @@ public class IcebergSurfaceGenerator extends MultipleLayersSurfaceGenerator
 {
 	private OctaveSimplexNoiseSampler icebergNoise;
 	private OctaveSimplexNoiseSampler icebergCutoffNoise;
+	// Surface generators are shared by all worldgen threads.
+	private final ThreadLocal<ChunkIcebergNoise> chunkIcebergNoise = ThreadLocal.withInitial(ChunkIcebergNoise::new);
 
 	IcebergSurfaceGenerator(String[] args, IMaterialReader materialReader) throws InvalidConfigException
 	{
@@ -55,7 +57,7 @@ public class IcebergSurfaceGenerator extends MultipleLayersSurfaceGenerator
 
 		double noise = generatingChunk.getNoise(internalX, internalZ);
 		float temperature = biome.getTemperatureAt(xInWorld, biomeConfig.getWaterLevelMax(), zInWorld);
-		double icebergNoise = Math.min(Math.abs(noise), this.icebergNoise.sample((double)xInWorld * 0.1D, (double)zInWorld * 0.1D, false) * 15.0D);
+		double icebergNoise = Math.min(Math.abs(noise), getIcebergNoise(xInWorld, zInWorld) * 15.0D);
 
 		if (icebergNoise > 1.8D)
 		{
@@ -346,4 +348,44 @@ public class IcebergSurfaceGenerator extends MultipleLayersSurfaceGenerator
 		// Not iceberg
 		return null;
 	}
+
+	// Iceberg noise is sampled for all columns of a chunk in one batch
+	// the first time one of them is spawned.
+	private double getIcebergNoise(int xInWorld, int zInWorld)
+	{
+		ChunkIcebergNoise chunkNoise = this.chunkIcebergNoise.get();
+		int chunkX = xInWorld >> 4;
+		int chunkZ = zInWorld >> 4;
+		if (!chunkNoise.filled || chunkNoise.chunkX != chunkX || chunkNoise.chunkZ != chunkZ)
+		{
+			chunkNoise.fill(this.icebergNoise, chunkX, chunkZ);
+		}
+		return chunkNoise.values[(xInWorld & 0xf) * Constants.CHUNK_SIZE + (zInWorld & 0xf)];
+	}
+
+	private static final class ChunkIcebergNoise
+	{
+		private final double[] xs = new double[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		private final double[] zs = new double[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		private final double[] values = new double[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+		private boolean filled;
+		private int chunkX;
+		private int chunkZ;
+
+		private void fill(OctaveSimplexNoiseSampler icebergNoise, int chunkX, int chunkZ)
+		{
+			for (int x = 0; x < Constants.CHUNK_SIZE; x++)
+			{
+				for (int z = 0; z < Constants.CHUNK_SIZE; z++)
+				{
+					this.xs[x * Constants.CHUNK_SIZE + z] = (double)(chunkX * Constants.CHUNK_SIZE + x) * 0.1D;
+					this.zs[x * Constants.CHUNK_SIZE + z] = (double)(chunkZ * Constants.CHUNK_SIZE + z) * 0.1D;
+				}
+			}
+			icebergNoise.sample(this.xs, this.zs, this.values.length, false, this.values);
+			this.filled = true;
+			this.chunkX = chunkX;
+			this.chunkZ = chunkZ;
+		}
+	}
 }
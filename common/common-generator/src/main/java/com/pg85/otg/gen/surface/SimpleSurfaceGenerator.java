@@ -8,6 +8,7 @@ import com.pg85.otg.util.gen.ChunkBuffer;
 import com.pg85.otg.util.gen.GeneratingChunk;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterials;
+import com.pg85.otg.util.materials.MaterialPalette;
 
 public class SimpleSurfaceGenerator implements SurfaceGenerator
 {
@@ -59,8 +60,8 @@ public class SimpleSurfaceGenerator implements SurfaceGenerator
 		boolean biomeGroundBlockIsSand = biomeConfig.getDefaultGroundBlock().isMaterial(LocalMaterials.SAND);
 		boolean layerGroundBlockIsSand = layer != null && layer.groundBlock.isMaterial(LocalMaterials.SAND);
 		final int currentWaterLevel = generatingChunk.getWaterLevel(internalX, internalZ);
-		LocalMaterialData blockOnCurrentPos;
-		LocalMaterialData blockOnPreviousPos = null;
+		int blockOnCurrentPos;
+		int blockOnPreviousPos = MaterialPalette.NONE;
 		
 		int highestBlockInColumn = chunkBuffer.getHighestBlockForColumn(internalX, internalZ);
 		for (int y = highestBlockInColumn; y >= -64; y--)
@@ -72,8 +73,8 @@ public class SimpleSurfaceGenerator implements SurfaceGenerator
 			} else {
 
 				// Surface blocks logic (grass, dirt, sand, sandstone)
-				blockOnCurrentPos = chunkBuffer.getBlock(internalX, y, internalZ);
-				if (blockOnCurrentPos.isEmptyOrAir())
+				blockOnCurrentPos = chunkBuffer.getBlockId(internalX, y, internalZ);
+				if (MaterialPalette.is(blockOnCurrentPos, MaterialPalette.EMPTY_OR_AIR))
 				{
 					// Reset when air is found
 					groundLayerDepth = -1;
@@ -86,7 +87,7 @@ public class SimpleSurfaceGenerator implements SurfaceGenerator
 				// same biome water block as surface/ground/stone block.				
 				// TODO: If other mods have problems bc of replaced blocks in the chunk during ReplaceBiomeBlocks, 
 				// do replaceblock for stone/water here instead of when initially filling the chunk.
-				else if(!blockOnCurrentPos.equals(biomeConfig.getWaterBlockReplaced(y)))
+				else if(!MaterialPalette.isMaterial(blockOnCurrentPos, biomeConfig.getWaterBlockReplaced(y)))
 				{
 					// Place surface/ground down to a certain depth per column,
 					// determined via noise. groundLayerDepth == 0 means we're 
@@ -174,7 +175,7 @@ public class SimpleSurfaceGenerator implements SurfaceGenerator
 							}
 							else if(useLayerGroundBlockForGround)
 							{
-								if(blockOnPreviousPos != null && blockOnPreviousPos.isLiquid())
+								if(MaterialPalette.is(blockOnPreviousPos, MaterialPalette.LIQUID))
 								{
 									chunkBuffer.setBlock(internalX, y, internalZ, layer != null ? layer.getUnderWaterSurfaceBlockReplaced(y, biomeConfig) : biomeConfig.getUnderWaterSurfaceBlockReplaced(y));
 								} else {
@@ -207,7 +208,7 @@ public class SimpleSurfaceGenerator implements SurfaceGenerator
 								//);
 								chunkBuffer.setBlock(internalX, y, internalZ, biomeConfig.getSandStoneBlockReplaced(y));
 							} else {
-								if(blockOnPreviousPos != null && blockOnPreviousPos.isLiquid())
+								if(MaterialPalette.is(blockOnPreviousPos, MaterialPalette.LIQUID))
 								{
 									chunkBuffer.setBlock(internalX, y, internalZ, layer != null ? layer.getUnderWaterSurfaceBlockReplaced(y, biomeConfig) : biomeConfig.getUnderWaterSurfaceBlockReplaced(y));
 								} else {
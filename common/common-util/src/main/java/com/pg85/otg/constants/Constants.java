@@ -70,6 +70,7 @@ public class Constants
 	// Data about structure start points and bo4 groups, used for distance.
 	public static final String SpawnedStructuresFileName = StructureDataFolderName + File.separator + "SpawnedStructures" + StructureDataFileExtension;
 	public static final String SpawnedStructuresBackupFileName = StructureDataFolderName + File.separator + "SpawnedStructures" + StructureDataBackupFileExtension;
+	public static final String SpawnedStructuresJournalFileName = StructureDataFolderName + File.separator + "SpawnedStructures.journal";
 	
 	/**
 	 * Temperatures below this temperature will cause the biome to be covered
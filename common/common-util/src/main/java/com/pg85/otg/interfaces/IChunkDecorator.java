@@ -1,12 +1,16 @@
 package com.pg85.otg.interfaces;
 
+import java.util.concurrent.TimeUnit;
+
 public interface IChunkDecorator
 {
-	Object getLockingObject();
-
 	boolean isDecorating();
 
-	public void beginSave();
+	/**
+	 * Waits for running decorations to finish and blocks new ones
+	 * until endSave is called. Returns false if the timeout expired.
+	 */
+	public boolean beginSave(long timeout, TimeUnit unit) throws InterruptedException;
 
 	public void endSave();
 
@@ -3,4 +3,19 @@ package com.pg85.otg.interfaces;
 public interface ILayerSampler
 {
 	int sample(int x, int z);
+
+	/**
+	 * Samples an area of xSize * zSize columns starting at x/z,
+	 * output is stored in out[internalX * zSize + internalZ].
+	 */
+	default void sampleArea(int x, int z, int xSize, int zSize, int[] out)
+	{
+		for (int internalX = 0; internalX < xSize; internalX++)
+		{
+			for (int internalZ = 0; internalZ < zSize; internalZ++)
+			{
+				out[internalX * zSize + internalZ] = sample(x + internalX, z + internalZ);
+			}
+		}
+	}
 }
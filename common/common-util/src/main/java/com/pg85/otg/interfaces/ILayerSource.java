@@ -3,4 +3,13 @@ package com.pg85.otg.interfaces;
 public interface ILayerSource
 {
 	ILayerSampler getSampler();
+
+	/**
+	 * Samples an area of xSize * zSize biome (noise) coords starting at x/z,
+	 * output is stored in out[internalX * zSize + internalZ].
+	 */
+	default void sampleArea(int x, int z, int xSize, int zSize, int[] out)
+	{
+		getSampler().sampleArea(x, z, xSize, zSize, out);
+	}
 }
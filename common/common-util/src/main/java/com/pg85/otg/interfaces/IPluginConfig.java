@@ -28,4 +28,11 @@ public interface IPluginConfig
 	public boolean logMobs();
 	public String logPresets();	
 	public ConfigMode getSettingsMode();
+	public int getBiomeCacheSize();
+	public int getNoiseBiomeCacheSize();
+	public int getNoiseColumnCacheSize();
+	public boolean getAsyncBaseTerrain();
+	public boolean getSectionParallelBaseTerrain();
+	public boolean getWorldGenTimings();
+	public boolean getPreloadCustomObjects();
 }
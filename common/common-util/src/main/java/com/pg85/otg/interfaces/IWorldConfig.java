@@ -177,6 +177,8 @@ public interface IWorldConfig
 	// TODO: Reimplement this, or forbid any spawning outside of decoration for 1.16.
 	boolean doPopulationBoundsCheck();
 	int getMaximumCustomStructureRadius();
+	int getShadowChunkCacheSizeMB();
+	boolean getCompactShadowChunks();
 
 	// Caves & Ravines
 
@@ -5,8 +5,10 @@ import java.util.Random;
 import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.biome.ReplaceBlockMatrix;
 import com.pg85.otg.util.nbt.NamedBinaryTag;
+import com.pg85.otg.util.gen.BlockBatch;
 import com.pg85.otg.util.gen.DecorationArea;
 import com.pg85.otg.util.materials.LocalMaterialData;
+import com.pg85.otg.util.materials.MaterialPalette;
 import com.pg85.otg.util.minecraft.TreeType;
 
 public interface IWorldGenRegion extends ISurfaceGeneratorNoiseProvider
@@ -33,6 +35,16 @@ public interface IWorldGenRegion extends ISurfaceGeneratorNoiseProvider
 	LocalMaterialData getMaterial(int x, int y, int z);
 	LocalMaterialData getMaterialDirect(int x, int y, int z);
 
+	/**
+	 * Same as getMaterial, but returns the material's MaterialPalette id,
+	 * or MaterialPalette.NONE where getMaterial would return null.
+	 */
+	default int getMaterialId(int x, int y, int z)
+	{
+		LocalMaterialData material = getMaterial(x, y, z);
+		return material == null ? MaterialPalette.NONE : material.getPaletteId();
+	}
+
 	default int getBlockAboveLiquidHeight(int x, int z)
 	{
 		int highestY = getHighestBlockYAt(x, z, false, true, false, false, false);
@@ -85,6 +97,21 @@ public interface IWorldGenRegion extends ISurfaceGeneratorNoiseProvider
 	void setBlock(int x, int y, int z, LocalMaterialData material, NamedBinaryTag metaDataTag);
 	void setBlock(int x, int y, int z, LocalMaterialData material, ReplaceBlockMatrix replaceBlocksMatrix);
 	void setBlock(int x, int y, int z, LocalMaterialData material, NamedBinaryTag metaDataTag, ReplaceBlockMatrix replaceBlocksMatrix);
+
+	/**
+	 * Spawns a batch of blocks, same as calling setBlock for each block 
+	 * in the order they were added. Platforms can override this to sort 
+	 * the batch and write whole chunk sections at once. The batch isn't
+	 * cleared.
+	 */
+	default void setBlocks(BlockBatch blocks)
+	{
+		for(int i = 0; i < blocks.size(); i++)
+		{
+			setBlock(blocks.getX(i), blocks.getY(i), blocks.getZ(i), blocks.getMaterial(i), blocks.getNBT(i), blocks.getReplaceBlocks(i));
+		}
+	}
+
 	void spawnEntity(IEntityFunction newEntityData);
 	void placeDungeon(Random random, int x, int y, int z);
 	void placeFossil(Random random, int x, int y, int z);
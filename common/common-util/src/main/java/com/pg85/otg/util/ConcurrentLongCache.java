@@ -0,0 +1,188 @@
+package com.pg85.otg.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.LongFunction;
+
+import com.pg85.otg.util.helpers.MathHelper;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * A bounded, thread-safe cache keyed on primitive longs (usually packed
+ * chunk or region coords, see MathHelper.toLong).
+ *
+ * Entries are spread over a number of stripes, each with its own lock,
+ * so threads working on different keys rarely contend. Values are
+ * computed at most once per key: the first thread to miss runs the
+ * loader outside of any lock, other threads requesting the same key
+ * wait for its result. Each stripe is a LongFifoMap, evicting its
+ * oldest entry once full.
+ */
+public class ConcurrentLongCache<V>
+{
+	private final Stripe<V>[] stripes;
+	private final int stripeMask;
+
+	public ConcurrentLongCache(int maxSize)
+	{
+		this(maxSize, Runtime.getRuntime().availableProcessors() * 4);
+	}
+
+	@SuppressWarnings("unchecked")
+	public ConcurrentLongCache(int maxSize, int concurrencyLevel)
+	{
+		int stripeCount = MathHelper.smallestEncompassingPowerOfTwo(Math.max(1, Math.min(concurrencyLevel, 64)));
+		// Don't create more stripes than entries.
+		while(stripeCount > 1 && stripeCount > maxSize)
+		{
+			stripeCount >>= 1;
+		}
+		int stripeSize = Math.max(1, maxSize / stripeCount);
+		this.stripeMask = stripeCount - 1;
+		this.stripes = new Stripe[stripeCount];
+		for(int i = 0; i < stripeCount; i++)
+		{
+			this.stripes[i] = new Stripe<V>(stripeSize);
+		}
+	}
+
+	/**
+	 * Returns the cached value for the given key, or null
+	 * if it isn't cached or is still being computed.
+	 */
+	public V get(long key)
+	{
+		Stripe<V> stripe = getStripe(key);
+		synchronized(stripe)
+		{
+			return stripe.values.get(key);
+		}
+	}
+
+	/**
+	 * Returns the cached value for the given key, computing it via
+	 * the loader if it isn't cached. The loader is called outside of
+	 * any lock, at most once per key for any number of concurrent callers.
+	 */
+	public V get(long key, LongFunction<? extends V> loader)
+	{
+		Stripe<V> stripe = getStripe(key);
+		CompletableFuture<V> pending;
+		boolean owner = false;
+		synchronized(stripe)
+		{
+			V value = stripe.values.get(key);
+			if(value != null)
+			{
+				return value;
+			}
+			pending = stripe.pending.get(key);
+			if(pending == null)
+			{
+				pending = new CompletableFuture<V>();
+				stripe.pending.put(key, pending);
+				owner = true;
+			}
+		}
+
+		if(!owner)
+		{
+			try
+			{
+				return pending.join();
+			}
+			catch(CompletionException ex)
+			{
+				if(ex.getCause() instanceof RuntimeException)
+				{
+					throw (RuntimeException)ex.getCause();
+				}
+				throw ex;
+			}
+		}
+
+		V value;
+		try
+		{
+			value = loader.apply(key);
+		}
+		catch(RuntimeException | Error ex)
+		{
+			synchronized(stripe)
+			{
+				stripe.pending.remove(key);
+			}
+			pending.completeExceptionally(ex);
+			throw ex;
+		}
+
+		synchronized(stripe)
+		{
+			stripe.values.put(key, value);
+			stripe.pending.remove(key);
+		}
+		pending.complete(value);
+		return value;
+	}
+
+	public void put(long key, V value)
+	{
+		Stripe<V> stripe = getStripe(key);
+		synchronized(stripe)
+		{
+			stripe.values.put(key, value);
+		}
+	}
+
+	public void remove(long key)
+	{
+		Stripe<V> stripe = getStripe(key);
+		synchronized(stripe)
+		{
+			stripe.values.remove(key);
+		}
+	}
+
+	public void clear()
+	{
+		for(Stripe<V> stripe : this.stripes)
+		{
+			synchronized(stripe)
+			{
+				stripe.values.clear();
+			}
+		}
+	}
+
+	public int size()
+	{
+		int size = 0;
+		for(Stripe<V> stripe : this.stripes)
+		{
+			synchronized(stripe)
+			{
+				size += stripe.values.size();
+			}
+		}
+		return size;
+	}
+
+	private Stripe<V> getStripe(long key)
+	{
+		long hash = HashCommon.mix(key);
+		return this.stripes[(int)(hash ^ (hash >>> 32)) & this.stripeMask];
+	}
+
+	private static class Stripe<V>
+	{
+		private final LongFifoMap<V> values;
+		private final Long2ObjectOpenHashMap<CompletableFuture<V>> pending = new Long2ObjectOpenHashMap<CompletableFuture<V>>();
+
+		private Stripe(int maxSize)
+		{
+			this.values = new LongFifoMap<V>(maxSize);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package com.pg85.otg.util;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+
+/**
+ * FifoMap keyed on primitive longs (usually packed chunk coords, see
+ * MathHelper.toLong). Backed by an open addressing hash table, so
+ * entries don't allocate key objects, boxed entries or list nodes.
+ * The oldest entry is evicted once the map is full.
+ * 
+ * Not thread-safe, see ConcurrentLongCache for a thread-safe cache.
+ */
+public class LongFifoMap<V> extends Long2ObjectLinkedOpenHashMap<V>
+{
+	private final int max;
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public LongFifoMap(int max)
+	{
+		super(max + 1);
+		this.max = max;
+	}
+
+	@Override
+	public V put(long key, V value)
+	{
+		V forReturn = super.put(key, value);
+		if (super.size() > this.max)
+		{
+			removeFirst();
+		}
+		return forReturn;
+	}
+}
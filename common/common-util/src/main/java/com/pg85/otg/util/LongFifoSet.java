@@ -0,0 +1,37 @@
+package com.pg85.otg.util;
+
+import it.unimi.dsi.fastutil.longs.LongLinkedOpenHashSet;
+
+/**
+ * A FIFO list with unique entries, keyed on primitive longs (usually
+ * packed chunk coords, see MathHelper.toLong). Backed by an open
+ * addressing hash table, the oldest entry is evicted once the set is full.
+ * 
+ * Not thread-safe.
+ */
+public class LongFifoSet extends LongLinkedOpenHashSet
+{
+	private final int max;
+
+	/**
+	 * 
+	 */
+	private static final long serialVersionUID = 1L;
+
+	public LongFifoSet(int max)
+	{
+		super(max + 1);
+		this.max = max;
+	}
+
+	@Override
+	public boolean add(long key)
+	{
+		boolean added = super.add(key);
+		if (added && super.size() > this.max)
+		{
+			removeFirstLong();
+		}
+		return added;
+	}
+}
@@ -7,15 +7,21 @@ import com.pg85.otg.util.helpers.StringHelper;
 import com.pg85.otg.util.materials.LocalMaterialBase;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterialTag;
+import com.pg85.otg.util.materials.MaterialPalette;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class ReplaceBlockMatrix
 {
 	private static final String NO_REPLACE = "None";
+	private static final int PAGE_BITS = 8;
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
 	
 	private class ReplaceBlockEntry
 	{
@@ -118,6 +124,17 @@ public class ReplaceBlockMatrix
 	// do this by doing y-minY.
 	// Example: minY = -64, y = 63, index to look up = 127
 	private final ReplaceBlockEntry[] targetsAtHeights;
+
+	// Lookup tables compiled by init from targetsAtHeights, so replaceBlock doesn't
+	// have to scan the instructions. Consecutive heights with the same instructions
+	// share a band, -1 means nothing is replaced at that height. Each band maps
+	// MaterialPalette ids to replacements (index + 1, 0 means not replaced), in pages
+	// of PAGE_SIZE ids so a band only holds pages for the ids it replaces.
+	private int[] bandAtHeights;
+	private LocalMaterialData[] replacements;
+	private int compiledPaletteSize;
+	// Written last, after the other tables, since init may run on another thread.
+	private volatile int[][][] bandPages;
 	
 	public boolean replacesCooledLava = false;
 	public boolean replacesIce = false;
@@ -136,7 +153,7 @@ public class ReplaceBlockMatrix
 	{
 		this.minY = minY;
 		this.maxY = maxY;
-		this.targetsAtHeights = new ReplaceBlockEntry[maxY-minY];
+		this.targetsAtHeights = new ReplaceBlockEntry[maxY-minY+1];
 		
 		// Parse
 		if (setting.isEmpty() || setting.equalsIgnoreCase(NO_REPLACE))
@@ -215,6 +232,8 @@ public class ReplaceBlockMatrix
 				targetsAtHeight.targets.add(instruction.clone());
 			}
 		}
+
+		compile();
 		
 		for(ReplacedBlocksInstruction instruction : this.instructions)
 		{
@@ -269,6 +288,98 @@ public class ReplaceBlockMatrix
 		}
 	}
 
+	private void compile()
+	{
+		int paletteSize = MaterialPalette.size();
+		int[] bandAtHeights = new int[this.targetsAtHeights.length];
+		List<int[][]> bands = new ArrayList<int[][]>();
+		List<LocalMaterialData> replacements = new ArrayList<LocalMaterialData>();
+		// Palette ids matched by each instruction's from, instructions are cloned per height
+		// but share the same from.
+		Map<LocalMaterialBase, int[]> matchesByFrom = new IdentityHashMap<LocalMaterialBase, int[]>();
+		ReplaceBlockEntry lastEntry = null;
+		for(int i = 0; i < this.targetsAtHeights.length; i++)
+		{
+			ReplaceBlockEntry entry = this.targetsAtHeights[i];
+			if(entry == null)
+			{
+				bandAtHeights[i] = -1;
+				continue;
+			}
+			if(lastEntry == null || !hasSameTargets(lastEntry, entry))
+			{
+				int[][] pages = new int[(paletteSize + PAGE_SIZE - 1) >> PAGE_BITS][];
+				for(ReplacedBlocksInstruction instruction : entry.targets)
+				{
+					int replacement = 0;
+					for(int id : matchesByFrom.computeIfAbsent(instruction.from, from -> getMatchingIds(from, paletteSize)))
+					{
+						int[] page = pages[id >> PAGE_BITS];
+						if(page == null)
+						{
+							page = new int[PAGE_SIZE];
+							pages[id >> PAGE_BITS] = page;
+						}
+						// The first matching instruction wins, same as in replaceBlock.
+						if(page[id & (PAGE_SIZE - 1)] == 0)
+						{
+							if(replacement == 0)
+							{
+								replacements.add(instruction.to);
+								replacement = replacements.size();
+							}
+							page[id & (PAGE_SIZE - 1)] = replacement;
+						}
+					}
+				}
+				bands.add(pages);
+			}
+			bandAtHeights[i] = bands.size() - 1;
+			lastEntry = entry;
+		}
+
+		this.bandAtHeights = bandAtHeights;
+		this.replacements = replacements.toArray(new LocalMaterialData[0]);
+		this.compiledPaletteSize = paletteSize;
+		this.bandPages = bands.toArray(new int[0][][]);
+	}
+
+	private static int[] getMatchingIds(LocalMaterialBase from, int paletteSize)
+	{
+		int[] ids = new int[16];
+		int count = 0;
+		for(int id = 0; id < paletteSize; id++)
+		{
+			if(from.matches(MaterialPalette.getMaterial(id)))
+			{
+				if(count == ids.length)
+				{
+					ids = Arrays.copyOf(ids, count * 2);
+				}
+				ids[count++] = id;
+			}
+		}
+		return Arrays.copyOf(ids, count);
+	}
+
+	private static boolean hasSameTargets(ReplaceBlockEntry entry, ReplaceBlockEntry other)
+	{
+		if(entry.targets.size() != other.targets.size())
+		{
+			return false;
+		}
+		for(int i = 0; i < entry.targets.size(); i++)
+		{
+			ReplacedBlocksInstruction instruction = entry.targets.get(i);
+			ReplacedBlocksInstruction otherInstruction = other.targets.get(i);
+			if(instruction.from != otherInstruction.from || instruction.to != otherInstruction.to)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
 	public boolean replacesBlock(LocalMaterialData targetBlock)
 	{
 		for(ReplacedBlocksInstruction instruction : this.instructions)
@@ -286,6 +397,23 @@ public class ReplaceBlockMatrix
 		// TODO: simple fix for y being out of bounds, needs a proper fix to figure out why it's happening
 		y = Math.max(Math.min(y, maxY), minY);
 
+		int[][][] bandPages = this.bandPages;
+		int id = material.getPaletteId();
+		if(bandPages != null && id != MaterialPalette.NONE && id < this.compiledPaletteSize)
+		{
+			int band = this.bandAtHeights[y-minY];
+			if(band != -1)
+			{
+				int[] page = bandPages[band][id >> PAGE_BITS];
+				if(page != null && page[id & (PAGE_SIZE - 1)] != 0)
+				{
+					return this.replacements[page[id & (PAGE_SIZE - 1)] - 1];
+				}
+			}
+			return material;
+		}
+
+		// Not compiled yet, or a material that isn't in the MaterialPalette.
 		ReplaceBlockEntry targetsAtHeight = targetsAtHeights[y-minY];
 		if(targetsAtHeight != null)
 		{
@@ -331,6 +459,8 @@ public class ReplaceBlockMatrix
 	public void setInstructions(Collection<ReplacedBlocksInstruction> instructions)
 	{
 		this.instructions = Collections.unmodifiableList(new ArrayList<ReplacedBlocksInstruction>(instructions));
+		// Any compiled tables are for the old instructions.
+		this.bandPages = null;
 	}
 
 	public String toString()
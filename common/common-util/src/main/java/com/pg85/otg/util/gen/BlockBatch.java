@@ -0,0 +1,367 @@
+package com.pg85.otg.util.gen;
+
+import java.util.Arrays;
+
+import com.pg85.otg.util.biome.ReplaceBlockMatrix;
+import com.pg85.otg.util.materials.LocalMaterialData;
+import com.pg85.otg.util.nbt.NamedBinaryTag;
+
+/**
+ * A batch of blocks to be spawned with IWorldGenRegion.setBlocks, used
+ * by objects that spawn many blocks at once without reading the world
+ * in between.
+ *
+ * Each block is stored as a packed coordinate and an index into the
+ * batch's material palette. Packed coordinates sort by chunk, then by
+ * section, then by position in the section, so after sorting platforms
+ * can write the blocks for each chunk section in one go. Sorting is
+ * stable, when the same block is added more than once the last one wins,
+ * same as calling setBlock for each block. Empty (unknown) materials are
+ * ignored by setBlock, so they're never added, otherwise they could win
+ * over a valid block added earlier for the same position.
+ *
+ * NBT and replace blocks matrices are only stored for batches that use
+ * them. Batches can be cleared and reused, after the first few uses
+ * adding blocks doesn't allocate.
+ *
+ * Not thread safe, each thread should use its own batch.
+ */
+public final class BlockBatch
+{
+	// Packed coordinate layout: chunkX (22 bits), chunkZ (22 bits), sectionY (8 bits),
+	// y/z/x inside the section (4 bits each). Covers +-33 million blocks horizontally
+	// and -2048 to 2047 vertically.
+	private static final int MIN_Y = -2048;
+	private static final int MAX_Y = 2047;
+	private static final int INITIAL_CAPACITY = 256;
+
+	private long[] keys = new long[INITIAL_CAPACITY];
+	private int[] materialIndices = new int[INITIAL_CAPACITY];
+	private NamedBinaryTag[] nbts; // Created on first use
+	private ReplaceBlockMatrix[] replaceBlocks; // Created on first use
+	private int size;
+
+	// Sorted order of the entries, only used once sorted.
+	private int[] order = new int[INITIAL_CAPACITY];
+	private int[] sortBuffer = new int[INITIAL_CAPACITY];
+	private boolean sorted = true;
+	private long lastKey; // Last key in sorted order, while sorted
+
+	// Material palette, with an identity hash table to look up palette indices.
+	private LocalMaterialData[] palette = new LocalMaterialData[16];
+	private int paletteSize;
+	private int[] paletteTable = new int[32]; // palette index + 1, 0 is empty
+	private LocalMaterialData lastMaterial;
+	private int lastMaterialIndex;
+
+	public void add(int x, int y, int z, LocalMaterialData material)
+	{
+		add(x, y, z, material, null, null);
+	}
+
+	public void add(int x, int y, int z, LocalMaterialData material, NamedBinaryTag nbt)
+	{
+		add(x, y, z, material, nbt, null);
+	}
+
+	public void add(int x, int y, int z, LocalMaterialData material, ReplaceBlockMatrix replaceBlocksMatrix)
+	{
+		add(x, y, z, material, null, replaceBlocksMatrix);
+	}
+
+	public void add(int x, int y, int z, LocalMaterialData material, NamedBinaryTag nbt, ReplaceBlockMatrix replaceBlocksMatrix)
+	{
+		// Outside of any world's height or empty, setBlock would ignore these.
+		if(y < MIN_Y || y > MAX_Y || material.isEmpty())
+		{
+			return;
+		}
+
+		if(this.size == this.keys.length)
+		{
+			grow();
+		}
+
+		long key = pack(x, y, z);
+		if(this.sorted)
+		{
+			if(this.size > 0 && key < this.lastKey)
+			{
+				this.sorted = false;
+			} else {
+				this.lastKey = key;
+			}
+		}
+		this.keys[this.size] = key;
+		this.materialIndices[this.size] = getPaletteIndex(material);
+		if(nbt != null)
+		{
+			if(this.nbts == null)
+			{
+				this.nbts = new NamedBinaryTag[this.keys.length];
+			}
+			this.nbts[this.size] = nbt;
+		}
+		if(replaceBlocksMatrix != null)
+		{
+			if(this.replaceBlocks == null)
+			{
+				this.replaceBlocks = new ReplaceBlockMatrix[this.keys.length];
+			}
+			this.replaceBlocks[this.size] = replaceBlocksMatrix;
+		}
+		this.order[this.size] = this.size;
+		this.size++;
+	}
+
+	public int size()
+	{
+		return this.size;
+	}
+
+	public boolean isEmpty()
+	{
+		return this.size == 0;
+	}
+
+	public void clear()
+	{
+		if(this.nbts != null)
+		{
+			Arrays.fill(this.nbts, 0, this.size, null);
+		}
+		if(this.replaceBlocks != null)
+		{
+			Arrays.fill(this.replaceBlocks, 0, this.size, null);
+		}
+		Arrays.fill(this.palette, 0, this.paletteSize, null);
+		Arrays.fill(this.paletteTable, 0);
+		this.paletteSize = 0;
+		this.lastMaterial = null;
+		this.size = 0;
+		this.sorted = true;
+	}
+
+	/**
+	 * Sorts the blocks by chunk, section and position in the section.
+	 * The accessors below return blocks in sorted order.
+	 */
+	public void sort()
+	{
+		if(this.sorted)
+		{
+			return;
+		}
+
+		// Bottom-up merge sort on the entry indices, merge sort is stable
+		// so the last block added for a position stays last.
+		int[] from = this.order;
+		int[] to = this.sortBuffer;
+		for(int width = 1; width < this.size; width *= 2)
+		{
+			for(int left = 0; left < this.size; left += 2 * width)
+			{
+				int mid = Math.min(left + width, this.size);
+				int right = Math.min(left + 2 * width, this.size);
+				int i = left;
+				int j = mid;
+				int k = left;
+				while(i < mid && j < right)
+				{
+					to[k++] = this.keys[from[j]] < this.keys[from[i]] ? from[j++] : from[i++];
+				}
+				while(i < mid)
+				{
+					to[k++] = from[i++];
+				}
+				while(j < right)
+				{
+					to[k++] = from[j++];
+				}
+			}
+			int[] swap = from;
+			from = to;
+			to = swap;
+		}
+		this.order = from;
+		this.sortBuffer = to;
+		this.sorted = true;
+		this.lastKey = this.keys[this.order[this.size - 1]];
+	}
+
+	// Accessors, i is the position in sorted order
+
+	public long getKey(int i)
+	{
+		return this.keys[this.order[i]];
+	}
+
+	public int getX(int i)
+	{
+		return getX(this.keys[this.order[i]]);
+	}
+
+	public int getY(int i)
+	{
+		return getY(this.keys[this.order[i]]);
+	}
+
+	public int getZ(int i)
+	{
+		return getZ(this.keys[this.order[i]]);
+	}
+
+	public int getPaletteIndex(int i)
+	{
+		return this.materialIndices[this.order[i]];
+	}
+
+	public LocalMaterialData getMaterial(int i)
+	{
+		return this.palette[this.materialIndices[this.order[i]]];
+	}
+
+	public NamedBinaryTag getNBT(int i)
+	{
+		return this.nbts == null ? null : this.nbts[this.order[i]];
+	}
+
+	public ReplaceBlockMatrix getReplaceBlocks(int i)
+	{
+		return this.replaceBlocks == null ? null : this.replaceBlocks[this.order[i]];
+	}
+
+	public LocalMaterialData getPaletteMaterial(int paletteIndex)
+	{
+		return this.palette[paletteIndex];
+	}
+
+	public int getPaletteSize()
+	{
+		return this.paletteSize;
+	}
+
+	// Packed coordinates
+
+	public static long pack(int x, int y, int z)
+	{
+		return
+			((long)((x >> 4) & 0x3FFFFF) << 42) |
+			((long)((z >> 4) & 0x3FFFFF) << 20) |
+			((long)((y >> 4) & 0xFF) << 12) |
+			((y & 0xF) << 8) |
+			((z & 0xF) << 4) |
+			(x & 0xF)
+		;
+	}
+
+	public static int getChunkX(long key)
+	{
+		return (int)(key >> 42);
+	}
+
+	public static int getChunkZ(long key)
+	{
+		return (int)(key << 22 >> 42);
+	}
+
+	public static int getSectionY(long key)
+	{
+		return (int)(key << 44 >> 56);
+	}
+
+	public static int getX(long key)
+	{
+		return (getChunkX(key) << 4) | (int)(key & 0xF);
+	}
+
+	public static int getY(long key)
+	{
+		return (getSectionY(key) << 4) | (int)((key >> 8) & 0xF);
+	}
+
+	public static int getZ(long key)
+	{
+		return (getChunkZ(key) << 4) | (int)((key >> 4) & 0xF);
+	}
+
+	public static boolean isSameChunk(long key1, long key2)
+	{
+		return (key1 >>> 20) == (key2 >>> 20);
+	}
+
+	public static boolean isSameSection(long key1, long key2)
+	{
+		return (key1 >>> 12) == (key2 >>> 12);
+	}
+
+	private int getPaletteIndex(LocalMaterialData material)
+	{
+		if(material == this.lastMaterial)
+		{
+			return this.lastMaterialIndex;
+		}
+
+		int mask = this.paletteTable.length - 1;
+		int slot = System.identityHashCode(material) & mask;
+		int entry;
+		while((entry = this.paletteTable[slot]) != 0)
+		{
+			if(this.palette[entry - 1] == material)
+			{
+				this.lastMaterial = material;
+				this.lastMaterialIndex = entry - 1;
+				return entry - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		if(this.paletteSize == this.palette.length)
+		{
+			this.palette = Arrays.copyOf(this.palette, this.palette.length * 2);
+		}
+		int paletteIndex = this.paletteSize++;
+		this.palette[paletteIndex] = material;
+		this.paletteTable[slot] = paletteIndex + 1;
+		// Keep the table at most half full.
+		if(this.paletteSize * 2 > this.paletteTable.length)
+		{
+			rehashPalette();
+		}
+		this.lastMaterial = material;
+		this.lastMaterialIndex = paletteIndex;
+		return paletteIndex;
+	}
+
+	private void rehashPalette()
+	{
+		this.paletteTable = new int[this.paletteTable.length * 2];
+		int mask = this.paletteTable.length - 1;
+		for(int i = 0; i < this.paletteSize; i++)
+		{
+			int slot = System.identityHashCode(this.palette[i]) & mask;
+			while(this.paletteTable[slot] != 0)
+			{
+				slot = (slot + 1) & mask;
+			}
+			this.paletteTable[slot] = i + 1;
+		}
+	}
+
+	private void grow()
+	{
+		int capacity = this.keys.length * 2;
+		this.keys = Arrays.copyOf(this.keys, capacity);
+		this.materialIndices = Arrays.copyOf(this.materialIndices, capacity);
+		this.order = Arrays.copyOf(this.order, capacity);
+		this.sortBuffer = new int[capacity];
+		if(this.nbts != null)
+		{
+			this.nbts = Arrays.copyOf(this.nbts, capacity);
+		}
+		if(this.replaceBlocks != null)
+		{
+			this.replaceBlocks = Arrays.copyOf(this.replaceBlocks, capacity);
+		}
+	}
+}
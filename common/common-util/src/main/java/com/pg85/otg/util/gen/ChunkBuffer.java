@@ -3,6 +3,7 @@ package com.pg85.otg.util.gen;
 import com.pg85.otg.constants.Constants;
 import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.materials.LocalMaterialData;
+import com.pg85.otg.util.materials.MaterialPalette;
 
 /**
  * ChunkBuffer wraps a platform-specific chunk object for
@@ -19,6 +20,15 @@ public abstract class ChunkBuffer
 
 	public abstract LocalMaterialData getBlock(int blockX, int blockY, int blockZ);
 
+	// Palette id version of getBlock, see MaterialPalette.
+	// Platforms that store block state ids should override this.
+
+	public int getBlockId(int blockX, int blockY, int blockZ)
+	{
+		LocalMaterialData material = getBlock(blockX, blockY, blockZ);
+		return material == null ? MaterialPalette.NONE : material.getPaletteId();
+	}
+
 	// TODO: Are these really necessary, can use heightmaps?
 	
 	private final short[] highestBlockHeight = new short[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
@@ -0,0 +1,166 @@
+package com.pg85.otg.util.gen;
+
+import java.util.Arrays;
+
+import com.pg85.otg.constants.Constants;
+import com.pg85.otg.util.materials.MaterialPalette;
+
+/**
+ * A read-only, palette compressed copy of the blocks in a chunk, used to
+ * cache shadowgenned chunks in less memory than full platform chunks.
+ *
+ * Blocks are stored as MaterialPalette ids. Each 16x16x16 section has its
+ * own palette and stores each block as an index into that palette, packed
+ * into longs using as few bits as the palette needs. Sections that contain
+ * only one block (usually air or stone) only store the palette.
+ */
+public final class CompactChunk
+{
+	private static final int SECTION_VOLUME = Constants.CHUNK_SIZE * Constants.CHUNK_SIZE * Constants.CHUNK_SIZE;
+
+	private final int minY;
+	private final int[][] palettes;
+	private final long[][] data;
+	private final byte[] bits;
+	// Highest block that isn't air per column, minY - 1 for empty columns.
+	private final short[] highestBlocks = new short[Constants.CHUNK_SIZE * Constants.CHUNK_SIZE];
+
+	private CompactChunk(int minY, int sectionCount)
+	{
+		this.minY = minY;
+		this.palettes = new int[sectionCount][];
+		this.data = new long[sectionCount][];
+		this.bits = new byte[sectionCount];
+	}
+
+	/**
+	 * Copies the blocks between minY and maxY (inclusive) from the given chunk.
+	 */
+	public static CompactChunk of(ChunkBuffer chunk, int minY, int maxY)
+	{
+		int sectionMinY = minY >> 4;
+		int sectionCount = (maxY >> 4) - sectionMinY + 1;
+		CompactChunk compactChunk = new CompactChunk(sectionMinY << 4, sectionCount);
+		Arrays.fill(compactChunk.highestBlocks, (short)(compactChunk.minY - 1));
+
+		int[] blocks = new int[SECTION_VOLUME];
+		int[] palette = new int[16];
+		for(int section = 0; section < sectionCount; section++)
+		{
+			int sectionY = compactChunk.minY + (section << 4);
+			int paletteSize = 0;
+			int lastId = MaterialPalette.NONE;
+			int lastIndex = 0;
+			for(int i = 0; i < SECTION_VOLUME; i++)
+			{
+				int x = i & 0xF;
+				int z = (i >> 4) & 0xF;
+				int y = sectionY + (i >> 8);
+				int id = chunk.getBlockId(x, y, z);
+				if(id != lastId)
+				{
+					lastId = id;
+					lastIndex = -1;
+					for(int j = 0; j < paletteSize; j++)
+					{
+						if(palette[j] == id)
+						{
+							lastIndex = j;
+							break;
+						}
+					}
+					if(lastIndex == -1)
+					{
+						if(paletteSize == palette.length)
+						{
+							palette = Arrays.copyOf(palette, paletteSize * 2);
+						}
+						lastIndex = paletteSize;
+						palette[paletteSize++] = id;
+					}
+				}
+				blocks[i] = lastIndex;
+				if(!MaterialPalette.is(id, MaterialPalette.AIR) && id != MaterialPalette.NONE)
+				{
+					compactChunk.highestBlocks[z * Constants.CHUNK_SIZE + x] = (short)y;
+				}
+			}
+			compactChunk.palettes[section] = Arrays.copyOf(palette, paletteSize);
+			if(paletteSize > 1)
+			{
+				int bitsPerBlock = 32 - Integer.numberOfLeadingZeros(paletteSize - 1);
+				int blocksPerLong = 64 / bitsPerBlock;
+				long[] packed = new long[(SECTION_VOLUME + blocksPerLong - 1) / blocksPerLong];
+				for(int i = 0; i < SECTION_VOLUME; i++)
+				{
+					packed[i / blocksPerLong] |= (long)blocks[i] << ((i % blocksPerLong) * bitsPerBlock);
+				}
+				compactChunk.bits[section] = (byte)bitsPerBlock;
+				compactChunk.data[section] = packed;
+			}
+		}
+		return compactChunk;
+	}
+
+	/**
+	 * Returns the MaterialPalette id of the block, or MaterialPalette.NONE
+	 * if the block is outside of the copied height range.
+	 * @param x Internal x coordinate, 0-15.
+	 * @param z Internal z coordinate, 0-15.
+	 */
+	public int getBlockId(int x, int y, int z)
+	{
+		int section = (y - this.minY) >> 4;
+		if(y < this.minY || section >= this.palettes.length)
+		{
+			return MaterialPalette.NONE;
+		}
+		int[] palette = this.palettes[section];
+		int bitsPerBlock = this.bits[section];
+		if(bitsPerBlock == 0)
+		{
+			return palette[0];
+		}
+		int i = ((y & 0xF) << 8) | (z << 4) | x;
+		int blocksPerLong = 64 / bitsPerBlock;
+		long packed = this.data[section][i / blocksPerLong];
+		return palette[(int)(packed >>> ((i % blocksPerLong) * bitsPerBlock)) & ((1 << bitsPerBlock) - 1)];
+	}
+
+	/**
+	 * Returns the y of the highest block in the column that isn't air,
+	 * or getMinY() - 1 if the column is empty.
+	 */
+	public int getHighestBlockY(int x, int z)
+	{
+		return this.highestBlocks[z * Constants.CHUNK_SIZE + x];
+	}
+
+	public int getMinY()
+	{
+		return this.minY;
+	}
+
+	public int getMaxY()
+	{
+		return this.minY + (this.palettes.length << 4) - 1;
+	}
+
+	/**
+	 * Returns an estimate of the memory used by this chunk in bytes.
+	 */
+	public long getSizeInBytes()
+	{
+		// Object headers and array headers are estimated at 16 bytes each.
+		long size = 48 + 16 * 3 + this.bits.length + 16 + this.highestBlocks.length * 2;
+		for(int section = 0; section < this.palettes.length; section++)
+		{
+			size += 16 + this.palettes[section].length * 4;
+			if(this.data[section] != null)
+			{
+				size += 16 + this.data[section].length * 8;
+			}
+		}
+		return size;
+	}
+}
@@ -14,17 +14,27 @@ public final class GeneratingChunk
 
 	private static final int BEDROCK_LAYER_HEIGHT = -59;
 
-	public final int heightCap;
-	public final Random random;
-	private final int[] waterLevel;
-	private final double[] surfaceNoise;
+	public int heightCap;
+	public Random random;
+	private int[] waterLevel;
+	private double[] surfaceNoise;
 
 	public GeneratingChunk(Random random, int[] waterLevel, double[] surfaceNoise, int heightCap)
+	{
+		init(random, waterLevel, surfaceNoise, heightCap);
+	}
+
+	/**
+	 * Re-initialises this GeneratingChunk for another chunk, so 
+	 * generators can reuse a single instance per thread.
+	 */
+	public GeneratingChunk init(Random random, int[] waterLevel, double[] surfaceNoise, int heightCap)
 	{
 		this.random = random;
 		this.waterLevel = waterLevel;
 		this.surfaceNoise = surfaceNoise;
 		this.heightCap = heightCap;
+		return this;
 	}
 
 	/**
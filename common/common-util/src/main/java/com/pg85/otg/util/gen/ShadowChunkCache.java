@@ -0,0 +1,176 @@
+package com.pg85.otg.util.gen;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import com.pg85.otg.util.ChunkCoordinate;
+import com.pg85.otg.util.metrics.WorldGenCounter;
+import com.pg85.otg.util.metrics.WorldGenMetrics;
+
+/**
+ * Cache for shadowgenned chunks, bounded by the estimated size of the
+ * cached chunks in bytes rather than by the number of chunks.
+ *
+ * Lookups don't lock, they only mark the entry as used. When the cache
+ * is over its size, entries are evicted in CLOCK order: entries that were
+ * used since the clock hand last passed them get a second chance, others
+ * are evicted. This approximates LRU without having to reorder entries on
+ * every lookup.
+ *
+ * Hits and misses for get and remove and evictions are counted in
+ * WorldGenMetrics, see /otg stats.
+ */
+public final class ShadowChunkCache<V>
+{
+	private final ConcurrentHashMap<ChunkCoordinate, Entry<V>> entries = new ConcurrentHashMap<ChunkCoordinate, Entry<V>>();
+	private final long maxBytes;
+	private final ToLongFunction<V> weigher;
+	private final AtomicLong usedBytes = new AtomicLong();
+
+	// Entries in insertion order, the head is the clock hand. Removed entries
+	// stay in the queue until the hand reaches them or the queue is compacted.
+	private final Object clockLock = new Object();
+	private final ArrayDeque<Entry<V>> clock = new ArrayDeque<Entry<V>>();
+	private int removedInClock;
+
+	/**
+	 * @param maxBytes The maximum estimated size of all cached chunks.
+	 * @param weigher  Estimates the size of a cached chunk in bytes.
+	 */
+	public ShadowChunkCache(long maxBytes, ToLongFunction<V> weigher)
+	{
+		this.maxBytes = maxBytes;
+		this.weigher = weigher;
+	}
+
+	/**
+	 * Estimates the size of a full platform chunk (ProtoChunk) in bytes.
+	 * Each section holds a block state container (at least 4 bits per
+	 * block), a biome container and light data, each chunk also holds
+	 * heightmaps and other per-chunk data.
+	 */
+	public static long estimateFullChunkSize(int sectionCount)
+	{
+		return 8 * 1024 + sectionCount * 3 * 1024;
+	}
+
+	private static final class Entry<V>
+	{
+		private final ChunkCoordinate chunkCoord;
+		private final V value;
+		private final long weight;
+		private volatile boolean referenced;
+		private boolean removed; // Guarded by clockLock
+
+		private Entry(ChunkCoordinate chunkCoord, V value, long weight)
+		{
+			this.chunkCoord = chunkCoord;
+			this.value = value;
+			this.weight = weight;
+		}
+	}
+
+	public V get(ChunkCoordinate chunkCoord)
+	{
+		Entry<V> entry = this.entries.get(chunkCoord);
+		if(entry == null)
+		{
+			WorldGenMetrics.increment(WorldGenCounter.SHADOW_CHUNK_CACHE_MISSES);
+			return null;
+		}
+		WorldGenMetrics.increment(WorldGenCounter.SHADOW_CHUNK_CACHE_HITS);
+		entry.referenced = true;
+		return entry.value;
+	}
+
+	public boolean containsKey(ChunkCoordinate chunkCoord)
+	{
+		return this.entries.containsKey(chunkCoord);
+	}
+
+	/**
+	 * Adds a chunk, replacing any chunk cached for the same coordinate,
+	 * then evicts chunks until the cache is within its size. Chunks larger
+	 * than the whole cache aren't cached.
+	 */
+	public void put(ChunkCoordinate chunkCoord, V value)
+	{
+		long weight = this.weigher.applyAsLong(value);
+		if(weight > this.maxBytes)
+		{
+			return;
+		}
+		Entry<V> entry = new Entry<V>(chunkCoord, value, weight);
+		synchronized(this.clockLock)
+		{
+			Entry<V> oldEntry = this.entries.put(chunkCoord, entry);
+			if(oldEntry != null)
+			{
+				markRemoved(oldEntry);
+			}
+			this.clock.addLast(entry);
+			this.usedBytes.addAndGet(weight);
+			evict();
+		}
+	}
+
+	/**
+	 * Removes and returns the chunk, or null if it isn't cached. Only one
+	 * caller can remove a chunk, so this can be used to claim it.
+	 */
+	public V remove(ChunkCoordinate chunkCoord)
+	{
+		synchronized(this.clockLock)
+		{
+			Entry<V> entry = this.entries.remove(chunkCoord);
+			if(entry == null)
+			{
+				WorldGenMetrics.increment(WorldGenCounter.SHADOW_CHUNK_CACHE_MISSES);
+				return null;
+			}
+			WorldGenMetrics.increment(WorldGenCounter.SHADOW_CHUNK_CACHE_HITS);
+			markRemoved(entry);
+			return entry.value;
+		}
+	}
+
+	private void markRemoved(Entry<V> entry)
+	{
+		entry.removed = true;
+		this.usedBytes.addAndGet(-entry.weight);
+		this.removedInClock++;
+		// Chunks are often removed right after being used, so compact
+		// the queue before it fills up with removed entries.
+		if(this.removedInClock > 64 && this.removedInClock > this.clock.size() / 2)
+		{
+			this.clock.removeIf(clockEntry -> clockEntry.removed);
+			this.removedInClock = 0;
+		}
+	}
+
+	private void evict()
+	{
+		Entry<V> entry;
+		while(this.usedBytes.get() > this.maxBytes && (entry = this.clock.pollFirst()) != null)
+		{
+			if(entry.removed)
+			{
+				this.removedInClock--;
+			}
+			else if(entry.referenced)
+			{
+				// Second chance
+				entry.referenced = false;
+				this.clock.addLast(entry);
+			}
+			else if(this.entries.remove(entry.chunkCoord, entry))
+			{
+				entry.removed = true;
+				this.usedBytes.addAndGet(-entry.weight);
+				WorldGenMetrics.increment(WorldGenCounter.SHADOW_CHUNK_CACHE_EVICTIONS);
+			}
+		}
+	}
+}
@@ -29,6 +29,15 @@ public abstract class LocalMaterialData extends LocalMaterialBase
 		return isBlank;
 	}
 
+	/**
+	 * Returns this material's id in the {@link MaterialPalette},
+	 * or MaterialPalette.NONE if it isn't in the palette.
+	 */
+	public int getPaletteId()
+	{
+		return MaterialPalette.NONE;
+	}
+
 	public abstract boolean isMaterial(LocalMaterialData material);
 	
 	public abstract boolean isBlockTag(LocalMaterialTag tag);
@@ -202,9 +211,9 @@ public abstract class LocalMaterialData extends LocalMaterialBase
 	  
 	public LocalMaterialData parseWithBiomeAndHeight(boolean biomeConfigsHaveReplacement, ReplaceBlockMatrix replaceBlocks, int y)
 	{	
-		if (!biomeConfigsHaveReplacement)
+		if (!biomeConfigsHaveReplacement || !replaceBlocks.hasReplaceSettings())
 		{
-			// Don't waste time here, ReplacedBlocks is empty everywhere
+			// Don't waste time here, ReplacedBlocks is empty everywhere or for this biome
 			return this;
 		}
 		return replaceBlocks.replaceBlock(y, this);
@@ -0,0 +1,119 @@
+package com.pg85.otg.util.materials;
+
+import java.util.Arrays;
+
+/**
+ * A global palette that maps integer material ids to LocalMaterialData,
+ * so hot paths (carvers, surface generation, freezing) can read blocks
+ * as ints and test them against precomputed property bits, without map
+ * lookups or virtual calls.
+ *
+ * Platforms register every block state once on startup, before any
+ * worldgen, in the order of their block state ids, so a material's
+ * palette id is its block state id (see {@link LocalMaterialData#getPaletteId}).
+ * Materials that aren't registered, such as blank materials, have
+ * palette id {@link #NONE}.
+ *
+ * Each id also has a block id, shared by all states of the same block,
+ * used for block level comparisons the way LocalMaterialData.isMaterial
+ * and equals compare materials.
+ */
+public final class MaterialPalette
+{
+	public static final int NONE = -1;
+
+	// Property bits
+	public static final int SOLID = 1;
+	public static final int LIQUID = 1 << 1;
+	public static final int AIR = 1 << 2;
+	public static final int NON_CAVE_AIR = 1 << 3;
+	public static final int EMPTY_OR_AIR = 1 << 4;
+	public static final int CAN_SNOW_FALL_ON = 1 << 5;
+	public static final int CAN_FALL = 1 << 6;
+
+	private static final Object registerLock = new Object();
+	private static LocalMaterialData[] materials = new LocalMaterialData[0];
+	private static int[] properties = new int[0];
+	private static int[] blockIds = new int[0];
+	private static int size;
+
+	private MaterialPalette() { }
+
+	/**
+	 * Adds a material to the palette, should only be called during
+	 * startup, before worldgen threads read the palette.
+	 * @param material The material.
+	 * @param blockId  An id shared by all states of the material's block.
+	 * @return The material's palette id.
+	 */
+	public static int register(LocalMaterialData material, int blockId)
+	{
+		synchronized(registerLock)
+		{
+			if(size == materials.length)
+			{
+				int capacity = Math.max(256, size * 2);
+				materials = Arrays.copyOf(materials, capacity);
+				properties = Arrays.copyOf(properties, capacity);
+				blockIds = Arrays.copyOf(blockIds, capacity);
+			}
+			int id = size++;
+			materials[id] = material;
+			properties[id] = getProperties(material);
+			blockIds[id] = blockId;
+			return id;
+		}
+	}
+
+	public static int size()
+	{
+		return size;
+	}
+
+	private static int getProperties(LocalMaterialData material)
+	{
+		return
+			(material.isSolid() ? SOLID : 0) |
+			(material.isLiquid() ? LIQUID : 0) |
+			(material.isAir() ? AIR : 0) |
+			(material.isNonCaveAir() ? NON_CAVE_AIR : 0) |
+			(material.isEmptyOrAir() ? EMPTY_OR_AIR : 0) |
+			(material.canSnowFallOn() ? CAN_SNOW_FALL_ON : 0) |
+			(material.canFall() ? CAN_FALL : 0)
+		;
+	}
+
+	/**
+	 * Returns the material for the given id, or null for {@link #NONE}.
+	 */
+	public static LocalMaterialData getMaterial(int id)
+	{
+		return id == NONE ? null : materials[id];
+	}
+
+	/**
+	 * Returns true if the material with the given id has any of the given
+	 * property bits. {@link #NONE} has no properties.
+	 */
+	public static boolean is(int id, int property)
+	{
+		return id != NONE && (properties[id] & property) != 0;
+	}
+
+	/**
+	 * Returns true if the material with the given id is the same block as
+	 * the given material, ignoring block states, same as
+	 * LocalMaterialData.isMaterial.
+	 */
+	public static boolean isMaterial(int id, LocalMaterialData material)
+	{
+		int otherId = material.getPaletteId();
+		if(id == NONE || otherId == NONE)
+		{
+			// Blank or unregistered materials, compare the materials.
+			LocalMaterialData thisMaterial = getMaterial(id);
+			return thisMaterial != null && thisMaterial.isMaterial(material);
+		}
+		return blockIds[id] == blockIds[otherId];
+	}
+}
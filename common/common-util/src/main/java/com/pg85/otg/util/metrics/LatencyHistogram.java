@@ -0,0 +1,124 @@
+package com.pg85.otg.util.metrics;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A thread-safe latency histogram with log-linear buckets, like HdrHistogram
+ * but much simpler: each power of two is split into 8 buckets, so recorded
+ * values are accurate to within 12.5%. Recording is lock-free and only
+ * touches one bucket, the total and the max.
+ */
+public class LatencyHistogram
+{
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	// Enough buckets for any positive long.
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+	private final LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+	private final LongAdder total = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	public LatencyHistogram()
+	{
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			this.buckets[i] = new LongAdder();
+		}
+	}
+
+	public void record(long nanos)
+	{
+		if (nanos < 0)
+		{
+			nanos = 0;
+		}
+		this.buckets[getBucket(nanos)].increment();
+		this.total.add(nanos);
+		this.max.accumulate(nanos);
+	}
+
+	public long getCount()
+	{
+		long count = 0;
+		for (LongAdder bucket : this.buckets)
+		{
+			count += bucket.sum();
+		}
+		return count;
+	}
+
+	public long getTotalNanos()
+	{
+		return this.total.sum();
+	}
+
+	public long getMaxNanos()
+	{
+		return this.max.get();
+	}
+
+	/**
+	 * Returns the upper bound of the bucket containing the given
+	 * percentile (0-100), or 0 if nothing was recorded.
+	 */
+	public long getPercentileNanos(double percentile)
+	{
+		long[] counts = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			counts[i] = this.buckets[i].sum();
+			count += counts[i];
+		}
+		if (count == 0)
+		{
+			return 0;
+		}
+
+		long target = Math.max(1, (long)Math.ceil(count * Math.min(100.0, Math.max(0.0, percentile)) / 100.0));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++)
+		{
+			seen += counts[i];
+			if (seen >= target)
+			{
+				return Math.min(getBucketUpperBound(i), getMaxNanos());
+			}
+		}
+		return getMaxNanos();
+	}
+
+	public void reset()
+	{
+		for (LongAdder bucket : this.buckets)
+		{
+			bucket.reset();
+		}
+		this.total.reset();
+		this.max.reset();
+	}
+
+	private static int getBucket(long value)
+	{
+		if (value < SUB_BUCKETS)
+		{
+			return (int)value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int subBucket = (int)(value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+		return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+	}
+
+	private static long getBucketUpperBound(int bucket)
+	{
+		if (bucket < SUB_BUCKETS)
+		{
+			return bucket;
+		}
+		int shift = bucket / SUB_BUCKETS - 1;
+		long lowerBound = (long)(SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+		return lowerBound + (1L << shift) - 1;
+	}
+}
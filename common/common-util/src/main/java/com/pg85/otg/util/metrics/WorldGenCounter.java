@@ -0,0 +1,32 @@
+package com.pg85.otg.util.metrics;
+
+/**
+ * World generation counters kept by WorldGenMetrics.
+ */
+public enum WorldGenCounter
+{
+	CHUNKS_GENERATED("Chunks generated"),
+	CHUNKS_DECORATED("Chunks decorated"),
+	BIOME_CACHE_HITS("Biome cache hits"),
+	BIOME_CACHE_MISSES("Biome cache misses"),
+	NOISE_CACHE_HITS("Noise column cache hits"),
+	NOISE_CACHE_MISSES("Noise column cache misses"),
+	SHADOW_CHUNK_CACHE_HITS("Shadow chunk cache hits"),
+	SHADOW_CHUNK_CACHE_MISSES("Shadow chunk cache misses"),
+	SHADOW_CHUNK_CACHE_EVICTIONS("Shadow chunk cache evictions"),
+	STRUCTURE_REGION_HITS("Structure region hits"),
+	STRUCTURE_REGION_MISSES("Structure region reloads"),
+	STRUCTURE_REGION_EVICTIONS("Structure region evictions");
+
+	private final String displayName;
+
+	WorldGenCounter(String displayName)
+	{
+		this.displayName = displayName;
+	}
+
+	public String getDisplayName()
+	{
+		return this.displayName;
+	}
+}
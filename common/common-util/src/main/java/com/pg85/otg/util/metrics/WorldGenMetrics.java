@@ -0,0 +1,143 @@
+package com.pg85.otg.util.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Process-wide world generation timings and counters, used to find
+ * bottlenecks on live servers. Counters are always kept, they're a
+ * single LongAdder increment. Timings can be disabled via OTG.ini,
+ * in which case startTimer/record don't call System.nanoTime.
+ *
+ * Usage:
+ *   long start = WorldGenMetrics.startTimer();
+ *   ...
+ *   WorldGenMetrics.record(WorldGenPhase.CARVING, start);
+ */
+public final class WorldGenMetrics
+{
+	private static final LatencyHistogram[] histograms = new LatencyHistogram[WorldGenPhase.values().length];
+	private static final LongAdder[] counters = new LongAdder[WorldGenCounter.values().length];
+	private static volatile boolean timingsEnabled = true;
+	private static volatile long resetTime = System.currentTimeMillis();
+
+	static
+	{
+		for (int i = 0; i < histograms.length; i++)
+		{
+			histograms[i] = new LatencyHistogram();
+		}
+		for (int i = 0; i < counters.length; i++)
+		{
+			counters[i] = new LongAdder();
+		}
+	}
+
+	private WorldGenMetrics() { }
+
+	public static void setTimingsEnabled(boolean enabled)
+	{
+		timingsEnabled = enabled;
+	}
+
+	public static boolean getTimingsEnabled()
+	{
+		return timingsEnabled;
+	}
+
+	/**
+	 * Returns the start time to pass to record, or 0 if timings are disabled.
+	 */
+	public static long startTimer()
+	{
+		return timingsEnabled ? System.nanoTime() : 0;
+	}
+
+	public static void record(WorldGenPhase phase, long startTime)
+	{
+		if (startTime != 0)
+		{
+			histograms[phase.ordinal()].record(System.nanoTime() - startTime);
+		}
+	}
+
+	public static void increment(WorldGenCounter counter)
+	{
+		counters[counter.ordinal()].increment();
+	}
+
+	public static LatencyHistogram getHistogram(WorldGenPhase phase)
+	{
+		return histograms[phase.ordinal()];
+	}
+
+	public static long getCount(WorldGenCounter counter)
+	{
+		return counters[counter.ordinal()].sum();
+	}
+
+	public static void reset()
+	{
+		for (LatencyHistogram histogram : histograms)
+		{
+			histogram.reset();
+		}
+		for (LongAdder counter : counters)
+		{
+			counter.reset();
+		}
+		resetTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Returns a human-readable report of all timings and counters,
+	 * times are in milliseconds.
+	 */
+	public static List<String> getReport()
+	{
+		List<String> lines = new ArrayList<>();
+		lines.add(String.format(Locale.ROOT, "World generation stats for the last %d seconds%s", (System.currentTimeMillis() - resetTime) / 1000, timingsEnabled ? "" : " (timings disabled)"));
+		lines.add(String.format(Locale.ROOT, "%-24s %10s %12s %9s %9s %9s %9s", "Phase", "Count", "Total ms", "Mean ms", "p50 ms", "p99 ms", "Max ms"));
+		LatencyHistogram histogram;
+		long count;
+		for (WorldGenPhase phase : WorldGenPhase.values())
+		{
+			histogram = histograms[phase.ordinal()];
+			count = histogram.getCount();
+			lines.add(String.format(Locale.ROOT, "%-24s %10d %12.1f %9.3f %9.3f %9.3f %9.3f",
+				phase.getDisplayName(),
+				count,
+				toMillis(histogram.getTotalNanos()),
+				count == 0 ? 0.0 : toMillis(histogram.getTotalNanos()) / count,
+				toMillis(histogram.getPercentileNanos(50)),
+				toMillis(histogram.getPercentileNanos(99)),
+				toMillis(histogram.getMaxNanos())
+			));
+		}
+		for (WorldGenCounter counter : WorldGenCounter.values())
+		{
+			lines.add(String.format(Locale.ROOT, "%-32s %12d", counter.getDisplayName(), counters[counter.ordinal()].sum()));
+		}
+		return lines;
+	}
+
+	public static void writeReport(Path file) throws IOException
+	{
+		if (file.getParent() != null)
+		{
+			Files.createDirectories(file.getParent());
+		}
+		Files.write(file, getReport(), StandardCharsets.UTF_8);
+	}
+
+	private static double toMillis(long nanos)
+	{
+		return nanos / 1000000.0;
+	}
+}
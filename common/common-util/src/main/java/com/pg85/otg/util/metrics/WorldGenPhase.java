@@ -0,0 +1,29 @@
+package com.pg85.otg.util.metrics;
+
+/**
+ * World generation phases timed by WorldGenMetrics.
+ */
+public enum WorldGenPhase
+{
+	BIOME_SAMPLING("Biome sampling"),
+	NOISE_COLUMN("Noise columns"),
+	BASE_TERRAIN("Base terrain"),
+	SURFACE("Surface / SAGC"),
+	CARVING("Carving"),
+	DECORATION("Decoration"),
+	CUSTOM_OBJECTS("BO2/BO3 spawning"),
+	BO4_STRUCTURES("BO4 plotting/spawning"),
+	STRUCTURE_SAVE("Structure saving");
+
+	private final String displayName;
+
+	WorldGenPhase(String displayName)
+	{
+		this.displayName = displayName;
+	}
+
+	public String getDisplayName()
+	{
+		return this.displayName;
+	}
+}
@@ -5,6 +5,7 @@ import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.gen.ChunkBuffer;
 import com.pg85.otg.util.materials.LocalMaterialData;
 
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.ChunkPos;
@@ -41,6 +42,13 @@ public class ForgeChunkBuffer extends ChunkBuffer
 		return blockState == null ? null : ForgeMaterialData.ofBlockState(blockState);
 	}
 	
+	@Override
+	public int getBlockId(int internalX, int blockY, int internalZ)
+	{
+		// Palette ids are block state ids, no need to look up the material.
+		return Block.getId(this.chunk.getBlockState(this.mutable.set(internalX, blockY, internalZ)));
+	}
+
 	public ChunkAccess getChunk()
 	{
 		return this.chunk;
@@ -210,7 +210,7 @@ public final class OTGNoiseChunkGenerator extends ChunkGenerator
 		//this.surfaceNoise = (SurfaceNoise)(noisesettings.useSimplexSurfaceNoise() ? new PerlinSimplexNoise(this.random, IntStream.rangeClosed(-3, 0)) : new PerlinNoise(this.random, IntStream.rangeClosed(-3, 0)));
 		this.noiseHeight = noisesettings.height();
 
-		this.shadowChunkGenerator = new ShadowChunkGenerator(OTG.getEngine().getPluginConfig().getMaxWorkerThreads());
+		this.shadowChunkGenerator = new ShadowChunkGenerator(this.preset.getWorldConfig(), OTG.getEngine().getPluginConfig().getMaxWorkerThreads());
 		this.internalGenerator = new OTGChunkGenerator(this.preset, seed, (ILayerSource) biomeProvider1,((ForgePresetLoader)OTG.getEngine().getPresetLoader()).getGlobalIdMapping(presetFolderName), OTG.getEngine().getLogger());
 		this.chunkDecorator = new OTGChunkDecorator();
 	}
@@ -694,11 +694,8 @@ public final class OTGNoiseChunkGenerator extends ChunkGenerator
 		// If we've already (shadow-)generated and cached this	
 		// chunk while it was unloaded, use cached data.
 		ChunkBuffer buffer = new ForgeChunkBuffer((ProtoChunk) chunk);
-		ChunkAccess cachedChunk = this.shadowChunkGenerator.getChunkWithWait(chunkCoord);
-		if (cachedChunk != null)
+		if (!this.shadowChunkGenerator.fillWorldGenChunkFromShadowChunk(chunkCoord, chunk))
 		{
-			this.shadowChunkGenerator.fillWorldGenChunkFromShadowChunk(chunk, cachedChunk);
-		} else {			
 			// Setup jigsaw data
 			ObjectList<JigsawStructureData> structures = new ObjectArrayList<>(10);
 			ObjectList<JigsawStructureData> junctions = new ObjectArrayList<>(32);
@@ -11,21 +11,25 @@ import java.util.Random;
 import java.util.stream.Collectors;
 
 import com.google.common.collect.ImmutableMultimap;
+import com.pg85.otg.constants.Constants;
 import com.pg85.otg.core.gen.OTGChunkGenerator;
 import com.pg85.otg.forge.biome.OTGBiomeProvider;
-import com.pg85.otg.forge.materials.ForgeMaterialData;
 import com.pg85.otg.interfaces.IBiome;
 import com.pg85.otg.interfaces.ICachedBiomeProvider;
-import com.pg85.otg.util.BlockPos2D;
+import com.pg85.otg.interfaces.IWorldConfig;
 import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.FifoMap;
+import com.pg85.otg.util.gen.CompactChunk;
 import com.pg85.otg.util.gen.JigsawStructureData;
+import com.pg85.otg.util.gen.ShadowChunkCache;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterials;
+import com.pg85.otg.util.materials.MaterialPalette;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectList;
-import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Registry;
 import net.minecraft.resources.ResourceKey;
@@ -51,9 +55,11 @@ import net.minecraft.server.level.ServerLevel;
  * without using mc's world generation flow. OTG's chunkgenerator is
  * called internally to generate base terrain for dummy chunks in a
  * thread-safe/non-blocking way. Shadowgenned chunks are stored in a
- * fixed size FIFO cache, data is reused when base terraingen is requested
- * for those chunks via normal worldgen. Shadowgen is used for BO4's,
- * worker threads to speed up world generation and /otg mapterrain.
+ * ShadowChunkCache, bounded by the world's ShadowChunkCacheSizeMB, either
+ * as full chunks or as CompactChunks (CompactShadowChunks). Data is reused
+ * when base terraingen is requested for those chunks via normal worldgen.
+ * Shadowgen is used for BO4's, worker threads to speed up world generation
+ * and /otg mapterrain.
  *
  * Shadowgen can only be done for chunks that don't contain vanilla structures,
  * since those structures may use density based smoothing applied during noisegen,
@@ -62,9 +68,15 @@ import net.minecraft.server.level.ServerLevel;
  */
 public class ShadowChunkGenerator
 {
-	// TODO: Add a setting to the worldconfig for the size of these caches?
-	private final FifoMap<BlockPos2D, LocalMaterialData[]> unloadedBlockColumnsCache = new FifoMap<BlockPos2D, LocalMaterialData[]>(1024);
-	private final FifoMap<ChunkCoordinate, ChunkAccess> unloadedChunksCache = new FifoMap<ChunkCoordinate, ChunkAccess>(512);
+	private static final int AIR_ID = Block.getId(Blocks.AIR.defaultBlockState());
+
+	// Only one of these is used, depending on CompactShadowChunks.
+	private final ShadowChunkCache<ChunkAccess> unloadedChunksCache;
+	private final ShadowChunkCache<CompactChunk> compactChunksCache;
+	private final boolean compactChunks;
+	// Chunks that shouldn't be generated async due to a vanilla structure start nearby,
+	// workers avoid them and the worldgen thread takes care of them. Guarded by workerLock.
+	private final FifoMap<ChunkCoordinate, Boolean> noShadowgenChunks = new FifoMap<ChunkCoordinate, Boolean>(512);
 	private final FifoMap<ChunkCoordinate, Integer> hasVanillaStructureChunkCache = new FifoMap<ChunkCoordinate, Integer>(2048);
 	private final FifoMap<ChunkCoordinate, Integer> hasVanillaNoiseStructureChunkCache = new FifoMap<ChunkCoordinate, Integer>(2048);
 
@@ -77,13 +89,13 @@ public class ShadowChunkGenerator
 	private final ChunkCoordinate[] chunksBeingLoaded;
 	private final int waitTimeInMS = 25;
 	private final int idleTimeInMS = 50;
-	@SuppressWarnings("unused")
-	private int cacheHits = 0;
-	@SuppressWarnings("unused")
-	private int cacheMisses = 0;
 
-	public ShadowChunkGenerator(int maxConcurrentThreads)
+	public ShadowChunkGenerator(IWorldConfig worldConfig, int maxConcurrentThreads)
 	{
+		long maxBytes = worldConfig.getShadowChunkCacheSizeMB() * 1024L * 1024L;
+		this.compactChunks = worldConfig.getCompactShadowChunks();
+		this.unloadedChunksCache = new ShadowChunkCache<ChunkAccess>(this.compactChunks ? 0 : maxBytes, chunk -> ShadowChunkCache.estimateFullChunkSize(chunk.getSectionsCount()));
+		this.compactChunksCache = new ShadowChunkCache<CompactChunk>(this.compactChunks ? maxBytes : 0, CompactChunk::getSizeInBytes);
 		this.maxConcurrent = maxConcurrentThreads;
 		this.threads = new Worker[this.maxConcurrent];
 		// chunksBeingLoaded[maxConcurrent] means worldgen thread, not a worker thread.
@@ -118,7 +130,7 @@ public class ShadowChunkGenerator
 				for(int i = 0; i < this.maxConcurrent; i++)
 				{
 					@SuppressWarnings("deprecation")
-					Worker thread = this.new Worker(i, this.unloadedChunksCache, this.chunksToLoad, this.chunksBeingLoaded, worldGenRegion.getLevel(), chunkGenerator, biomeProvider, otgChunkGenerator, dimensionStructuresSettings, worldHeightCap);
+					Worker thread = this.new Worker(i, this.chunksToLoad, this.chunksBeingLoaded, worldGenRegion.getLevel(), chunkGenerator, biomeProvider, otgChunkGenerator, dimensionStructuresSettings, worldHeightCap);
 					this.threads[i] = thread;
 					thread.start(worldGenRegion.getRandom());
 				}
@@ -134,7 +146,7 @@ public class ShadowChunkGenerator
 						ChunkCoordinate wgrChunkCoord = ChunkCoordinate.fromChunkCoords(wgrChunk.getPos().x, wgrChunk.getPos().z);
 						if(wgrChunk != chunk && !wgrChunk.getStatus().isOrAfter(ChunkStatus.NOISE))
 						{
-							if (!this.unloadedChunksCache.containsKey(wgrChunkCoord))
+							if (!isCached(wgrChunkCoord) && !this.noShadowgenChunks.containsKey(wgrChunkCoord))
 							{
 								boolean bFound = false;
 								for(int i = 0; i < this.chunksBeingLoaded.length; i++)
@@ -182,100 +194,112 @@ public class ShadowChunkGenerator
 		return buffer;
 	}
 
-	public ChunkAccess getChunkWithWait(ChunkCoordinate chunkCoord)
+	private boolean isCached(ChunkCoordinate chunkCoord)
 	{
-		// Fetch the chunk if it is cached, otherwise check if no other thread
-		// is generating the chunk. If not, claim the chunk and generate it.
-		// If so, wait for the other thread to finish.
-		synchronized(this.workerLock)
+		return this.compactChunks ? this.compactChunksCache.containsKey(chunkCoord) : this.unloadedChunksCache.containsKey(chunkCoord);
+	}
+
+	// Returns true if the chunk is cached. Otherwise, if no other thread is
+	// generating the chunk, claims the chunk for the worldgen thread and returns
+	// false, the caller should generate it. If another thread is generating
+	// the chunk, waits for it to finish.
+	private boolean waitForChunk(ChunkCoordinate chunkCoord)
+	{
+		boolean waiting = false;
+		while(true)
 		{
-			ChunkAccess cachedChunk = this.unloadedChunksCache.get(chunkCoord);
-			if(cachedChunk != null)
+			if(waiting)
 			{
-				return cachedChunk;
-			} else {
-				// If a chunk is in unloadedChunksCache but is null, it's in a chunk that
-				// shouldn't be generated async due to a vanilla structure start nearby.
-				if(this.unloadedChunksCache.containsKey(chunkCoord))
+				try {
+					//OTG.log(LogMarker.INFO, "Waiting for chunk");
+					// TODO: If a worker thread is stuck or crashed, this may wait indefinitely.
+					Thread.sleep(this.waitTimeInMS);
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+				}
+			}
+			synchronized(this.workerLock)
+			{
+				if(isCached(chunkCoord))
 				{
-					this.unloadedChunksCache.remove(chunkCoord);
+					return true;
+				}
+				boolean bFound = false;
+				for(int i = 0; i < this.maxConcurrent; i++)
+				{
+					if(this.chunksBeingLoaded[i] == chunkCoord)
+					{
+						bFound = true;
+						break;
+					}
+				}
+				// Chunks that workers skipped or that were evicted right
+				// after being generated are generated by the worldgen thread.
+				if(!bFound)
+				{
+					this.noShadowgenChunks.remove(chunkCoord);
 					this.chunksToLoad.remove(chunkCoord);
 					// MaxConcurrent means worldgen thread, not a worker thread.
 					this.chunksBeingLoaded[this.maxConcurrent] = chunkCoord;
-					return null;
-				} else {
-					boolean bFound = false;
-					for(int i = 0; i < this.chunksBeingLoaded.length; i++)
-					{
-						if(this.chunksBeingLoaded[i] == chunkCoord)
-						{
-							bFound = true;
-							break;
-						}
-					}
-					if(!bFound)
-					{
-						this.chunksToLoad.remove(chunkCoord);
-						// MaxConcurrent means worldgen thread, not a worker thread.
-						this.chunksBeingLoaded[this.maxConcurrent] = chunkCoord;
-						return null;
-					}
+					return false;
 				}
 			}
+			waiting = true;
 		}
+	}
 
-		// A worker thread is generating the chunk, wait.
+	/**
+	 * Fills the chunk with the base terrain generated via shadowgen and
+	 * removes it from the cache, waiting for any worker generating it.
+	 * @return False if the chunk wasn't cached, the caller should generate
+	 * it and call setChunkGenerated.
+	 */
+	public boolean fillWorldGenChunkFromShadowChunk(ChunkCoordinate chunkCoord, ChunkAccess chunk)
+	{
+		if(!waitForChunk(chunkCoord))
+		{
+			return false;
+		}
 
-		while(true)
+		if(this.compactChunks)
 		{
-			try {
-				//OTG.log(LogMarker.INFO, "Waiting for chunk");
-				// TODO: If a worker thread is stuck or crashed, this may wait indefinitely.
-				Thread.sleep(this.waitTimeInMS);
-			} catch (InterruptedException e) {
-				e.printStackTrace();
+			CompactChunk compactChunk = this.compactChunksCache.remove(chunkCoord);
+			if(compactChunk == null)
+			{
+				return false;
 			}
-			synchronized(this.workerLock)
+			BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+			for (int x = 0; x < Constants.CHUNK_SIZE; x++)
 			{
-				ChunkAccess cachedChunk = this.unloadedChunksCache.get(chunkCoord);
-				if(cachedChunk != null)
+				for (int z = 0; z < Constants.CHUNK_SIZE; z++)
 				{
-					return cachedChunk;
-				} else {
-					// If a chunk is in unloadedChunksCache but is null, it's in a chunk that
-					// shouldn't be generated async due to a vanilla structure start nearby.
-					if(this.unloadedChunksCache.containsKey(chunkCoord))
+					int endY = compactChunk.getHighestBlockY(x, z);
+					for (int y = compactChunk.getMinY(); y <= endY; y++)
 					{
-						this.unloadedChunksCache.remove(chunkCoord);
-						this.chunksToLoad.remove(chunkCoord);
-						// MaxConcurrent means worldgen thread, not a worker thread.
-						this.chunksBeingLoaded[this.maxConcurrent] = chunkCoord;
-						return null;
+						int id = compactChunk.getBlockId(x, y, z);
+						if(id != AIR_ID && id != MaterialPalette.NONE)
+						{
+							chunk.setBlockState(pos.set(x, y, z), Block.stateById(id), false);
+						}
 					}
 				}
 			}
+		} else {
+			ChunkAccess cachedChunk = this.unloadedChunksCache.remove(chunkCoord);
+			if(cachedChunk == null)
+			{
+				return false;
+			}
+			// Re-use base terrain generated via shadowgen for worldgen.
+			((ProtoChunk)chunk).sections = ((ProtoChunk)cachedChunk).sections;
+			((ProtoChunk)chunk).heightmaps = ((ProtoChunk)cachedChunk).heightmaps;
+			((ProtoChunk)chunk).lights = ((ProtoChunk)cachedChunk).lights;
 		}
-	}
-
-	public void fillWorldGenChunkFromShadowChunk(ChunkAccess chunk, ChunkAccess cachedChunk)
-	{
-		ChunkCoordinate chunkCoord = ChunkCoordinate.fromChunkCoords(chunk.getPos().x, chunk.getPos().z);
-		// Re-use base terrain generated via shadowgen for worldgen.
-		((ProtoChunk)chunk).sections = ((ProtoChunk)cachedChunk).sections;
-		((ProtoChunk)chunk).heightmaps = ((ProtoChunk)cachedChunk).heightmaps;
-		((ProtoChunk)chunk).lights = ((ProtoChunk)cachedChunk).lights;
-		this.cacheHits++;
-		//OTG.log(LogMarker.INFO, "Cache hit " + this.cacheHits);
-		synchronized(this.workerLock)
-		{
-			this.unloadedChunksCache.remove(chunkCoord);
-		}
+		return true;
 	}
 
 	public void setChunkGenerated(ChunkCoordinate chunkCoord)
 	{
-		this.cacheMisses++;
-		//OTG.log(LogMarker.INFO, "Cache miss " + + this.cacheMisses);
 		synchronized(workerLock)
 		{
 			// Zero index, so MaxConcurrent means worldgen thread, not a worker thread.
@@ -521,26 +545,14 @@ public class ShadowChunkGenerator
 	// Async worker threads may also pre-emptively shadowgen and cache unloaded chunks, which speeds up base terrain generation but also BO4's.
 	// Note: BO4's are always processed on the worldgen thread, never on a worker thread, since they are not a part of base terrain generation.
 
-	private LocalMaterialData[] getBlockColumnInUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, int x, int z, ServerLevel level)
+	// Returns the cached chunk, or shadowgens and caches it. Only used when CompactShadowChunks is false.
+	private ChunkAccess getFullUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, ChunkCoordinate chunkCoord, ServerLevel level)
 	{
-		BlockPos2D blockPos = new BlockPos2D(x, z);
-		ChunkCoordinate chunkCoord = ChunkCoordinate.fromBlockCoords(x, z);
-
-		// Get internal coordinates for block in chunk
-		byte blockX = (byte) (x &= 0xF);
-		byte blockZ = (byte) (z &= 0xF);
-
-		LocalMaterialData[] cachedColumn = this.unloadedBlockColumnsCache.get(blockPos);
-
-		if (cachedColumn != null)
-		{
-			return cachedColumn;
-		}
-
-		ChunkAccess chunk = this.getChunkWithWait(chunkCoord);
+		ChunkAccess chunk = waitForChunk(chunkCoord) ? this.unloadedChunksCache.get(chunkCoord) : null;
 		if (chunk == null)
 		{
-			// Generate a chunk without loading/decorating it
+			// Generate a chunk without loading/decorating it. If it's too large for the cache
+			// (or the cache is disabled) it isn't cached, callers use the returned chunk.
 			chunk = getUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level).getChunk();
 			synchronized(this.workerLock)
 			{
@@ -549,46 +561,65 @@ public class ShadowChunkGenerator
 				this.chunksBeingLoaded[this.maxConcurrent] = null;
 			}
 		}
+		return chunk;
+	}
 
-		cachedColumn = new LocalMaterialData[256];
-
-		LocalMaterialData[] blocksInColumn = new LocalMaterialData[256];
-		BlockState blockInChunk;
-		for (short y = 0; y < 256; y++)
+	// Returns the cached chunk, or shadowgens and caches it. Only used when CompactShadowChunks is true.
+	private CompactChunk getCompactUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, ChunkCoordinate chunkCoord, ServerLevel level)
+	{
+		CompactChunk compactChunk = waitForChunk(chunkCoord) ? this.compactChunksCache.get(chunkCoord) : null;
+		if (compactChunk == null)
 		{
-			blockInChunk = chunk.getBlockState(new BlockPos(blockX, y, blockZ));
-			if (blockInChunk != null)
+			// Generate a chunk without loading/decorating it. If it's too large for the cache
+			// (or the cache is disabled) it isn't cached, callers use the returned chunk.
+			compactChunk = CompactChunk.of(getUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level), otgChunkGenerator.getMinY(), otgChunkGenerator.getMaxY());
+			synchronized(this.workerLock)
 			{
-				blocksInColumn[y] = ForgeMaterialData.ofBlockState(blockInChunk);
-			} else {
-				break;
+				this.compactChunksCache.put(chunkCoord, compactChunk);
+				// Zero index, so MaxConcurrent means worldgen thread, not a worker thread.
+				this.chunksBeingLoaded[this.maxConcurrent] = null;
 			}
 		}
-		this.unloadedBlockColumnsCache.put(blockPos, cachedColumn);
-
-		return blocksInColumn;
+		return compactChunk;
 	}
 
 	public LocalMaterialData getMaterialInUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, int x, int y, int z, ServerLevel level)
 	{
-		LocalMaterialData[] blockColumn = getBlockColumnInUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, x, z, level);
-		return blockColumn[y];
+		ChunkCoordinate chunkCoord = ChunkCoordinate.fromBlockCoords(x, z);
+		int blockId;
+		if(this.compactChunks)
+		{
+			blockId = getCompactUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level).getBlockId(x & 0xF, y, z & 0xF);
+		} else {
+			blockId = Block.getId(getFullUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level).getBlockState(new BlockPos(x & 0xF, y, z & 0xF)));
+		}
+		return MaterialPalette.getMaterial(blockId);
 	}
 
 	public int getHighestBlockYInUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, int x, int z, boolean findSolid, boolean findLiquid, boolean ignoreLiquid, boolean ignoreSnow, ServerLevel level)
 	{
 		int height = -1;
 
-		LocalMaterialData[] blockColumn = getBlockColumnInUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, x, z, level);
-		ForgeMaterialData material;
+		// Fetch the chunk once for the whole column, it may not be
+		// cached if it doesn't fit in the cache.
+		ChunkCoordinate chunkCoord = ChunkCoordinate.fromBlockCoords(x, z);
+		CompactChunk compactChunk = this.compactChunks ? getCompactUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level) : null;
+		ChunkAccess chunk = this.compactChunks ? null : getFullUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level);
+		BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+		// Get internal coordinates for block in chunk
+		int blockX = x & 0xF;
+		int blockZ = z & 0xF;
+
+		int material;
 		boolean isLiquid;
 		boolean isSolid;
 
 		for (int y = 255; y >= 0; y--)
 		{
-			material = (ForgeMaterialData) blockColumn[y];
-			isLiquid = material.isLiquid();
-			isSolid = material.isSolid() || (!ignoreSnow && material.isMaterial(LocalMaterials.SNOW));
+			material = compactChunk != null ? compactChunk.getBlockId(blockX, y, blockZ) : Block.getId(chunk.getBlockState(pos.set(blockX, y, blockZ)));
+			isLiquid = MaterialPalette.is(material, MaterialPalette.LIQUID);
+			isSolid = MaterialPalette.is(material, MaterialPalette.SOLID) || (!ignoreSnow && MaterialPalette.isMaterial(material, LocalMaterials.SNOW));
 			if (!(isLiquid && ignoreLiquid))
 			{
 				if ((findSolid && isSolid) || (findLiquid && isLiquid))
@@ -616,7 +647,6 @@ public class ShadowChunkGenerator
 		private Random worldRandom;
 
 		private final int index;
-		private final FifoMap<ChunkCoordinate, ChunkAccess> unloadedChunksCache;
 		private final List<ChunkCoordinate> chunksToLoad;
 		private final ChunkCoordinate[] chunksBeingLoaded;
 		private final ServerLevel serverWorld;
@@ -626,10 +656,9 @@ public class ShadowChunkGenerator
 		private final StructureSettings dimensionStructuresSettings;
 		private final int worldHeightCap;
 
-		Worker(int index, FifoMap<ChunkCoordinate, ChunkAccess> unloadedChunksCache, List<ChunkCoordinate> chunksToLoad, ChunkCoordinate[] chunksBeingLoaded, ServerLevel serverWorld, ChunkGenerator chunkGenerator, OTGBiomeProvider biomeProvider, OTGChunkGenerator otgChunkGenerator, StructureSettings dimensionStructuresSettings, int worldHeightCap)
+		Worker(int index, List<ChunkCoordinate> chunksToLoad, ChunkCoordinate[] chunksBeingLoaded, ServerLevel serverWorld, ChunkGenerator chunkGenerator, OTGBiomeProvider biomeProvider, OTGChunkGenerator otgChunkGenerator, StructureSettings dimensionStructuresSettings, int worldHeightCap)
 		{
 			this.index = index;
-			this.unloadedChunksCache = unloadedChunksCache;
 			this.chunksToLoad = chunksToLoad;
 			this.chunksBeingLoaded = chunksBeingLoaded;
 			this.serverWorld = serverWorld;
@@ -681,20 +710,26 @@ public class ShadowChunkGenerator
 					if(!checkHasVanillaStructureWithoutLoading(this.serverWorld, this.chunkGenerator, this.biomeProvider, this.dimensionStructuresSettings, coords, this.otgChunkGenerator.getCachedBiomeProvider(), true))
 					{
 						// Generate a chunk without loading/decorating it.
-						ChunkAccess cachedChunk = getUnloadedChunk(this.otgChunkGenerator, this.worldHeightCap, this.worldRandom, coords, this.serverWorld.getLevel()).getChunk();
+						ForgeChunkBuffer cachedChunk = getUnloadedChunk(this.otgChunkGenerator, this.worldHeightCap, this.worldRandom, coords, this.serverWorld.getLevel());
+						CompactChunk compactChunk = compactChunks ? CompactChunk.of(cachedChunk, this.otgChunkGenerator.getMinY(), this.otgChunkGenerator.getMaxY()) : null;
 						synchronized(workerLock)
 						{
-							this.unloadedChunksCache.put(coords, cachedChunk);
+							if(compactChunk != null)
+							{
+								compactChunksCache.put(coords, compactChunk);
+							} else {
+								unloadedChunksCache.put(coords, cachedChunk.getChunk());
+							}
 							this.chunksBeingLoaded[this.index] = null;
 						}
 					} else {
 						synchronized(workerLock)
 						{
 							// This chunk should not be shadowgenned, add it
-							// to the unloadedChunksCache as null so workers
-							// avoid it and the worldgen thread takes care
-							// of it in getChunkWithWait().
-							this.unloadedChunksCache.put(coords, null);
+							// to noShadowgenChunks so workers avoid it and
+							// the worldgen thread takes care of it in
+							// waitForChunk().
+							noShadowgenChunks.put(coords, Boolean.TRUE);
 							this.chunksBeingLoaded[this.index] = null;
 						}
 					}
@@ -3,12 +3,14 @@ package com.pg85.otg.forge.materials;
 import com.pg85.otg.util.OTGDirection;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterialTag;
+import com.pg85.otg.util.materials.MaterialPalette;
 
 import net.minecraft.world.level.material.Material;
 import net.minecraft.world.level.block.state.properties.DirectionProperty;
 import net.minecraft.world.level.block.state.properties.Property;
 import net.minecraft.world.level.block.state.properties.BlockStateProperties;
 import net.minecraft.core.Direction;
+import net.minecraft.core.Registry;
 import net.minecraft.world.level.block.Rotation;
 
 import com.pg85.otg.util.materials.MaterialProperty;
@@ -35,6 +37,7 @@ public class ForgeMaterialData extends LocalMaterialData
 	private static final ConcurrentHashMap<BlockState, ForgeMaterialData> stateToMaterialDataMap = new ConcurrentHashMap<>(); // TODO: Move to ForgeMaterialReader?
 
 	private final BlockState blockData;
+	private final int paletteId;
 	private String name = null;
 
 	private ForgeMaterialData(BlockState blockData, String raw)
@@ -47,6 +50,20 @@ public class ForgeMaterialData extends LocalMaterialData
 		this.blockData = blockData;
 		this.rawEntry = raw;
 		this.isBlank = isBlank;
+		this.paletteId = blockData == null ? MaterialPalette.NONE : Block.getId(blockData);
+	}
+
+	/**
+	 * Registers all block states in the MaterialPalette, palette ids
+	 * are block state ids. Should be called once on startup.
+	 */
+	static void registerPalette()
+	{
+		for (int id = MaterialPalette.size(); id < Block.BLOCK_STATE_REGISTRY.size(); id++)
+		{
+			BlockState blockState = Block.stateById(id);
+			MaterialPalette.register(ofBlockState(blockState), Registry.BLOCK.getId(blockState.getBlock()));
+		}
 	}
 
 	static ForgeMaterialData ofBlock(Block block, String raw)
@@ -76,6 +93,12 @@ public class ForgeMaterialData extends LocalMaterialData
 		return newData;
 	}
 
+	@Override
+	public int getPaletteId()
+	{
+		return this.paletteId;
+	}
+
 	public BlockState internalBlock()
 	{
 		return this.blockData;
@@ -334,5 +334,8 @@ public class ForgeMaterials extends LocalMaterials
 		COAL_BLOCK = ForgeMaterialData.ofBlockState(Blocks.COAL_BLOCK.defaultBlockState());
 		QUARTZ_BLOCK = ForgeMaterialData.ofBlockState(Blocks.QUARTZ_BLOCK.defaultBlockState());
 		EMERALD_BLOCK = ForgeMaterialData.ofBlockState(Blocks.EMERALD_BLOCK.defaultBlockState());
+
+		// Integer ids for all block states, used by carvers and surface generation
+		ForgeMaterialData.registerPalette();
 	}
 }
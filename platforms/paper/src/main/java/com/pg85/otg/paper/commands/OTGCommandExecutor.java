@@ -37,6 +37,7 @@ public class OTGCommandExecutor
 		commands.add(new RegionCommand());
 		commands.add(new ExportBO4DataCommand());
 		commands.add(new ConfigExportCommand());
+		commands.add(new StatsCommand());
 		
 		commands.sort(Comparator.comparing(BaseCommand::getName));
 
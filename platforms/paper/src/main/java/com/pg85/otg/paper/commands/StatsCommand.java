@@ -0,0 +1,100 @@
+package com.pg85.otg.paper.commands;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.pg85.otg.core.OTG;
+import com.pg85.otg.util.logging.LogCategory;
+import com.pg85.otg.util.logging.LogLevel;
+import com.pg85.otg.util.metrics.WorldGenMetrics;
+
+import net.minecraft.ChatFormatting;
+import net.minecraft.commands.CommandSourceStack;
+import net.minecraft.commands.Commands;
+import net.minecraft.network.chat.TextComponent;
+
+public class StatsCommand extends BaseCommand
+{
+	private static final String STATS_FOLDER = "stats";
+
+	public StatsCommand()
+	{
+		super("stats");
+		this.helpMessage = "Shows world generation timings and counters.";
+		this.usage = "/otg stats [reset|dump]";
+		this.detailedHelp = new String[] {
+			"reset: Clears all timings and counters.",
+			"dump: Writes the stats to a file in the OTG stats folder."
+		};
+	}
+
+	@Override
+	public void build(LiteralArgumentBuilder<CommandSourceStack> builder)
+	{
+		builder.then(Commands.literal("stats")
+			.executes(context -> showStats(context.getSource()))
+			.then(Commands.literal("reset")
+				.executes(context -> resetStats(context.getSource()))
+			).then(Commands.literal("dump")
+				.executes(context -> dumpStats(context.getSource()))
+			)
+		);
+	}
+
+	@Override
+	public String getPermission()
+	{
+		return "otg.cmd.stats";
+	}
+
+	protected int showStats(CommandSourceStack source)
+	{
+		if (!source.hasPermission(2, getPermission()))
+		{
+			source.sendSuccess(new TextComponent("\u00a7cPermission denied!"), false);
+			return 0;
+		}
+		for (String line : WorldGenMetrics.getReport())
+		{
+			source.sendSuccess(new TextComponent(line).withStyle(ChatFormatting.GREEN), false);
+		}
+		return 0;
+	}
+
+	protected int resetStats(CommandSourceStack source)
+	{
+		if (!source.hasPermission(2, getPermission()))
+		{
+			source.sendSuccess(new TextComponent("\u00a7cPermission denied!"), false);
+			return 0;
+		}
+		WorldGenMetrics.reset();
+		source.sendSuccess(new TextComponent("World generation stats reset."), false);
+		return 0;
+	}
+
+	protected int dumpStats(CommandSourceStack source)
+	{
+		if (!source.hasPermission(2, getPermission()))
+		{
+			source.sendSuccess(new TextComponent("\u00a7cPermission denied!"), false);
+			return 0;
+		}
+		Path file = OTG.getEngine().getOTGRootFolder().resolve(STATS_FOLDER).resolve("worldgen-" + new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date()) + ".txt");
+		try
+		{
+			WorldGenMetrics.writeReport(file);
+		}
+		catch (IOException e)
+		{
+			OTG.getEngine().getLogger().log(LogLevel.ERROR, LogCategory.MAIN, "Could not write world generation stats to " + file + ": " + e.getMessage());
+			source.sendSuccess(new TextComponent("\u00a7cCould not write stats, check the log for details."), false);
+			return 0;
+		}
+		source.sendSuccess(new TextComponent("World generation stats written to " + file), false);
+		return 0;
+	}
+}
@@ -17,6 +17,7 @@ import it.unimi.dsi.fastutil.ints.IntArraySet;
 import it.unimi.dsi.fastutil.ints.IntSet;
 import it.unimi.dsi.fastutil.objects.ObjectArraySet;
 import net.minecraft.SharedConstants;
+import net.minecraft.Util;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
 import net.minecraft.core.*;
@@ -136,7 +137,7 @@ public class OTGNoiseChunkGenerator extends ChunkGenerator
 		this.defaultFluid = settings.defaultFluid();
 
 		this.preset = OTG.getEngine().getPresetLoader().getPresetByFolderName(presetFolderName);
-		this.shadowChunkGenerator = new ShadowChunkGenerator();
+		this.shadowChunkGenerator = new ShadowChunkGenerator(this.preset.getWorldConfig());
 		this.internalGenerator = new OTGChunkGenerator(this.preset, seed, (ILayerSource) populationSource, ((PaperPresetLoader) OTG.getEngine().getPresetLoader()).getGlobalIdMapping(presetFolderName), OTG.getEngine().getLogger());
 		this.chunkDecorator = new OTGChunkDecorator();
 
@@ -226,11 +227,8 @@ public class OTGNoiseChunkGenerator extends ChunkGenerator
 	public void buildNoiseSpigot (ServerLevel world, org.bukkit.generator.ChunkGenerator.ChunkData chunk, ChunkCoordinate chunkCoord, Random random)
 	{
 		ChunkBuffer buffer = new PaperChunkBuffer(chunk, chunkCoord);
-		ChunkAccess cachedChunk = this.shadowChunkGenerator.getChunkFromCache(chunkCoord);
-		if (cachedChunk != null)
+		if (!this.shadowChunkGenerator.fillWorldGenChunkFromShadowChunk(chunkCoord, chunk))
 		{
-			this.shadowChunkGenerator.fillWorldGenChunkFromShadowChunk(chunkCoord, chunk, cachedChunk);
-		} else {
 			// Setup jigsaw data
 			ObjectList<JigsawStructureData> structures = new ObjectArrayList<>(10);
 			ObjectList<JigsawStructureData> junctions = new ObjectArrayList<>(32);
@@ -313,11 +311,8 @@ public class OTGNoiseChunkGenerator extends ChunkGenerator
 		//	fixBiomesForChunk = null;
 		//}
 		ChunkBuffer buffer = new PaperChunkBuffer(chunk);
-		ChunkAccess cachedChunk = this.shadowChunkGenerator.getChunkFromCache(chunkCoord);
-		if (cachedChunk != null)
+		if (!this.shadowChunkGenerator.fillWorldGenChunkFromShadowChunk(chunkCoord, chunk))
 		{
-			this.shadowChunkGenerator.fillWorldGenChunkFromShadowChunk(chunkCoord, chunk, cachedChunk);
-		} else {
 			// Setup jigsaw data
 			ObjectList<JigsawStructureData> structures = new ObjectArrayList<>(10);
 			ObjectList<JigsawStructureData> junctions = new ObjectArrayList<>(32);
@@ -326,6 +321,30 @@ public class OTGNoiseChunkGenerator extends ChunkGenerator
 
 			findNoiseStructures(pos, chunk, accessor, structures, junctions);
 
+			if (OTG.getEngine().getPluginConfig().getAsyncBaseTerrain())
+			{
+				// Like vanilla, lock the chunk's sections and populate noise on a background
+				// thread, the sections are released on the chunk's executor once done.
+				List<LevelChunkSection> sections = new ArrayList<>(chunk.getSections().length);
+				for (LevelChunkSection section : chunk.getSections())
+				{
+					section.acquire();
+					sections.add(section);
+				}
+				return CompletableFuture.supplyAsync(Util.wrapThreadWithTaskName("wgen_fill_noise", () ->
+				{
+					this.internalGenerator.populateNoise(this.preset.getWorldConfig().getWorldHeightCap(), random, buffer, buffer.getChunkCoordinate(), structures, junctions);
+					this.shadowChunkGenerator.setChunkGenerated(chunkCoord);
+					return chunk;
+				}), Util.backgroundExecutor()).whenCompleteAsync((generatedChunk, throwable) ->
+				{
+					for (LevelChunkSection section : sections)
+					{
+						section.release();
+					}
+				}, executor);
+			}
+
 			this.internalGenerator.populateNoise(this.preset.getWorldConfig().getWorldHeightCap(), random, buffer, buffer.getChunkCoordinate(), structures, junctions);
 			this.shadowChunkGenerator.setChunkGenerated(chunkCoord);
 		}
@@ -4,7 +4,8 @@ import com.pg85.otg.core.OTG;
 import com.pg85.otg.core.presets.Preset;
 import com.pg85.otg.paper.PaperEngine;
 import com.pg85.otg.util.ChunkCoordinate;
-import com.pg85.otg.util.FifoMap;
+import com.pg85.otg.util.LongFifoMap;
+import com.pg85.otg.util.helpers.MathHelper;
 
 import org.bukkit.World;
 import org.bukkit.craftbukkit.v1_18_R2.CraftWorld;
@@ -15,7 +16,7 @@ import java.util.Random;
 public class OTGPaperChunkGen extends ChunkGenerator
 {
 	public OTGNoiseChunkGenerator generator = null;
-	private final FifoMap<ChunkCoordinate, ChunkData> chunkDataCache = new FifoMap<>(128);
+	private final LongFifoMap<ChunkData> chunkDataCache = new LongFifoMap<>(128);
 	private final Preset preset;
 	
 	public OTGPaperChunkGen(Preset preset)
@@ -39,12 +40,13 @@ public class OTGPaperChunkGen extends ChunkGenerator
 		}
 
 		ChunkCoordinate chunkCoord = ChunkCoordinate.fromChunkCoords(chunkX, chunkZ);
-		ChunkData chunkData = chunkDataCache.get(chunkCoord);
+		long chunkKey = MathHelper.toLong(chunkX, chunkZ);
+		ChunkData chunkData = chunkDataCache.get(chunkKey);
 		if (chunkData == null)
 		{
 			chunkData = createChunkData(world);
 			generator.buildNoiseSpigot(((CraftWorld)world).getHandle(), chunkData, chunkCoord, random);
-			chunkDataCache.put(chunkCoord, chunkData);
+			chunkDataCache.put(chunkKey, chunkData);
 		}
 		return chunkData;
 	}
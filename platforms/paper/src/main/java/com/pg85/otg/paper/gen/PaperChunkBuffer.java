@@ -7,6 +7,7 @@ import com.pg85.otg.util.materials.LocalMaterialData;
 
 import net.minecraft.core.BlockPos;
 import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.state.BlockState;
 import net.minecraft.world.level.chunk.ChunkAccess;
 
@@ -65,6 +66,17 @@ public class PaperChunkBuffer extends ChunkBuffer
 		return PaperMaterialData.ofBlockData(blockData);
 	}
 
+	@Override
+	public int getBlockId(int blockX, int blockY, int blockZ)
+	{
+		if (chunkData != null)
+		{
+			return super.getBlockId(blockX, blockY, blockZ);
+		}
+		// Palette ids are block state ids, no need to look up the material.
+		return Block.getId(this.chunk.getBlockState(this.mutable.set(blockX, blockY, blockZ)));
+	}
+
 	public ChunkAccess getChunk()
 	{
 		return this.chunk;
@@ -1,6 +1,8 @@
 package com.pg85.otg.paper.gen;
 
 import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Optional;
 import java.util.Random;
 
@@ -31,13 +33,16 @@ import com.pg85.otg.paper.materials.PaperMaterialData;
 import com.pg85.otg.paper.util.JsonToNBT;
 import com.pg85.otg.paper.util.PaperNBTHelper;
 import com.pg85.otg.util.ChunkCoordinate;
-import com.pg85.otg.util.FifoMap;
+import com.pg85.otg.util.LongFifoMap;
 import com.pg85.otg.util.biome.ReplaceBlockMatrix;
+import com.pg85.otg.util.gen.BlockBatch;
 import com.pg85.otg.util.gen.LocalWorldGenRegion;
+import com.pg85.otg.util.helpers.MathHelper;
 import com.pg85.otg.util.logging.LogCategory;
 import com.pg85.otg.util.logging.LogLevel;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterials;
+import com.pg85.otg.util.materials.MaterialPalette;
 import com.pg85.otg.util.minecraft.TreeType;
 import com.pg85.otg.util.nbt.NamedBinaryTag;
 
@@ -48,6 +53,9 @@ import net.minecraft.world.level.block.Block;
 import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.chunk.ChunkAccess;
 import net.minecraft.world.level.chunk.ChunkStatus;
+import net.minecraft.world.level.chunk.ImposterProtoChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.ProtoChunk;
 import net.minecraft.world.level.levelgen.feature.configurations.FeatureConfiguration;
 import net.minecraft.world.level.levelgen.placement.PlacedFeature;
 import org.bukkit.event.entity.CreatureSpawnEvent;
@@ -60,7 +68,10 @@ public class PaperWorldGenRegion extends LocalWorldGenRegion
 
 	// BO4 plotting may call hasDefaultStructures on chunks outside the area being decorated, in order to plot large structures.
 	// It may query the same chunk multiple times, so use a fixed size cache.
-	private final FifoMap<ChunkCoordinate, Boolean> cachedHasDefaultStructureChunks = new FifoMap<>(2048);
+	private final LongFifoMap<Boolean> cachedHasDefaultStructureChunks = new LongFifoMap<>(2048);
+
+	// Blocks that need ticks or NBT after a chunk's blocks are written by setBlocks.
+	private int[] postPassIndices = new int[64];
 
 	/** Creates a LocalWorldGenRegion to be used during decoration for OTG worlds. */
 	public PaperWorldGenRegion(String presetFolderName, IWorldConfig worldConfig, WorldGenRegion worldGenRegion, OTGNoiseChunkGenerator chunkGenerator)
@@ -163,6 +174,34 @@ public class PaperWorldGenRegion extends LocalWorldGenRegion
 	
 	@Override
 	public LocalMaterialData getMaterial(int x, int y, int z)
+	{
+		ChunkAccess chunk = getChunkForMaterial(x, y, z);
+		if (chunk == null)
+		{
+			return null;
+		}
+
+		// Get internal coordinates for block in chunk
+		int internalX = x & 0xF;
+		int internalZ = z & 0xF;
+		return PaperMaterialData.ofBlockData(chunk.getBlockState(internalX, y, internalZ));
+	}
+
+	@Override
+	public int getMaterialId(int x, int y, int z)
+	{
+		ChunkAccess chunk = getChunkForMaterial(x, y, z);
+		if (chunk == null)
+		{
+			return MaterialPalette.NONE;
+		}
+
+		// Palette ids are block state ids, no need to look up the material.
+		return Block.getId(chunk.getBlockState(x & 0xF, y, z & 0xF));
+	}
+
+	// Returns the chunk getMaterial should read from, or null if the block can't be read.
+	private ChunkAccess getChunkForMaterial(int x, int y, int z)
 	{
 		if (y < minY || y > maxY)
 		{
@@ -186,11 +225,7 @@ public class PaperWorldGenRegion extends LocalWorldGenRegion
 		{
 			return null;
 		}
-
-		// Get internal coordinates for block in chunk
-		int internalX = x & 0xF;
-		int internalZ = z & 0xF;
-		return PaperMaterialData.ofBlockData(chunk.getBlockState(internalX, y, internalZ));
+		return chunk;
 	}
 
 
@@ -397,6 +432,185 @@ public class PaperWorldGenRegion extends LocalWorldGenRegion
 		}
 	}
 
+	// Spawns the blocks per chunk section. For chunks that haven't been decorated yet
+	// (the chunk being decorated and its undecorated neighbours), blocks are written
+	// straight into the chunk section's palette and the chunk's heightmaps are updated,
+	// liquid/command block ticks and NBT are handled once all blocks are written. Blocks 
+	// with block entities, light or post processing, and chunks that have already been
+	// decorated, go through setBlock. Outside of decoration, all blocks go through setBlock.
+	@Override
+	public void setBlocks(BlockBatch blocks)
+	{
+		blocks.sort();
+		int size = blocks.size();
+		int start = 0;
+		int end;
+		long key;
+		while(start < size)
+		{
+			key = blocks.getKey(start);
+			end = start + 1;
+			while(end < size && BlockBatch.isSameChunk(key, blocks.getKey(end)))
+			{
+				end++;
+			}
+			setBlocksInChunk(blocks, start, end, BlockBatch.getChunkX(key), BlockBatch.getChunkZ(key));
+			start = end;
+		}
+	}
+
+	private void setBlocksInChunk(BlockBatch blocks, int start, int end, int chunkX, int chunkZ)
+	{
+		Heightmap[] heightmaps = null;
+		ChunkAccess chunk = null;
+		if(this.decorationArea != null)
+		{
+			// The decoration area is chunk aligned, so checking one block is enough.
+			if(!this.decorationArea.isInAreaBeingDecorated(chunkX * Constants.CHUNK_SIZE, chunkZ * Constants.CHUNK_SIZE))
+			{
+				return;
+			}
+			chunk = this.worldGenRegion.getChunk(chunkX, chunkZ, ChunkStatus.EMPTY, false);
+			if(chunk != null)
+			{
+				heightmaps = getHeightmapsForDirectWrites(chunk);
+			}
+		}
+		if(heightmaps == null)
+		{
+			for(int i = start; i < end; i++)
+			{
+				setBlock(blocks.getX(i), blocks.getY(i), blocks.getZ(i), blocks.getMaterial(i), blocks.getNBT(i), blocks.getReplaceBlocks(i));
+			}
+			return;
+		}
+
+		boolean biomeConfigsHaveReplacement = this.getWorldConfig().getBiomeConfigsHaveReplacement();
+		BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+		LevelChunkSection section = null;
+		long sectionKey = 0;
+		int postPassCount = 0;
+		long key;
+		int x;
+		int y;
+		int z;
+		LocalMaterialData material;
+		ReplaceBlockMatrix replaceBlocksMatrix;
+		BlockState blockState;
+		BlockState oldBlockState;
+		for(int i = start; i < end; i++)
+		{
+			key = blocks.getKey(i);
+			// Blocks are sorted by position, the last block for a position wins.
+			if(i + 1 < end && blocks.getKey(i + 1) == key)
+			{
+				continue;
+			}
+			y = BlockBatch.getY(key);
+			if (y < this.minY || y > this.maxY)
+			{
+				continue;
+			}
+			// Batches don't contain empty materials, see BlockBatch.
+			material = blocks.getMaterial(i);
+			replaceBlocksMatrix = blocks.getReplaceBlocks(i);
+			if(replaceBlocksMatrix != null)
+			{
+				material = material.parseWithBiomeAndHeight(biomeConfigsHaveReplacement, replaceBlocksMatrix, y);
+			}
+			x = BlockBatch.getX(key);
+			z = BlockBatch.getZ(key);
+			blockState = ((PaperMaterialData)material).internalBlock();
+			pos.set(x, y, z);
+			if(blockState.hasBlockEntity() || blockState.getLightEmission() > 0 || blockState.hasPostProcess(this.worldGenRegion, pos))
+			{
+				setBlock(x, y, z, material, blocks.getNBT(i), null);
+				continue;
+			}
+
+			if(section == null || !BlockBatch.isSameSection(sectionKey, key))
+			{
+				section = chunk.getSection(chunk.getSectionIndex(y));
+				sectionKey = key;
+			}
+			// No palette lock, decoration has the chunks in its region to itself.
+			oldBlockState = section.setBlockState(x & 0xF, y & 0xF, z & 0xF, blockState, false);
+			for(Heightmap heightmap : heightmaps)
+			{
+				heightmap.update(x & 0xF, y, z & 0xF, blockState);
+			}
+			if(oldBlockState.hasBlockEntity())
+			{
+				chunk.removeBlockEntity(pos.immutable());
+			}
+
+			if(material.isLiquid() || material.isMaterial(LocalMaterials.COMMAND_BLOCK) || blocks.getNBT(i) != null)
+			{
+				if(postPassCount == this.postPassIndices.length)
+				{
+					this.postPassIndices = Arrays.copyOf(this.postPassIndices, postPassCount * 2);
+				}
+				this.postPassIndices[postPassCount++] = i;
+			}
+		}
+
+		int i;
+		BlockPos tickPos;
+		NamedBinaryTag nbt;
+		for(int j = 0; j < postPassCount; j++)
+		{
+			i = this.postPassIndices[j];
+			key = blocks.getKey(i);
+			x = BlockBatch.getX(key);
+			y = BlockBatch.getY(key);
+			z = BlockBatch.getZ(key);
+			material = blocks.getMaterial(i);
+			replaceBlocksMatrix = blocks.getReplaceBlocks(i);
+			if(replaceBlocksMatrix != null)
+			{
+				material = material.parseWithBiomeAndHeight(biomeConfigsHaveReplacement, replaceBlocksMatrix, y);
+			}
+			if (material.isLiquid())
+			{
+				tickPos = new BlockPos(x, y, z);
+				this.worldGenRegion.scheduleTick(tickPos, ((PaperMaterialData)material).internalBlock().getFluidState().getType(), 0);
+			}
+			else if (material.isMaterial(LocalMaterials.COMMAND_BLOCK))
+			{
+				tickPos = new BlockPos(x, y, z);
+				this.worldGenRegion.scheduleTick(tickPos, ((PaperMaterialData)material).internalBlock().getBlock(), 0);
+			}
+			nbt = blocks.getNBT(i);
+			if (nbt != null)
+			{
+				this.attachNBT(x, y, z, nbt);
+			}
+		}
+	}
+
+	// Returns the heightmaps to update when writing blocks straight into the chunk's
+	// sections, or null if blocks should be spawned via setBlock. Chunks that have been
+	// decorated need light updates, so only undecorated proto chunks are written directly.
+	private Heightmap[] getHeightmapsForDirectWrites(ChunkAccess chunk)
+	{
+		if(!(chunk instanceof ProtoChunk) || chunk instanceof ImposterProtoChunk || chunk.getStatus().isOrAfter(ChunkStatus.FEATURES))
+		{
+			return null;
+		}
+		EnumSet<Heightmap.Types> heightmapTypes = chunk.getStatus().heightmapsAfter();
+		Heightmap[] heightmaps = new Heightmap[heightmapTypes.size()];
+		int i = 0;
+		for(Heightmap.Types heightmapType : heightmapTypes)
+		{
+			if(!chunk.hasPrimedHeightmap(heightmapType))
+			{
+				return null;
+			}
+			heightmaps[i++] = chunk.getOrCreateHeightmapUnprimed(heightmapType);
+		}
+		return heightmaps;
+	}
+
 	protected void attachNBT(int x, int y, int z, NamedBinaryTag nbt)
 	{
 		CompoundTag nms = PaperNBTHelper.getNMSFromNBTTagCompound(nbt);
@@ -779,7 +993,8 @@ public class PaperWorldGenRegion extends LocalWorldGenRegion
 	@Override
 	public boolean chunkHasDefaultStructure (Random worldRandom, ChunkCoordinate chunkCoordinate)
 	{
-		Boolean hasDefaultStructure = cachedHasDefaultStructureChunks.get(chunkCoordinate);
+		long chunkKey = MathHelper.toLong(chunkCoordinate.getChunkX(), chunkCoordinate.getChunkZ());
+		Boolean hasDefaultStructure = cachedHasDefaultStructureChunks.get(chunkKey);
 		if(hasDefaultStructure != null)
 		{
 			return hasDefaultStructure;
@@ -787,7 +1002,7 @@ public class PaperWorldGenRegion extends LocalWorldGenRegion
 		//hasDefaultStructure = this.chunkGenerator.hasFeatureChunkInRange(BuiltinStructureSets.VILLAGES, getSeed(), chunkCoordinate.getChunkX(), chunkCoordinate.getChunkZ(), 4);
 		hasDefaultStructure = this.chunkGenerator.checkForVanillaStructure(chunkCoordinate);
 		//hasDefaultStructure = this.chunkGenerator.checkHasVanillaStructureWithoutLoading(this.worldGenRegion.getMinecraftWorld(), chunkCoordinate);
-		cachedHasDefaultStructureChunks.put(chunkCoordinate, hasDefaultStructure);
+		cachedHasDefaultStructureChunks.put(chunkKey, hasDefaultStructure);
 		return hasDefaultStructure;
 	}
 }
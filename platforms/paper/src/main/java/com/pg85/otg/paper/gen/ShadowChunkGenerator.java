@@ -12,7 +12,8 @@ import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.biome.Biome;
 import net.minecraft.world.level.biome.BiomeSource;
-import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.Blocks;
 import net.minecraft.world.level.chunk.ChunkGenerator;
 
 import net.minecraft.world.level.levelgen.structure.BuiltinStructureSets;
@@ -24,13 +25,15 @@ import com.pg85.otg.constants.Constants;
 import com.pg85.otg.core.gen.OTGChunkGenerator;
 import com.pg85.otg.interfaces.IBiome;
 import com.pg85.otg.interfaces.ICachedBiomeProvider;
-import com.pg85.otg.paper.materials.PaperMaterialData;
-import com.pg85.otg.util.BlockPos2D;
+import com.pg85.otg.interfaces.IWorldConfig;
 import com.pg85.otg.util.ChunkCoordinate;
 import com.pg85.otg.util.FifoMap;
+import com.pg85.otg.util.gen.CompactChunk;
 import com.pg85.otg.util.gen.JigsawStructureData;
+import com.pg85.otg.util.gen.ShadowChunkCache;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterials;
+import com.pg85.otg.util.materials.MaterialPalette;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectList;
@@ -49,9 +52,11 @@ import net.minecraft.world.level.levelgen.feature.StructureFeature;
  * Shadow chunk generation means generating base terrain for chunks
  * without using mc's world generation flow. OTG's chunkgenerator is
  * called internally to generate base terrain for dummy chunks.
- * Shadowgenned chunks are stored in a fixed size FIFO cache, data is
- * reused when base terraingen is requested for those chunks via
- * normal worldgen. Shadowgen is used for BO4's and /otg mapterrain.
+ * Shadowgenned chunks are stored in a ShadowChunkCache, bounded by
+ * the world's ShadowChunkCacheSizeMB, either as full chunks or as
+ * CompactChunks (CompactShadowChunks). Data is reused when base
+ * terraingen is requested for those chunks via normal worldgen.
+ * Shadowgen is used for BO4's and /otg mapterrain.
  *
  * Shadowgen can only be done for chunks that don't contain vanilla structures,
  * since those structures may use density based smoothing applied during noisegen,
@@ -60,9 +65,12 @@ import net.minecraft.world.level.levelgen.feature.StructureFeature;
  */
 public class ShadowChunkGenerator
 {
-	// TODO: Add a setting to the worldconfig for the size of these caches?
-	private final FifoMap<BlockPos2D, LocalMaterialData[]> unloadedBlockColumnsCache = new FifoMap<BlockPos2D, LocalMaterialData[]>(1024);
-	private final FifoMap<ChunkCoordinate, ChunkAccess> unloadedChunksCache = new FifoMap<ChunkCoordinate, ChunkAccess>(512);
+	private static final int AIR_ID = Block.getId(Blocks.AIR.defaultBlockState());
+
+	// Only one of these is used, depending on CompactShadowChunks.
+	private final ShadowChunkCache<ChunkAccess> unloadedChunksCache;
+	private final ShadowChunkCache<CompactChunk> compactChunksCache;
+	private final boolean compactChunks;
 	private final FifoMap<ChunkCoordinate, Integer> hasVanillaStructureChunkCache = new FifoMap<ChunkCoordinate, Integer>(2048);
 	private final FifoMap<ChunkCoordinate, Integer> hasVanillaNoiseStructureChunkCache = new FifoMap<ChunkCoordinate, Integer>(2048);
 
@@ -88,17 +96,18 @@ public class ShadowChunkGenerator
 		}
 	}*/
 
-	@SuppressWarnings("unused")
-	private int cacheHits = 0;
-	@SuppressWarnings("unused")
-	private int cacheMisses = 0;
-
-	public ShadowChunkGenerator() { }
+	public ShadowChunkGenerator(IWorldConfig worldConfig)
+	{
+		long maxBytes = worldConfig.getShadowChunkCacheSizeMB() * 1024L * 1024L;
+		this.compactChunks = worldConfig.getCompactShadowChunks();
+		this.unloadedChunksCache = new ShadowChunkCache<ChunkAccess>(this.compactChunks ? 0 : maxBytes, chunk -> ShadowChunkCache.estimateFullChunkSize(chunk.getSectionsCount()));
+		this.compactChunksCache = new ShadowChunkCache<CompactChunk>(this.compactChunks ? maxBytes : 0, CompactChunk::getSizeInBytes);
+	}
 
 	private PaperChunkBuffer getUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random random, ChunkCoordinate chunkCoordinate, ServerLevel level)
 	{
 		// Make a dummy chunk, we'll fill this with base terrain data ourselves, without touching any MC worldgen logic.
-		// As an optimisation, we cache the dummy chunk in a limited size FIFO cache. Later when MC requests the chunk 
+		// As an optimisation, we cache the dummy chunk in a limited size cache. Later when MC requests the chunk 
 		// during world generation, we swap the dummy chunk's data into the real chunk.
 		ProtoChunk chunk = new ProtoChunk(new ChunkPos(chunkCoordinate.getChunkX(), chunkCoordinate.getChunkZ()), null, level, level.registryAccess().registryOrThrow(Registry.BIOME_REGISTRY), null);
 		PaperChunkBuffer buffer = new PaperChunkBuffer(chunk);
@@ -116,19 +125,45 @@ public class ShadowChunkGenerator
 		return buffer;
 	}
 
-	public ChunkAccess getChunkFromCache(ChunkCoordinate chunkCoord)
+	/**
+	 * Fills the chunk with the base terrain generated via shadowgen and
+	 * removes it from the cache.
+	 * @return False if the chunk wasn't cached, the caller should generate it.
+	 */
+	public boolean fillWorldGenChunkFromShadowChunk(ChunkCoordinate chunkCoord, org.bukkit.generator.ChunkGenerator.ChunkData chunk)
 	{
-		ChunkAccess cachedChunk = this.unloadedChunksCache.get(chunkCoord);
-		if(cachedChunk != null)
+		if(this.compactChunks)
 		{
-			return cachedChunk;
-		} else {
-			return null;
+			CompactChunk compactChunk = this.compactChunksCache.remove(chunkCoord);
+			if(compactChunk == null)
+			{
+				return false;
+			}
+			CraftChunkData data = (CraftChunkData) chunk;
+			for (int x = 0; x < Constants.CHUNK_SIZE; x++)
+			{
+				for (int z = 0; z < Constants.CHUNK_SIZE; z++)
+				{
+					int endY = compactChunk.getHighestBlockY(x, z);
+					for (int y = compactChunk.getMinY(); y <= endY; y++)
+					{
+						int id = compactChunk.getBlockId(x, y, z);
+						if(id != AIR_ID && id != MaterialPalette.NONE)
+						{
+							data.setRegion(x, y, z, x + 1, y + 1, z + 1, Block.stateById(id));
+						}
+					}
+				}
+			}
+			return true;
+		}
+
+		ChunkAccess cachedChunk = this.unloadedChunksCache.remove(chunkCoord);
+		if(cachedChunk == null)
+		{
+			return false;
 		}
-	}
 
-	public void fillWorldGenChunkFromShadowChunk(ChunkCoordinate chunkCoord, org.bukkit.generator.ChunkGenerator.ChunkData chunk, ChunkAccess cachedChunk)
-	{
 		// Re-use base terrain generated via shadowgen for worldgen.
 		// TODO: Find some way to clone/swap chunk data efficiently,
 		// like we do for forge with accesstransformers.
@@ -151,13 +186,48 @@ public class ShadowChunkGenerator
 			}
 		}
 
-		this.cacheHits++;
-		//OTG.log(LogMarker.INFO, "Cache hit " + this.cacheHits);
-		this.unloadedChunksCache.remove(chunkCoord);
+		return true;
 	}
 
-	public void fillWorldGenChunkFromShadowChunk(ChunkCoordinate chunkCoord, ChunkAccess chunk, ChunkAccess cachedChunk)
+	/**
+	 * Fills the chunk with the base terrain generated via shadowgen and
+	 * removes it from the cache.
+	 * @return False if the chunk wasn't cached, the caller should generate it.
+	 */
+	public boolean fillWorldGenChunkFromShadowChunk(ChunkCoordinate chunkCoord, ChunkAccess chunk)
 	{
+		if(this.compactChunks)
+		{
+			CompactChunk compactChunk = this.compactChunksCache.remove(chunkCoord);
+			if(compactChunk == null)
+			{
+				return false;
+			}
+			BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+			for (int x = 0; x < Constants.CHUNK_SIZE; x++)
+			{
+				for (int z = 0; z < Constants.CHUNK_SIZE; z++)
+				{
+					int endY = compactChunk.getHighestBlockY(x, z);
+					for (int y = compactChunk.getMinY(); y <= endY; y++)
+					{
+						int id = compactChunk.getBlockId(x, y, z);
+						if(id != AIR_ID && id != MaterialPalette.NONE)
+						{
+							chunk.setBlockState(pos.set(x, y, z), Block.stateById(id), false);
+						}
+					}
+				}
+			}
+			return true;
+		}
+
+		ChunkAccess cachedChunk = this.unloadedChunksCache.remove(chunkCoord);
+		if(cachedChunk == null)
+		{
+			return false;
+		}
+
 		// TODO: This is experimental and may be slower than not cloning it
 		/*
 		* As per the above comment written by Josh, the following code is experimental
@@ -194,15 +264,11 @@ public class ShadowChunkGenerator
 			}
 		}
 
-		this.cacheHits++;
-		//OTG.log(LogMarker.INFO, "Cache hit " + this.cacheHits);
-		this.unloadedChunksCache.remove(chunkCoord);
+		return true;
 	}
 
 	public void setChunkGenerated(ChunkCoordinate chunkCoord)
 	{
-		this.cacheMisses++;
-		//OTG.log(LogMarker.INFO, "Cache miss " + + this.cacheMisses);
 	}
 
 	// Vanilla structure detection (avoidance)
@@ -390,69 +456,71 @@ public class ShadowChunkGenerator
 	// BO4's and smoothing areas may do material and height checks in unloaded chunks during decoration.
 	// Shadowgen is used to do this without causing cascades. Shadowgenned chunks are requested on-demand for the worldgen thread (BO4's).
 
-	private LocalMaterialData[] getBlockColumnInUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, int x, int z, ServerLevel level)
+	// Returns the cached chunk, or shadowgens and caches it. Only used when CompactShadowChunks is false.
+	private ChunkAccess getFullUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, ChunkCoordinate chunkCoord, ServerLevel level)
 	{
-		BlockPos2D blockPos = new BlockPos2D(x, z);
-		ChunkCoordinate chunkCoord = ChunkCoordinate.fromBlockCoords(x, z);
-
-		// Get internal coordinates for block in chunk
-		byte blockX = (byte) (x & 0xF);
-		byte blockZ = (byte) (z & 0xF);
-
-		LocalMaterialData[] cachedColumn = this.unloadedBlockColumnsCache.get(blockPos);
-
-		if (cachedColumn != null)
-		{
-			return cachedColumn;
-		}
-
-		ChunkAccess chunk = getChunkFromCache(chunkCoord);
+		ChunkAccess chunk = this.unloadedChunksCache.get(chunkCoord);
 		if (chunk == null)
 		{
-			// Generate a chunk without loading/decorating it
+			// Generate a chunk without loading/decorating it. If it's too large for the cache
+			// (or the cache is disabled) it isn't cached, callers use the returned chunk.
 			chunk = getUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level).getChunk();
 			this.unloadedChunksCache.put(chunkCoord, chunk);
 		}
-		int totalHeight = otgChunkGenerator.getMaxY() - otgChunkGenerator.getMinY();
-		cachedColumn = new LocalMaterialData[totalHeight];
+		return chunk;
+	}
 
-		LocalMaterialData[] blocksInColumn = new LocalMaterialData[totalHeight];
-		BlockState blockInChunk;
-		for (int y = otgChunkGenerator.getMinY(); y <= otgChunkGenerator.getMaxY(); y++)
+	// Returns the cached chunk, or shadowgens and caches it. Only used when CompactShadowChunks is true.
+	private CompactChunk getCompactUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, ChunkCoordinate chunkCoord, ServerLevel level)
+	{
+		CompactChunk compactChunk = this.compactChunksCache.get(chunkCoord);
+		if (compactChunk == null)
 		{
-			blockInChunk = chunk.getBlockState(new BlockPos(blockX, y, blockZ));
-			if (blockInChunk != null)
-			{
-				blocksInColumn[Math.max(y,0)] = PaperMaterialData.ofBlockData(blockInChunk);
-			} else {
-				break;
-			}
+			// Generate a chunk without loading/decorating it. If it's too large for the cache
+			// (or the cache is disabled) it isn't cached, callers use the returned chunk.
+			compactChunk = CompactChunk.of(getUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level), otgChunkGenerator.getMinY(), otgChunkGenerator.getMaxY());
+			this.compactChunksCache.put(chunkCoord, compactChunk);
 		}
-		this.unloadedBlockColumnsCache.put(blockPos, cachedColumn);
-
-		return blocksInColumn;
+		return compactChunk;
 	}
 
 	public LocalMaterialData getMaterialInUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, int x, int y, int z, ServerLevel level)
 	{
-		LocalMaterialData[] blockColumn = getBlockColumnInUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, x, z, level);
-		return blockColumn[y];
+		ChunkCoordinate chunkCoord = ChunkCoordinate.fromBlockCoords(x, z);
+		int blockId;
+		if(this.compactChunks)
+		{
+			blockId = getCompactUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level).getBlockId(x & 0xF, y, z & 0xF);
+		} else {
+			blockId = Block.getId(getFullUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level).getBlockState(new BlockPos(x & 0xF, y, z & 0xF)));
+		}
+		return MaterialPalette.getMaterial(blockId);
 	}
 
 	public int getHighestBlockYInUnloadedChunk(OTGChunkGenerator otgChunkGenerator, int worldHeightCap, Random worldRandom, int x, int z, boolean findSolid, boolean findLiquid, boolean ignoreLiquid, boolean ignoreSnow, ServerLevel level)
 	{
 		int height = -1;
 
-		LocalMaterialData[] blockColumn = getBlockColumnInUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, x, z, level);
-		PaperMaterialData material;
+		// Fetch the chunk once for the whole column, it may not be
+		// cached if it doesn't fit in the cache.
+		ChunkCoordinate chunkCoord = ChunkCoordinate.fromBlockCoords(x, z);
+		CompactChunk compactChunk = this.compactChunks ? getCompactUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level) : null;
+		ChunkAccess chunk = this.compactChunks ? null : getFullUnloadedChunk(otgChunkGenerator, worldHeightCap, worldRandom, chunkCoord, level);
+		BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+		// Get internal coordinates for block in chunk
+		int blockX = x & 0xF;
+		int blockZ = z & 0xF;
+
+		int material;
 		boolean isLiquid;
 		boolean isSolid;
 
 		for (int y = 255; y >= 0; y--)
 		{
-			material = (PaperMaterialData) blockColumn[y];
-			isLiquid = material.isLiquid();
-			isSolid = material.isSolid() || (!ignoreSnow && material.isMaterial(LocalMaterials.SNOW));
+			material = compactChunk != null ? compactChunk.getBlockId(blockX, y, blockZ) : Block.getId(chunk.getBlockState(pos.set(blockX, y, blockZ)));
+			isLiquid = MaterialPalette.is(material, MaterialPalette.LIQUID);
+			isSolid = MaterialPalette.is(material, MaterialPalette.SOLID) || (!ignoreSnow && MaterialPalette.isMaterial(material, LocalMaterials.SNOW));
 			if (!(isLiquid && ignoreLiquid))
 			{
 				if ((findSolid && isSolid) || (findLiquid && isLiquid))
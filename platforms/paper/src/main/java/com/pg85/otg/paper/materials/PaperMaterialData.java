@@ -3,10 +3,12 @@ package com.pg85.otg.paper.materials;
 import com.pg85.otg.util.OTGDirection;
 import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterialTag;
+import com.pg85.otg.util.materials.MaterialPalette;
 import com.pg85.otg.util.materials.MaterialProperties;
 import com.pg85.otg.util.materials.MaterialProperty;
 
 import net.minecraft.core.Direction;
+import net.minecraft.core.Registry;
 import net.minecraft.tags.Tag;
 import net.minecraft.tags.TagKey;
 import net.minecraft.world.level.block.*;
@@ -32,6 +34,7 @@ public class PaperMaterialData extends LocalMaterialData
 	private static final ConcurrentHashMap<BlockState, LocalMaterialData> stateToMaterialDataMap = new ConcurrentHashMap<>(); // TODO: Move to SpigotMaterialReader?
 
 	private final BlockState blockData;
+	private final int paletteId;
 	private String name = null;
 
 	private PaperMaterialData(BlockState blockData, String raw)
@@ -44,6 +47,20 @@ public class PaperMaterialData extends LocalMaterialData
 		this.blockData = blockData;
 		this.rawEntry = raw;
 		this.isBlank = isBlank;
+		this.paletteId = blockData == null ? MaterialPalette.NONE : Block.getId(blockData);
+	}
+
+	/**
+	 * Registers all block states in the MaterialPalette, palette ids
+	 * are block state ids. Should be called once on startup.
+	 */
+	static void registerPalette()
+	{
+		for (int id = MaterialPalette.size(); id < Block.BLOCK_STATE_REGISTRY.size(); id++)
+		{
+			BlockState blockState = Block.stateById(id);
+			MaterialPalette.register(ofBlockData(blockState), Registry.BLOCK.getId(blockState.getBlock()));
+		}
 	}
 
 	public static LocalMaterialData ofBlockData(BlockState blockData)
@@ -73,6 +90,12 @@ public class PaperMaterialData extends LocalMaterialData
 		return ofBlockData(((CraftBlockData)type.createBlockData()).getState(), null);
 	}
 
+	@Override
+	public int getPaletteId()
+	{
+		return this.paletteId;
+	}
+
 	public BlockState internalBlock()
 	{
 		return this.blockData;
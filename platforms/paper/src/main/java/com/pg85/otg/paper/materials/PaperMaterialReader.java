@@ -12,6 +12,9 @@ import com.pg85.otg.util.materials.LocalMaterialData;
 import com.pg85.otg.util.materials.LocalMaterialTag;
 import com.pg85.otg.util.minecraft.BlockNames;
 
+import java.util.Collections;
+import java.util.Map;
+
 import net.minecraft.ResourceLocationException;
 import net.minecraft.commands.arguments.blocks.BlockStateParser;
 import net.minecraft.core.Registry;
@@ -24,8 +27,9 @@ import net.minecraft.world.level.block.state.BlockState;
 public class PaperMaterialReader implements IMaterialReader
 {
 	// TODO: Smaller caches should be ok, only most frequently used should be cached?
-	private final FifoMap<String, LocalMaterialData> cachedMaterials = new FifoMap<>(4096);
-	private final FifoMap<String, LocalMaterialTag> cachedTags = new FifoMap<>(4096);	
+	// Synchronized, custom objects may be loaded by several threads at once.
+	private final Map<String, LocalMaterialData> cachedMaterials = Collections.synchronizedMap(new FifoMap<>(4096));
+	private final Map<String, LocalMaterialTag> cachedTags = Collections.synchronizedMap(new FifoMap<>(4096));	
 
 	@Override
 	public LocalMaterialData readMaterial(String material) throws InvalidConfigException
@@ -349,5 +349,8 @@ public class PaperMaterials extends LocalMaterials
 		BERRY_BUSH = PaperMaterialData.ofBlockData(Blocks.SWEET_BERRY_BUSH.defaultBlockState());
 		RAW_IRON_BLOCK = PaperMaterialData.ofBlockData(Blocks.RAW_IRON_BLOCK.defaultBlockState());
 		RAW_COPPER_BLOCK = PaperMaterialData.ofBlockData(Blocks.RAW_COPPER_BLOCK.defaultBlockState());
+
+		// Integer ids for all block states, used by carvers and surface generation
+		PaperMaterialData.registerPalette();
 	}
 }
@@ -18,6 +18,7 @@ include(
     "common:common-customobject",
     "common:common-generator",
     "common:common-core",
+    "common:common-benchmarks",
     //"platforms:forge",
     //"platforms:fabric",
     "platforms:paper",